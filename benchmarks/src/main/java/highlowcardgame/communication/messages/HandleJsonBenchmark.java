@@ -0,0 +1,99 @@
+package highlowcardgame.communication.messages;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Encoding and decoding of every message type with every {@link HandleJson.Backend}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandleJsonBenchmark {
+
+  @Param({
+    "GameStateNotification",
+    "GuessRequest",
+    "JoinGameRequest",
+    "PlayerGuessedNotification",
+    "PlayerJoinedNotification",
+    "PlayerLeftNotification"
+  })
+  String messageType;
+
+  @Param({"MOSHI", "STREAMING"})
+  HandleJson.Backend backend;
+
+  private Message message;
+  private String json;
+  private byte[] jsonBytes;
+  private final OutputBuffer buffer = new OutputBuffer();
+
+  /** Selects the backend and encodes the message once to have something to decode. */
+  @Setup
+  public void setUp() {
+    HandleJson.setBackend(backend);
+    message = createMessage(messageType);
+    json = HandleJson.encode(message);
+    jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Message createMessage(String messageType) {
+    switch (messageType) {
+      case "GameStateNotification":
+        return new GameStateNotification(new Card(Card.Suit.HEARTS, 12), 1234, "player42", 56);
+      case "GuessRequest":
+        return new GuessRequest(Guess.HIGH, "player42");
+      case "JoinGameRequest":
+        return new JoinGameRequest("player42", List.of(BinaryCodec.CAPABILITY));
+      case "PlayerGuessedNotification":
+        return new PlayerGuessedNotification(17, "player42");
+      case "PlayerJoinedNotification":
+        return new PlayerJoinedNotification("player42", 18);
+      case "PlayerLeftNotification":
+        return new PlayerLeftNotification(17, "player42");
+      default:
+        throw new AssertionError("Unknown message type " + messageType);
+    }
+  }
+
+  @Benchmark
+  public String encode() {
+    return HandleJson.encode(message);
+  }
+
+  /** Encodes into a reused buffer, as the server does. */
+  @Benchmark
+  public OutputBuffer encodeToBuffer() {
+    buffer.reset();
+    HandleJson.encode(message, buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public Message decode() throws IOException {
+    return HandleJson.decode(json);
+  }
+
+  /** Decodes from the received bytes, as the server does. */
+  @Benchmark
+  public Message decodeBytes() throws IOException {
+    return HandleJson.decode(jsonBytes, 0, jsonBytes.length);
+  }
+}
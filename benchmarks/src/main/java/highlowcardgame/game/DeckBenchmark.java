@@ -0,0 +1,74 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing a card from each {@link Deck}, with a deck per thread. {@link #drawShared} draws from one
+ * {@link InfiniteShuffledDeck} on four threads, showing the contention on the seed of its {@link
+ * java.util.Random} that decks with their own generator avoid.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+  /** A deck per benchmark thread. */
+  @State(Scope.Thread)
+  public static class PerThread {
+    @Param({"shuffled", "splittable", "shoe"})
+    String deck;
+
+    Deck cards;
+
+    /** Creates the deck. */
+    @Setup
+    public void setUp() {
+      switch (deck) {
+        case "shuffled":
+          cards = new InfiniteShuffledDeck(Card.getAllValidCards(), 42);
+          break;
+        case "splittable":
+          cards = new SplittableRandomDeck(Card.getAllValidCards(), 42);
+          break;
+        case "shoe":
+          cards = new Shoe(6, 0.75, 42);
+          break;
+        default:
+          throw new AssertionError("Unknown deck " + deck);
+      }
+    }
+  }
+
+  /** One deck, and thus one {@link java.util.Random}, shared by all benchmark threads. */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    final InfiniteShuffledDeck deck = new InfiniteShuffledDeck(Card.getAllValidCards(), 42);
+  }
+
+  @Benchmark
+  public Card draw(PerThread state) throws NoNextCardException {
+    return state.cards.getNextCard();
+  }
+
+  /** Draws from the current deck while all threads share its generator. */
+  @Benchmark
+  @Threads(4)
+  public Card drawShared(Shared state) {
+    return state.deck.getNextCard();
+  }
+}
@@ -0,0 +1,78 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The transitions of a {@link GameState} at a table of the given size. Every benchmark leaves the
+ * table as it found it, so the cost per call does not drift while the benchmark runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  int players;
+
+  private GameState state;
+  private NoOpPlayer[] seated;
+  private Player guesser;
+  private Player newcomer;
+  private Card nextCard;
+
+  /** Seats the players and lets all but one of them guess. */
+  @Setup
+  public void setUp() {
+    InfiniteShuffledDeck deck = new InfiniteShuffledDeck(Card.getAllValidCards(), 42);
+    seated = NoOpPlayer.create(players);
+    GameState seating = new GameState(deck).nextRound(deck.getNextCard());
+    for (Player player : seated) {
+      seating = seating.addPlayer(player);
+    }
+    for (int i = 1; i < seated.length; i++) {
+      seating.submitGuess(seated[i], Guess.values()[i % Guess.values().length]);
+    }
+    state = seating;
+    guesser = seated[0];
+    newcomer = new NoOpPlayer("newcomer");
+    nextCard = deck.getNextCard();
+  }
+
+  /** Seats a player and lets it leave again, which frees its seat for the next invocation. */
+  @Benchmark
+  public GameState addAndRemovePlayer() {
+    return state.addPlayer(newcomer).removePlayer(newcomer);
+  }
+
+  /** Adds a guess to a detached copy of the state, which copies the guesses of the round. */
+  @Benchmark
+  public GameState addGuess() {
+    return state.addGuess(guesser, Guess.LOW);
+  }
+
+  /** Lets every player guess, scores the guesses and starts the next round. */
+  @Benchmark
+  public GameState round() {
+    Guess[] guesses = Guess.values();
+    for (int i = 0; i < seated.length; i++) {
+      state.submitGuess(seated[i], guesses[i % guesses.length]);
+    }
+    state.scoreGuesses(Guess.HIGH, 1);
+    return state.nextRound(nextCard);
+  }
+}
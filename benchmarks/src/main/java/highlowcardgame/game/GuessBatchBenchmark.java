@@ -0,0 +1,73 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Guesses per second of a complete round at a large table, applied one by one with {@link
+ * HighLowCardGame#guess}, i.e. with batches of 1, or in batches with {@link
+ * HighLowCardGame#guessAll}. Every application notifies all players, so one by one a round costs
+ * quadratically many notifications in the number of players.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuessBatchBenchmark {
+  private static final int PLAYERS = 10_000;
+  private static final IntConsumer IGNORED = numNotGuessedPlayers -> {};
+
+  @Param({"1", "16", "256"})
+  int batchSize;
+
+  private HighLowCardGame game;
+  private NoOpPlayer[] seated;
+  private GuessBatch batch;
+
+  /** Starts a game and seats the players. */
+  @Setup
+  public void setUp() throws NoNextCardException {
+    game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 42));
+    game.start();
+    seated = NoOpPlayer.create(PLAYERS);
+    for (Player player : seated) {
+      game.addPlayer(player);
+    }
+    batch = new GuessBatch(batchSize);
+  }
+
+  /** Plays one round, counted as one operation per guess. */
+  @Benchmark
+  @OperationsPerInvocation(PLAYERS)
+  public GameState round() throws NoNextCardException {
+    Guess[] guesses = Guess.values();
+    for (int i = 0; i < seated.length; i++) {
+      if (batchSize == 1) {
+        game.guess(seated[i], guesses[i % guesses.length], IGNORED);
+        continue;
+      }
+      batch.add(seated[i], guesses[i % guesses.length], IGNORED);
+      if (batch.isFull() || i == seated.length - 1) {
+        game.guessAll(batch);
+        batch.clear();
+      }
+    }
+    return game.getState();
+  }
+}
@@ -0,0 +1,58 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A complete round of {@link HighLowCardGame#guess}: every player guesses once, and the last guess
+ * scores the round and draws the next card. Scores keep growing across invocations, which does not
+ * change the work of a round.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighLowCardGameBenchmark {
+
+  // every guess copies the guesses so far, so a round is quadratic in the number of players
+  @Param({"10", "100", "1000"})
+  int players;
+
+  private HighLowCardGame game;
+  private NoOpPlayer[] seated;
+
+  /** Starts a game and seats the players. */
+  @Setup
+  public void setUp() throws NoNextCardException {
+    game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 42));
+    game.start();
+    seated = NoOpPlayer.create(players);
+    for (Player player : seated) {
+      game.addPlayer(player);
+    }
+  }
+
+  /** Plays one round and returns its final state. */
+  @Benchmark
+  public GameState round() throws NoNextCardException {
+    Guess[] guesses = Guess.values();
+    for (int i = 0; i < seated.length; i++) {
+      game.guess(seated[i], guesses[i % guesses.length]);
+    }
+    return game.getState();
+  }
+}
@@ -0,0 +1,103 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of journaling on the guess path: a guess that does not complete the round, without a
+ * journal and with a {@link MappedJournal} committing every 10 ms. Four threads guess at once, as
+ * the players of a table do, so the contention on the position of the segment is included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JournalBenchmark {
+  private static final int PLAYERS = 64;
+
+  /** A game shared by all benchmark threads, whose last player never guesses. */
+  @State(Scope.Benchmark)
+  public static class Table {
+    @Param({"none", "mapped"})
+    String journal;
+
+    HighLowCardGame game;
+    NoOpPlayer[] seated;
+    private Path directory;
+    private MappedJournal mappedJournal;
+
+    /** Starts the game and seats the players. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, NoNextCardException {
+      game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 42));
+      if ("mapped".equals(journal)) {
+        directory = Files.createTempDirectory("journal-benchmark");
+        mappedJournal = MappedJournal.open(directory, MappedJournal.DEFAULT_SEGMENT_BYTES, 10);
+        game.setJournal(mappedJournal);
+      }
+      game.start();
+      seated = NoOpPlayer.create(PLAYERS);
+      for (Player player : seated) {
+        game.addPlayer(player);
+      }
+    }
+
+    /** Closes the journal and deletes its segments. */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      if (mappedJournal == null) {
+        return;
+      }
+      mappedJournal.close();
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  /** The players one benchmark thread guesses for. */
+  @State(Scope.Thread)
+  public static class Guesser {
+    private int next;
+
+    /** Starts every thread at another player. */
+    @Setup
+    public void setUp() {
+      next = (int) (Thread.currentThread().getId() * 101 % (PLAYERS - 1));
+    }
+
+    NoOpPlayer nextPlayer(Table table) {
+      next = next == PLAYERS - 2 ? 0 : next + 1;
+      return table.seated[next];
+    }
+  }
+
+  @Benchmark
+  public void guess(Table table, Guesser guesser) throws NoNextCardException {
+    table.game.guess(guesser.nextPlayer(table), Guess.HIGH);
+  }
+}
@@ -0,0 +1,33 @@
+package highlowcardgame.game;
+
+/** A player that ignores all notifications, so benchmarks only measure the game itself. */
+public final class NoOpPlayer implements Player {
+  private final String name;
+
+  public NoOpPlayer(String name) {
+    this.name = name;
+  }
+
+  /** Creates the given number of players named {@code player0}, {@code player1}, and so on. */
+  public static NoOpPlayer[] create(int count) {
+    NoOpPlayer[] players = new NoOpPlayer[count];
+    for (int i = 0; i < count; i++) {
+      players[i] = new NoOpPlayer("player" + i);
+    }
+    return players;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void updateState(GameState state) {}
+
+  @Override
+  public void updateNewPlayer(String playerName, GameState state) {}
+
+  @Override
+  public void updateRemovedPlayer(String playerName, GameState state) {}
+}
@@ -0,0 +1,73 @@
+package highlowcardgame.game;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The map update behind every {@link GameState} transition: the persistent map next to the copy of
+ * a {@link HashMap} into {@link Map#copyOf} that the states used before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentHashMapBenchmark {
+
+  @Param({"1000", "50000"})
+  int players;
+
+  private Map<Player, HighLowCardGame.Guess> copied;
+  private PersistentHashMap<Player, HighLowCardGame.Guess> persistent;
+  private Player guesser;
+
+  /** Fills both maps with a guess of every player but one. */
+  @Setup
+  public void setUp() {
+    NoOpPlayer[] seated = NoOpPlayer.create(players);
+    Map<Player, HighLowCardGame.Guess> guesses = new HashMap<>();
+    persistent = PersistentHashMap.empty();
+    for (int i = 1; i < seated.length; i++) {
+      guesses.put(seated[i], HighLowCardGame.Guess.HIGH);
+      persistent = persistent.plus(seated[i], HighLowCardGame.Guess.HIGH);
+    }
+    copied = Map.copyOf(guesses);
+    guesser = seated[0];
+  }
+
+  /** Adds a guess the way the states did before they used persistent maps. */
+  @Benchmark
+  public Map<Player, HighLowCardGame.Guess> copyOnWritePut() {
+    Map<Player, HighLowCardGame.Guess> newGuesses = new HashMap<>(copied);
+    newGuesses.put(guesser, HighLowCardGame.Guess.LOW);
+    return Map.copyOf(newGuesses);
+  }
+
+  @Benchmark
+  public Map<Player, HighLowCardGame.Guess> persistentPut() {
+    return persistent.plus(guesser, HighLowCardGame.Guess.LOW);
+  }
+
+  @Benchmark
+  public HighLowCardGame.Guess copyOnWriteGet() {
+    return copied.get(guesser);
+  }
+
+  @Benchmark
+  public HighLowCardGame.Guess persistentGet() {
+    return persistent.get(guesser);
+  }
+}
@@ -0,0 +1,60 @@
+package highlowcardgame.game.observable;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.GameState;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.InfiniteShuffledDeck;
+import highlowcardgame.game.NoOpPlayer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fans a state notification out to observers that ignore it. In asynchronous mode the queues are
+ * drained on the notifying thread, so the result is the overhead of queueing per observer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObserverSupportBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  int observers;
+
+  @Param({"sync", "async"})
+  String dispatch;
+
+  private ObserverSupport support;
+  private GameState state;
+
+  /** Subscribes the observers. */
+  @Setup
+  public void setUp() {
+    support =
+        dispatch.equals("async")
+            ? new ObserverSupport(Runnable::run, 1, SlowConsumerPolicy.COLLAPSE_TO_LATEST_STATE)
+            : new ObserverSupport();
+    for (NoOpPlayer observer : NoOpPlayer.create(observers)) {
+      support.subscribe(observer);
+    }
+    state = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 42)).getState();
+  }
+
+  @Benchmark
+  public void notifyAboutState() {
+    support.notifyAboutState(state);
+    support.flush();
+  }
+}
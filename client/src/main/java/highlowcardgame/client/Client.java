@@ -1,23 +1,31 @@
 package highlowcardgame.client;
 
+import highlowcardgame.communication.messages.BinaryCodec;
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
 import highlowcardgame.communication.messages.GameStateNotification;
 import highlowcardgame.communication.messages.GuessRequest;
 import highlowcardgame.communication.messages.HandleJson;
 import highlowcardgame.communication.messages.JoinGameRequest;
+import highlowcardgame.communication.messages.KeyframeRequest;
+import highlowcardgame.communication.messages.LeaderboardNotification;
 import highlowcardgame.communication.messages.Message;
 import highlowcardgame.communication.messages.PlayerGuessedNotification;
 import highlowcardgame.communication.messages.PlayerJoinedNotification;
 import highlowcardgame.communication.messages.PlayerLeftNotification;
 import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /** Network client to play a {@link highlowcardgame.game.HighLowCardGame}. */
@@ -28,6 +36,37 @@ public final class Client {
 
   Shell shell = new Shell(new Scanner(System.in, StandardCharsets.UTF_8), System.out);
 
+  private final boolean offerBinary;
+  private final boolean offerDeltas;
+  private final GameStateModel model = new GameStateModel();
+  private OutputStream rawOutput;
+  private boolean binary = false;
+
+  /** Creates a client speaking JSON only. */
+  public Client() {
+    this(false);
+  }
+
+  /**
+   * Creates a client.
+   *
+   * @param offerBinary whether to offer the {@link BinaryCodec binary format} to the server
+   */
+  public Client(boolean offerBinary) {
+    this(offerBinary, false);
+  }
+
+  /**
+   * Creates a client.
+   *
+   * @param offerBinary whether to offer the {@link BinaryCodec binary format} to the server
+   * @param offerDeltas whether to offer receiving {@link GameStateDeltaNotification state deltas}
+   */
+  public Client(boolean offerBinary, boolean offerDeltas) {
+    this.offerBinary = offerBinary;
+    this.offerDeltas = offerDeltas;
+  }
+
   /**
    * Entry to <code>Client</code>.
    *
@@ -38,6 +77,8 @@ public final class Client {
     String username = DEFAULT_USERNAME;
     String serverAddress = DEFAULT_ADDRESS;
     int port = DEFAULT_PORT;
+    boolean offerBinary = false;
+    boolean offerDeltas = false;
     for (int i = 0; i < args.length; ++i) {
       switch (args[i]) {
         case "--username":
@@ -69,6 +110,12 @@ public final class Client {
             return;
           }
           break;
+        case "--binary":
+          offerBinary = true;
+          break;
+        case "--delta":
+          offerDeltas = true;
+          break;
         case "--help":
         default:
           printHelpMessage();
@@ -99,7 +146,7 @@ public final class Client {
     // start a client
     InetSocketAddress address = new InetSocketAddress(inetAddress, port);
 
-    Client client = new Client();
+    Client client = new Client(offerBinary, offerDeltas);
     try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
       client.start(username, socket);
     } catch (IOException e) {
@@ -119,9 +166,11 @@ public final class Client {
     return username != null && !username.isBlank();
   }
 
+  /** Prints the command-line usage of the client. */
   public static void printHelpMessage() {
     System.out.println(
-        "java Client [--username <String>] [--address <String>] [--port <int>] [--help]");
+        "java Client [--username <String>] [--address <String>] [--port <int>] [--binary]"
+            + " [--delta] [--help]");
   }
 
   private static void printErrorMessage(String str) {
@@ -137,21 +186,40 @@ public final class Client {
    * @throws IOException collecting all problems when receiving/sending a message
    */
   public void start(String username, Socket socket) throws IOException {
-    PrintWriter clientOutput =
-        new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    rawOutput = socket.getOutputStream();
+    PrintWriter clientOutput = new PrintWriter(rawOutput, true, StandardCharsets.UTF_8);
+    BufferedInputStream rawInput = new BufferedInputStream(socket.getInputStream());
     BufferedReader clientInput =
-        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
-    clientOutput.println(HandleJson.encode(new JoinGameRequest(username)));
+        new BufferedReader(new InputStreamReader(rawInput, StandardCharsets.UTF_8));
+    List<String> capabilities = new ArrayList<>();
+    if (offerBinary) {
+      capabilities.add(BinaryCodec.CAPABILITY);
+    }
+    if (offerDeltas) {
+      capabilities.add(GameStateDeltaNotification.CAPABILITY);
+    }
+    clientOutput.println(HandleJson.encode(new JoinGameRequest(username, capabilities)));
+    if (offerBinary) {
+      // a server that accepted the offer answers with a binary frame instead of a JSON object
+      rawInput.mark(1);
+      binary = rawInput.read() != '{';
+      rawInput.reset();
+    }
 
     boolean gameIsRunning = true;
 
     while (gameIsRunning) {
       try {
-        String clientIn = clientInput.readLine();
-        if (clientIn == null) {
+        Message decodedString;
+        if (binary) {
+          decodedString = BinaryCodec.read(rawInput);
+        } else {
+          String clientIn = clientInput.readLine();
+          decodedString = clientIn == null ? null : HandleJson.decode(clientIn);
+        }
+        if (decodedString == null) {
           break;
         }
-        Message decodedString = HandleJson.decode(clientIn);
 
         if (decodedString instanceof PlayerJoinedNotification) {
           handlePlayerJoinedNotification(decodedString);
@@ -161,6 +229,10 @@ public final class Client {
           handlePlayerGuessedNotification(decodedString);
         } else if (decodedString instanceof GameStateNotification) {
           handleGameStateNotification(decodedString, clientOutput, username);
+        } else if (decodedString instanceof GameStateDeltaNotification) {
+          handleGameStateDeltaNotification(decodedString, clientOutput, username);
+        } else if (decodedString instanceof LeaderboardNotification) {
+          shell.showServerMessage(decodedString);
         } else {
           throw new AssertionError("Unknown message type!");
         }
@@ -176,10 +248,33 @@ public final class Client {
   }
 
   private void handleGameStateNotification(
-      Message decodedString, PrintWriter clientOutput, String username) {
+      Message decodedString, PrintWriter clientOutput, String username) throws IOException {
     shell.showServerMessage(decodedString);
     Guess actualGuess = shell.getUserInputGuess();
-    clientOutput.println(HandleJson.encode(new GuessRequest(actualGuess, username)));
+    send(new GuessRequest(actualGuess, username), clientOutput);
+  }
+
+  private void handleGameStateDeltaNotification(
+      Message decodedString, PrintWriter clientOutput, String username) throws IOException {
+    GameStateNotification state = model.apply((GameStateDeltaNotification) decodedString);
+    if (state == null) {
+      // a missed delta, the next keyframe repairs the state
+      KeyframeRequest request = model.takeKeyframeRequest();
+      if (request != null) {
+        send(request, clientOutput);
+      }
+      return;
+    }
+    handleGameStateNotification(state, clientOutput, username);
+  }
+
+  private void send(Message message, PrintWriter clientOutput) throws IOException {
+    if (binary) {
+      rawOutput.write(BinaryCodec.encode(message));
+      rawOutput.flush();
+    } else {
+      clientOutput.println(HandleJson.encode(message));
+    }
   }
 
   private void handlePlayerLeftNotification(Message decodedString) {
@@ -0,0 +1,54 @@
+package highlowcardgame.client;
+
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.communication.messages.KeyframeRequest;
+
+/**
+ * The game state of a client receiving {@link GameStateDeltaNotification}s, rebuilt by applying
+ * them in the order of their sequence numbers. After a gap, the deltas are ignored until the next
+ * keyframe, which the client asks for once.
+ */
+final class GameStateModel {
+  private GameStateNotification state;
+  private int sequence = 0;
+  private boolean keyframeRequested = false;
+
+  /**
+   * Applies the notification to the state.
+   *
+   * @param delta the next notification received
+   * @return the state after the notification, or null if the notification cannot be applied because
+   *     one before it was missed, see {@link #takeKeyframeRequest()}
+   */
+  GameStateNotification apply(GameStateDeltaNotification delta) {
+    if (delta.isKeyframe()) {
+      keyframeRequested = false;
+    } else if (state == null || delta.getSequence() != sequence + 1) {
+      state = null;
+      return null;
+    }
+    state = delta.applyTo(state);
+    sequence = delta.getSequence();
+    return state;
+  }
+
+  /**
+   * Returns the request for a keyframe to send after a notification could not be applied, only once
+   * until the keyframe arrives.
+   *
+   * @return the request, or null if there is nothing to request
+   */
+  KeyframeRequest takeKeyframeRequest() {
+    if (state != null || keyframeRequested) {
+      return null;
+    }
+    keyframeRequested = true;
+    return new KeyframeRequest(sequence);
+  }
+
+  /** Returns the current state, or null before the first keyframe and after a gap. */
+  GameStateNotification getState() {
+    return state;
+  }
+}
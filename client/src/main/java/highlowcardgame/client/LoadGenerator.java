@@ -0,0 +1,401 @@
+package highlowcardgame.client;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load generator for a {@link highlowcardgame.game.HighLowCardGame} server. It connects
+ * many {@link SimulatedPlayer}s, lets them play for a while and reports the round-trip latency of
+ * their guesses, the rate of rounds and the number of lost connections.
+ */
+public final class LoadGenerator {
+  private static final int DEFAULT_PORT = 4441;
+  private static final String DEFAULT_ADDRESS = "localhost";
+  private static final int DEFAULT_PLAYERS = 100;
+  private static final int DEFAULT_DURATION_SECONDS = 30;
+  // every connection is read by its own thread, which does not need much of a stack
+  private static final long PLAYER_STACK_SIZE = 256 * 1024;
+
+  /** How a simulated player chooses its guess. */
+  enum Strategy {
+    /** Any guess, with equal probability. */
+    RANDOM,
+    /** Always {@link Guess#HIGH}. */
+    HIGH,
+    /** Always {@link Guess#LOW}. */
+    LOW,
+    /** The more likely of {@link Guess#HIGH} and {@link Guess#LOW}, like a sensible human. */
+    SMART;
+
+    Guess choose(Card currentCard) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      switch (this) {
+        case RANDOM:
+          return Guess.values()[random.nextInt(Guess.values().length)];
+        case HIGH:
+          return Guess.HIGH;
+        case LOW:
+          return Guess.LOW;
+        case SMART:
+        default:
+          if (currentCard.getValue() == 7) {
+            return random.nextBoolean() ? Guess.HIGH : Guess.LOW;
+          }
+          return currentCard.getValue() < 7 ? Guess.HIGH : Guess.LOW;
+      }
+    }
+  }
+
+  /** How long a simulated player thinks before it guesses. */
+  enum ThinkTime {
+    /** Always the mean. */
+    FIXED,
+    /** Uniformly distributed between zero and twice the mean. */
+    UNIFORM,
+    /** Exponentially distributed around the mean, i.e. mostly quick with a long tail. */
+    EXPONENTIAL;
+
+    long sampleMillis(long meanMillis) {
+      if (meanMillis == 0) {
+        return 0;
+      }
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      switch (this) {
+        case FIXED:
+          return meanMillis;
+        case UNIFORM:
+          return random.nextLong(2 * meanMillis + 1);
+        case EXPONENTIAL:
+        default:
+          return Math.round(-meanMillis * Math.log(1 - random.nextDouble()));
+      }
+    }
+  }
+
+  /** The behavior shared by all simulated players of a run. */
+  static final class Settings {
+    final boolean offerBinary;
+    final boolean offerDeltas;
+    final Strategy strategy;
+    final ThinkTime thinkTime;
+    final long thinkMillis;
+
+    Settings(
+        boolean offerBinary,
+        boolean offerDeltas,
+        Strategy strategy,
+        ThinkTime thinkTime,
+        long thinkMillis) {
+      this.offerBinary = offerBinary;
+      this.offerDeltas = offerDeltas;
+      this.strategy = strategy;
+      this.thinkTime = thinkTime;
+      this.thinkMillis = thinkMillis;
+    }
+  }
+
+  /** The measurements of a run, updated concurrently by all simulated players. */
+  static final class Results {
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong failedToConnect = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private final AtomicLong rounds = new AtomicLong();
+
+    void connected() {
+      connected.incrementAndGet();
+    }
+
+    void failedToConnect() {
+      failedToConnect.incrementAndGet();
+    }
+
+    void disconnected() {
+      disconnected.incrementAndGet();
+    }
+
+    void roundCompleted() {
+      rounds.incrementAndGet();
+    }
+
+    void guessAnswered(long latencyMicros) {
+      latencies.record(latencyMicros);
+    }
+
+    /** Returns the report of a run that lasted the given time. */
+    String report(double seconds) {
+      long guesses = latencies.count();
+      long players = Math.max(1, connected.get());
+      return String.format(
+          Locale.ROOT,
+          "connections: %d connected, %d failed to connect, %d disconnected%n"
+              + "guesses: %d answered, %.1f/s%n"
+              + "rounds: %.2f/s per player%n"
+              + "guess round trip (us): p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+          connected.get(),
+          failedToConnect.get(),
+          disconnected.get(),
+          guesses,
+          guesses / seconds,
+          rounds.get() / seconds / players,
+          latencies.percentile(50),
+          latencies.percentile(90),
+          latencies.percentile(99),
+          latencies.percentile(99.9),
+          latencies.percentile(100));
+    }
+  }
+
+  private LoadGenerator() {}
+
+  /**
+   * Entry to <code>LoadGenerator</code>.
+   *
+   * @param args command-line arguments
+   * @throws InterruptedException if interrupted while the players are playing
+   */
+  public static void main(String[] args) throws InterruptedException {
+    // parse arguments
+    String serverAddress = DEFAULT_ADDRESS;
+    int port = DEFAULT_PORT;
+    int players = DEFAULT_PLAYERS;
+    int durationSeconds = DEFAULT_DURATION_SECONDS;
+    int rampUpSeconds = 0;
+    String namePrefix = "load";
+    Strategy strategy = Strategy.SMART;
+    ThinkTime thinkTime = ThinkTime.EXPONENTIAL;
+    long thinkMillis = 0;
+    boolean offerBinary = false;
+    boolean offerDeltas = false;
+    for (int i = 0; i < args.length; ++i) {
+      switch (args[i]) {
+        case "--address":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the server address.");
+            return;
+          }
+          ++i;
+          serverAddress = args[i];
+          break;
+        case "--port":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the port number.");
+            return;
+          }
+          try {
+            ++i;
+            port = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid port number: " + args[i]);
+            return;
+          }
+          break;
+        case "--players":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of players.");
+            return;
+          }
+          try {
+            ++i;
+            players = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of players: " + args[i]);
+            return;
+          }
+          break;
+        case "--duration":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the duration in seconds.");
+            return;
+          }
+          try {
+            ++i;
+            durationSeconds = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid duration: " + args[i]);
+            return;
+          }
+          break;
+        case "--ramp-up":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the ramp-up time in seconds.");
+            return;
+          }
+          try {
+            ++i;
+            rampUpSeconds = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid ramp-up time: " + args[i]);
+            return;
+          }
+          break;
+        case "--name-prefix":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the name prefix.");
+            return;
+          }
+          ++i;
+          namePrefix = args[i];
+          break;
+        case "--strategy":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the strategy.");
+            return;
+          }
+          ++i;
+          try {
+            strategy = Strategy.valueOf(args[i].toUpperCase(Locale.ROOT));
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid strategy: " + args[i]);
+            return;
+          }
+          break;
+        case "--think-time":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the mean think time in milliseconds.");
+            return;
+          }
+          try {
+            ++i;
+            thinkMillis = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid think time: " + args[i]);
+            return;
+          }
+          break;
+        case "--think-distribution":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the think time distribution.");
+            return;
+          }
+          ++i;
+          try {
+            thinkTime = ThinkTime.valueOf(args[i].toUpperCase(Locale.ROOT));
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid think time distribution: " + args[i]);
+            return;
+          }
+          break;
+        case "--binary":
+          offerBinary = true;
+          break;
+        case "--delta":
+          offerDeltas = true;
+          break;
+        case "--help":
+        default:
+          printHelpMessage();
+          return;
+      }
+    }
+
+    // check validity
+    InetAddress inetAddress;
+    try {
+      inetAddress = InetAddress.getByName(serverAddress);
+    } catch (UnknownHostException e) {
+      printErrorMessage("Invalid server address: " + serverAddress);
+      return;
+    }
+    if (port < 1024 || port > 65535) {
+      printErrorMessage("The port number should be in the range of 1024~65535.");
+      return;
+    }
+    if (players < 1) {
+      printErrorMessage("The number of players should be positive.");
+      return;
+    }
+    if (durationSeconds < 1 || rampUpSeconds < 0 || thinkMillis < 0) {
+      printErrorMessage("Durations should not be negative, and the run should last a second.");
+      return;
+    }
+    if (namePrefix.isBlank()) {
+      printErrorMessage("Invalid name prefix: " + namePrefix);
+      return;
+    }
+
+    Settings settings = new Settings(offerBinary, offerDeltas, strategy, thinkTime, thinkMillis);
+    Results results =
+        run(
+            new InetSocketAddress(inetAddress, port),
+            namePrefix,
+            players,
+            settings,
+            rampUpSeconds,
+            durationSeconds);
+    System.out.print(results.report(rampUpSeconds + durationSeconds));
+  }
+
+  /**
+   * Connects the players, spread evenly over the ramp-up time, and lets them play for the given
+   * duration, which starts after the ramp-up.
+   */
+  static Results run(
+      InetSocketAddress address,
+      String namePrefix,
+      int players,
+      Settings settings,
+      int rampUpSeconds,
+      int durationSeconds)
+      throws InterruptedException {
+    Results results = new Results();
+    ScheduledExecutorService scheduler =
+        Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            r -> {
+              Thread thread = new Thread(r, "think-time");
+              thread.setDaemon(true);
+              return thread;
+            });
+    List<SimulatedPlayer> simulated = new ArrayList<>(players);
+    long rampUpNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+    long start = System.nanoTime();
+    for (int i = 0; i < players; i++) {
+      SimulatedPlayer player =
+          new SimulatedPlayer(namePrefix + i, address, settings, results, scheduler);
+      simulated.add(player);
+      long delay = start + rampUpNanos * i / players - System.nanoTime();
+      if (delay > 0) {
+        TimeUnit.NANOSECONDS.sleep(delay);
+      }
+      Thread thread = new Thread(null, player, namePrefix + i, PLAYER_STACK_SIZE);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    TimeUnit.SECONDS.sleep(durationSeconds);
+    for (SimulatedPlayer player : simulated) {
+      player.stop();
+    }
+    scheduler.shutdownNow();
+    return results;
+  }
+
+  private static boolean isLastArgument(int i, final String[] args) {
+    return i == args.length - 1;
+  }
+
+  /** Prints the command-line usage of the load generator. */
+  public static void printHelpMessage() {
+    System.out.println(
+        "java LoadGenerator [--address <String>] [--port <int>] [--players <int>]"
+            + " [--duration <seconds>] [--ramp-up <seconds>] [--name-prefix <String>]"
+            + " [--strategy random|high|low|smart] [--think-time <millis>]"
+            + " [--think-distribution fixed|uniform|exponential] [--binary] [--delta]"
+            + " [--help]");
+  }
+
+  private static void printErrorMessage(String str) {
+    System.out.println("Error! " + str);
+  }
+}
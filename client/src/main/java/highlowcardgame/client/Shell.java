@@ -1,6 +1,7 @@
 package highlowcardgame.client;
 
 import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.communication.messages.LeaderboardNotification;
 import highlowcardgame.communication.messages.Message;
 import highlowcardgame.communication.messages.PlayerGuessedNotification;
 import highlowcardgame.communication.messages.PlayerJoinedNotification;
@@ -8,6 +9,11 @@ import highlowcardgame.communication.messages.PlayerLeftNotification;
 import highlowcardgame.game.Card;
 import highlowcardgame.game.HighLowCardGame.Guess;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /** Class for handling user input and writing server messages to output. */
@@ -20,6 +26,8 @@ final class Shell {
 
   private int lastScore = 0;
   private Card lastSeenCard = null;
+  // the top of the leaderboard, kept up to date by applying every notification
+  private final Map<String, LeaderboardNotification.Entry> leaderboard = new HashMap<>();
 
   /**
    * Creates a new Shell object with the given input- and output-streams.
@@ -75,6 +83,8 @@ final class Shell {
       printPlayerGuessedNotification((PlayerGuessedNotification) message);
     } else if (message instanceof GameStateNotification) {
       printNewRoundNotification((GameStateNotification) message);
+    } else if (message instanceof LeaderboardNotification) {
+      printLeaderboardNotification((LeaderboardNotification) message);
     } else {
       throw new AssertionError("Unknown message type!");
     }
@@ -111,6 +121,22 @@ final class Shell {
             + ".");
   }
 
+  private void printLeaderboardNotification(LeaderboardNotification notification) {
+    for (String playerName : notification.getRemovedPlayers()) {
+      leaderboard.remove(playerName);
+    }
+    for (LeaderboardNotification.Entry entry : notification.getEntries()) {
+      leaderboard.put(entry.getPlayerName(), entry);
+    }
+    List<LeaderboardNotification.Entry> top = new ArrayList<>(leaderboard.values());
+    top.sort(Comparator.comparingInt(LeaderboardNotification.Entry::getRank));
+    printServerString("Leaderboard after " + (notification.getNumRounds() - 1) + " rounds:");
+    for (LeaderboardNotification.Entry entry : top) {
+      printServerString(
+          entry.getRank() + ". " + entry.getPlayerName() + " (" + entry.getScore() + " points)");
+    }
+  }
+
   private void printRoundResult(GameStateNotification notification) {
     String playerName = notification.getPlayerName();
     Card currentCard = notification.getCurrentCard();
@@ -0,0 +1,199 @@
+package highlowcardgame.client;
+
+import highlowcardgame.communication.messages.BinaryCodec;
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.communication.messages.GuessRequest;
+import highlowcardgame.communication.messages.HandleJson;
+import highlowcardgame.communication.messages.JoinGameRequest;
+import highlowcardgame.communication.messages.KeyframeRequest;
+import highlowcardgame.communication.messages.Message;
+import highlowcardgame.communication.messages.PlayerGuessedNotification;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless player of the {@link LoadGenerator}. Its thread reads the notifications of one
+ * connection and schedules a guess whenever a new round starts, after the think time of the run.
+ */
+final class SimulatedPlayer implements Runnable {
+  private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.US_ASCII);
+
+  private final String name;
+  private final InetSocketAddress address;
+  private final LoadGenerator.Settings settings;
+  private final LoadGenerator.Results results;
+  private final ScheduledExecutorService scheduler;
+
+  private volatile Socket socket;
+  private OutputStream output;
+  private final GameStateModel model = new GameStateModel();
+  private boolean binary = false;
+  private int lastRound = 0;
+  // the time the pending guess was sent, 0 while no guess is pending
+  private volatile long guessSentNanos = 0;
+  private volatile boolean stopped = false;
+
+  SimulatedPlayer(
+      String name,
+      InetSocketAddress address,
+      LoadGenerator.Settings settings,
+      LoadGenerator.Results results,
+      ScheduledExecutorService scheduler) {
+    this.name = name;
+    this.address = address;
+    this.settings = settings;
+    this.results = results;
+    this.scheduler = scheduler;
+  }
+
+  /** Connects, joins and plays until the connection ends or the player is stopped. */
+  @Override
+  public void run() {
+    try (Socket connection = new Socket(address.getAddress(), address.getPort())) {
+      socket = connection;
+      connection.setTcpNoDelay(true);
+      output = connection.getOutputStream();
+      BufferedInputStream rawInput = new BufferedInputStream(connection.getInputStream());
+      BufferedReader lineInput =
+          new BufferedReader(new InputStreamReader(rawInput, StandardCharsets.UTF_8));
+      join(rawInput);
+      results.connected();
+      while (true) {
+        Message message;
+        if (binary) {
+          message = BinaryCodec.read(rawInput);
+        } else {
+          String line = lineInput.readLine();
+          message = line == null ? null : HandleJson.decode(line);
+        }
+        if (message == null) {
+          break;
+        }
+        handle(message);
+      }
+      if (!stopped) {
+        results.disconnected();
+      }
+    } catch (IOException e) {
+      if (socket == null) {
+        results.failedToConnect();
+      } else if (!stopped) {
+        results.disconnected();
+      }
+    }
+  }
+
+  /** Closes the connection, which ends the reading thread. */
+  void stop() {
+    stopped = true;
+    close();
+  }
+
+  private void close() {
+    Socket connection = socket;
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        // closing anyway
+      }
+    }
+  }
+
+  private void join(BufferedInputStream rawInput) throws IOException {
+    List<String> capabilities = new ArrayList<>();
+    if (settings.offerBinary) {
+      capabilities.add(BinaryCodec.CAPABILITY);
+    }
+    if (settings.offerDeltas) {
+      capabilities.add(GameStateDeltaNotification.CAPABILITY);
+    }
+    send(new JoinGameRequest(name, capabilities));
+    if (settings.offerBinary) {
+      // a server that accepted the offer answers with a binary frame instead of a JSON object
+      rawInput.mark(1);
+      binary = rawInput.read() != '{';
+      rawInput.reset();
+    }
+  }
+
+  private void handle(Message message) throws IOException {
+    if (message instanceof GameStateDeltaNotification) {
+      GameStateNotification state = model.apply((GameStateDeltaNotification) message);
+      if (state != null) {
+        handle(state);
+      } else {
+        KeyframeRequest request = model.takeKeyframeRequest();
+        if (request != null) {
+          send(request);
+        }
+      }
+    } else if (message instanceof PlayerGuessedNotification) {
+      long sent = guessSentNanos;
+      if (sent != 0 && name.equals(((PlayerGuessedNotification) message).getPlayerName())) {
+        guessSentNanos = 0;
+        results.guessAnswered(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+      }
+    } else if (message instanceof GameStateNotification) {
+      GameStateNotification state = (GameStateNotification) message;
+      // every guess of every player is followed by a state, but a player guesses once per round
+      if (state.getNumRounds() > lastRound && state.getCurrentCard() != null) {
+        if (lastRound > 0) {
+          results.roundCompleted();
+        }
+        lastRound = state.getNumRounds();
+        Guess guess = settings.strategy.choose(state.getCurrentCard());
+        long thinkMillis = settings.thinkTime.sampleMillis(settings.thinkMillis);
+        if (thinkMillis == 0) {
+          guess(guess);
+        } else if (!stopped) {
+          try {
+            scheduler.schedule(() -> guessLater(guess), thinkMillis, TimeUnit.MILLISECONDS);
+          } catch (RejectedExecutionException e) {
+            // the run is over
+          }
+        }
+      }
+    }
+  }
+
+  private void guessLater(Guess guess) {
+    try {
+      guess(guess);
+    } catch (IOException e) {
+      // the reading thread notices the closed connection and counts the disconnect
+      close();
+    }
+  }
+
+  private void guess(Guess guess) throws IOException {
+    if (stopped) {
+      return;
+    }
+    guessSentNanos = System.nanoTime();
+    send(new GuessRequest(guess, name));
+  }
+
+  private synchronized void send(Message message) throws IOException {
+    if (binary) {
+      output.write(BinaryCodec.encode(message));
+    } else {
+      output.write(HandleJson.encode(message).getBytes(StandardCharsets.UTF_8));
+      output.write(LINE_SEPARATOR);
+    }
+    output.flush();
+  }
+}
@@ -0,0 +1,57 @@
+package highlowcardgame.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.communication.messages.KeyframeRequest;
+import highlowcardgame.game.Card;
+import org.junit.jupiter.api.Test;
+
+// the model must follow the deltas in sequence, and ask for a keyframe once after a gap
+public class GameStateModelTest {
+  private static final Card CARD = new Card(Card.Suit.DIAMONDS, 11);
+
+  @Test
+  public void testAppliesDeltasInSequence() {
+    GameStateModel model = new GameStateModel();
+    model.apply(new GameStateDeltaNotification(1, true, CARD, 1, "alice", 0));
+    GameStateNotification state =
+        model.apply(new GameStateDeltaNotification(2, false, null, 2, null, 3));
+    assertEquals(CARD, state.getCurrentCard());
+    assertEquals(2, state.getNumRounds());
+    assertEquals("alice", state.getPlayerName());
+    assertEquals(3, state.getScore());
+    assertNull(model.takeKeyframeRequest());
+  }
+
+  @Test
+  public void testGapRequestsOneKeyframe() {
+    GameStateModel model = new GameStateModel();
+    model.apply(new GameStateDeltaNotification(1, true, CARD, 1, "alice", 0));
+    assertNull(model.apply(new GameStateDeltaNotification(3, false, null, 3, null, null)));
+    KeyframeRequest request = model.takeKeyframeRequest();
+    assertNotNull(request);
+    assertEquals(1, request.getSequence());
+    // the deltas in flight are useless, and the keyframe is requested already
+    assertNull(model.apply(new GameStateDeltaNotification(4, false, null, 4, null, null)));
+    assertNull(model.takeKeyframeRequest());
+
+    GameStateNotification state =
+        model.apply(new GameStateDeltaNotification(5, true, CARD, 4, "alice", 2));
+    assertEquals(4, state.getNumRounds());
+    assertEquals(
+        5,
+        model.apply(new GameStateDeltaNotification(6, false, null, 5, null, null)).getNumRounds());
+  }
+
+  @Test
+  public void testDeltaBeforeTheFirstKeyframeIsAGap() {
+    GameStateModel model = new GameStateModel();
+    assertNull(model.apply(new GameStateDeltaNotification(1, false, null, 1, null, null)));
+    assertEquals(0, model.takeKeyframeRequest().getSequence());
+    assertNull(model.getState());
+  }
+}
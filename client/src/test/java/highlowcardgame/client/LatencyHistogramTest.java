@@ -0,0 +1,47 @@
+package highlowcardgame.client;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testEmptyHistogramReportsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.count()).isEqualTo(0);
+    assertThat(histogram.percentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.count()).isEqualTo(10);
+    assertThat(histogram.percentile(50)).isEqualTo(5);
+    assertThat(histogram.percentile(90)).isEqualTo(9);
+    assertThat(histogram.percentile(100)).isEqualTo(10);
+  }
+
+  @Test
+  public void testPercentilesAreCloseAboveTheRecordedValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 100_000; i++) {
+      histogram.record(i * 37);
+    }
+    for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+      long exact = (long) Math.ceil(100_000 * percentile / 100) * 37;
+      assertThat(histogram.percentile(percentile)).isAtLeast(exact);
+      assertThat(histogram.percentile(percentile)).isAtMost((long) (exact * 1.07));
+    }
+  }
+
+  @Test
+  public void testNegativeValuesCountAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    assertThat(histogram.percentile(100)).isEqualTo(0);
+  }
+}
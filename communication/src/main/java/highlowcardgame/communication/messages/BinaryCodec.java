@@ -0,0 +1,387 @@
+package highlowcardgame.communication.messages;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact alternative to {@link HandleJson}. Every message is written as a frame of a four-byte
+ * big-endian payload length, followed by the payload: a one-byte type tag and the fields of the
+ * message. Numbers are four-byte integers, names are UTF-8 prefixed with a two-byte length, and
+ * cards and guesses take a single byte.
+ *
+ * <p>Clients offer the binary format by listing {@link #CAPABILITY} in their {@link
+ * JoinGameRequest}, which is always sent as JSON. A server supporting it continues in binary from
+ * its first reply on. A frame starts with a zero byte and a JSON message with an opening brace, so
+ * the client tells from the first byte which format the server chose.
+ */
+public final class BinaryCodec {
+  /** The capability a client lists in its {@link JoinGameRequest} to offer the binary format. */
+  public static final String CAPABILITY = "binary-v1";
+
+  /** The number of bytes of the length prefix of a frame. */
+  public static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+
+  /** The maximum payload length of a frame. */
+  public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+  private static final byte TAG_GAME_STATE_NOTIFICATION = 1;
+  private static final byte TAG_GUESS_REQUEST = 2;
+  private static final byte TAG_JOIN_GAME_REQUEST = 3;
+  private static final byte TAG_PLAYER_GUESSED_NOTIFICATION = 4;
+  private static final byte TAG_PLAYER_JOINED_NOTIFICATION = 5;
+  private static final byte TAG_PLAYER_LEFT_NOTIFICATION = 6;
+  private static final byte TAG_LEADERBOARD_NOTIFICATION = 7;
+  private static final byte TAG_GAME_STATE_DELTA_NOTIFICATION = 8;
+  private static final byte TAG_KEYFRAME_REQUEST = 9;
+
+  // the bits of the byte telling which fields of a delta follow
+  private static final int DELTA_KEYFRAME = 1;
+  private static final int DELTA_CARD = 1 << 1;
+  private static final int DELTA_ROUNDS = 1 << 2;
+  private static final int DELTA_NAME = 1 << 3;
+  private static final int DELTA_SCORE = 1 << 4;
+
+  private static final int NULL_LENGTH = 0xFFFF;
+  private static final int NULL_BYTE = 0xFF;
+  private static final Guess[] GUESSES = Guess.values();
+
+  private BinaryCodec() {}
+
+  /**
+   * Encodes the message into a complete frame, including the length prefix.
+   *
+   * @param message the message to encode
+   * @return the frame
+   * @throws IllegalArgumentException if a name is too long to be encoded
+   */
+  public static byte[] encode(Message message) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0);
+      writeMessage(message, out);
+    } catch (IOException e) {
+      throw new AssertionError("Writing to memory failed", e);
+    }
+    byte[] frame = bytes.toByteArray();
+    int length = frame.length - LENGTH_PREFIX_BYTES;
+    frame[0] = (byte) (length >>> 24);
+    frame[1] = (byte) (length >>> 16);
+    frame[2] = (byte) (length >>> 8);
+    frame[3] = (byte) length;
+    return frame;
+  }
+
+  /**
+   * Reads the next frame from the stream and decodes it.
+   *
+   * @param in the stream to read from
+   * @return the decoded message, or null if the stream ended before the next frame
+   * @throws IOException if reading fails, or the frame is truncated or malformed
+   */
+  public static Message read(InputStream in) throws IOException {
+    int first = in.read();
+    if (first < 0) {
+      return null;
+    }
+    DataInputStream data = new DataInputStream(in);
+    int length = first << 24 | data.readUnsignedByte() << 16 | data.readUnsignedShort();
+    if (length < 1 || length > MAX_FRAME_LENGTH) {
+      throw new IOException("Invalid frame length: " + length);
+    }
+    byte[] payload = new byte[length];
+    data.readFully(payload);
+    return decode(payload);
+  }
+
+  /**
+   * Decodes the payload of a frame, i.e. the bytes following the length prefix.
+   *
+   * @param payload the payload of a single frame
+   * @return the decoded message
+   * @throws IOException if the payload is truncated or malformed
+   */
+  public static Message decode(byte[] payload) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    int tag = in.readByte();
+    switch (tag) {
+      case TAG_GAME_STATE_NOTIFICATION:
+        Card currentCard = readCard(in);
+        int numRounds = in.readInt();
+        String playerName = readString(in);
+        return new GameStateNotification(currentCard, numRounds, playerName, in.readInt());
+      case TAG_GUESS_REQUEST:
+        Guess guess = readGuess(in);
+        return new GuessRequest(guess, readString(in));
+      case TAG_JOIN_GAME_REQUEST:
+        String newPlayerName = readString(in);
+        return new JoinGameRequest(newPlayerName, readStrings(in));
+      case TAG_PLAYER_GUESSED_NOTIFICATION:
+        int numNotGuessedPlayers = in.readInt();
+        return new PlayerGuessedNotification(numNotGuessedPlayers, readString(in));
+      case TAG_PLAYER_JOINED_NOTIFICATION:
+        String joinedPlayerName = readString(in);
+        return new PlayerJoinedNotification(joinedPlayerName, in.readInt());
+      case TAG_PLAYER_LEFT_NOTIFICATION:
+        int numPlayers = in.readInt();
+        return new PlayerLeftNotification(numPlayers, readString(in));
+      case TAG_LEADERBOARD_NOTIFICATION:
+        int round = in.readInt();
+        List<LeaderboardNotification.Entry> entries = readEntries(in);
+        return new LeaderboardNotification(round, entries, readNullableStrings(in));
+      case TAG_GAME_STATE_DELTA_NOTIFICATION:
+        return readDelta(in);
+      case TAG_KEYFRAME_REQUEST:
+        return new KeyframeRequest(in.readInt());
+      default:
+        throw new IOException("Unknown message tag: " + tag);
+    }
+  }
+
+  private static void writeMessage(Message message, DataOutputStream out) throws IOException {
+    if (message instanceof GameStateNotification) {
+      GameStateNotification notification = (GameStateNotification) message;
+      out.writeByte(TAG_GAME_STATE_NOTIFICATION);
+      writeCard(notification.getCurrentCard(), out);
+      out.writeInt(notification.getNumRounds());
+      writeString(notification.getPlayerName(), out);
+      out.writeInt(notification.getScore());
+    } else if (message instanceof GuessRequest) {
+      GuessRequest request = (GuessRequest) message;
+      out.writeByte(TAG_GUESS_REQUEST);
+      out.writeByte(request.getGuess() == null ? NULL_BYTE : request.getGuess().ordinal());
+      writeString(request.getPlayerName(), out);
+    } else if (message instanceof JoinGameRequest) {
+      JoinGameRequest request = (JoinGameRequest) message;
+      out.writeByte(TAG_JOIN_GAME_REQUEST);
+      writeString(request.getPlayerName(), out);
+      writeStrings(request.getCapabilities(), out);
+    } else if (message instanceof PlayerGuessedNotification) {
+      PlayerGuessedNotification notification = (PlayerGuessedNotification) message;
+      out.writeByte(TAG_PLAYER_GUESSED_NOTIFICATION);
+      out.writeInt(notification.getNumNotGuessedPlayers());
+      writeString(notification.getPlayerName(), out);
+    } else if (message instanceof PlayerJoinedNotification) {
+      PlayerJoinedNotification notification = (PlayerJoinedNotification) message;
+      out.writeByte(TAG_PLAYER_JOINED_NOTIFICATION);
+      writeString(notification.getNewPlayerName(), out);
+      out.writeInt(notification.getNumPlayers());
+    } else if (message instanceof PlayerLeftNotification) {
+      PlayerLeftNotification notification = (PlayerLeftNotification) message;
+      out.writeByte(TAG_PLAYER_LEFT_NOTIFICATION);
+      out.writeInt(notification.getNumPlayers());
+      writeString(notification.getPlayerName(), out);
+    } else if (message instanceof LeaderboardNotification) {
+      LeaderboardNotification notification = (LeaderboardNotification) message;
+      out.writeByte(TAG_LEADERBOARD_NOTIFICATION);
+      out.writeInt(notification.getNumRounds());
+      writeEntries(notification.hasEntries() ? notification.getEntries() : null, out);
+      writeNullableStrings(
+          notification.hasRemovedPlayers() ? notification.getRemovedPlayers() : null, out);
+    } else if (message instanceof GameStateDeltaNotification) {
+      out.writeByte(TAG_GAME_STATE_DELTA_NOTIFICATION);
+      writeDelta((GameStateDeltaNotification) message, out);
+    } else if (message instanceof KeyframeRequest) {
+      out.writeByte(TAG_KEYFRAME_REQUEST);
+      out.writeInt(((KeyframeRequest) message).getSequence());
+    } else {
+      throw new IllegalArgumentException("Unknown message type: " + message);
+    }
+  }
+
+  /** Writes the sequence number, a byte with a bit per field that follows and these fields. */
+  private static void writeDelta(GameStateDeltaNotification delta, DataOutputStream out)
+      throws IOException {
+    boolean keyframe = delta.isKeyframe();
+    int fields = keyframe ? DELTA_KEYFRAME : 0;
+    if (delta.getCurrentCard() != null) {
+      fields |= DELTA_CARD;
+    }
+    if (delta.getNumRounds() != null) {
+      fields |= DELTA_ROUNDS;
+    }
+    if (delta.getPlayerName() != null) {
+      fields |= DELTA_NAME;
+    }
+    if (delta.getScore() != null) {
+      fields |= DELTA_SCORE;
+    }
+    out.writeInt(delta.getSequence());
+    out.writeByte(fields);
+    if (delta.getCurrentCard() != null) {
+      writeCard(delta.getCurrentCard(), out);
+    }
+    if (delta.getNumRounds() != null) {
+      out.writeInt(delta.getNumRounds());
+    }
+    if (delta.getPlayerName() != null) {
+      writeString(delta.getPlayerName(), out);
+    }
+    if (delta.getScore() != null) {
+      out.writeInt(delta.getScore());
+    }
+  }
+
+  private static GameStateDeltaNotification readDelta(DataInputStream in) throws IOException {
+    int sequence = in.readInt();
+    int fields = in.readUnsignedByte();
+    Card currentCard = (fields & DELTA_CARD) != 0 ? readCard(in) : null;
+    Integer numRounds = (fields & DELTA_ROUNDS) != 0 ? in.readInt() : null;
+    String playerName = (fields & DELTA_NAME) != 0 ? readString(in) : null;
+    Integer score = (fields & DELTA_SCORE) != 0 ? in.readInt() : null;
+    return new GameStateDeltaNotification(
+        sequence, (fields & DELTA_KEYFRAME) != 0, currentCard, numRounds, playerName, score);
+  }
+
+  /**
+   * Writes the card as a single byte, its ordinal: the suit times the values per suit plus the
+   * value.
+   */
+  private static void writeCard(Card card, DataOutputStream out) throws IOException {
+    if (card == null) {
+      out.writeByte(NULL_BYTE);
+      return;
+    }
+    if (card.getOrdinal() < 0) {
+      throw new IllegalArgumentException("Cannot encode the card " + card);
+    }
+    out.writeByte(card.getOrdinal());
+  }
+
+  private static Card readCard(DataInputStream in) throws IOException {
+    int code = in.readUnsignedByte();
+    if (code == NULL_BYTE) {
+      return null;
+    }
+    if (code >= Card.NUM_CARDS) {
+      throw new IOException("Invalid card: " + code);
+    }
+    return Card.ofOrdinal(code);
+  }
+
+  private static Guess readGuess(DataInputStream in) throws IOException {
+    int code = in.readUnsignedByte();
+    if (code == NULL_BYTE) {
+      return null;
+    }
+    if (code >= GUESSES.length) {
+      throw new IOException("Invalid guess: " + code);
+    }
+    return GUESSES[code];
+  }
+
+  private static void writeString(String string, DataOutputStream out) throws IOException {
+    if (string == null) {
+      out.writeShort(NULL_LENGTH);
+      return;
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length >= NULL_LENGTH) {
+      throw new IllegalArgumentException("String too long: " + bytes.length + " bytes");
+    }
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readUnsignedShort();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeStrings(List<String> strings, DataOutputStream out) throws IOException {
+    out.writeShort(strings.size());
+    for (String string : strings) {
+      writeString(string, out);
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int size = in.readUnsignedShort();
+    if (size == 0) {
+      return null;
+    }
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(readString(in));
+    }
+    return strings;
+  }
+
+  /** Writes the entries prefixed with their number, which is {@code NULL_LENGTH} for null. */
+  private static void writeEntries(
+      List<LeaderboardNotification.Entry> entries, DataOutputStream out) throws IOException {
+    if (entries == null) {
+      out.writeShort(NULL_LENGTH);
+      return;
+    }
+    writeListSize(entries.size(), out);
+    for (LeaderboardNotification.Entry entry : entries) {
+      if (entry == null) {
+        throw new IllegalArgumentException("Cannot encode a null leaderboard entry");
+      }
+      writeString(entry.getPlayerName(), out);
+      out.writeInt(entry.getRank());
+      out.writeInt(entry.getScore());
+    }
+  }
+
+  private static List<LeaderboardNotification.Entry> readEntries(DataInputStream in)
+      throws IOException {
+    int size = in.readUnsignedShort();
+    if (size == NULL_LENGTH) {
+      return null;
+    }
+    List<LeaderboardNotification.Entry> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String playerName = readString(in);
+      int rank = in.readInt();
+      entries.add(new LeaderboardNotification.Entry(playerName, rank, in.readInt()));
+    }
+    return entries;
+  }
+
+  /** Writes the strings prefixed with their number, unlike {@link #writeStrings} keeping null. */
+  private static void writeNullableStrings(List<String> strings, DataOutputStream out)
+      throws IOException {
+    if (strings == null) {
+      out.writeShort(NULL_LENGTH);
+      return;
+    }
+    writeListSize(strings.size(), out);
+    for (String string : strings) {
+      writeString(string, out);
+    }
+  }
+
+  private static List<String> readNullableStrings(DataInputStream in) throws IOException {
+    int size = in.readUnsignedShort();
+    if (size == NULL_LENGTH) {
+      return null;
+    }
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(readString(in));
+    }
+    return strings;
+  }
+
+  private static void writeListSize(int size, DataOutputStream out) throws IOException {
+    if (size >= NULL_LENGTH) {
+      throw new IllegalArgumentException("List too long: " + size + " elements");
+    }
+    out.writeShort(size);
+  }
+}
@@ -0,0 +1,36 @@
+package highlowcardgame.communication.messages;
+
+import com.squareup.moshi.FromJson;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.ToJson;
+import highlowcardgame.game.Card;
+
+/**
+ * Moshi adapter mapping cards to their suit and value, the JSON of the reflective adapter, and
+ * decoded cards to the canonical instances.
+ */
+final class CardJsonAdapter {
+
+  /** The fields of a card on the wire. */
+  static final class CardJson {
+    Card.Suit suit;
+    int value;
+  }
+
+  @ToJson
+  CardJson toJson(Card card) {
+    CardJson json = new CardJson();
+    json.suit = card.getSuit();
+    json.value = card.getValue();
+    return json;
+  }
+
+  @FromJson
+  Card fromJson(CardJson json) {
+    try {
+      return Card.of(json.suit, json.value);
+    } catch (IllegalArgumentException e) {
+      throw new JsonDataException(e.getMessage(), e);
+    }
+  }
+}
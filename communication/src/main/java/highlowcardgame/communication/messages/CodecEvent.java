@@ -0,0 +1,27 @@
+package highlowcardgame.communication.messages;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A Flight Recorder event for a message encoded to or decoded from JSON by {@link HandleJson}. */
+@Name("highlowcardgame.JsonCodec")
+@Label("JSON Codec")
+@Category({"High-Low Card Game", "Network"})
+@StackTrace(false)
+final class CodecEvent extends jdk.jfr.Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Message Type")
+  String messageType;
+
+  @Label("Size")
+  @DataAmount
+  int bytes;
+
+  @Label("Backend")
+  String backend;
+}
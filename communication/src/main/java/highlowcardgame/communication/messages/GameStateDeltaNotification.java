@@ -0,0 +1,142 @@
+package highlowcardgame.communication.messages;
+
+import highlowcardgame.game.Card;
+import java.util.Objects;
+
+/**
+ * The change of a player's {@link GameStateNotification} since the previous notification, sent
+ * instead of it to clients listing {@link #CAPABILITY} in their {@link JoinGameRequest}. It only
+ * carries the fields that changed, and null for the others.
+ *
+ * <p>The notifications of a connection are numbered consecutively. A delta applies to the state of
+ * the notification numbered one less, so a client that misses one cannot apply the following ones
+ * and answers with a {@link KeyframeRequest}. A keyframe carries all fields and replaces whatever
+ * state the client had. The first notification of a connection is always a keyframe.
+ */
+public final class GameStateDeltaNotification implements Message {
+  /** The capability a client lists in its {@link JoinGameRequest} to receive deltas. */
+  public static final String CAPABILITY = "delta-v1";
+
+  private final int sequence;
+  // null unless true, so deltas do not carry the flag
+  private final Boolean keyframe;
+  private final Card currentCard;
+  private final Integer numRounds;
+  private final String playerName;
+  private final Integer score;
+
+  /**
+   * Creates a delta. A keyframe takes all fields as they are, a delta null for the unchanged ones.
+   *
+   * @param sequence the number of this notification on its connection
+   * @param keyframe whether this notification carries the complete state
+   * @param currentCard the current card, or null if it did not change
+   * @param numRounds the current round, or null if it did not change
+   * @param playerName the player name, or null if it did not change
+   * @param score the score, or null if it did not change
+   */
+  public GameStateDeltaNotification(
+      int sequence,
+      boolean keyframe,
+      Card currentCard,
+      Integer numRounds,
+      String playerName,
+      Integer score) {
+    this.sequence = sequence;
+    this.keyframe = keyframe ? Boolean.TRUE : null;
+    this.currentCard = currentCard;
+    this.numRounds = numRounds;
+    this.playerName = playerName;
+    this.score = score;
+  }
+
+  /**
+   * Returns the notification turning the previous state into the next one.
+   *
+   * @param sequence the number of the returned notification
+   * @param previous the state the client has, or null to create a keyframe
+   * @param next the state the client shall have
+   * @return the delta, or null if the states do not differ
+   */
+  public static GameStateDeltaNotification between(
+      int sequence, GameStateNotification previous, GameStateNotification next) {
+    if (previous == null) {
+      return new GameStateDeltaNotification(
+          sequence,
+          true,
+          next.getCurrentCard(),
+          next.getNumRounds(),
+          next.getPlayerName(),
+          next.getScore());
+    }
+    boolean cardChanged = !Objects.equals(previous.getCurrentCard(), next.getCurrentCard());
+    boolean roundChanged = previous.getNumRounds() != next.getNumRounds();
+    boolean nameChanged = !Objects.equals(previous.getPlayerName(), next.getPlayerName());
+    boolean scoreChanged = previous.getScore() != next.getScore();
+    if (!cardChanged && !roundChanged && !nameChanged && !scoreChanged) {
+      return null;
+    }
+    if (cardChanged && next.getCurrentCard() == null
+        || nameChanged && next.getPlayerName() == null) {
+      // null means unchanged in a delta, so only a keyframe can clear a field
+      return between(sequence, null, next);
+    }
+    return new GameStateDeltaNotification(
+        sequence,
+        false,
+        cardChanged ? next.getCurrentCard() : null,
+        roundChanged ? next.getNumRounds() : null,
+        nameChanged ? next.getPlayerName() : null,
+        scoreChanged ? next.getScore() : null);
+  }
+
+  /**
+   * Applies this notification to the given state.
+   *
+   * @param previous the state of the notification numbered one less, ignored by a keyframe
+   * @return the state after this notification
+   * @throws IllegalArgumentException if this is not a keyframe and there is no previous state
+   */
+  public GameStateNotification applyTo(GameStateNotification previous) {
+    if (isKeyframe()) {
+      return new GameStateNotification(
+          currentCard, numRounds == null ? 0 : numRounds, playerName, score == null ? 0 : score);
+    }
+    if (previous == null) {
+      throw new IllegalArgumentException("Delta " + sequence + " needs a previous state");
+    }
+    return new GameStateNotification(
+        currentCard == null ? previous.getCurrentCard() : currentCard,
+        numRounds == null ? previous.getNumRounds() : numRounds,
+        playerName == null ? previous.getPlayerName() : playerName,
+        score == null ? previous.getScore() : score);
+  }
+
+  public int getSequence() {
+    return sequence;
+  }
+
+  public boolean isKeyframe() {
+    return keyframe != null && keyframe;
+  }
+
+  /** Returns the current card, or null if it did not change. */
+  public Card getCurrentCard() {
+    return currentCard;
+  }
+
+  /** Returns the current round, or null if it did not change. */
+  public Integer getNumRounds() {
+    return numRounds;
+  }
+
+  /** Returns the player name, or null if it did not change. */
+  public String getPlayerName() {
+    return playerName;
+  }
+
+  /** Returns the score, or null if it did not change. */
+  public Integer getScore() {
+    return score;
+  }
+}
@@ -0,0 +1,84 @@
+package highlowcardgame.communication.messages;
+
+import highlowcardgame.game.Card;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@link GameStateNotification}s of one game state. They only differ in the player name and
+ * score, so the JSON up to these fields is encoded once and shared by reference by all recipients,
+ * and only the player's fields are appended per recipient.
+ */
+public final class GameStateTemplate {
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final Card currentCard;
+  private final int numRounds;
+  private final byte[] jsonPrefix;
+
+  /**
+   * Creates the template of a game state.
+   *
+   * @param currentCard the current card
+   * @param numRounds the current round
+   */
+  public GameStateTemplate(Card currentCard, int numRounds) {
+    this.currentCard = currentCard;
+    this.numRounds = numRounds;
+    OutputBuffer out = new OutputBuffer();
+    StreamingJsonCodec.encodeGameStatePrefix(currentCard, numRounds, out);
+    jsonPrefix = out.toByteArray();
+  }
+
+  /** Appends the complete notification for the player, a JSON line or a binary frame. */
+  public void writeTo(OutputBuffer out, Recipient recipient, int score, boolean binary) {
+    if (binary) {
+      out.write(encodeBinary(recipient, score));
+    } else {
+      out.write(jsonPrefix);
+      writeJsonSuffix(out, recipient, score);
+    }
+  }
+
+  /** Returns a read-only view of the JSON shared by all players, see {@link #writeJsonSuffix}. */
+  public ByteBuffer sharedJsonPrefix() {
+    return ByteBuffer.wrap(jsonPrefix).asReadOnlyBuffer();
+  }
+
+  /** Appends the JSON completing the {@link #sharedJsonPrefix()} for the player. */
+  public void writeJsonSuffix(OutputBuffer out, Recipient recipient, int score) {
+    out.write(recipient.jsonPlayerName);
+    StreamingJsonCodec.encodeGameStateSuffix(score, out);
+    out.writeAscii(LINE_SEPARATOR);
+  }
+
+  /** Returns the complete binary frame of the notification for the player. */
+  public byte[] encodeBinary(Recipient recipient, int score) {
+    return BinaryCodec.encode(
+        new GameStateNotification(currentCard, numRounds, recipient.playerName, score));
+  }
+
+  /**
+   * The part of a player's notifications that is the same for all game states. Connections create
+   * it once, when the player's name is known.
+   */
+  public static final class Recipient {
+    private final String playerName;
+    private final byte[] jsonPlayerName;
+
+    /**
+     * Encodes the fields of a player.
+     *
+     * @param playerName the name of the receiving player
+     */
+    public Recipient(String playerName) {
+      this.playerName = playerName;
+      OutputBuffer out = new OutputBuffer(playerName == null ? 16 : playerName.length() + 16);
+      StreamingJsonCodec.encodePlayerName(playerName, out);
+      jsonPlayerName = out.toByteArray();
+    }
+
+    public String getPlayerName() {
+      return playerName;
+    }
+  }
+}
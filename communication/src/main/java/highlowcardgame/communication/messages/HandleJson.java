@@ -1,19 +1,43 @@
 package highlowcardgame.communication.messages;
 
 import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.adapters.PolymorphicJsonAdapterFactory;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import okio.Buffer;
 
-/** A utility class offering methods to encode to / decode from JSON using the Moshi Libraries. */
+/**
+ * A utility class offering methods to encode to / decode from JSON using the Moshi Libraries.
+ *
+ * <p>The work is done by the selected {@link Backend}. All backends produce the same bytes, so the
+ * backend can be chosen at startup without affecting the other side of a connection.
+ */
 public class HandleJson {
+  /** The implementations available behind the methods of {@link HandleJson}. */
+  public enum Backend {
+    /** Moshi's reflective adapters. */
+    MOSHI,
+    /** A hand-written codec working on bytes, without reflection and intermediate strings. */
+    STREAMING
+  }
+
+  private static final String ENCODE = "encode";
+  private static final String DECODE = "decode";
+
   static Moshi moshi =
       new Moshi.Builder()
+          .add(new CardJsonAdapter())
           .add(
               PolymorphicJsonAdapterFactory.of(Message.class, "messageType")
+                  .withSubtype(GameStateDeltaNotification.class, "GameStateDeltaNotification")
                   .withSubtype(GameStateNotification.class, "GameStateNotification")
                   .withSubtype(GuessRequest.class, "GuessRequest")
                   .withSubtype(JoinGameRequest.class, "JoinGameRequest")
+                  .withSubtype(KeyframeRequest.class, "KeyframeRequest")
+                  .withSubtype(LeaderboardNotification.class, "LeaderboardNotification")
                   .withSubtype(PlayerGuessedNotification.class, "PlayerGuessedNotification")
                   .withSubtype(PlayerJoinedNotification.class, "PlayerJoinedNotification")
                   .withSubtype(PlayerLeftNotification.class, "PlayerLeftNotification"))
@@ -21,12 +45,111 @@ public class HandleJson {
 
   static JsonAdapter<Message> jsonAdapter = moshi.adapter(Message.class);
 
+  private static volatile Backend backend = Backend.MOSHI;
+
+  /** Selects the backend used from now on. Meant to be called once at startup. */
+  public static void setBackend(Backend backend) {
+    HandleJson.backend = backend;
+  }
+
+  public static Backend getBackend() {
+    return backend;
+  }
+
+  /**
+   * Encodes the message to JSON.
+   *
+   * @param message the message to encode
+   * @return the JSON encoding of the message
+   */
   public static String encode(Message message) {
-    return (jsonAdapter.toJson(message));
+    CodecEvent event = new CodecEvent();
+    event.begin();
+    String encoded;
+    if (backend == Backend.STREAMING) {
+      OutputBuffer out = new OutputBuffer();
+      StreamingJsonCodec.encode(message, out);
+      encoded = out.toString(StandardCharsets.UTF_8);
+    } else {
+      encoded = jsonAdapter.toJson(message);
+    }
+    // the length in chars, which is the size in bytes for all but non-ASCII names
+    commit(event, ENCODE, message, encoded.length());
+    return encoded;
   }
 
+  /**
+   * Appends the JSON encoding of the message as UTF-8 to the buffer.
+   *
+   * @param message the message to encode
+   * @param out the buffer to append to
+   */
+  public static void encode(Message message, OutputBuffer out) {
+    CodecEvent event = new CodecEvent();
+    event.begin();
+    int start = out.size();
+    if (backend == Backend.STREAMING) {
+      StreamingJsonCodec.encode(message, out);
+    } else {
+      out.write(jsonAdapter.toJson(message).getBytes(StandardCharsets.UTF_8));
+    }
+    commit(event, ENCODE, message, out.size() - start);
+  }
+
+  /**
+   * Decodes a message from JSON.
+   *
+   * @param inputMessage the JSON encoding of the message
+   * @return the decoded message
+   * @throws IOException if the string cannot be decoded
+   */
   public static Message decode(String inputMessage) throws IOException {
-    Message decodedMessage = jsonAdapter.fromJson(inputMessage);
+    CodecEvent event = new CodecEvent();
+    event.begin();
+    Message decodedMessage;
+    if (backend == Backend.STREAMING) {
+      byte[] bytes = inputMessage.getBytes(StandardCharsets.UTF_8);
+      decodedMessage = StreamingJsonCodec.decode(bytes, 0, bytes.length);
+    } else {
+      decodedMessage = jsonAdapter.fromJson(inputMessage);
+    }
+    commit(event, DECODE, decodedMessage, inputMessage.length());
     return decodedMessage;
   }
+
+  /**
+   * Decodes a message from UTF-8 encoded JSON.
+   *
+   * @param bytes the array holding the message
+   * @param offset the index of the first byte of the message
+   * @param length the number of bytes of the message
+   * @return the decoded message
+   * @throws IOException if the bytes cannot be decoded
+   */
+  public static Message decode(byte[] bytes, int offset, int length) throws IOException {
+    CodecEvent event = new CodecEvent();
+    event.begin();
+    Message decodedMessage;
+    if (backend == Backend.STREAMING) {
+      decodedMessage = StreamingJsonCodec.decode(bytes, offset, length);
+    } else {
+      JsonReader reader = JsonReader.of(new Buffer().write(bytes, offset, length));
+      decodedMessage = jsonAdapter.fromJson(reader);
+      if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+        throw new JsonDataException("JSON document was not fully consumed.");
+      }
+    }
+    commit(event, DECODE, decodedMessage, length);
+    return decodedMessage;
+  }
+
+  private static void commit(CodecEvent event, String operation, Message message, int bytes) {
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.messageType = message == null ? null : message.getClass().getSimpleName();
+      event.bytes = bytes;
+      event.backend = backend.name();
+      event.commit();
+    }
+  }
 }
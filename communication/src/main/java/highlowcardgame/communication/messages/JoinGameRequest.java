@@ -1,14 +1,47 @@
 package highlowcardgame.communication.messages;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /** Class representing a join game request message. */
 public final class JoinGameRequest implements Message {
   private final String playerName;
+  private final List<String> capabilities;
 
   public JoinGameRequest(String playerName) {
+    this(playerName, null);
+  }
+
+  /**
+   * Constructor for a join request offering optional protocol features to the server. Without
+   * capabilities, the request is encoded exactly like one of a client not knowing about them.
+   *
+   * @param playerName represents the player name
+   * @param capabilities the protocol features the client supports, e.g. {@link
+   *     BinaryCodec#CAPABILITY}
+   */
+  public JoinGameRequest(String playerName, List<String> capabilities) {
     this.playerName = playerName;
+    this.capabilities =
+        capabilities == null || capabilities.isEmpty() ? null : new ArrayList<>(capabilities);
   }
 
   public String getPlayerName() {
     return playerName;
   }
+
+  /** Returns the protocol features the client supports. */
+  public List<String> getCapabilities() {
+    return capabilities == null ? List.of() : Collections.unmodifiableList(capabilities);
+  }
+
+  boolean hasCapabilities() {
+    return capabilities != null;
+  }
+
+  /** Returns whether the client supports the given protocol feature. */
+  public boolean supports(String capability) {
+    return capabilities != null && capabilities.contains(capability);
+  }
 }
@@ -0,0 +1,22 @@
+package highlowcardgame.communication.messages;
+
+/**
+ * Asks the server for a keyframe, sent by a client that received a {@link
+ * GameStateDeltaNotification} it cannot apply because it missed the one before.
+ */
+public final class KeyframeRequest implements Message {
+  private final int sequence;
+
+  /**
+   * Constructor for a keyframe request.
+   *
+   * @param sequence the number of the last notification the client applied, 0 if none
+   */
+  public KeyframeRequest(int sequence) {
+    this.sequence = sequence;
+  }
+
+  public int getSequence() {
+    return sequence;
+  }
+}
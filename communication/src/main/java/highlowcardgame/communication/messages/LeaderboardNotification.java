@@ -0,0 +1,84 @@
+package highlowcardgame.communication.messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class representing a notification about the changes of the top of the leaderboard since the
+ * previous one. A client keeps the top by applying every notification: the entries replace the ones
+ * of the same players, and the removed players are no longer in the top.
+ */
+public final class LeaderboardNotification implements Message {
+
+  private final List<Entry> entries;
+  private int numRounds;
+  private final List<String> removedPlayers;
+
+  /**
+   * Constructor for a leaderboard notification.
+   *
+   * @param numRounds represents the round that just started
+   * @param entries the players that are new in the top or whose score or rank changed
+   * @param removedPlayers the names of the players that dropped out of the top
+   */
+  public LeaderboardNotification(int numRounds, List<Entry> entries, List<String> removedPlayers) {
+    this.entries = entries == null ? null : new ArrayList<>(entries);
+    this.numRounds = numRounds;
+    this.removedPlayers = removedPlayers == null ? null : new ArrayList<>(removedPlayers);
+  }
+
+  public int getNumRounds() {
+    return numRounds;
+  }
+
+  /** Returns the players that are new in the top or whose score or rank changed. */
+  public List<Entry> getEntries() {
+    return entries == null ? List.of() : Collections.unmodifiableList(entries);
+  }
+
+  /** Returns the names of the players that dropped out of the top. */
+  public List<String> getRemovedPlayers() {
+    return removedPlayers == null ? List.of() : Collections.unmodifiableList(removedPlayers);
+  }
+
+  boolean hasEntries() {
+    return entries != null;
+  }
+
+  boolean hasRemovedPlayers() {
+    return removedPlayers != null;
+  }
+
+  /** A player in the top of the leaderboard. */
+  public static final class Entry {
+    private final String playerName;
+    private int rank;
+    private int score;
+
+    /**
+     * Constructor for an entry of the leaderboard.
+     *
+     * @param playerName represents the player name
+     * @param rank the rank, starting at one and shared by players with equal scores
+     * @param score represents the actual score
+     */
+    public Entry(String playerName, int rank, int score) {
+      this.playerName = playerName;
+      this.rank = rank;
+      this.score = score;
+    }
+
+    public String getPlayerName() {
+      return playerName;
+    }
+
+    public int getRank() {
+      return rank;
+    }
+
+    public int getScore() {
+      return score;
+    }
+  }
+}
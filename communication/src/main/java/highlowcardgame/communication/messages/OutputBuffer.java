@@ -0,0 +1,111 @@
+package highlowcardgame.communication.messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A growable byte array messages are encoded into. A buffer is meant to be reused for many
+ * messages: {@link #reset()} keeps the capacity it has grown to.
+ */
+public final class OutputBuffer {
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private byte[] bytes;
+  private int size = 0;
+
+  public OutputBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public OutputBuffer(int initialCapacity) {
+    bytes = new byte[Math.max(initialCapacity, 16)];
+  }
+
+  /** Discards the content, keeping the capacity. */
+  public void reset() {
+    size = 0;
+  }
+
+  /** Returns the number of bytes written since the last reset. */
+  public int size() {
+    return size;
+  }
+
+  /** Appends a single byte. */
+  public void write(int b) {
+    ensureCapacity(1);
+    bytes[size++] = (byte) b;
+  }
+
+  /** Appends all given bytes. */
+  public void write(byte[] b) {
+    write(b, 0, b.length);
+  }
+
+  /** Appends {@code length} bytes of the given array, starting at {@code offset}. */
+  public void write(byte[] b, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(b, offset, bytes, size, length);
+    size += length;
+  }
+
+  /** Appends the given string, which must consist of ASCII characters only. */
+  public void writeAscii(String ascii) {
+    int length = ascii.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      bytes[size++] = (byte) ascii.charAt(i);
+    }
+  }
+
+  /** Appends the decimal representation of the given number. */
+  public void writeDecimal(int value) {
+    if (value == Integer.MIN_VALUE) {
+      writeAscii(Integer.toString(value));
+      return;
+    }
+    ensureCapacity(11);
+    if (value < 0) {
+      bytes[size++] = '-';
+      value = -value;
+    }
+    int end = size + digits(value);
+    for (int i = end - 1; i >= size; i--) {
+      bytes[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    size = end;
+  }
+
+  private static int digits(int value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  /** Writes the content to the stream in a single call. */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(bytes, 0, size);
+  }
+
+  /** Returns a copy of the content. */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  /** Returns the content decoded with the given charset. */
+  public String toString(Charset charset) {
+    return new String(bytes, 0, size, charset);
+  }
+
+  private void ensureCapacity(int additional) {
+    if (size + additional > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package highlowcardgame.communication.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message that is the same for all its recipients, encoded at most once per wire format. The
+ * encoded bytes are shared by reference by all connections sending the message.
+ */
+public final class SharedFrame {
+  private static final byte[] LINE_SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+  private final Message message;
+  private volatile byte[] jsonLine;
+  private volatile byte[] binaryFrame;
+
+  private SharedFrame(Message message) {
+    this.message = message;
+  }
+
+  /** Creates a frame for the given message, which is encoded when it is first needed. */
+  public static SharedFrame of(Message message) {
+    return new SharedFrame(message);
+  }
+
+  public Message getMessage() {
+    return message;
+  }
+
+  /** Appends the encoded message, a JSON line or a binary frame, to the buffer. */
+  public void writeTo(OutputBuffer out, boolean binary) {
+    out.write(bytes(binary));
+  }
+
+  /** Returns a read-only view of the encoded message, a JSON line or a binary frame. */
+  public ByteBuffer asByteBuffer(boolean binary) {
+    return ByteBuffer.wrap(bytes(binary)).asReadOnlyBuffer();
+  }
+
+  private byte[] bytes(boolean binary) {
+    // racing threads may both encode, but they produce the same bytes
+    if (binary) {
+      byte[] frame = binaryFrame;
+      if (frame == null) {
+        frame = BinaryCodec.encode(message);
+        binaryFrame = frame;
+      }
+      return frame;
+    }
+    byte[] line = jsonLine;
+    if (line == null) {
+      OutputBuffer out = new OutputBuffer();
+      HandleJson.encode(message, out);
+      out.write(LINE_SEPARATOR);
+      line = out.toByteArray();
+      jsonLine = line;
+    }
+    return line;
+  }
+}
@@ -0,0 +1,1004 @@
+package highlowcardgame.communication.messages;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written JSON codec for the message types, the {@link HandleJson.Backend#STREAMING} backend.
+ * Messages are written straight into an {@link OutputBuffer} and parsed straight from bytes,
+ * without reflection or an intermediate string per message.
+ *
+ * <p>The output is byte-identical to the one of Moshi: the message type first, followed by the
+ * non-null fields in alphabetical order, without whitespace and with Moshi's string escaping.
+ * Decoding accepts what Moshi's strict reader accepts for these messages, including fields in any
+ * order and unknown fields, which are skipped.
+ */
+final class StreamingJsonCodec {
+  private static final String[] TYPES = {
+    "GameStateDeltaNotification",
+    "GameStateNotification",
+    "GuessRequest",
+    "JoinGameRequest",
+    "KeyframeRequest",
+    "LeaderboardNotification",
+    "PlayerGuessedNotification",
+    "PlayerJoinedNotification",
+    "PlayerLeftNotification"
+  };
+  private static final int DELTA = 0;
+  private static final int GAME_STATE = 1;
+  private static final int GUESS = 2;
+  private static final int JOIN = 3;
+  private static final int KEYFRAME_REQUEST = 4;
+  private static final int LEADERBOARD = 5;
+  private static final int GUESSED = 6;
+  private static final int JOINED = 7;
+  private static final int LEFT = 8;
+
+  private static final String[] FIELDS = {
+    "messageType",
+    "capabilities",
+    "currentCard",
+    "entries",
+    "guess",
+    "keyframe",
+    "newPlayerName",
+    "numNotGuessedPlayers",
+    "numPlayers",
+    "numRounds",
+    "playerGuessed",
+    "playerName",
+    "removedPlayers",
+    "score",
+    "sequence"
+  };
+  private static final int MESSAGE_TYPE = 0;
+  private static final int CAPABILITIES = 1;
+  private static final int CURRENT_CARD = 2;
+  private static final int ENTRIES = 3;
+  private static final int GUESS_FIELD = 4;
+  private static final int KEYFRAME = 5;
+  private static final int NEW_PLAYER_NAME = 6;
+  private static final int NUM_NOT_GUESSED_PLAYERS = 7;
+  private static final int NUM_PLAYERS = 8;
+  private static final int NUM_ROUNDS = 9;
+  private static final int PLAYER_GUESSED = 10;
+  private static final int PLAYER_NAME = 11;
+  private static final int REMOVED_PLAYERS = 12;
+  private static final int SCORE = 13;
+  private static final int SEQUENCE = 14;
+
+  /** For every field, the bit set of the message types having it. */
+  private static final int[] FIELD_OWNERS = {
+    0,
+    1 << JOIN,
+    1 << GAME_STATE | 1 << DELTA,
+    1 << LEADERBOARD,
+    1 << GUESS,
+    1 << DELTA,
+    1 << JOINED,
+    1 << GUESSED,
+    1 << JOINED | 1 << LEFT,
+    1 << GAME_STATE | 1 << LEADERBOARD | 1 << DELTA,
+    1 << GUESSED,
+    1 << GAME_STATE | 1 << GUESS | 1 << JOIN | 1 << LEFT | 1 << DELTA,
+    1 << LEADERBOARD,
+    1 << GAME_STATE | 1 << DELTA,
+    1 << DELTA | 1 << KEYFRAME_REQUEST
+  };
+
+  private static final String[] CARD_FIELDS = {"suit", "value"};
+  private static final int SUIT = 0;
+  private static final int VALUE = 1;
+
+  private static final String[] ENTRY_FIELDS = {"playerName", "rank", "score"};
+  private static final int ENTRY_PLAYER_NAME = 0;
+  private static final int ENTRY_RANK = 1;
+  private static final int ENTRY_SCORE = 2;
+
+  private static final Card.Suit[] SUITS = Card.Suit.values();
+  private static final Guess[] GUESSES = Guess.values();
+  private static final String[] SUIT_STRINGS = names(SUITS);
+  private static final String[] GUESS_STRINGS = names(GUESSES);
+
+  private static final byte[][] TYPE_NAMES = ascii(TYPES);
+  private static final byte[][] FIELD_NAMES = ascii(FIELDS);
+  private static final byte[][] CARD_FIELD_NAMES = ascii(CARD_FIELDS);
+  private static final byte[][] ENTRY_FIELD_NAMES = ascii(ENTRY_FIELDS);
+  private static final byte[][] SUIT_NAMES = ascii(SUIT_STRINGS);
+  private static final byte[][] GUESS_NAMES = ascii(GUESS_STRINGS);
+
+  /** For every type, the opening of its messages up to the value of the type label. */
+  private static final byte[][] TYPE_PREFIXES = new byte[TYPES.length][];
+  /** For every field, the separator and name preceding its value. */
+  private static final byte[][] FIELD_PREFIXES = new byte[FIELDS.length][];
+  /** For every ASCII character, its escape sequence, or null if it is written as is. */
+  private static final byte[][] ESCAPES = new byte[128][];
+
+  static {
+    for (int i = 0; i < TYPES.length; i++) {
+      TYPE_PREFIXES[i] =
+          ("{\"messageType\":\"" + TYPES[i] + "\"").getBytes(StandardCharsets.US_ASCII);
+    }
+    for (int i = 0; i < FIELDS.length; i++) {
+      FIELD_PREFIXES[i] = (",\"" + FIELDS[i] + "\":").getBytes(StandardCharsets.US_ASCII);
+    }
+    for (int c = 0; c < 0x20; c++) {
+      ESCAPES[c] = String.format("\\u%04x", c).getBytes(StandardCharsets.US_ASCII);
+    }
+    ESCAPES['"'] = ascii("\\\"");
+    ESCAPES['\\'] = ascii("\\\\");
+    ESCAPES['\t'] = ascii("\\t");
+    ESCAPES['\b'] = ascii("\\b");
+    ESCAPES['\n'] = ascii("\\n");
+    ESCAPES['\r'] = ascii("\\r");
+    ESCAPES['\f'] = ascii("\\f");
+  }
+
+  private StreamingJsonCodec() {}
+
+  /**
+   * Appends the JSON encoding of the message as UTF-8.
+   *
+   * @param message the message to encode
+   * @param out the buffer to append to
+   */
+  static void encode(Message message, OutputBuffer out) {
+    if (message instanceof GameStateNotification) {
+      GameStateNotification notification = (GameStateNotification) message;
+      encodeGameStatePrefix(notification.getCurrentCard(), notification.getNumRounds(), out);
+      writeString(PLAYER_NAME, notification.getPlayerName(), out);
+      writeInt(SCORE, notification.getScore(), out);
+    } else if (message instanceof GameStateDeltaNotification) {
+      GameStateDeltaNotification delta = (GameStateDeltaNotification) message;
+      out.write(TYPE_PREFIXES[DELTA]);
+      if (delta.getCurrentCard() != null) {
+        out.write(FIELD_PREFIXES[CURRENT_CARD]);
+        writeCard(delta.getCurrentCard(), out);
+      }
+      if (delta.isKeyframe()) {
+        out.write(FIELD_PREFIXES[KEYFRAME]);
+        out.writeAscii("true");
+      }
+      if (delta.getNumRounds() != null) {
+        writeInt(NUM_ROUNDS, delta.getNumRounds(), out);
+      }
+      writeString(PLAYER_NAME, delta.getPlayerName(), out);
+      if (delta.getScore() != null) {
+        writeInt(SCORE, delta.getScore(), out);
+      }
+      writeInt(SEQUENCE, delta.getSequence(), out);
+    } else if (message instanceof KeyframeRequest) {
+      out.write(TYPE_PREFIXES[KEYFRAME_REQUEST]);
+      writeInt(SEQUENCE, ((KeyframeRequest) message).getSequence(), out);
+    } else if (message instanceof GuessRequest) {
+      GuessRequest request = (GuessRequest) message;
+      out.write(TYPE_PREFIXES[GUESS]);
+      if (request.getGuess() != null) {
+        out.write(FIELD_PREFIXES[GUESS_FIELD]);
+        writeQuoted(GUESS_NAMES[request.getGuess().ordinal()], out);
+      }
+      writeString(PLAYER_NAME, request.getPlayerName(), out);
+    } else if (message instanceof JoinGameRequest) {
+      JoinGameRequest request = (JoinGameRequest) message;
+      out.write(TYPE_PREFIXES[JOIN]);
+      if (request.hasCapabilities()) {
+        out.write(FIELD_PREFIXES[CAPABILITIES]);
+        writeStrings(request.getCapabilities(), out);
+      }
+      writeString(PLAYER_NAME, request.getPlayerName(), out);
+    } else if (message instanceof LeaderboardNotification) {
+      LeaderboardNotification notification = (LeaderboardNotification) message;
+      out.write(TYPE_PREFIXES[LEADERBOARD]);
+      if (notification.hasEntries()) {
+        out.write(FIELD_PREFIXES[ENTRIES]);
+        writeEntries(notification.getEntries(), out);
+      }
+      writeInt(NUM_ROUNDS, notification.getNumRounds(), out);
+      if (notification.hasRemovedPlayers()) {
+        out.write(FIELD_PREFIXES[REMOVED_PLAYERS]);
+        writeStrings(notification.getRemovedPlayers(), out);
+      }
+    } else if (message instanceof PlayerGuessedNotification) {
+      PlayerGuessedNotification notification = (PlayerGuessedNotification) message;
+      out.write(TYPE_PREFIXES[GUESSED]);
+      writeInt(NUM_NOT_GUESSED_PLAYERS, notification.getNumNotGuessedPlayers(), out);
+      writeString(PLAYER_GUESSED, notification.getPlayerName(), out);
+    } else if (message instanceof PlayerJoinedNotification) {
+      PlayerJoinedNotification notification = (PlayerJoinedNotification) message;
+      out.write(TYPE_PREFIXES[JOINED]);
+      writeString(NEW_PLAYER_NAME, notification.getNewPlayerName(), out);
+      writeInt(NUM_PLAYERS, notification.getNumPlayers(), out);
+    } else if (message instanceof PlayerLeftNotification) {
+      PlayerLeftNotification notification = (PlayerLeftNotification) message;
+      out.write(TYPE_PREFIXES[LEFT]);
+      writeInt(NUM_PLAYERS, notification.getNumPlayers(), out);
+      writeString(PLAYER_NAME, notification.getPlayerName(), out);
+    } else {
+      throw new IllegalArgumentException("Unknown message type: " + message);
+    }
+    out.write('}');
+  }
+
+  /**
+   * Appends the fields of a {@link GameStateNotification} that are the same for all players. The
+   * player name and score follow in alphabetical order, so they can be appended with {@link
+   * #encodePlayerName} and {@link #encodeGameStateSuffix} to complete the message.
+   */
+  static void encodeGameStatePrefix(Card currentCard, int numRounds, OutputBuffer out) {
+    out.write(TYPE_PREFIXES[GAME_STATE]);
+    if (currentCard != null) {
+      out.write(FIELD_PREFIXES[CURRENT_CARD]);
+      writeCard(currentCard, out);
+    }
+    writeInt(NUM_ROUNDS, numRounds, out);
+  }
+
+  /** Appends the player name field of a {@link GameStateNotification}, if the name is not null. */
+  static void encodePlayerName(String playerName, OutputBuffer out) {
+    writeString(PLAYER_NAME, playerName, out);
+  }
+
+  /** Appends the score field of a {@link GameStateNotification}, closing the message. */
+  static void encodeGameStateSuffix(int score, OutputBuffer out) {
+    writeInt(SCORE, score, out);
+    out.write('}');
+  }
+
+  /**
+   * Decodes a message from UTF-8 encoded JSON.
+   *
+   * @param bytes the array holding the message
+   * @param offset the index of the first byte of the message
+   * @param length the number of bytes of the message
+   * @return the decoded message
+   * @throws IOException if the bytes are not a single valid message
+   */
+  static Message decode(byte[] bytes, int offset, int length) throws IOException {
+    return new Parser(bytes, offset, offset + length).parseMessage();
+  }
+
+  private static void writeInt(int field, int value, OutputBuffer out) {
+    out.write(FIELD_PREFIXES[field]);
+    out.writeDecimal(value);
+  }
+
+  private static void writeString(int field, String value, OutputBuffer out) {
+    if (value != null) {
+      out.write(FIELD_PREFIXES[field]);
+      writeEscaped(value, out);
+    }
+  }
+
+  private static void writeCard(Card card, OutputBuffer out) {
+    out.write('{');
+    if (card.getSuit() != null) {
+      out.writeAscii("\"suit\":");
+      writeQuoted(SUIT_NAMES[card.getSuit().ordinal()], out);
+      out.write(',');
+    }
+    out.writeAscii("\"value\":");
+    out.writeDecimal(card.getValue());
+    out.write('}');
+  }
+
+  private static void writeEntries(List<LeaderboardNotification.Entry> entries, OutputBuffer out) {
+    out.write('[');
+    for (int i = 0; i < entries.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      LeaderboardNotification.Entry entry = entries.get(i);
+      if (entry == null) {
+        out.writeAscii("null");
+        continue;
+      }
+      out.write('{');
+      if (entry.getPlayerName() != null) {
+        out.writeAscii("\"playerName\":");
+        writeEscaped(entry.getPlayerName(), out);
+        out.write(',');
+      }
+      out.writeAscii("\"rank\":");
+      out.writeDecimal(entry.getRank());
+      out.writeAscii(",\"score\":");
+      out.writeDecimal(entry.getScore());
+      out.write('}');
+    }
+    out.write(']');
+  }
+
+  private static void writeStrings(List<String> values, OutputBuffer out) {
+    out.write('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      String value = values.get(i);
+      if (value == null) {
+        out.writeAscii("null");
+      } else {
+        writeEscaped(value, out);
+      }
+    }
+    out.write(']');
+  }
+
+  private static void writeQuoted(byte[] ascii, OutputBuffer out) {
+    out.write('"');
+    out.write(ascii);
+    out.write('"');
+  }
+
+  /** Writes the string quoted, escaped and encoded like Moshi, which is backed by Okio. */
+  private static void writeEscaped(String value, OutputBuffer out) {
+    out.write('"');
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        byte[] escape = ESCAPES[c];
+        if (escape == null) {
+          out.write(c);
+        } else {
+          out.write(escape);
+        }
+      } else if (c < 0x800) {
+        out.write(0xC0 | c >> 6);
+        out.write(0x80 | c & 0x3F);
+      } else if (c == '\u2028' || c == '\u2029') {
+        out.writeAscii(c == '\u2028' ? "\\u2028" : "\\u2029");
+      } else if (!Character.isSurrogate(c)) {
+        out.write(0xE0 | c >> 12);
+        out.write(0x80 | c >> 6 & 0x3F);
+        out.write(0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        out.write(0xF0 | codePoint >> 18);
+        out.write(0x80 | codePoint >> 12 & 0x3F);
+        out.write(0x80 | codePoint >> 6 & 0x3F);
+        out.write(0x80 | codePoint & 0x3F);
+      } else {
+        // Okio replaces unpaired surrogates
+        out.write('?');
+      }
+    }
+    out.write('"');
+  }
+
+  private static byte[] ascii(String string) {
+    return string.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[][] ascii(String[] strings) {
+    byte[][] bytes = new byte[strings.length][];
+    for (int i = 0; i < strings.length; i++) {
+      bytes[i] = ascii(strings[i]);
+    }
+    return bytes;
+  }
+
+  private static String[] names(Enum<?>[] constants) {
+    String[] names = new String[constants.length];
+    for (int i = 0; i < constants.length; i++) {
+      names[i] = constants[i].name();
+    }
+    return names;
+  }
+
+  /** Parser of a single message. */
+  private static final class Parser {
+    private final byte[] bytes;
+    private final int limit;
+    private int pos;
+
+    private Card currentCard;
+    private int numRounds;
+    private String playerName;
+    private int score;
+    private Guess guess;
+    private List<String> capabilities;
+    private int numNotGuessedPlayers;
+    private String playerGuessed;
+    private String newPlayerName;
+    private int numPlayers;
+    private List<LeaderboardNotification.Entry> entries;
+    private List<String> removedPlayers;
+    private boolean keyframe;
+    private int sequence;
+    // the bit set of the fields read with a value other than null
+    private int presentFields;
+
+    Parser(byte[] bytes, int pos, int limit) {
+      this.bytes = bytes;
+      this.pos = pos;
+      this.limit = limit;
+    }
+
+    Message parseMessage() throws IOException {
+      skipWhitespace();
+      int objectStart = pos;
+      int type = findType();
+      pos = objectStart + 1;
+      if (!consumeIfNext('}')) {
+        do {
+          int field = readStringId(FIELD_NAMES, FIELDS);
+          expect(':');
+          if (field < 0 || (FIELD_OWNERS[field] & 1 << type) == 0) {
+            skipValue();
+          } else {
+            readField(type, field);
+          }
+        } while (consumeIfNext(','));
+        expect('}');
+      }
+      skipWhitespace();
+      if (pos != limit) {
+        throw syntaxError("JSON document was not fully consumed");
+      }
+      return createMessage(type);
+    }
+
+    /** Finds the type label, which is usually the first field. Leaves the position undefined. */
+    private int findType() throws IOException {
+      expect('{');
+      if (!consumeIfNext('}')) {
+        do {
+          int field = readStringId(FIELD_NAMES, FIELDS);
+          expect(':');
+          if (field == MESSAGE_TYPE) {
+            skipWhitespace();
+            int type = peek() == '"' ? readStringId(TYPE_NAMES, TYPES) : -1;
+            if (type < 0) {
+              throw new IOException("Expected one of " + List.of(TYPES) + " for messageType");
+            }
+            return type;
+          }
+          skipValue();
+        } while (consumeIfNext(','));
+      }
+      throw new IOException("Missing label for messageType");
+    }
+
+    private void readField(int type, int field) throws IOException {
+      skipWhitespace();
+      if (peek() == 'n') {
+        expectLiteral("null");
+        // the fields of a delta are nullable, except for its sequence number
+        if (isIntField(field) && (type != DELTA || field == SEQUENCE)) {
+          throw new IOException("Expected an int but was NULL for " + FIELDS[field]);
+        }
+        presentFields &= ~(1 << field);
+        clearField(field);
+        return;
+      }
+      presentFields |= 1 << field;
+      switch (field) {
+        case CAPABILITIES:
+          capabilities = readStrings();
+          break;
+        case CURRENT_CARD:
+          currentCard = readCard();
+          break;
+        case ENTRIES:
+          entries = readEntries();
+          break;
+        case GUESS_FIELD:
+          guess = GUESSES[readEnum(GUESS_NAMES, GUESS_STRINGS)];
+          break;
+        case KEYFRAME:
+          keyframe = readBoolean();
+          break;
+        case NEW_PLAYER_NAME:
+          newPlayerName = readString();
+          break;
+        case NUM_NOT_GUESSED_PLAYERS:
+          numNotGuessedPlayers = readInt();
+          break;
+        case NUM_PLAYERS:
+          numPlayers = readInt();
+          break;
+        case NUM_ROUNDS:
+          numRounds = readInt();
+          break;
+        case PLAYER_GUESSED:
+          playerGuessed = readString();
+          break;
+        case PLAYER_NAME:
+          playerName = readString();
+          break;
+        case REMOVED_PLAYERS:
+          removedPlayers = readStrings();
+          break;
+        case SCORE:
+          score = readInt();
+          break;
+        case SEQUENCE:
+          sequence = readInt();
+          break;
+        default:
+          throw new AssertionError("Unhandled field " + FIELDS[field]);
+      }
+    }
+
+    private static boolean isIntField(int field) {
+      return field == NUM_NOT_GUESSED_PLAYERS
+          || field == NUM_PLAYERS
+          || field == NUM_ROUNDS
+          || field == SCORE
+          || field == SEQUENCE;
+    }
+
+    private void clearField(int field) {
+      switch (field) {
+        case CAPABILITIES:
+          capabilities = null;
+          break;
+        case CURRENT_CARD:
+          currentCard = null;
+          break;
+        case ENTRIES:
+          entries = null;
+          break;
+        case GUESS_FIELD:
+          guess = null;
+          break;
+        case KEYFRAME:
+          keyframe = false;
+          break;
+        case NEW_PLAYER_NAME:
+          newPlayerName = null;
+          break;
+        case PLAYER_GUESSED:
+          playerGuessed = null;
+          break;
+        case PLAYER_NAME:
+          playerName = null;
+          break;
+        case REMOVED_PLAYERS:
+          removedPlayers = null;
+          break;
+        case NUM_ROUNDS:
+        case SCORE:
+          // only a delta has them nullable, and tells by the present fields
+          break;
+        default:
+          throw new AssertionError("Unhandled field " + FIELDS[field]);
+      }
+    }
+
+    private Message createMessage(int type) {
+      switch (type) {
+        case DELTA:
+          return new GameStateDeltaNotification(
+              sequence,
+              keyframe,
+              currentCard,
+              isPresent(NUM_ROUNDS) ? numRounds : null,
+              playerName,
+              isPresent(SCORE) ? score : null);
+        case KEYFRAME_REQUEST:
+          return new KeyframeRequest(sequence);
+        case GAME_STATE:
+          return new GameStateNotification(currentCard, numRounds, playerName, score);
+        case GUESS:
+          return new GuessRequest(guess, playerName);
+        case JOIN:
+          return new JoinGameRequest(playerName, capabilities);
+        case LEADERBOARD:
+          return new LeaderboardNotification(numRounds, entries, removedPlayers);
+        case GUESSED:
+          return new PlayerGuessedNotification(numNotGuessedPlayers, playerGuessed);
+        case JOINED:
+          return new PlayerJoinedNotification(newPlayerName, numPlayers);
+        case LEFT:
+          return new PlayerLeftNotification(numPlayers, playerName);
+        default:
+          throw new AssertionError("Unhandled type " + type);
+      }
+    }
+
+    private boolean isPresent(int field) {
+      return (presentFields & 1 << field) != 0;
+    }
+
+    private boolean readBoolean() throws IOException {
+      if (peek() == 't') {
+        expectLiteral("true");
+        return true;
+      }
+      expectLiteral("false");
+      return false;
+    }
+
+    private Card readCard() throws IOException {
+      Card.Suit suit = null;
+      int value = 0;
+      expect('{');
+      if (!consumeIfNext('}')) {
+        do {
+          int field = readStringId(CARD_FIELD_NAMES, CARD_FIELDS);
+          expect(':');
+          skipWhitespace();
+          if (field == SUIT) {
+            if (peek() == 'n') {
+              expectLiteral("null");
+              suit = null;
+            } else {
+              suit = SUITS[readEnum(SUIT_NAMES, SUIT_STRINGS)];
+            }
+          } else if (field == VALUE) {
+            value = readInt();
+          } else {
+            skipValue();
+          }
+        } while (consumeIfNext(','));
+        expect('}');
+      }
+      try {
+        return Card.of(suit, value);
+      } catch (IllegalArgumentException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+
+    private List<LeaderboardNotification.Entry> readEntries() throws IOException {
+      List<LeaderboardNotification.Entry> entries = new ArrayList<>();
+      expect('[');
+      if (!consumeIfNext(']')) {
+        do {
+          skipWhitespace();
+          if (peek() == 'n') {
+            expectLiteral("null");
+            entries.add(null);
+          } else {
+            entries.add(readEntry());
+          }
+        } while (consumeIfNext(','));
+        expect(']');
+      }
+      return entries;
+    }
+
+    private LeaderboardNotification.Entry readEntry() throws IOException {
+      String name = null;
+      int rank = 0;
+      int entryScore = 0;
+      expect('{');
+      if (!consumeIfNext('}')) {
+        do {
+          int field = readStringId(ENTRY_FIELD_NAMES, ENTRY_FIELDS);
+          expect(':');
+          skipWhitespace();
+          if (field == ENTRY_PLAYER_NAME) {
+            if (peek() == 'n') {
+              expectLiteral("null");
+              name = null;
+            } else {
+              name = readString();
+            }
+          } else if (field == ENTRY_RANK || field == ENTRY_SCORE) {
+            if (peek() == 'n') {
+              throw new IOException("Expected an int but was NULL for " + ENTRY_FIELDS[field]);
+            }
+            if (field == ENTRY_RANK) {
+              rank = readInt();
+            } else {
+              entryScore = readInt();
+            }
+          } else {
+            skipValue();
+          }
+        } while (consumeIfNext(','));
+        expect('}');
+      }
+      return new LeaderboardNotification.Entry(name, rank, entryScore);
+    }
+
+    private List<String> readStrings() throws IOException {
+      List<String> strings = new ArrayList<>();
+      expect('[');
+      if (!consumeIfNext(']')) {
+        do {
+          skipWhitespace();
+          if (peek() == 'n') {
+            expectLiteral("null");
+            strings.add(null);
+          } else {
+            strings.add(readString());
+          }
+        } while (consumeIfNext(','));
+        expect(']');
+      }
+      return strings;
+    }
+
+    private int readEnum(byte[][] asciiNames, String[] names) throws IOException {
+      int index = readStringId(asciiNames, names);
+      if (index < 0) {
+        throw new IOException("Expected one of " + List.of(names));
+      }
+      return index;
+    }
+
+    private int readInt() throws IOException {
+      skipWhitespace();
+      if (peek() == '"') {
+        return parseInt(readString());
+      }
+      int start = pos;
+      while (pos < limit && isNumberChar(bytes[pos])) {
+        pos++;
+      }
+      if (start == pos) {
+        throw syntaxError("Expected an int");
+      }
+      boolean negative = bytes[start] == '-';
+      int digitsStart = negative ? start + 1 : start;
+      if (pos - digitsStart < 1 || pos - digitsStart > 9) {
+        return parseInt(new String(bytes, start, pos - start, StandardCharsets.US_ASCII));
+      }
+      int value = 0;
+      for (int i = digitsStart; i < pos; i++) {
+        int digit = bytes[i] - '0';
+        if (digit < 0 || digit > 9) {
+          return parseInt(new String(bytes, start, pos - start, StandardCharsets.US_ASCII));
+        }
+        value = value * 10 + digit;
+      }
+      return negative ? -value : value;
+    }
+
+    /** Parses the uncommon number formats Moshi accepts for ints, like "12" or 1.0. */
+    private static int parseInt(String number) throws IOException {
+      try {
+        return Integer.parseInt(number);
+      } catch (NumberFormatException e) {
+        // fall back to an integral floating-point value, see below
+      }
+      try {
+        double value = Double.parseDouble(number);
+        int asInt = (int) value;
+        if (asInt == value) {
+          return asInt;
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      throw new IOException("Expected an int but was " + number);
+    }
+
+    private static boolean isNumberChar(byte b) {
+      return b >= '0' && b <= '9' || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    /**
+     * Reads a string and returns its index in the given candidates, or -1 if it is none of them.
+     * Strings without escapes are compared byte by byte, so no string is created for them.
+     */
+    private int readStringId(byte[][] asciiCandidates, String[] candidates) throws IOException {
+      skipWhitespace();
+      expect('"');
+      int start = pos;
+      while (pos < limit && bytes[pos] != '"' && bytes[pos] != '\\') {
+        pos++;
+      }
+      if (pos >= limit) {
+        throw syntaxError("Unterminated string");
+      }
+      if (bytes[pos] == '\\') {
+        pos = start - 1;
+        return List.of(candidates).indexOf(readString());
+      }
+      int length = pos - start;
+      pos++;
+      for (int i = 0; i < asciiCandidates.length; i++) {
+        byte[] candidate = asciiCandidates[i];
+        if (candidate.length == length && regionMatches(start, candidate)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private boolean regionMatches(int start, byte[] candidate) {
+      for (int i = 0; i < candidate.length; i++) {
+        if (bytes[start + i] != candidate[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private String readString() throws IOException {
+      skipWhitespace();
+      expect('"');
+      int start = pos;
+      boolean ascii = true;
+      while (pos < limit) {
+        byte b = bytes[pos];
+        if (b == '"') {
+          String string =
+              new String(
+                  bytes,
+                  start,
+                  pos - start,
+                  ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+          pos++;
+          return string;
+        }
+        if (b == '\\') {
+          return readEscapedString(start);
+        }
+        ascii &= b >= 0;
+        pos++;
+      }
+      throw syntaxError("Unterminated string");
+    }
+
+    private String readEscapedString(int start) throws IOException {
+      StringBuilder string = new StringBuilder();
+      int segmentStart = start;
+      while (pos < limit) {
+        byte b = bytes[pos];
+        if (b == '"') {
+          string.append(
+              new String(bytes, segmentStart, pos - segmentStart, StandardCharsets.UTF_8));
+          pos++;
+          return string.toString();
+        }
+        if (b != '\\') {
+          pos++;
+          continue;
+        }
+        string.append(new String(bytes, segmentStart, pos - segmentStart, StandardCharsets.UTF_8));
+        pos++;
+        if (pos >= limit) {
+          break;
+        }
+        byte escaped = bytes[pos++];
+        switch (escaped) {
+          case 'u':
+            if (pos + 4 > limit) {
+              throw syntaxError("Unterminated escape sequence");
+            }
+            try {
+              String hex = new String(bytes, pos, 4, StandardCharsets.US_ASCII);
+              string.append((char) Integer.parseInt(hex, 16));
+            } catch (NumberFormatException e) {
+              throw syntaxError("Invalid escape sequence");
+            }
+            pos += 4;
+            break;
+          case 't':
+            string.append('\t');
+            break;
+          case 'b':
+            string.append('\b');
+            break;
+          case 'n':
+            string.append('\n');
+            break;
+          case 'r':
+            string.append('\r');
+            break;
+          case 'f':
+            string.append('\f');
+            break;
+          case '\n':
+          case '\'':
+          case '"':
+          case '\\':
+          case '/':
+            string.append((char) escaped);
+            break;
+          default:
+            throw syntaxError("Invalid escape sequence");
+        }
+        segmentStart = pos;
+      }
+      throw syntaxError("Unterminated string");
+    }
+
+    /** Skips a value of any type, which is only checked as far as needed to find its end. */
+    private void skipValue() throws IOException {
+      int depth = 0;
+      do {
+        skipWhitespace();
+        byte b = peek();
+        switch (b) {
+          case '{':
+          case '[':
+            depth++;
+            pos++;
+            break;
+          case '}':
+          case ']':
+            depth--;
+            pos++;
+            break;
+          case ',':
+          case ':':
+            if (depth == 0) {
+              throw syntaxError("Expected a value");
+            }
+            pos++;
+            break;
+          case '"':
+            readStringId(FIELD_NAMES, FIELDS);
+            break;
+          case 't':
+            expectLiteral("true");
+            break;
+          case 'f':
+            expectLiteral("false");
+            break;
+          case 'n':
+            expectLiteral("null");
+            break;
+          default:
+            if (!isNumberChar(b)) {
+              throw syntaxError("Unexpected character '" + (char) b + "'");
+            }
+            while (pos < limit && isNumberChar(bytes[pos])) {
+              pos++;
+            }
+        }
+        if (depth < 0) {
+          throw syntaxError("Unexpected end of object or array");
+        }
+      } while (depth > 0);
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+      for (int i = 0; i < literal.length(); i++) {
+        if (pos >= limit || bytes[pos] != literal.charAt(i)) {
+          throw syntaxError("Expected " + literal);
+        }
+        pos++;
+      }
+    }
+
+    private void skipWhitespace() {
+      while (pos < limit) {
+        byte b = bytes[pos];
+        if (b != ' ' && b != '\n' && b != '\t' && b != '\r') {
+          return;
+        }
+        pos++;
+      }
+    }
+
+    private byte peek() throws IOException {
+      if (pos >= limit) {
+        throw syntaxError("End of input");
+      }
+      return bytes[pos];
+    }
+
+    private boolean consumeIfNext(char c) throws IOException {
+      skipWhitespace();
+      if (peek() == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) throws IOException {
+      if (!consumeIfNext(c)) {
+        throw syntaxError("Expected '" + c + "'");
+      }
+    }
+
+    private IOException syntaxError(String message) {
+      return new IOException(message + " at byte " + pos);
+    }
+  }
+}
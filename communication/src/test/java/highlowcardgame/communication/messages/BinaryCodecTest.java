@@ -0,0 +1,145 @@
+package highlowcardgame.communication.messages;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class BinaryCodecTest {
+
+  private static List<Message> sampleMessages() {
+    return List.of(
+        new GameStateNotification(new Card(Card.Suit.HEARTS, 13), 7, "alice", 3),
+        new GameStateNotification(null, 0, "bob", 0),
+        new GuessRequest(Guess.HIGH, "alice"),
+        new GuessRequest(Guess.EQUAL, null),
+        new JoinGameRequest("alice"),
+        new JoinGameRequest("bob", List.of(BinaryCodec.CAPABILITY, "future")),
+        new PlayerGuessedNotification(2, "alice"),
+        new PlayerJoinedNotification("Zoë ♥", 4),
+        new PlayerLeftNotification(0, "bob"),
+        new LeaderboardNotification(
+            5,
+            List.of(
+                new LeaderboardNotification.Entry("alice", 1, 12),
+                new LeaderboardNotification.Entry("Zoë ♥", 1, 12)),
+            List.of("bob")),
+        new LeaderboardNotification(1, List.of(), null),
+        new GameStateDeltaNotification(1, true, new Card(Card.Suit.CLUBS, 2), 3, "alice", 0),
+        new GameStateDeltaNotification(2, false, null, 4, null, 5),
+        new GameStateDeltaNotification(3, false, null, null, null, null),
+        new KeyframeRequest(17));
+  }
+
+  private static Message roundTrip(Message message) throws IOException {
+    return BinaryCodec.read(new ByteArrayInputStream(BinaryCodec.encode(message)));
+  }
+
+  @Test
+  public void testRoundTripMatchesJson() throws IOException {
+    for (Message message : sampleMessages()) {
+      assertEquals(HandleJson.encode(message), HandleJson.encode(roundTrip(message)));
+    }
+  }
+
+  @Test
+  public void testJsonDecodedMessagesRoundTrip() throws IOException {
+    for (Message message : sampleMessages()) {
+      String json = HandleJson.encode(message);
+      Message fromJson = HandleJson.decode(json);
+      assertArrayEquals(BinaryCodec.encode(message), BinaryCodec.encode(fromJson));
+      assertEquals(json, HandleJson.encode(roundTrip(fromJson)));
+    }
+  }
+
+  @Test
+  public void testFrameHasLengthPrefix() {
+    for (Message message : sampleMessages()) {
+      byte[] frame = BinaryCodec.encode(message);
+      int length = (frame[0] & 0xFF) << 24 | (frame[1] & 0xFF) << 16 | (frame[2] & 0xFF) << 8;
+      length |= frame[3] & 0xFF;
+      assertEquals(frame.length - BinaryCodec.LENGTH_PREFIX_BYTES, length);
+      assertEquals(0, frame[0]);
+    }
+  }
+
+  @Test
+  public void testCardsTakeOneDistinctByte() throws IOException {
+    Set<Byte> codes = new HashSet<>();
+    for (Card card : Card.getAllValidCards()) {
+      byte[] frame = BinaryCodec.encode(new GameStateNotification(card, 1, "", 0));
+      // length prefix, tag, card, rounds, empty name, score
+      assertEquals(4 + 1 + 1 + 4 + 2 + 4, frame.length);
+      codes.add(frame[5]);
+      GameStateNotification decoded =
+          (GameStateNotification) BinaryCodec.read(new ByteArrayInputStream(frame));
+      assertSame(card, decoded.getCurrentCard());
+    }
+    assertEquals(52, codes.size());
+  }
+
+  @Test
+  public void testBinaryIsSmallerThanJson() {
+    for (Message message : sampleMessages()) {
+      assertTrue(BinaryCodec.encode(message).length < HandleJson.encode(message).length());
+    }
+  }
+
+  @Test
+  public void testReadsConsecutiveFramesUntilEnd() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    for (Message message : sampleMessages()) {
+      stream.write(BinaryCodec.encode(message));
+    }
+    ByteArrayInputStream in = new ByteArrayInputStream(stream.toByteArray());
+    for (Message message : sampleMessages()) {
+      assertEquals(HandleJson.encode(message), HandleJson.encode(BinaryCodec.read(in)));
+    }
+    assertNull(BinaryCodec.read(in));
+  }
+
+  @Test
+  public void testTruncatedFrameFails() {
+    byte[] frame = BinaryCodec.encode(new PlayerJoinedNotification("alice", 1));
+    byte[] truncated = Arrays.copyOf(frame, frame.length - 1);
+    assertThrows(EOFException.class, () -> BinaryCodec.read(new ByteArrayInputStream(truncated)));
+  }
+
+  @Test
+  public void testMalformedPayloadFails() {
+    assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[] {42}));
+    assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[] {1, 52, 0, 0, 0, 0}));
+    byte[] oversized = {0x7F, 0, 0, 0};
+    assertThrows(IOException.class, () -> BinaryCodec.read(new ByteArrayInputStream(oversized)));
+  }
+
+  @Test
+  public void testCapabilitiesAreOptionalInJson() throws IOException {
+    assertEquals(
+        "{\"messageType\":\"JoinGameRequest\",\"playerName\":\"alice\"}",
+        HandleJson.encode(new JoinGameRequest("alice", List.of())));
+    JoinGameRequest oldClient =
+        (JoinGameRequest)
+            HandleJson.decode("{\"messageType\":\"JoinGameRequest\",\"playerName\":\"alice\"}");
+    assertEquals(List.of(), oldClient.getCapabilities());
+    JoinGameRequest newClient =
+        (JoinGameRequest)
+            HandleJson.decode(
+                HandleJson.encode(new JoinGameRequest("bob", List.of(BinaryCodec.CAPABILITY))));
+    assertTrue(newClient.supports(BinaryCodec.CAPABILITY));
+  }
+}
@@ -0,0 +1,87 @@
+package highlowcardgame.communication.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// applying the delta between two states to the first must give the second, in either format
+public class GameStateDeltaNotificationTest {
+
+  private static GameStateNotification randomState(Random random) {
+    List<Card> cards = new ArrayList<>(Card.getAllValidCards());
+    Card card = random.nextInt(10) == 0 ? null : cards.get(random.nextInt(cards.size()));
+    String name = random.nextInt(10) == 0 ? null : "player-" + random.nextInt(3);
+    return new GameStateNotification(card, random.nextInt(3), name, random.nextInt(3));
+  }
+
+  private static void assertSameState(
+      GameStateNotification expected, GameStateNotification actual) {
+    assertEquals(HandleJson.encode(expected), HandleJson.encode(actual));
+  }
+
+  @Test
+  public void testAppliedDeltaGivesTheNextState() throws Exception {
+    Random random = new Random(42);
+    GameStateNotification previous = null;
+    for (int i = 1; i <= 10_000; i++) {
+      GameStateNotification next = randomState(random);
+      GameStateDeltaNotification delta = GameStateDeltaNotification.between(i, previous, next);
+      if (delta == null) {
+        assertSameState(previous, next);
+        continue;
+      }
+      assertEquals(i, delta.getSequence());
+      assertSameState(next, delta.applyTo(previous));
+      Message fromJson = HandleJson.decode(HandleJson.encode(delta));
+      assertSameState(next, ((GameStateDeltaNotification) fromJson).applyTo(previous));
+      Message fromBinary = BinaryCodec.read(new ByteArrayInputStream(BinaryCodec.encode(delta)));
+      assertSameState(next, ((GameStateDeltaNotification) fromBinary).applyTo(previous));
+      previous = next;
+    }
+  }
+
+  @Test
+  public void testDeltaOnlyCarriesTheChangedFields() {
+    Card card = new Card(Card.Suit.SPADES, 9);
+    GameStateNotification previous = new GameStateNotification(card, 4, "alice", 10);
+    GameStateDeltaNotification delta =
+        GameStateDeltaNotification.between(
+            5, previous, new GameStateNotification(card, 5, "alice", 10));
+    assertFalse(delta.isKeyframe());
+    assertNull(delta.getCurrentCard());
+    assertEquals(5, delta.getNumRounds());
+    assertNull(delta.getPlayerName());
+    assertNull(delta.getScore());
+    assertEquals(
+        "{\"messageType\":\"GameStateDeltaNotification\",\"numRounds\":5,\"sequence\":5}",
+        HandleJson.encode(delta));
+    assertNull(GameStateDeltaNotification.between(6, previous, previous));
+  }
+
+  @Test
+  public void testClearedFieldNeedsAKeyframe() {
+    GameStateNotification previous =
+        new GameStateNotification(new Card(Card.Suit.HEARTS, 2), 1, "alice", 0);
+    GameStateDeltaNotification delta =
+        GameStateDeltaNotification.between(
+            2, previous, new GameStateNotification(null, 1, "alice", 0));
+    assertTrue(delta.isKeyframe());
+    assertNull(delta.applyTo(previous).getCurrentCard());
+  }
+
+  @Test
+  public void testDeltaWithoutPreviousStateFails() {
+    GameStateDeltaNotification delta =
+        new GameStateDeltaNotification(2, false, null, 3, null, null);
+    assertThrows(IllegalArgumentException.class, () -> delta.applyTo(null));
+  }
+}
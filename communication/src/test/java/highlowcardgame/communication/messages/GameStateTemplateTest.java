@@ -0,0 +1,72 @@
+package highlowcardgame.communication.messages;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import highlowcardgame.game.Card;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class GameStateTemplateTest {
+
+  private static String jsonLine(Message message) {
+    return HandleJson.encode(message) + System.lineSeparator();
+  }
+
+  private static String toString(OutputBuffer out) {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testTemplateMatchesEncodedNotification() {
+    Card card = new Card(Card.Suit.SPADES, 11);
+    GameStateTemplate template = new GameStateTemplate(card, 42);
+    for (String name : new String[] {"alice", "\"quoted\" \\ ünïcode", null}) {
+      GameStateTemplate.Recipient recipient = new GameStateTemplate.Recipient(name);
+      for (int score : new int[] {0, 7, -3}) {
+        GameStateNotification notification = new GameStateNotification(card, 42, name, score);
+
+        OutputBuffer json = new OutputBuffer();
+        template.writeTo(json, recipient, score, false);
+        assertEquals(jsonLine(notification), toString(json));
+
+        OutputBuffer spliced = new OutputBuffer();
+        spliced.write(copy(template.sharedJsonPrefix()));
+        template.writeJsonSuffix(spliced, recipient, score);
+        assertEquals(jsonLine(notification), toString(spliced));
+
+        OutputBuffer binary = new OutputBuffer();
+        template.writeTo(binary, recipient, score, true);
+        assertArrayEquals(BinaryCodec.encode(notification), binary.toByteArray());
+      }
+    }
+  }
+
+  private static byte[] copy(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void testTemplateWithoutCard() {
+    GameStateTemplate template = new GameStateTemplate(null, 0);
+    OutputBuffer json = new OutputBuffer();
+    template.writeTo(json, new GameStateTemplate.Recipient("bob"), 1, false);
+    assertEquals(jsonLine(new GameStateNotification(null, 0, "bob", 1)), toString(json));
+  }
+
+  @Test
+  public void testSharedFrameMatchesEncodedMessage() {
+    SharedFrame frame = SharedFrame.of(new PlayerJoinedNotification("alice", 3));
+    OutputBuffer json = new OutputBuffer();
+    frame.writeTo(json, false);
+    assertEquals(jsonLine(frame.getMessage()), toString(json));
+    assertArrayEquals(json.toByteArray(), copy(frame.asByteBuffer(false)));
+
+    OutputBuffer binary = new OutputBuffer();
+    frame.writeTo(binary, true);
+    assertArrayEquals(BinaryCodec.encode(frame.getMessage()), binary.toByteArray());
+  }
+}
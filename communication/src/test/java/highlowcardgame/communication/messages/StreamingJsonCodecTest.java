@@ -0,0 +1,194 @@
+package highlowcardgame.communication.messages;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class StreamingJsonCodecTest {
+
+  private static final String TRICKY_NAME;
+
+  static {
+    StringBuilder name = new StringBuilder();
+    for (char c = 0; c < 0x80; c++) {
+      name.append(c);
+    }
+    name.append("é€  😀").append('\ud800').append('x').append('\udc00');
+    TRICKY_NAME = name.toString();
+  }
+
+  private static List<Message> sampleMessages() {
+    List<Message> messages = new ArrayList<>();
+    for (Card card : Card.getAllValidCards()) {
+      messages.add(
+          new GameStateNotification(card, card.getValue() * 1000, "alice", -card.getValue()));
+    }
+    messages.add(new GameStateNotification(null, 0, null, Integer.MIN_VALUE));
+    messages.add(new GameStateNotification(new Card(null, 3), Integer.MAX_VALUE, TRICKY_NAME, 0));
+    for (Guess guess : Guess.values()) {
+      messages.add(new GuessRequest(guess, "bob"));
+    }
+    messages.add(new GuessRequest(null, null));
+    messages.add(new JoinGameRequest("alice"));
+    messages.add(new JoinGameRequest(TRICKY_NAME, List.of(BinaryCodec.CAPABILITY, "\"quoted\"")));
+    messages.add(new PlayerGuessedNotification(12, TRICKY_NAME));
+    messages.add(new PlayerJoinedNotification("Zoë", 5000));
+    messages.add(new PlayerLeftNotification(0, null));
+    messages.add(
+        new LeaderboardNotification(
+            7,
+            List.of(
+                new LeaderboardNotification.Entry("alice", 1, 52),
+                new LeaderboardNotification.Entry(TRICKY_NAME, 2, -1),
+                new LeaderboardNotification.Entry(null, Integer.MAX_VALUE, 0)),
+            List.of("bob", TRICKY_NAME)));
+    messages.add(new LeaderboardNotification(0, List.of(), null));
+    messages.add(new LeaderboardNotification(Integer.MIN_VALUE, null, List.of()));
+    messages.add(new GameStateDeltaNotification(1, true, null, 0, TRICKY_NAME, Integer.MIN_VALUE));
+    messages.add(
+        new GameStateDeltaNotification(Integer.MAX_VALUE, false, new Card(null, 3), 8, null, null));
+    messages.add(new GameStateDeltaNotification(-1, false, null, null, null, 12));
+    messages.add(new KeyframeRequest(0));
+    return messages;
+  }
+
+  private static byte[] streamingBytes(Message message) {
+    OutputBuffer out = new OutputBuffer(16);
+    StreamingJsonCodec.encode(message, out);
+    return out.toByteArray();
+  }
+
+  private static String moshiNormalized(Message message) {
+    return HandleJson.jsonAdapter.toJson(message);
+  }
+
+  private static Message streamingDecode(String json) throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    return StreamingJsonCodec.decode(bytes, 0, bytes.length);
+  }
+
+  @Test
+  public void testEncodingIsByteIdenticalToMoshi() {
+    for (Message message : sampleMessages()) {
+      byte[] moshi = HandleJson.jsonAdapter.toJson(message).getBytes(StandardCharsets.UTF_8);
+      assertArrayEquals(moshi, streamingBytes(message), moshiNormalized(message));
+    }
+  }
+
+  @Test
+  public void testRandomNamesAreByteIdenticalToMoshi() {
+    Random random = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      char[] name = new char[random.nextInt(12)];
+      for (int j = 0; j < name.length; j++) {
+        int range = random.nextInt(4);
+        name[j] = (char) (range == 0 ? random.nextInt(0x80) : random.nextInt(0x10000));
+      }
+      Message message = new PlayerJoinedNotification(new String(name), i);
+      byte[] moshi = HandleJson.jsonAdapter.toJson(message).getBytes(StandardCharsets.UTF_8);
+      assertArrayEquals(moshi, streamingBytes(message));
+    }
+  }
+
+  @Test
+  public void testDecodingMatchesMoshi() throws IOException {
+    for (Message message : sampleMessages()) {
+      String json = moshiNormalized(message);
+      assertEquals(
+          moshiNormalized(HandleJson.jsonAdapter.fromJson(json)),
+          moshiNormalized(streamingDecode(json)));
+    }
+  }
+
+  @Test
+  public void testDecodingAcceptsWhatMoshiAccepts() throws IOException {
+    String[] inputs = {
+      " { \"playerName\" : \"a\\u00e9\\n\\/\" ,\"messageType\":\"GuessRequest\",\"guess\":\"LOW\" } ",
+      "{\"numPlayers\":\"3\",\"messageType\":\"PlayerLeftNotification\",\"foo\":[1,{\"a\":[]}]}",
+      "{\"messageType\":\"PlayerLeftNotification\",\"numPlayers\":2.0,\"playerName\":null}",
+      "{\"messageType\":\"GameStateNotification\",\"score\":-7,\"guess\":\"nonsense\","
+          + "\"currentCard\":{\"x\":true,\"value\":12,\"suit\":\"CLUBS\"},\"numRounds\":1}",
+      "{\"messageType\":\"JoinGameRequest\",\"capabilities\":[\"binary-v1\",null],"
+          + "\"playerName\":\"\\ud83d\\ude00\"}",
+      "{\"messageType\":\"PlayerJoinedNotification\",\"numPlayers\":-2147483648}",
+      "{\"messageType\":\"PlayerGuessedNotification\"}",
+      "{\"messageType\":\"GameStateDeltaNotification\",\"numRounds\":null,\"score\":3,"
+          + "\"sequence\":\"4\",\"keyframe\":true,\"score\":null}",
+      "{\"sequence\":9,\"messageType\":\"KeyframeRequest\",\"score\":1}",
+      "{\"removedPlayers\":[null,\"b\"],\"messageType\":\"LeaderboardNotification\","
+          + "\"entries\":[{\"score\":3,\"x\":{},\"rank\":\"2\"},null,{}],\"numRounds\":4}"
+    };
+    for (String json : inputs) {
+      assertEquals(
+          moshiNormalized(HandleJson.jsonAdapter.fromJson(json)),
+          moshiNormalized(streamingDecode(json)),
+          json);
+    }
+  }
+
+  @Test
+  public void testDecodingRejectsWhatMoshiRejects() {
+    String[] inputs = {
+      "",
+      "{}",
+      "{\"messageType\":\"Unknown\"}",
+      "{\"messageType\":\"PlayerLeftNotification\",\"numPlayers\":1.5}",
+      "{\"messageType\":\"PlayerLeftNotification\",\"numPlayers\":null}",
+      "{\"messageType\":\"GameStateDeltaNotification\",\"sequence\":null}",
+      "{\"messageType\":\"GameStateDeltaNotification\",\"keyframe\":1}",
+      "{\"messageType\":\"GuessRequest\",\"guess\":\"MAYBE\"}",
+      "{\"messageType\":\"LeaderboardNotification\",\"entries\":[{\"rank\":null}]}",
+      "{\"messageType\":\"LeaderboardNotification\",\"entries\":{}}",
+      "{\"messageType\":\"GuessRequest\",\"playerName\":\"a\"",
+      "{\"messageType\":\"GuessRequest\",\"playerName\":\"a\"} x",
+      "{\"messageType\":\"GuessRequest\",'playerName':\"a\"}",
+      "{\"messageType\":\"GameStateNotification\",\"currentCard\":{\"suit\":\"CLUBS\",\"value\":14}}"
+    };
+    for (String json : inputs) {
+      assertThrows(Exception.class, () -> HandleJson.jsonAdapter.fromJson(json), json);
+      assertThrows(IOException.class, () -> streamingDecode(json), json);
+    }
+  }
+
+  @Test
+  public void testDecodedCardsAreCanonical() throws IOException {
+    for (Card card : Card.getAllValidCards()) {
+      String json = moshiNormalized(new GameStateNotification(card, 1, "alice", 0));
+      GameStateNotification moshi = (GameStateNotification) HandleJson.jsonAdapter.fromJson(json);
+      assertSame(card, moshi.getCurrentCard());
+      assertSame(card, ((GameStateNotification) streamingDecode(json)).getCurrentCard());
+    }
+  }
+
+  @Test
+  public void testDecodesFromTheMiddleOfAnArray() throws IOException {
+    String json = moshiNormalized(new PlayerJoinedNotification("alice", 2));
+    byte[] line = ("xx" + json + "\n").getBytes(StandardCharsets.UTF_8);
+    assertEquals(json, moshiNormalized(StreamingJsonCodec.decode(line, 2, line.length - 3)));
+  }
+
+  @Test
+  public void testBackendsAreInterchangeable() throws IOException {
+    try {
+      for (Message message : sampleMessages()) {
+        HandleJson.setBackend(HandleJson.Backend.MOSHI);
+        String moshi = HandleJson.encode(message);
+        HandleJson.setBackend(HandleJson.Backend.STREAMING);
+        assertEquals(moshi, HandleJson.encode(message));
+        assertEquals(moshi, HandleJson.encode(HandleJson.decode(moshi)));
+      }
+    } finally {
+      HandleJson.setBackend(HandleJson.Backend.MOSHI);
+    }
+  }
+}
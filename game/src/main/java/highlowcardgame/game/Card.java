@@ -3,9 +3,14 @@ package highlowcardgame.game;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 
-/** A poker card. */
+/**
+ * A poker card.
+ *
+ * <p>The 52 valid cards exist once each, see {@link #of} and {@link #ofOrdinal}. Every card knows
+ * its ordinal, a dense index in the order suit by suit and value by value, so tables over all cards
+ * are plain arrays. Cards created by the constructor are equal to the canonical ones.
+ */
 public final class Card implements Comparable<Card> {
 
   /** Suit of a poker card. */
@@ -29,19 +34,77 @@ public final class Card implements Comparable<Card> {
 
   private static final int CARD_VALUE_MIN = 1;
   private static final int CARD_VALUE_MAX = 13;
+  private static final int VALUES_PER_SUIT = CARD_VALUE_MAX - CARD_VALUE_MIN + 1;
+  private static final Suit[] SUITS = Suit.values();
+
+  /** The number of valid cards, the ordinals are below it. */
+  public static final int NUM_CARDS = SUITS.length * VALUES_PER_SUIT;
+
+  private static final Card[] CARDS = new Card[NUM_CARDS];
+  private static final List<Card> ALL_CARDS;
+
+  static {
+    for (Suit suit : SUITS) {
+      for (int value = CARD_VALUE_MIN; value <= CARD_VALUE_MAX; ++value) {
+        Card card = new Card(suit, value);
+        CARDS[card.ordinal] = card;
+      }
+    }
+    ALL_CARDS = List.of(CARDS);
+  }
 
   private final Suit suit;
   private final int value;
+  // -1 for cards without a suit, which only exist as decoded garbage
+  private final int ordinal;
+  private final int absoluteValue;
+  private final String code;
 
-  /** Returns all valid, distinct playing cards. */
+  /**
+   * Returns all valid, distinct playing cards, the canonical instances in ordinal order. The
+   * collection is a new one the caller may change.
+   */
   public static Collection<Card> getAllValidCards() {
-    List<Card> cards = new ArrayList<>();
-    for (Suit suit : Suit.values()) {
-      for (int value = CARD_VALUE_MIN; value <= CARD_VALUE_MAX; ++value) {
-        cards.add(new Card(suit, value));
-      }
+    return new ArrayList<>(ALL_CARDS);
+  }
+
+  /** Returns all valid cards like {@link #getAllValidCards}, as the shared, unmodifiable list. */
+  static List<Card> allValidCards() {
+    return ALL_CARDS;
+  }
+
+  /**
+   * Returns the canonical card.
+   *
+   * @param suit the suit of the card
+   * @param value the value of the card, must be between 1 and 13.
+   * @throws IllegalArgumentException if the value is not in the range of 1~13
+   */
+  public static Card of(Suit suit, int value) {
+    if (suit == null) {
+      return new Card(null, value);
     }
-    return cards;
+    if (value < CARD_VALUE_MIN || value > CARD_VALUE_MAX) {
+      throw new IllegalArgumentException("A card cannot have a value of " + value);
+    }
+    return CARDS[ordinal(suit, value)];
+  }
+
+  /**
+   * Returns the canonical card with the given ordinal.
+   *
+   * @throws IllegalArgumentException if the ordinal is not in the range of 0 to {@link #NUM_CARDS}
+   *     - 1
+   */
+  public static Card ofOrdinal(int ordinal) {
+    if (ordinal < 0 || ordinal >= NUM_CARDS) {
+      throw new IllegalArgumentException("No card has the ordinal " + ordinal);
+    }
+    return CARDS[ordinal];
+  }
+
+  private static int ordinal(Suit suit, int value) {
+    return suit.ordinal() * VALUES_PER_SUIT + value - CARD_VALUE_MIN;
   }
 
   /**
@@ -58,6 +121,9 @@ public final class Card implements Comparable<Card> {
 
     this.suit = suit;
     this.value = value;
+    ordinal = suit == null ? -1 : ordinal(suit, value);
+    absoluteValue = value * 4 + (suit == null ? 0 : suit.ordinal());
+    code = (suit == null ? "null" : suit.getCodeSuit()) + (value < 10 ? "0" : "") + value;
   }
 
   /** Returns the suit of the card. */
@@ -70,15 +136,19 @@ public final class Card implements Comparable<Card> {
     return value;
   }
 
-  private int getAbsoluteValue() {
-    return value * 4 + suit.ordinal();
+  /** Returns the index of the card among all valid cards, see {@link #ofOrdinal}. */
+  public int getOrdinal() {
+    return ordinal;
+  }
+
+  /** Returns the canonical instance of this card. */
+  public Card canonical() {
+    return ordinal < 0 ? this : CARDS[ordinal];
   }
 
   @Override
   public int compareTo(Card card) {
-    int thisScore = getAbsoluteValue();
-    int thatScore = card.getAbsoluteValue();
-    return thisScore - thatScore;
+    return absoluteValue - card.absoluteValue;
   }
 
   @Override
@@ -95,11 +165,11 @@ public final class Card implements Comparable<Card> {
 
   @Override
   public int hashCode() {
-    return Objects.hash(suit, value);
+    return ordinal < 0 ? value : ordinal;
   }
 
   @Override
   public String toString() {
-    return suit.getCodeSuit() + String.format("%02d", value);
+    return code;
   }
 }
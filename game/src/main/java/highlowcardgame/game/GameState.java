@@ -1,39 +1,87 @@
 package highlowcardgame.game;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
-/** State of the game. */
+/**
+ * State of the game.
+ *
+ * <p>The players and their seats are immutable snapshots. Their maps are persistent, so a new state
+ * shares everything but the changed entries with its predecessor and a transition costs O(log N)
+ * instead of copying all maps of an N-player table.
+ *
+ * <p>Scores and the guesses of the current round live in the {@link Seats} of the game, shared by
+ * all of its states. Every state keeps the score and guess arrays of the seats as they were when it
+ * was created, which the seats never change afterwards but for the guesses still made in the same
+ * round. So {@link #getScores()} shows the scores of this state's round, and {@link #getGuesses()}
+ * the guesses of this round, no matter how far the game has moved on. Only the {@link
+ * #getLeaderboard() leaderboard} is shared and always the latest. The transitions are only called
+ * by the game while it holds its lock.
+ */
 public class GameState {
 
   private final Deck deck;
   private final Card currentCard;
 
   private final int round;
-  private final Map<String, Player> players;
-  private final Map<Player, Score> scores;
-
-  private final Map<Player, HighLowCardGame.Guess> currentGuesses;
+  private final PersistentHashMap<String, Player> players;
+  private final PersistentHashMap<Player, Integer> seatIds;
+  private final Seats seats;
+  private final int[] scores;
+  private final byte[] guesses;
 
   GameState(Deck deck) {
-    this(deck, null, 0, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    this(deck, null, 0, PersistentHashMap.empty(), PersistentHashMap.empty(), new Seats());
   }
 
   private GameState(
       Deck deck,
       Card card,
       int round,
-      Map<String, Player> players,
-      Map<Player, Score> scores,
-      Map<Player, HighLowCardGame.Guess> guesses) {
+      PersistentHashMap<String, Player> players,
+      PersistentHashMap<Player, Integer> seatIds,
+      Seats seats) {
+    this(deck, card, round, players, seatIds, seats, seats.scores(), seats.guesses());
+  }
+
+  private GameState(
+      Deck deck,
+      Card card,
+      int round,
+      PersistentHashMap<String, Player> players,
+      PersistentHashMap<Player, Integer> seatIds,
+      Seats seats,
+      int[] scores,
+      byte[] guesses) {
     this.deck = deck;
     currentCard = card;
     this.round = round;
-    this.players = Map.copyOf(players);
-    this.scores = Map.copyOf(scores);
-    currentGuesses = Map.copyOf(guesses);
+    this.players = players;
+    this.seatIds = seatIds;
+    this.seats = seats;
+    this.scores = scores;
+    this.guesses = guesses;
+  }
+
+  /** Returns the state of a game restored from a snapshot, with the players of the seats. */
+  static GameState restore(Deck deck, Card card, int round, Seats seats) {
+    PersistentHashMap<String, Player> players = PersistentHashMap.empty();
+    PersistentHashMap<Player, Integer> seatIds = PersistentHashMap.empty();
+    for (int seat = 0; seat < seats.numSeats(); seat++) {
+      Player player = seats.playerAt(seat);
+      if (player != null) {
+        players = players.plus(player.getName(), player);
+        seatIds = seatIds.plus(player, seat);
+      }
+    }
+    return new GameState(deck, card, round, players, seatIds, seats);
   }
 
   /**
@@ -42,14 +90,12 @@ public class GameState {
    * @param player is the referenced object to save in the Maps
    * @return GameState containing all relevant information
    */
-  public synchronized GameState addPlayer(Player player) {
+  public GameState addPlayer(Player player) {
     String playerName = player.getName();
-    Map<String, Player> newPlayers = new HashMap<>(players);
-    newPlayers.put(playerName, player);
-    Map<Player, Score> newScores = new HashMap<>(scores);
-    newScores.put(player, new Score());
-    GameState state =
-        new GameState(deck, currentCard, round, newPlayers, newScores, currentGuesses);
+    Integer seat = seats.assign(player);
+    PersistentHashMap<String, Player> newPlayers = players.plus(playerName, player);
+    PersistentHashMap<Player, Integer> newSeatIds = seatIds.plus(player, seat);
+    GameState state = new GameState(deck, currentCard, round, newPlayers, newSeatIds, seats);
     return state;
   }
 
@@ -59,39 +105,110 @@ public class GameState {
    * @param player is the referenced object to remove from the Maps
    * @return GameState containing all relevant information
    */
-  public synchronized GameState removePlayer(Player player) {
+  public GameState removePlayer(Player player) {
     String playerName = player.getName();
-    Map<String, Player> newMap = new HashMap<>(players);
-    newMap.remove(playerName);
-    GameState state = new GameState(deck, currentCard, round, newMap, scores, currentGuesses);
+    PersistentHashMap<String, Player> newMap = players.minus(playerName);
+    Integer seat = seatIds.get(player);
+    if (seat != null) {
+      seats.release(seat);
+    }
+    GameState state = new GameState(deck, currentCard, round, newMap, seatIds.minus(player), seats);
     return state;
   }
 
   /**
-   * Method for adding a guess to the GameState.
+   * Gives the seat of a player to another player with the same name, who takes over its score and
+   * guess, e.g. a player reconnecting after a restart.
+   */
+  GameState replacePlayer(Player player, Player successor) {
+    int seat = seatIds.get(player);
+    seats.replace(seat, successor);
+    PersistentHashMap<String, Player> newPlayers = players.plus(successor.getName(), successor);
+    PersistentHashMap<Player, Integer> newSeatIds = seatIds.minus(player).plus(successor, seat);
+    return new GameState(deck, currentCard, round, newPlayers, newSeatIds, seats);
+  }
+
+  /**
+   * Method for adding a guess to the GameState. Guesses of players without a seat are ignored.
+   *
+   * <p>The returned state is detached from the game, which does not learn about the guess. Use
+   * {@link HighLowCardGame#guess(Player, HighLowCardGame.Guess)} to guess in the game.
    *
    * @param guesser is the referenced player
    * @param guess is the actual guess from the player
    * @return GameState containing all relevant information.
    */
-  public synchronized GameState addGuess(Player guesser, HighLowCardGame.Guess guess) {
-    Map<Player, HighLowCardGame.Guess> newGuesses = new HashMap<>(currentGuesses);
-    newGuesses.put(guesser, guess);
-    return new GameState(deck, currentCard, round, players, scores, newGuesses);
+  public GameState addGuess(Player guesser, HighLowCardGame.Guess guess) {
+    Objects.requireNonNull(guess);
+    Integer seat = seatIds.get(guesser);
+    byte[] newGuesses = guesses;
+    if (seat != null) {
+      newGuesses = Arrays.copyOf(guesses, guesses.length);
+      newGuesses[seat] = Seats.encode(guess);
+    }
+    return new GameState(deck, currentCard, round, players, seatIds, seats, scores, newGuesses);
+  }
+
+  /**
+   * Records the guess in the seats without creating a new state. Safe to call concurrently.
+   *
+   * @return the number of seated players who still have to guess after this guess
+   */
+  int submitGuess(Player guesser, HighLowCardGame.Guess guess) {
+    Objects.requireNonNull(guess);
+    Integer seat = seatIds.get(guesser);
+    return seat == null ? seats.numOutstandingGuesses() : seats.guess(seat, guess);
+  }
+
+  /** Returns the seat of the player, or -1 if the player is not seated in this state. */
+  int seatOf(Player player) {
+    Integer seat = seatIds.get(player);
+    return seat == null ? -1 : seat;
+  }
+
+  /** Returns the player with the given name, or null. */
+  Player getPlayerNamed(String playerName) {
+    return players.get(playerName);
+  }
+
+  boolean hasPlayer(Player player) {
+    String playerName = player.getName();
+    return playerName != null && players.get(playerName) == player;
+  }
+
+  /** Returns whether a player with the given name is part of this state, looked up by name. */
+  public boolean hasPlayerNamed(String playerName) {
+    return players.containsKey(playerName);
+  }
+
+  /** Returns whether the player guessed in the current round. */
+  public boolean hasGuessed(Player player) {
+    Integer seat = seatIds.get(player);
+    return seat != null && Seats.decode(guesses[seat]) != null;
   }
 
   Deck getDeck() {
     return deck;
   }
 
-  synchronized GameState nextRound(Card newCard) {
-    GameState newState =
-        new GameState(deck, newCard, round + 1, players, scores, Collections.emptyMap());
+  Seats getSeats() {
+    return seats;
+  }
+
+  /** Adds the points to the score of every player whose guess is correct. */
+  void scoreGuesses(HighLowCardGame.Guess correctGuess, int points) {
+    seats.scoreGuesses(correctGuess, points);
+  }
+
+  GameState nextRound(Card newCard) {
+    seats.clearGuesses();
+    GameState newState = new GameState(deck, newCard, round + 1, players, seatIds, seats);
     return newState;
   }
 
+  /** Returns the guesses of this state's round by the players seated in this state. */
   public Map<Player, HighLowCardGame.Guess> getGuesses() {
-    return currentGuesses;
+    return new GuessesView();
   }
 
   public int getRound() {
@@ -103,16 +220,176 @@ public class GameState {
     return currentCard;
   }
 
+  /** Returns a copy of the players. Use {@link #getNumPlayers()} if only the number is needed. */
   public List<Player> getPlayers() {
     return List.copyOf(players.values());
   }
 
+  /** Returns the number of players without copying them. */
+  public int getNumPlayers() {
+    return players.size();
+  }
+
+  /**
+   * Returns the scores of the players seated in this state, as they were in this state. The scores
+   * are copies, incrementing one does not change the game.
+   */
   public Map<Player, Score> getScores() {
-    return scores;
+    return new ScoresView();
+  }
+
+  /**
+   * Returns the leaderboard of the players, which like the scores is shared by all states and
+   * always shows the latest scores.
+   */
+  public Leaderboard getLeaderboard() {
+    return seats.leaderboard();
+  }
+
+  /**
+   * Returns the rank of the player on the leaderboard in O(log N), or 0 if the player is not seated
+   * in this state.
+   */
+  public int getRank(Player player) {
+    Integer seat = seatIds.get(player);
+    if (seat == null || !seats.isSeated(seat, player)) {
+      return 0;
+    }
+    return seats.leaderboard().rankOf(seats.scoreAt(seat));
+  }
+
+  /**
+   * Adds the given points to the score of the player in the game. This state keeps the old score.
+   *
+   * @return the state with the new score
+   */
+  public GameState incrementScore(Player player, int integer) {
+    Integer seat = seatIds.get(player);
+    if (seat == null) {
+      return this;
+    }
+    seats.addScore(seat, integer);
+    return new GameState(
+        deck, currentCard, round, players, seatIds, seats, seats.scores(), guesses);
   }
 
-  public synchronized GameState incrementScore(Player player, int integer) {
-    scores.get(player).increment(integer);
-    return this;
+  /** Returns the number of players seated in this state who guessed in its round. */
+  private int numGuesses() {
+    int numGuesses = 0;
+    for (int seat : seatIds.values()) {
+      if (Seats.decode(guesses[seat]) != null) {
+        numGuesses++;
+      }
+    }
+    return numGuesses;
+  }
+
+  private final class ScoresView extends AbstractMap<Player, Score> {
+    @Override
+    public int size() {
+      return seatIds.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public Score get(Object key) {
+      Integer seat = seatIds.get(key);
+      return seat == null ? null : new Score(scores[seat]);
+    }
+
+    @Override
+    public Set<Map.Entry<Player, Score>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<Player, Score>> iterator() {
+          Iterator<Map.Entry<Player, Integer>> entries = seatIds.entrySet().iterator();
+          return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+              return entries.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Player, Score> next() {
+              Map.Entry<Player, Integer> entry = entries.next();
+              return new SimpleImmutableEntry<>(
+                  entry.getKey(), new Score(scores[entry.getValue()]));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return seatIds.size();
+        }
+      };
+    }
+  }
+
+  /** The guesses of this state's round, read from its guess array. */
+  private final class GuessesView extends AbstractMap<Player, HighLowCardGame.Guess> {
+    @Override
+    public int size() {
+      return numGuesses();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public HighLowCardGame.Guess get(Object key) {
+      Integer seat = seatIds.get(key);
+      return seat == null ? null : Seats.decode(guesses[seat]);
+    }
+
+    @Override
+    public Set<Map.Entry<Player, HighLowCardGame.Guess>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<Player, HighLowCardGame.Guess>> iterator() {
+          Iterator<Map.Entry<Player, Integer>> entries = seatIds.entrySet().iterator();
+          return new Iterator<>() {
+            private Map.Entry<Player, HighLowCardGame.Guess> next = findNext();
+
+            private Map.Entry<Player, HighLowCardGame.Guess> findNext() {
+              while (entries.hasNext()) {
+                Map.Entry<Player, Integer> entry = entries.next();
+                HighLowCardGame.Guess guess = Seats.decode(guesses[entry.getValue()]);
+                if (guess != null) {
+                  return new SimpleImmutableEntry<>(entry.getKey(), guess);
+                }
+              }
+              return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+              return next != null;
+            }
+
+            @Override
+            public Map.Entry<Player, HighLowCardGame.Guess> next() {
+              if (next == null) {
+                throw new NoSuchElementException();
+              }
+              Map.Entry<Player, HighLowCardGame.Guess> entry = next;
+              next = findNext();
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return numGuesses();
+        }
+      };
+    }
   }
 }
@@ -0,0 +1,30 @@
+package highlowcardgame.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a recorded guess. Its duration includes completing the round if the
+ * guess was the last one.
+ */
+@Name("highlowcardgame.GuessAccepted")
+@Label("Guess Accepted")
+@Category({"High-Low Card Game", "Game"})
+@StackTrace(false)
+final class GuessAcceptedEvent extends jdk.jfr.Event {
+  @Label("Round")
+  int round;
+
+  @Label("Player")
+  String player;
+
+  @Label("Guess")
+  String guess;
+
+  @Label("Remaining Players")
+  @Description("The players that still had to guess in the round after this guess")
+  int remaining;
+}
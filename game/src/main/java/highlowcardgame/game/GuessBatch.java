@@ -0,0 +1,77 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Guesses collected to be applied together by {@link HighLowCardGame#guessAll}, in the order they
+ * were added. A batch is meant to be reused by a single thread: filled, applied and cleared again.
+ */
+public final class GuessBatch {
+  private final Player[] players;
+  private final Guess[] guesses;
+  private final IntConsumer[] guessed;
+  private int size = 0;
+
+  /**
+   * Creates an empty batch.
+   *
+   * @param capacity the maximum number of guesses in the batch
+   */
+  public GuessBatch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    players = new Player[capacity];
+    guesses = new Guess[capacity];
+    guessed = new IntConsumer[capacity];
+  }
+
+  /**
+   * Adds a guess to the batch.
+   *
+   * @param player the guessing player
+   * @param guess the guess
+   * @param guessed receives the number of players that still have to guess in the round of the
+   *     guess, see {@link HighLowCardGame#guess(Player, Guess, IntConsumer)}
+   * @throws IllegalStateException if the batch is full
+   */
+  public void add(Player player, Guess guess, IntConsumer guessed) {
+    if (isFull()) {
+      throw new IllegalStateException("The batch is full: " + size);
+    }
+    players[size] = player;
+    guesses[size] = guess;
+    this.guessed[size] = guessed;
+    size++;
+  }
+
+  public boolean isFull() {
+    return size == players.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  Player getPlayer(int index) {
+    return players[index];
+  }
+
+  Guess getGuess(int index) {
+    return guesses[index];
+  }
+
+  IntConsumer getGuessed(int index) {
+    return guessed[index];
+  }
+
+  /** Removes all guesses, releasing the players and callbacks. */
+  public void clear() {
+    Arrays.fill(players, 0, size, null);
+    Arrays.fill(guesses, 0, size, null);
+    Arrays.fill(guessed, 0, size, null);
+    size = 0;
+  }
+}
@@ -1,16 +1,30 @@
 package highlowcardgame.game;
 
 import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.metrics.Counter;
+import highlowcardgame.game.metrics.Histogram;
+import highlowcardgame.game.metrics.MetricsRegistry;
 import highlowcardgame.game.observable.Observable;
 import highlowcardgame.game.observable.Observer;
 import highlowcardgame.game.observable.ObserverSupport;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
 
 /** The high-low card game logic. */
 public class HighLowCardGame implements Observable {
 
-  private final ObserverSupport observerSupport = new ObserverSupport();
+  private final ObserverSupport observerSupport;
+
+  // Guesses only take the shared read lock and are recorded concurrently, everything changing the
+  // round or the players takes the write lock. The players are notified while it is held, which
+  // only queues the notifications in order; they are written by ObserverSupport.flush once it is
+  // released, so no thread waits for a socket while holding the lock.
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
   static final Map<Guess, Integer> GUESS_SCORE =
       Map.of(
@@ -21,6 +35,38 @@ public class HighLowCardGame implements Observable {
           HighLowCardGame.Guess.EQUAL,
           25);
 
+  // the correct guess for every pair of valid cards, indexed by the ordinals of both cards
+  private static final Guess[] CORRECT_GUESSES = new Guess[Card.NUM_CARDS * Card.NUM_CARDS];
+
+  static {
+    for (Card first : Card.allValidCards()) {
+      for (Card second : Card.allValidCards()) {
+        CORRECT_GUESSES[first.getOrdinal() * Card.NUM_CARDS + second.getOrdinal()] =
+            compareCards(first, second);
+      }
+    }
+  }
+
+  private static final Histogram JOIN_SECONDS =
+      MetricsRegistry.global()
+          .histogram("game_join_seconds", "Time to seat a joining player and notify the table.");
+  private static final Histogram GUESS_SECONDS =
+      MetricsRegistry.global()
+          .histogram("game_guess_seconds", "Time to record a guess, including a completed round.");
+  private static final Histogram ROUND_CLOSE_SECONDS =
+      MetricsRegistry.global()
+          .histogram(
+              "game_round_close_seconds",
+              "Time to score a round, draw the next card and notify the table.");
+  private static final Counter JOINS =
+      MetricsRegistry.global().counter("game_joins_total", "Players that joined a game.");
+  private static final Counter LEAVES =
+      MetricsRegistry.global().counter("game_leaves_total", "Players that left a game.");
+  private static final Counter GUESSES =
+      MetricsRegistry.global().counter("game_guesses_total", "Guesses recorded.");
+  private static final Counter ROUNDS =
+      MetricsRegistry.global().counter("game_rounds_total", "Rounds completed.");
+
   /** Represents different types of guess. */
   public enum Guess {
     HIGH,
@@ -29,69 +75,406 @@ public class HighLowCardGame implements Observable {
   }
 
   private volatile GameState state;
+  private volatile IntConsumer roundListener = round -> {};
+  private volatile Journal journal;
+  // guarded by the write lock
+  private int leaderboardInterval = 0;
+  private int leaderboardSize = 0;
+  private List<Leaderboard.Entry> sentLeaderboard = List.of();
 
-  /** Creates a new HighLowCardGame. */
+  /** Creates a new HighLowCardGame notifying its players synchronously. */
   public HighLowCardGame(Deck deck) {
+    this(deck, new ObserverSupport());
+  }
+
+  private HighLowCardGame(Deck deck, ObserverSupport observerSupport) {
+    this.observerSupport = observerSupport;
     state = new GameState(deck);
   }
 
+  /**
+   * Creates a new HighLowCardGame.
+   *
+   * @param deck the deck to draw cards from
+   * @param observerSupport notifies the players, players it disconnects are removed from the game
+   * @return the game
+   */
+  public static HighLowCardGame create(Deck deck, ObserverSupport observerSupport) {
+    HighLowCardGame game = new HighLowCardGame(deck, observerSupport);
+    // wired once the game is constructed, the handler must not see it half-initialized
+    observerSupport.setDisconnectHandler(
+        o -> {
+          if (o instanceof Player) {
+            game.removePlayer((Player) o);
+          }
+        });
+    return game;
+  }
+
+  /** Starts the first round, or resumes the round of a restored game, see {@link #restore}. */
   public void start() throws NoNextCardException {
-    state = state.nextRound(state.getDeck().getNextCard());
-    notifyAboutState(state);
+    lock.writeLock().lock();
+    try {
+      if (state.getRound() == 0) {
+        state = state.nextRound(state.getDeck().getNextCard());
+        Journal current = journal;
+        if (current != null) {
+          current.roundStarted(state.getRound(), state.getCurrentCard());
+        }
+        recordRoundStarted(state);
+      }
+      roundListener.accept(state.getRound());
+      notifyAboutState(state);
+    } finally {
+      lock.writeLock().unlock();
+      observerSupport.flush();
+    }
   }
 
-  /** Adds a player to the game. */
-  public void addPlayer(Player player) {
-    if (!isValidPlayerName(player.getName())) {
-      throw new AssertionError(
-          "An invalid player name reached the game logic. This should be handled before. Name: "
-              + player.getName());
+  /**
+   * Replaces the state of a game that has neither started nor players, e.g. with the state of a
+   * {@link GameSnapshot} or a replayed {@link MappedJournal}. {@link #start()} then resumes the
+   * round of the state. The players of the state keep their seats and scores until players with the
+   * same names join and take them over.
+   *
+   * @param restored the state to resume
+   * @throws IllegalStateException if the game started or has players
+   */
+  public void restore(GameState restored) {
+    lock.writeLock().lock();
+    try {
+      if (state.getRound() != 0 || state.getNumPlayers() != 0) {
+        throw new IllegalStateException("Only a new game can be restored");
+      }
+      state = restored;
+    } finally {
+      lock.writeLock().unlock();
     }
-    synchronized (this) {
-      state = state.addPlayer(player);
+  }
+
+  /**
+   * Replaces the state of a game that has neither started nor players with the last game journaled
+   * in the directory, see {@link #restore} and {@link MappedJournal#replay(Path, Deck)}. The rounds
+   * after the replayed ones draw their cards from the deck of this game.
+   *
+   * @param journalDirectory the directory of the journal
+   * @throws IOException if the journal cannot be read or holds an invalid record
+   * @throws IllegalStateException if the game started or has players
+   */
+  public void restoreJournal(Path journalDirectory) throws IOException {
+    restore(MappedJournal.replay(journalDirectory, state.getDeck()));
+  }
+
+  /**
+   * Takes a snapshot of the game, e.g. to write it to a file on another thread. The game is locked
+   * only while the seats are copied, encoding and writing the snapshot do not hold any lock. The
+   * journal, if any, records that the snapshot was taken, so it can be replayed from the snapshot,
+   * see {@link MappedJournal#replay(java.nio.file.Path, GameSnapshot)}.
+   *
+   * @throws IllegalArgumentException if the deck of the game cannot be saved
+   */
+  public GameSnapshot snapshot() {
+    lock.writeLock().lock();
+    try {
+      GameSnapshot snapshot = GameSnapshot.capture(state, ThreadLocalRandom.current().nextLong());
+      Journal current = journal;
+      if (current != null) {
+        current.snapshotTaken(state.getRound(), snapshot.getId());
+      }
+      return snapshot;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the listener called with the number of every new round, including the first one. It is
+   * called while the game is locked, before the players are notified, so it must be short.
+   */
+  public void setRoundListener(IntConsumer roundListener) {
+    this.roundListener = roundListener;
+  }
+
+  /**
+   * Sets the journal recording every state transition from now on, so it should be set before the
+   * game starts. See {@link MappedJournal#replay} for rebuilding the state from it.
+   */
+  public void setJournal(Journal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Broadcasts the changes of the top of the leaderboard every given number of rounds. Players
+   * joining get the top as broadcast last, so every later change brings them up to date as well.
+   *
+   * @param everyRounds the number of rounds between two broadcasts, 0 to never broadcast
+   * @param size the number of players in the top
+   */
+  public void setLeaderboardBroadcast(int everyRounds, int size) {
+    if (everyRounds < 0 || size < 1) {
+      throw new IllegalArgumentException(
+          "Invalid leaderboard broadcast: " + everyRounds + ", " + size);
+    }
+    lock.writeLock().lock();
+    try {
+      leaderboardInterval = everyRounds;
+      leaderboardSize = size;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a player to the game. A player named like a player of a restored game takes over its seat,
+   * score and guess.
+   */
+  public void addPlayer(Player player) {
+    final long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      Player restored = player.getName() == null ? null : state.getPlayerNamed(player.getName());
+      if (restored instanceof RestoredPlayer) {
+        // the journal needs no record, its replay only knows the names of the players anyway
+        state = state.replacePlayer(restored, player);
+      } else {
+        // checked under the lock, two players joining with the same name may race otherwise
+        if (!isValidPlayerName(player.getName())) {
+          throw new AssertionError(
+              "An invalid player name reached the game logic. This should be handled before. Name: "
+                  + player.getName());
+        }
+        state = state.addPlayer(player);
+        Journal current = journal;
+        if (current != null) {
+          current.playerJoined(state.getRound(), state.seatOf(player), player.getName());
+        }
+      }
       observerSupport.subscribe(player);
       notifyAboutNewPlayer(player.getName(), state);
+      if (leaderboardInterval > 0 && !sentLeaderboard.isEmpty()) {
+        observerSupport.notifyAboutLeaderboard(
+            player, Leaderboard.Delta.of(sentLeaderboard), state);
+      }
+    } finally {
+      lock.writeLock().unlock();
+      observerSupport.flush();
     }
+    JOINS.increment();
+    JOIN_SECONDS.recordSince(start);
   }
 
   private boolean isValidPlayerName(String playerName) {
     if (playerName == null || playerName.isBlank()) {
       return false;
     }
-    for (Player p : state.getPlayers()) {
-      if (p.getName().equals(playerName)) {
-        return false;
-      }
-    }
-    return true;
+    return !state.hasPlayerNamed(playerName);
   }
 
-  /** Removes a player from the game. */
+  /** Removes a player from the game. Removing a player that is not part of the game is a no-op. */
   public void removePlayer(Player player) {
-    synchronized (this) {
+    lock.writeLock().lock();
+    try {
+      if (!state.hasPlayer(player)) {
+        return;
+      }
+      Journal current = journal;
+      if (current != null) {
+        current.playerLeft(state.getRound(), state.seatOf(player));
+      }
       state = state.removePlayer(player);
       observerSupport.unsubscribe(player);
       notifyAboutRemovedPlayer(player.getName(), state);
+      LEAVES.increment();
+    } finally {
+      lock.writeLock().unlock();
+      observerSupport.flush();
     }
   }
 
   /** Adds a guess from a player to the current state. */
   public void guess(Player player, Guess guess) throws NoNextCardException {
-    synchronized (this) {
-      state = state.addGuess(player, guess);
-      if (hasEveryoneGuessed()) {
-        nextRound();
+    guess(player, guess, numNotGuessedPlayers -> {});
+  }
+
+  /**
+   * Adds a guess from a player to the current round. Guesses of different players are recorded
+   * concurrently; only a guess that leaves no player to wait for completes the round, which waits
+   * for the guesses in flight. The guesser and the players are told about the guess in order with
+   * their other notifications, but written to only once the lock is released, so their writes do
+   * not hold up the round.
+   *
+   * @param player the guessing player
+   * @param guess the guess
+   * @param guessed receives the number of players that still have to guess in this round, in order
+   *     with the guesser's notifications: before the state of the round after this one, whichever
+   *     guess or deadline completes it. It may run on another thread writing to the guesser
+   * @throws NoNextCardException if the round is completed and the deck has no next card
+   */
+  public void guess(Player player, Guess guess, IntConsumer guessed) throws NoNextCardException {
+    final long start = System.nanoTime();
+    final GuessAcceptedEvent event = new GuessAcceptedEvent();
+    event.begin();
+    final GameState current;
+    final int round;
+    final int numNotGuessedPlayers;
+    lock.readLock().lock();
+    try {
+      current = state;
+      round = current.getRound();
+      numNotGuessedPlayers = current.submitGuess(player, guess);
+      final Journal currentJournal = journal;
+      if (currentJournal != null) {
+        // under the read lock, so the guess is journaled before the round it belongs to ends
+        int seat = current.seatOf(player);
+        if (seat >= 0) {
+          currentJournal.guessed(round, seat, guess);
+        }
       }
-      notifyAboutState(state);
+      observerSupport.notifyAboutGuess(player, () -> guessed.accept(numNotGuessedPlayers));
+      if (numNotGuessedPlayers > 0) {
+        // queued under the lock, so the state of the round is never written after a later one
+        notifyAboutState(current);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (numNotGuessedPlayers <= 0) {
+      completeRound(round);
+    } else {
+      observerSupport.flush();
+    }
+    GUESSES.increment();
+    GUESS_SECONDS.recordSince(start);
+    if (event.shouldCommit()) {
+      event.round = round;
+      event.player = player.getName();
+      event.guess = guess.name();
+      event.remaining = numNotGuessedPlayers;
+      event.commit();
     }
   }
 
-  private boolean hasEveryoneGuessed() {
-    final Map<Player, Guess> guesses = state.getGuesses();
-    final List<Player> players = state.getPlayers();
-    // we use '>=' because players may first guess and then leave the game before the next round
-    // starts
-    return guesses.size() >= players.size();
+  /**
+   * Completes the given round unless that already happened, whether all players guessed or not.
+   * Players without a guess score nothing, as if they had guessed wrong. Every guess that leaves
+   * nobody to wait for calls this too, e.g. the last guess and a changed guess after a player
+   * without a guess left.
+   *
+   * @param round the round to complete
+   * @return whether this call completed the round
+   * @throws NoNextCardException if the deck has no next card
+   */
+  public boolean completeRound(int round) throws NoNextCardException {
+    lock.writeLock().lock();
+    try {
+      if (state.getRound() != round) {
+        return false;
+      }
+      closeRound();
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+      observerSupport.flush();
+    }
+  }
+
+  /**
+   * Adds the guesses of the batch in one go, in their order, and notifies the players about the
+   * state once for the whole batch instead of once per guess. A guess that leaves no player to wait
+   * for completes its round right away, so the guesses after it count for the next round. Like
+   * {@link #guess(Player, Guess, IntConsumer)}, every guess's callback receives the number of
+   * players still to guess after it, in order with the guesser's notifications, and nothing is
+   * written before the lock is released.
+   *
+   * @param batch the guesses, left as they are
+   * @throws NoNextCardException if a round is completed and the deck has no next card
+   */
+  public void guessAll(GuessBatch batch) throws NoNextCardException {
+    final long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      boolean notified = true;
+      for (int i = 0; i < batch.size(); i++) {
+        final Player player = batch.getPlayer(i);
+        final Guess guess = batch.getGuess(i);
+        final int round = state.getRound();
+        final int numNotGuessedPlayers = state.submitGuess(player, guess);
+        final Journal currentJournal = journal;
+        if (currentJournal != null) {
+          int seat = state.seatOf(player);
+          if (seat >= 0) {
+            currentJournal.guessed(round, seat, guess);
+          }
+        }
+        final IntConsumer guessed = batch.getGuessed(i);
+        observerSupport.notifyAboutGuess(player, () -> guessed.accept(numNotGuessedPlayers));
+        recordGuessAccepted(round, player, guess, numNotGuessedPlayers);
+        if (numNotGuessedPlayers > 0) {
+          notified = false;
+        } else {
+          // notifies the players about the new round
+          closeRound();
+          notified = true;
+        }
+      }
+      if (!notified) {
+        notifyAboutState(state);
+      }
+    } finally {
+      lock.writeLock().unlock();
+      observerSupport.flush();
+    }
+    GUESSES.add(batch.size());
+    long elapsed = System.nanoTime() - start;
+    for (int i = 0; i < batch.size(); i++) {
+      // every guess waited for the whole batch
+      GUESS_SECONDS.record(elapsed);
+    }
+  }
+
+  private static void recordGuessAccepted(
+      int round, Player player, Guess guess, int numNotGuessedPlayers) {
+    GuessAcceptedEvent event = new GuessAcceptedEvent();
+    if (event.isEnabled()) {
+      event.round = round;
+      event.player = player.getName();
+      event.guess = guess.name();
+      event.remaining = numNotGuessedPlayers;
+      event.commit();
+    }
+  }
+
+  /**
+   * Scores the current round, starts the next one and notifies the players. Needs the write lock.
+   */
+  private void closeRound() throws NoNextCardException {
+    final long start = System.nanoTime();
+    RoundClosedEvent event = new RoundClosedEvent();
+    event.begin();
+    if (event.isEnabled()) {
+      event.round = state.getRound();
+      event.players = state.getNumPlayers();
+      event.guesses = state.getGuesses().size();
+    }
+    nextRound();
+    roundListener.accept(state.getRound());
+    notifyAboutState(state);
+    if (leaderboardInterval > 0 && (state.getRound() - 1) % leaderboardInterval == 0) {
+      broadcastLeaderboard();
+    }
+    ROUNDS.increment();
+    ROUND_CLOSE_SECONDS.recordSince(start);
+    event.commit();
+  }
+
+  /** Notifies the players about the changes of the top since the last broadcast, if any. */
+  private void broadcastLeaderboard() {
+    List<Leaderboard.Entry> top = state.getLeaderboard().top(leaderboardSize);
+    Leaderboard.Delta delta = Leaderboard.Delta.between(sentLeaderboard, top);
+    sentLeaderboard = top;
+    if (!delta.isEmpty()) {
+      notifyAboutLeaderboard(delta, state);
+    }
   }
 
   /** Evaluates the correctness of the guess. */
@@ -99,7 +482,16 @@ public class HighLowCardGame implements Observable {
     return guess == getCorrectGuess(firstCard, secondCard);
   }
 
-  private Guess getCorrectGuess(Card firstCard, Card secondCard) {
+  private static Guess getCorrectGuess(Card firstCard, Card secondCard) {
+    int first = firstCard.getOrdinal();
+    int second = secondCard.getOrdinal();
+    if (first < 0 || second < 0) {
+      return compareCards(firstCard, secondCard);
+    }
+    return CORRECT_GUESSES[first * Card.NUM_CARDS + second];
+  }
+
+  private static Guess compareCards(Card firstCard, Card secondCard) {
     int comparison = firstCard.compareTo(secondCard);
     if (comparison == 0) { // current == next
       return Guess.EQUAL;
@@ -118,24 +510,31 @@ public class HighLowCardGame implements Observable {
   private void nextRound() throws NoNextCardException {
     Card currentCard = state.getCurrentCard();
     Card nextCard = state.getDeck().getNextCard();
-    distributeScores(currentCard, nextCard);
+    distributeScores(state, currentCard, nextCard);
     state = state.nextRound(nextCard);
+    Journal current = journal;
+    if (current != null) {
+      current.roundStarted(state.getRound(), nextCard);
+    }
+    recordRoundStarted(state);
     // notifyAboutState(state);
   }
 
-  private void distributeScores(Card firstCard, Card secondCard) {
-    assert hasEveryoneGuessed();
-
-    final Map<Player, Guess> guesses = state.getGuesses();
-    for (var e : guesses.entrySet()) {
-      final Player player = e.getKey();
-      final Guess guess = e.getValue();
-      if (isGuessCorrect(guess, firstCard, secondCard)) {
-        state = state.incrementScore(player, GUESS_SCORE.get(guess));
-      }
+  private static void recordRoundStarted(GameState state) {
+    RoundStartedEvent event = new RoundStartedEvent();
+    if (event.isEnabled()) {
+      event.round = state.getRound();
+      event.players = state.getNumPlayers();
+      event.commit();
     }
   }
 
+  /** Scores the guesses of the round of the first card, also used to replay a journal. */
+  static void distributeScores(GameState state, Card firstCard, Card secondCard) {
+    final Guess correctGuess = getCorrectGuess(firstCard, secondCard);
+    state.scoreGuesses(correctGuess, GUESS_SCORE.get(correctGuess));
+  }
+
   @Override
   public void subscribe(Observer obsv) {
     observerSupport.subscribe(obsv);
@@ -161,6 +560,11 @@ public class HighLowCardGame implements Observable {
     observerSupport.notifyAboutRemovedPlayer(playerName, newState);
   }
 
+  @Override
+  public void notifyAboutLeaderboard(Leaderboard.Delta delta, GameState newState) {
+    observerSupport.notifyAboutLeaderboard(delta, newState);
+  }
+
   public GameState getState() {
     return state;
   }
@@ -1,29 +1,38 @@
 package highlowcardgame.game;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
 /** This class generates card sequence randomly. The sequence can be arbitrarily long. */
 public class InfiniteShuffledDeck implements Deck {
-  private final List<Card> possibleCards;
-  private final Random random;
+  // the canonical instances, so drawing a card is an array access
+  private final Card[] possibleCards;
+  private final long seed;
+  private final SeekableLcg random;
 
   public InfiniteShuffledDeck(Collection<Card> possibleCards) {
-    this.possibleCards = new ArrayList<>(possibleCards);
-    random = new Random();
+    this(possibleCards, new Random().nextLong());
   }
 
+  /** Creates a deck drawing from the possible cards with the given seed. */
   public InfiniteShuffledDeck(Collection<Card> possibleCards, long seed) {
-    this.possibleCards = new ArrayList<>(possibleCards);
-    random = new Random(seed);
+    this.possibleCards = new Card[possibleCards.size()];
+    int i = 0;
+    for (Card card : possibleCards) {
+      this.possibleCards[i++] = card.canonical();
+    }
+    this.seed = seed;
+    this.random = new SeekableLcg(seed);
   }
 
   /** Returns a random card from the possible card collection. */
   @Override
   public Card getNextCard() {
-    return possibleCards.get(random.nextInt(possibleCards.size()));
+    return possibleCards[random.nextInt(possibleCards.length)];
   }
 
   /** Always returns true, as the card sequence is of infinite length. */
@@ -31,4 +40,73 @@ public class InfiniteShuffledDeck implements Deck {
   public boolean hasNextCard() {
     return true;
   }
+
+  /**
+   * Writes the possible cards and the position of the deck for a {@link GameSnapshot}: the seed and
+   * the number of steps of the generator, where the restored deck continues. Saving does not change
+   * the cards this deck draws.
+   */
+  void save(DataOutput out) throws IOException {
+    GameSnapshot.writeCards(out, possibleCards);
+    out.writeLong(seed);
+    out.writeLong(random.steps);
+  }
+
+  /** Reads a deck written by {@link #save}. */
+  static InfiniteShuffledDeck load(DataInput in) throws IOException {
+    List<Card> possibleCards = List.of(GameSnapshot.readCards(in));
+    InfiniteShuffledDeck deck = new InfiniteShuffledDeck(possibleCards, in.readLong());
+    long steps = in.readLong();
+    if (steps < 0 || possibleCards.isEmpty() && steps > 0) {
+      throw new IOException("Invalid position of a saved deck: " + steps);
+    }
+    deck.random.seek(steps);
+    return deck;
+  }
+
+  /**
+   * A {@link Random} counting its steps. Its state is a linear congruential generator, which jumps
+   * any number of steps ahead with a multiplication per bit of the number, so a restored deck
+   * continues where the saved one was without drawing its cards again.
+   */
+  private static final class SeekableLcg extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private final long seed;
+    // not atomic, like the deck
+    private long steps = 0;
+
+    SeekableLcg(long seed) {
+      super(seed);
+      this.seed = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+      steps++;
+      return super.next(bits);
+    }
+
+    /** Continues after the given number of steps from the seed, as if they had been drawn. */
+    void seek(long steps) {
+      long multiplier = MULTIPLIER;
+      long addend = ADDEND;
+      long jumpMultiplier = 1;
+      long jumpAddend = 0;
+      for (long n = steps; n > 0; n >>>= 1) {
+        if ((n & 1) != 0) {
+          jumpMultiplier *= multiplier;
+          jumpAddend = jumpAddend * multiplier + addend;
+        }
+        addend *= multiplier + 1;
+        multiplier *= multiplier;
+      }
+      long state = jumpMultiplier * ((seed ^ MULTIPLIER) & MASK) + jumpAddend;
+      // the inverse of the scrambling in setSeed, which also clears the cached Gaussian
+      setSeed((state & MASK) ^ MULTIPLIER);
+      this.steps = steps;
+    }
+  }
 }
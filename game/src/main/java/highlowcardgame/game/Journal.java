@@ -0,0 +1,35 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+
+/**
+ * Receives the state transitions of a {@link HighLowCardGame} in the order they are applied, e.g.
+ * to persist them. Players are identified by their seat, see {@link Seats}.
+ *
+ * <p>The game calls the journal while it holds its lock. Guesses are recorded concurrently, so
+ * {@link #guessed} must be safe to call from several threads and should take no longer than a few
+ * microseconds; all other methods are called by one thread at a time.
+ */
+public interface Journal {
+
+  /** Records that the player joined and was given the seat. */
+  void playerJoined(int round, int seat, String playerName);
+
+  /** Records that the player on the seat left. */
+  void playerLeft(int round, int seat);
+
+  /** Records the guess of the player on the seat in the round. */
+  void guessed(int round, int seat, Guess guess);
+
+  /**
+   * Records that the round started with the card. Every round but the first one scores the guesses
+   * of the previous round against this card first.
+   */
+  void roundStarted(int round, Card card);
+
+  /**
+   * Records that the {@link GameSnapshot} with the id was taken of the state after all records so
+   * far, so a replay can start from the snapshot instead of the first record.
+   */
+  void snapshotTaken(int round, long snapshotId);
+}
@@ -0,0 +1,306 @@
+package highlowcardgame.game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The players of a game ordered by score, as a persistent order-statistic treap. Every node knows
+ * the size of its subtree, so the rank of a score and the top K players are found in O(log N) and
+ * O(K + log N), and a score change costs O(log N) instead of sorting all scores again.
+ *
+ * <p>Like {@link PersistentHashMap}, every change returns a new leaderboard sharing all but the
+ * changed path with its predecessor, so readers on other threads always see a consistent snapshot.
+ * Players with the same score are ordered by an id, e.g. their seat, and share their rank.
+ */
+public final class Leaderboard {
+  private static final Leaderboard EMPTY = new Leaderboard(null);
+
+  private final Node root;
+
+  private Leaderboard(Node root) {
+    this.root = root;
+  }
+
+  /** Returns the empty leaderboard. */
+  public static Leaderboard empty() {
+    return EMPTY;
+  }
+
+  /** Returns the number of players on the leaderboard. */
+  public int size() {
+    return size(root);
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  /**
+   * Returns a leaderboard with the player added.
+   *
+   * @param player the player
+   * @param score the score of the player
+   * @param id an id unique among the players on the leaderboard, ordering equal scores
+   */
+  Leaderboard plus(Player player, int score, long id) {
+    return new Leaderboard(insert(root, new Node(player, score, id, null, null)));
+  }
+
+  /** Returns a leaderboard without the player with the given score and id. */
+  Leaderboard minus(int score, long id) {
+    Node newRoot = delete(root, score, id);
+    return newRoot == root ? this : new Leaderboard(newRoot);
+  }
+
+  /**
+   * Returns the rank of the score: one plus the number of players with a higher score. Players with
+   * equal scores share their rank.
+   */
+  public int rankOf(int score) {
+    int higher = 0;
+    Node node = root;
+    while (node != null) {
+      if (node.score > score) {
+        higher += size(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return higher + 1;
+  }
+
+  /** Returns the first players in the order of their rank, at most the given number. */
+  public List<Entry> top(int count) {
+    List<Entry> top = new ArrayList<>(Math.min(count, size()));
+    // in-order traversal, the stack is as deep as the treap
+    List<Node> stack = new ArrayList<>();
+    Node node = root;
+    int rank = 0;
+    int previousScore = 0;
+    while (top.size() < count && (node != null || !stack.isEmpty())) {
+      while (node != null) {
+        stack.add(node);
+        node = node.left;
+      }
+      node = stack.remove(stack.size() - 1);
+      if (top.isEmpty() || node.score != previousScore) {
+        rank = top.size() + 1;
+        previousScore = node.score;
+      }
+      top.add(new Entry(node.player, node.score, rank));
+      node = node.right;
+    }
+    return top;
+  }
+
+  /**
+   * Returns the first players of all given leaderboards in the order of their rank, at most the
+   * given number. Only the top of every leaderboard is looked at, which is exact: a player who is
+   * not among the first players of its own leaderboard cannot be among the first of all of them.
+   */
+  public static List<Entry> topOf(Collection<Leaderboard> leaderboards, int count) {
+    List<Entry> candidates = new ArrayList<>();
+    for (Leaderboard leaderboard : leaderboards) {
+      candidates.addAll(leaderboard.top(count));
+    }
+    candidates.sort(Comparator.comparingInt(Entry::getScore).reversed());
+    List<Entry> top = new ArrayList<>(Math.min(count, candidates.size()));
+    for (Entry candidate : candidates) {
+      if (top.size() == count) {
+        break;
+      }
+      Entry previous = top.isEmpty() ? null : top.get(top.size() - 1);
+      int rank =
+          previous != null && previous.score == candidate.score ? previous.rank : top.size() + 1;
+      top.add(new Entry(candidate.player, candidate.score, rank));
+    }
+    return top;
+  }
+
+  /** Returns the rank of the score among the players of all given leaderboards. */
+  public static int rankAmong(Collection<Leaderboard> leaderboards, int score) {
+    int higher = 0;
+    for (Leaderboard leaderboard : leaderboards) {
+      higher += leaderboard.rankOf(score) - 1;
+    }
+    return higher + 1;
+  }
+
+  /** Compares the key to the key of the node, keys with higher scores come first. */
+  private static int compare(int score, long id, Node node) {
+    if (score != node.score) {
+      return score > node.score ? -1 : 1;
+    }
+    return Long.compare(id, node.id);
+  }
+
+  private static Node insert(Node node, Node leaf) {
+    if (node == null) {
+      return leaf;
+    }
+    int comparison = compare(leaf.score, leaf.id, node);
+    if (comparison == 0) {
+      throw new IllegalArgumentException("Id " + leaf.id + " is already on the leaderboard");
+    }
+    if (comparison < 0) {
+      Node left = insert(node.left, leaf);
+      if (left.priority > node.priority) {
+        // rotate right
+        return left.with(left.left, node.with(left.right, node.right));
+      }
+      return node.with(left, node.right);
+    }
+    Node right = insert(node.right, leaf);
+    if (right.priority > node.priority) {
+      // rotate left
+      return right.with(node.with(node.left, right.left), right.right);
+    }
+    return node.with(node.left, right);
+  }
+
+  private static Node delete(Node node, int score, long id) {
+    if (node == null) {
+      return null;
+    }
+    int comparison = compare(score, id, node);
+    if (comparison == 0) {
+      return merge(node.left, node.right);
+    }
+    if (comparison < 0) {
+      Node left = delete(node.left, score, id);
+      return left == node.left ? node : node.with(left, node.right);
+    }
+    Node right = delete(node.right, score, id);
+    return right == node.right ? node : node.with(node.left, right);
+  }
+
+  /** Merges two treaps, all keys of the first one coming before those of the second one. */
+  private static Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      return first.with(first.left, merge(first.right, second));
+    }
+    return second.with(merge(first, second.left), second.right);
+  }
+
+  /** A player on the leaderboard. */
+  public static final class Entry {
+    private final Player player;
+    private final int score;
+    private final int rank;
+
+    Entry(Player player, int score, int rank) {
+      this.player = player;
+      this.score = score;
+      this.rank = rank;
+    }
+
+    public Player getPlayer() {
+      return player;
+    }
+
+    public int getScore() {
+      return score;
+    }
+
+    /** Returns the rank, starting at one. Players with equal scores share their rank. */
+    public int getRank() {
+      return rank;
+    }
+  }
+
+  /**
+   * The difference between two tops of a leaderboard: the entries that are new or moved, and the
+   * players that dropped out.
+   */
+  public static final class Delta {
+    private final List<Entry> changed;
+    private final List<Player> removed;
+
+    private Delta(List<Entry> changed, List<Player> removed) {
+      this.changed = changed;
+      this.removed = removed;
+    }
+
+    /** Returns the delta bringing an empty top up to the given one. */
+    public static Delta of(List<Entry> top) {
+      return new Delta(List.copyOf(top), List.of());
+    }
+
+    /**
+     * Returns the delta between the previous and the current top of a leaderboard, in O(K) for two
+     * tops of K players.
+     */
+    public static Delta between(List<Entry> previous, List<Entry> current) {
+      Map<Player, Entry> previousEntries = new IdentityHashMap<>();
+      for (Entry entry : previous) {
+        previousEntries.put(entry.player, entry);
+      }
+      List<Entry> changed = new ArrayList<>();
+      for (Entry entry : current) {
+        Entry previousEntry = previousEntries.remove(entry.player);
+        if (previousEntry == null
+            || previousEntry.score != entry.score
+            || previousEntry.rank != entry.rank) {
+          changed.add(entry);
+        }
+      }
+      List<Player> removed = new ArrayList<>();
+      for (Entry entry : previous) {
+        if (previousEntries.containsKey(entry.player)) {
+          removed.add(entry.player);
+        }
+      }
+      return new Delta(changed, removed);
+    }
+
+    /** Returns the entries that are new in the top or whose score or rank changed. */
+    public List<Entry> getChanged() {
+      return changed;
+    }
+
+    /** Returns the players that are no longer in the top. */
+    public List<Player> getRemoved() {
+      return removed;
+    }
+
+    public boolean isEmpty() {
+      return changed.isEmpty() && removed.isEmpty();
+    }
+  }
+
+  private static final class Node {
+    private final Player player;
+    private final int score;
+    private final long id;
+    private final int priority;
+    private final int size;
+    private final Node left;
+    private final Node right;
+
+    Node(Player player, int score, long id, Node left, Node right) {
+      this.player = player;
+      this.score = score;
+      this.id = id;
+      // a fixed mix of the id instead of a random number, treaps of the same players are equal
+      this.priority = (int) ((id + 1) * 0x9E3779B97F4A7C15L >>> 32);
+      this.size = size(left) + 1 + size(right);
+      this.left = left;
+      this.right = right;
+    }
+
+    Node with(Node left, Node right) {
+      return new Node(player, score, id, left, right);
+    }
+  }
+}
@@ -0,0 +1,477 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Journal} appending binary records to memory-mapped segment files in a directory.
+ *
+ * <p>A record is a four-byte length, a one-byte type and the fields of the event, padded to a
+ * multiple of four bytes: a guess takes 16 bytes. Writers reserve their record with a single atomic
+ * add on the position of the current segment and write it into the mapping, which is already the
+ * page cache, so appending costs no system call and concurrent guesses do not wait for each other.
+ * The length is written last with release semantics, so a record with a length is complete. When a
+ * record does not fit, the next segment is mapped and the rest of the full one stays zero.
+ *
+ * <p>Records reach the disk with a group commit: a shared flusher thread forces the segments with
+ * new records every commit interval, so one {@code fsync} covers all records of that interval and a
+ * crash loses at most the last interval. {@link #replay} rebuilds the state of a game from its
+ * journal, or from a {@link GameSnapshot} and the records following it.
+ */
+public final class MappedJournal implements Journal, AutoCloseable {
+  /** The default size of a segment file. */
+  public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+  private static final byte PLAYER_JOINED = 1;
+  private static final byte PLAYER_LEFT = 2;
+  private static final byte GUESSED = 3;
+  private static final byte ROUND_STARTED = 4;
+  /** Written when a journal is opened, the following records belong to a new game. */
+  private static final byte OPENED = 5;
+  /** Carries the id of a snapshot of the state after the previous records. */
+  private static final byte SNAPSHOT_TAKEN = 6;
+
+  private static final int ALIGNMENT = 4;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final Guess[] GUESSES = Guess.values();
+  private static final VarHandle LENGTH =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final ScheduledExecutorService FLUSHER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final ScheduledFuture<?> commits;
+  // full segments whose records still have to be forced
+  private final Queue<Segment> sealed = new ConcurrentLinkedQueue<>();
+  // held while forcing, which may take milliseconds, instead of the monitor writers roll with
+  private final Object commitLock = new Object();
+  private volatile Segment current;
+  // guarded by this
+  private int nextSegment;
+  private boolean closed = false;
+
+  private MappedJournal(Path directory, int segmentBytes, int firstSegment, long commitMillis)
+      throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    nextSegment = firstSegment;
+    current = mapNextSegment();
+    commits =
+        FLUSHER.scheduleWithFixedDelay(
+            this::commit, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Opens the journal in the directory, creating it if needed. Existing segments are kept, the new
+   * records follow them as the records of a new game.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentBytes the size of a segment file
+   * @param commitInterval the interval of the group commits, in milliseconds
+   * @return the journal
+   * @throws IOException if the directory or the first segment cannot be created
+   */
+  public static MappedJournal open(Path directory, int segmentBytes, long commitInterval)
+      throws IOException {
+    MappedJournal journal = openSegments(directory, segmentBytes, commitInterval);
+    journal.append(OPENED, 0, 0, (byte) 0, null);
+    return journal;
+  }
+
+  /**
+   * Opens the journal in the directory to continue its last game, e.g. after the game was restored
+   * with {@link #replay(Path, GameSnapshot)}. The new records follow the existing ones.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentBytes the size of a segment file
+   * @param commitInterval the interval of the group commits, in milliseconds
+   * @return the journal
+   * @throws IOException if the directory or the first segment cannot be created
+   */
+  public static MappedJournal resume(Path directory, int segmentBytes, long commitInterval)
+      throws IOException {
+    return openSegments(directory, segmentBytes, commitInterval);
+  }
+
+  private static MappedJournal openSegments(Path directory, int segmentBytes, long commitInterval)
+      throws IOException {
+    if (segmentBytes < 64 || segmentBytes % ALIGNMENT != 0 || commitInterval < 1) {
+      throw new IllegalArgumentException(
+          "Invalid segment size or commit interval: " + segmentBytes + ", " + commitInterval);
+    }
+    Files.createDirectories(directory);
+    List<Path> segments = segments(directory);
+    int firstSegment =
+        segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+    return new MappedJournal(directory, segmentBytes, firstSegment, commitInterval);
+  }
+
+  @Override
+  public void playerJoined(int round, int seat, String playerName) {
+    append(PLAYER_JOINED, round, seat, (byte) 0, playerName.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void playerLeft(int round, int seat) {
+    append(PLAYER_LEFT, round, seat, (byte) 0, null);
+  }
+
+  @Override
+  public void guessed(int round, int seat, Guess guess) {
+    append(GUESSED, round, seat, (byte) guess.ordinal(), null);
+  }
+
+  @Override
+  public void roundStarted(int round, Card card) {
+    int ordinal = card.getOrdinal();
+    if (ordinal < 0) {
+      throw new IllegalArgumentException("Cannot journal the card " + card);
+    }
+    append(ROUND_STARTED, round, 0, (byte) ordinal, null);
+  }
+
+  @Override
+  public void snapshotTaken(int round, long snapshotId) {
+    byte[] id = ByteBuffer.allocate(Long.BYTES).putLong(snapshotId).array();
+    append(SNAPSHOT_TAKEN, round, 0, (byte) 0, id);
+  }
+
+  /**
+   * Appends a record: length, type, round, seat and a byte, followed by a payload for joins and
+   * snapshots, the name or the snapshot id. Records without a seat or byte still carry them, which
+   * keeps the format to a single layout.
+   */
+  private void append(byte type, int round, int seat, byte value, byte[] payload) {
+    int length = 1 + Integer.BYTES + Integer.BYTES + 1;
+    if (payload != null) {
+      length += Short.BYTES + payload.length;
+    }
+    int size = align(Integer.BYTES + length);
+    if (size > segmentBytes) {
+      throw new IllegalArgumentException("Record too large: " + size + " bytes");
+    }
+    while (true) {
+      Segment segment = current;
+      int start = segment.reserved.getAndAdd(size);
+      if (start <= segmentBytes - size) {
+        ByteBuffer buffer = segment.buffer;
+        int pos = start + Integer.BYTES;
+        buffer.put(pos++, type);
+        buffer.putInt(pos, round);
+        pos += Integer.BYTES;
+        buffer.putInt(pos, seat);
+        pos += Integer.BYTES;
+        buffer.put(pos++, value);
+        if (payload != null) {
+          buffer.putShort(pos, (short) payload.length);
+          pos += Short.BYTES;
+          for (byte b : payload) {
+            buffer.put(pos++, b);
+          }
+        }
+        LENGTH.setRelease(buffer, start, length);
+        return;
+      }
+      roll(segment);
+    }
+  }
+
+  private static int align(int size) {
+    return (size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  /** Replaces the full segment with the next one, unless another writer already did. */
+  private synchronized void roll(Segment full) {
+    if (current != full) {
+      return;
+    }
+    if (closed) {
+      throw new IllegalStateException("The journal is closed");
+    }
+    try {
+      current = mapNextSegment();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create the next journal segment", e);
+    }
+    sealed.add(full);
+  }
+
+  private Segment mapNextSegment() throws IOException {
+    Path path =
+        directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegment, SEGMENT_SUFFIX));
+    nextSegment++;
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      // the mapping stays valid after the channel is closed
+      return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+  }
+
+  /** Forces the records appended since the last commit to the disk. */
+  public void commit() {
+    synchronized (commitLock) {
+      Segment segment;
+      while ((segment = sealed.poll()) != null) {
+        segment.buffer.force();
+      }
+      Segment active = current;
+      int reserved = Math.min(active.reserved.get(), segmentBytes);
+      if (reserved > active.committed) {
+        active.buffer.force();
+        active.committed = reserved;
+      }
+    }
+  }
+
+  /** Stops the group commits and forces all records to the disk. No records may follow. */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    commits.cancel(false);
+    commit();
+  }
+
+  /**
+   * Rebuilds the state of the last game in the journal directory by applying its records, like the
+   * game applied them. The players of the returned state are placeholders that only have their
+   * names. Replay stops at the first incomplete record of a segment, e.g. one that was being
+   * written when the server crashed, and continues with the next segment.
+   *
+   * @param directory the directory of the segment files
+   * @param deck the deck of the returned state, used for the rounds after the replayed ones
+   * @return the state after the last record
+   * @throws IOException if the segments cannot be read or hold an invalid record
+   */
+  public static GameState replay(Path directory, Deck deck) throws IOException {
+    return replay(directory, new Replay(deck));
+  }
+
+  /**
+   * Rebuilds the state of the game in the journal directory from the snapshot and the records
+   * following it, which is faster than replaying all records. The deck of the snapshot is advanced
+   * by every replayed round, so it continues where the deck of the game was. If the journal does
+   * not hold the snapshot, e.g. because it was taken right before a crash and its record was lost,
+   * the state of the snapshot is returned.
+   *
+   * @param directory the directory of the segment files
+   * @param snapshot a snapshot of the game journaled in the directory
+   * @return the state after the last record
+   * @throws IOException if the segments cannot be read or hold an invalid record
+   */
+  public static GameState replay(Path directory, GameSnapshot snapshot) throws IOException {
+    return replay(directory, new Replay(snapshot));
+  }
+
+  private static GameState replay(Path directory, Replay replay) throws IOException {
+    for (Path path : segments(directory)) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        int pos = 0;
+        while (pos <= buffer.limit() - Integer.BYTES) {
+          int length = buffer.getInt(pos);
+          if (length <= 0 || length > buffer.limit() - pos - Integer.BYTES) {
+            break;
+          }
+          replay.apply(buffer, pos + Integer.BYTES, length);
+          pos += align(Integer.BYTES + length);
+        }
+      }
+    }
+    return replay.result();
+  }
+
+  private static List<Path> segments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(
+              path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+              })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static int segmentNumber(Path segment) {
+    String name = segment.getFileName().toString();
+    return Integer.parseInt(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /** A mapped segment file. */
+  private static final class Segment {
+    private final MappedByteBuffer buffer;
+    // the bytes handed out to writers, may exceed the segment once it is full
+    private final AtomicInteger reserved = new AtomicInteger();
+    // guarded by the commit lock
+    private int committed = 0;
+
+    Segment(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+  }
+
+  /** The state rebuilt from the records read so far. */
+  private static final class Replay {
+    private final Map<Integer, Player> players = new HashMap<>();
+    // the snapshot whose record is still to be found, or null
+    private GameSnapshot snapshot;
+    // whether the deck is the restored deck of a snapshot, which has to keep up with the game
+    private boolean drawCards = false;
+    private Deck deck;
+    private GameState state;
+
+    Replay(Deck deck) {
+      this.deck = deck;
+      state = new GameState(deck);
+    }
+
+    Replay(GameSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    GameState result() {
+      return snapshot != null ? snapshot.restore() : state;
+    }
+
+    /** Continues from the snapshot, which was taken of the state after the records so far. */
+    private void restore() {
+      state = snapshot.restore();
+      snapshot = null;
+      deck = state.getDeck();
+      drawCards = true;
+      Seats seats = state.getSeats();
+      for (int seat = 0; seat < seats.numSeats(); seat++) {
+        Player player = seats.playerAt(seat);
+        if (player != null) {
+          players.put(seat, player);
+        }
+      }
+    }
+
+    void apply(ByteBuffer buffer, int pos, int length) throws IOException {
+      byte type = buffer.get(pos);
+      int round = buffer.getInt(pos + 1);
+      int seat = buffer.getInt(pos + 5);
+      int value = buffer.get(pos + 9) & 0xFF;
+      if (snapshot != null) {
+        // the records before the snapshot are part of it
+        if (type == SNAPSHOT_TAKEN && payload(buffer, pos, length).getLong() == snapshot.getId()) {
+          restore();
+        }
+        return;
+      }
+      switch (type) {
+        case OPENED:
+          state = new GameState(deck);
+          players.clear();
+          break;
+        case PLAYER_JOINED:
+          String name = StandardCharsets.UTF_8.decode(payload(buffer, pos, length)).toString();
+          Player player = new RestoredPlayer(name);
+          state = state.addPlayer(player);
+          if (state.seatOf(player) != seat) {
+            throw new IOException("Journal out of order: " + name + " got another seat");
+          }
+          players.put(seat, player);
+          break;
+        case PLAYER_LEFT:
+          Player leaving = players.remove(seat);
+          if (leaving != null) {
+            state = state.removePlayer(leaving);
+          }
+          break;
+        case GUESSED:
+          Player guesser = players.get(seat);
+          if (guesser == null || value >= GUESSES.length) {
+            throw new IOException("Invalid journal record: guess of seat " + seat);
+          }
+          state.submitGuess(guesser, GUESSES[value]);
+          break;
+        case ROUND_STARTED:
+          if (value >= Card.NUM_CARDS) {
+            throw new IOException("Invalid journal record: card " + value);
+          }
+          Card card = Card.ofOrdinal(value);
+          if (drawCards) {
+            draw();
+          }
+          if (state.getRound() > 0) {
+            HighLowCardGame.distributeScores(state, state.getCurrentCard(), card);
+          }
+          state = state.nextRound(card);
+          if (state.getRound() != round) {
+            throw new IOException(
+                "Journal out of order: round " + round + " instead of " + state.getRound());
+          }
+          break;
+        case SNAPSHOT_TAKEN:
+          // only marks where the snapshot was taken; taking it left the deck of the game as it was
+          break;
+        default:
+          throw new IOException("Invalid journal record type: " + type);
+      }
+    }
+
+    /** Draws the card the game drew for the round, so the deck continues where the game's was. */
+    private void draw() throws IOException {
+      try {
+        deck.getNextCard();
+      } catch (Deck.NoNextCardException e) {
+        throw new IOException("The deck of the snapshot has fewer cards than the journal", e);
+      }
+    }
+
+    /** Returns the payload of a join or snapshot record. */
+    private static ByteBuffer payload(ByteBuffer buffer, int pos, int length) throws IOException {
+      int payloadLength = buffer.getShort(pos + 10) & 0xFFFF;
+      if (12 + payloadLength > length) {
+        throw new IOException("Invalid journal record: payload too long");
+      }
+      ByteBuffer payload = buffer.duplicate();
+      payload.position(pos + 12).limit(pos + 12 + payloadLength);
+      return payload.slice();
+    }
+  }
+}
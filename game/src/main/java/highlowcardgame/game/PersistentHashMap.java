@@ -0,0 +1,413 @@
+package highlowcardgame.game;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable hash map whose updates return a new map sharing all unchanged parts with the old one
+ * (a hash array mapped trie). Adding or removing an entry copies one node per level, i.e. O(log N)
+ * instead of the whole map, so every {@link GameState} can keep its own snapshot cheaply.
+ *
+ * <p>Like the maps of {@link Map#of}, it rejects null keys and values and all mutators of the
+ * {@link Map} interface throw {@link UnsupportedOperationException}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  private static final PersistentHashMap<?, ?> EMPTY =
+      new PersistentHashMap<>(new BitmapNode<>(0, new Object[0]), 0);
+
+  private final Node<K, V> root;
+  private final int size;
+  private Set<Map.Entry<K, V>> entrySet;
+
+  private PersistentHashMap(Node<K, V> root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /** Returns the empty map. */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /** Returns a map with the given entry added or replaced. */
+  PersistentHashMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    Entry<K, V> entry = new Entry<>(hash(key), key, value);
+    Node<K, V> newRoot = root.put(entry, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    boolean added = root.find(key, entry.hash, 0) == null;
+    return new PersistentHashMap<>(newRoot, added ? size + 1 : size);
+  }
+
+  /** Returns a map without the entry of the given key. */
+  PersistentHashMap<K, V> minus(Object key) {
+    if (key == null) {
+      return this;
+    }
+    Node<K, V> newRoot = root.remove(key, hash(key), 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    // identity hash codes and small integers differ mostly in their low bits, spread them out
+    return h ^ (h >>> 16);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public V get(Object key) {
+    return key == null ? null : root.find(key, hash(key), 0);
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    Set<Map.Entry<K, V>> entries = entrySet;
+    if (entries == null) {
+      entries =
+          new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+              return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+              return size;
+            }
+          };
+      entrySet = entries;
+    }
+    return entries;
+  }
+
+  /** A key-value pair, stored in the trie and handed out by its iterator. */
+  private static final class Entry<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    final int hash;
+
+    Entry(int hash, K key, V value) {
+      super(key, value);
+      this.hash = hash;
+    }
+  }
+
+  /** A node of the trie. Nodes are never changed once they are part of a map. */
+  private abstract static class Node<K, V> {
+    /** Returns the value of the key, or null. */
+    abstract V find(Object key, int hash, int shift);
+
+    /** Returns a node with the entry added or replaced, or this node if nothing changed. */
+    abstract Node<K, V> put(Entry<K, V> entry, int shift);
+
+    /** Returns a node without the key, this node if it lacks the key, or null if it is empty. */
+    abstract Node<K, V> remove(Object key, int hash, int shift);
+
+    /** Returns the only entry of this node if it has no other entries or children, else null. */
+    abstract Entry<K, V> singleEntry();
+
+    /** Returns the entries and child nodes of this node. */
+    abstract Object[] slots();
+  }
+
+  /**
+   * A node holding up to 32 slots, one per value of the hash bits of its level. The bitmap records
+   * which slots are present, so the array has no empty slots. A slot is an entry or a child node.
+   */
+  private static final class BitmapNode<K, V> extends Node<K, V> {
+    private final int bitmap;
+    private final Object[] slots;
+
+    BitmapNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private static int bit(int hash, int shift) {
+      return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V find(Object key, int hash, int shift) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = slots[index(bit)];
+      if (slot instanceof Entry) {
+        Entry<K, V> entry = (Entry<K, V>) slot;
+        return entry.hash == hash && key.equals(entry.getKey()) ? entry.getValue() : null;
+      }
+      return ((Node<K, V>) slot).find(key, hash, shift + BITS_PER_LEVEL);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> put(Entry<K, V> entry, int shift) {
+      int bit = bit(entry.hash, shift);
+      int index = index(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        newSlots[index] = entry;
+        System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+        return new BitmapNode<>(bitmap | bit, newSlots);
+      }
+      Object slot = slots[index];
+      Object newSlot;
+      if (slot instanceof Entry) {
+        Entry<K, V> existing = (Entry<K, V>) slot;
+        if (existing.hash == entry.hash && existing.getKey().equals(entry.getKey())) {
+          if (existing.getValue() == entry.getValue()) {
+            return this;
+          }
+          newSlot = entry;
+        } else {
+          newSlot = merge(existing, entry, shift + BITS_PER_LEVEL);
+        }
+      } else {
+        Node<K, V> child = (Node<K, V>) slot;
+        newSlot = child.put(entry, shift + BITS_PER_LEVEL);
+        if (newSlot == child) {
+          return this;
+        }
+      }
+      return withSlot(index, newSlot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> remove(Object key, int hash, int shift) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object slot = slots[index];
+      if (slot instanceof Entry) {
+        Entry<K, V> entry = (Entry<K, V>) slot;
+        if (entry.hash != hash || !key.equals(entry.getKey())) {
+          return this;
+        }
+        return withoutSlot(index, bit);
+      }
+      Node<K, V> child = (Node<K, V>) slot;
+      Node<K, V> newChild = child.remove(key, hash, shift + BITS_PER_LEVEL);
+      if (newChild == child) {
+        return this;
+      }
+      if (newChild == null) {
+        return withoutSlot(index, bit);
+      }
+      // a child left with a single entry is replaced by the entry, so lookups stay short
+      Entry<K, V> single = newChild.singleEntry();
+      return withSlot(index, single != null ? single : newChild);
+    }
+
+    private Node<K, V> withoutSlot(int index, int bit) {
+      if (slots.length == 1) {
+        return null;
+      }
+      Object[] newSlots = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, newSlots, 0, index);
+      System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+      return new BitmapNode<>(bitmap & ~bit, newSlots);
+    }
+
+    private Node<K, V> withSlot(int index, Object slot) {
+      Object[] newSlots = slots.clone();
+      newSlots[index] = slot;
+      return new BitmapNode<>(bitmap, newSlots);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Entry<K, V> singleEntry() {
+      return slots.length == 1 && slots[0] instanceof Entry ? (Entry<K, V>) slots[0] : null;
+    }
+
+    @Override
+    Object[] slots() {
+      return slots;
+    }
+
+    /** Returns a node holding two entries whose hash bits are equal up to the given level. */
+    private static <K, V> Node<K, V> merge(Entry<K, V> first, Entry<K, V> second, int shift) {
+      if (first.hash == second.hash) {
+        return new CollisionNode<>(first.hash, new Object[] {first, second});
+      }
+      int firstBit = bit(first.hash, shift);
+      int secondBit = bit(second.hash, shift);
+      if (firstBit == secondBit) {
+        return new BitmapNode<>(
+            firstBit, new Object[] {merge(first, second, shift + BITS_PER_LEVEL)});
+      }
+      Object[] slots =
+          Integer.compareUnsigned(firstBit, secondBit) < 0
+              ? new Object[] {first, second}
+              : new Object[] {second, first};
+      return new BitmapNode<>(firstBit | secondBit, slots);
+    }
+  }
+
+  /** A node holding the entries of distinct keys with the same full hash. */
+  private static final class CollisionNode<K, V> extends Node<K, V> {
+    private final int hash;
+    private final Object[] entries;
+
+    CollisionNode(int hash, Object[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < entries.length; i++) {
+        if (key.equals(((Entry<?, ?>) entries[i]).getKey())) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V find(Object key, int hash, int shift) {
+      int index = hash == this.hash ? indexOf(key) : -1;
+      return index < 0 ? null : ((Entry<K, V>) entries[index]).getValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> put(Entry<K, V> entry, int shift) {
+      if (entry.hash != hash) {
+        // this node sits at the end of a path of equal hash bits, make it a slot of a bitmap node
+        BitmapNode<K, V> wrapped =
+            new BitmapNode<>(BitmapNode.bit(hash, shift), new Object[] {this});
+        return wrapped.put(entry, shift);
+      }
+      int index = indexOf(entry.getKey());
+      if (index < 0) {
+        Object[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+        newEntries[entries.length] = entry;
+        return new CollisionNode<>(hash, newEntries);
+      }
+      if (((Entry<K, V>) entries[index]).getValue() == entry.getValue()) {
+        return this;
+      }
+      Object[] newEntries = entries.clone();
+      newEntries[index] = entry;
+      return new CollisionNode<>(hash, newEntries);
+    }
+
+    @Override
+    Node<K, V> remove(Object key, int hash, int shift) {
+      int index = hash == this.hash ? indexOf(key) : -1;
+      if (index < 0) {
+        return this;
+      }
+      if (entries.length == 1) {
+        return null;
+      }
+      Object[] newEntries = new Object[entries.length - 1];
+      System.arraycopy(entries, 0, newEntries, 0, index);
+      System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+      return new CollisionNode<>(hash, newEntries);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Entry<K, V> singleEntry() {
+      return entries.length == 1 ? (Entry<K, V>) entries[0] : null;
+    }
+
+    @Override
+    Object[] slots() {
+      return entries;
+    }
+  }
+
+  /** Walks the trie depth first, keeping the position in every level on a stack. */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    // 32 hash bits take 7 levels, plus one for collision nodes
+    private static final int MAX_DEPTH = 8;
+
+    private final Object[][] nodes = new Object[MAX_DEPTH][];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth = 0;
+    private Entry<K, V> next;
+
+    EntryIterator(Node<K, V> root) {
+      nodes[0] = root.slots();
+      advance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      next = null;
+      while (depth >= 0) {
+        Object[] slots = nodes[depth];
+        if (positions[depth] == slots.length) {
+          nodes[depth--] = null;
+          continue;
+        }
+        Object slot = slots[positions[depth]++];
+        if (slot instanceof Entry) {
+          next = (Entry<K, V>) slot;
+          return;
+        }
+        depth++;
+        nodes[depth] = ((Node<K, V>) slot).slots();
+        positions[depth] = 0;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> entry = next;
+      advance();
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package highlowcardgame.game;
+
+/**
+ * A player restored from a {@link GameSnapshot} or rebuilt from a {@link MappedJournal}, which only
+ * has a name. It keeps the seat and score of the player until a player with the same name joins the
+ * game and takes them over, see {@link HighLowCardGame#addPlayer}.
+ */
+final class RestoredPlayer implements Player {
+  private final String name;
+
+  RestoredPlayer(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void updateState(GameState state) {}
+
+  @Override
+  public void updateNewPlayer(String playerName, GameState state) {}
+
+  @Override
+  public void updateRemovedPlayer(String playerName, GameState state) {}
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
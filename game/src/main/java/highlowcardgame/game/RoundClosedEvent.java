@@ -0,0 +1,27 @@
+package highlowcardgame.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a completed round. Its duration is the time the round was closed for:
+ * scoring the guesses, drawing the next card and notifying the players, under the write lock.
+ */
+@Name("highlowcardgame.RoundClosed")
+@Label("Round Closed")
+@Category({"High-Low Card Game", "Game"})
+@StackTrace(false)
+final class RoundClosedEvent extends jdk.jfr.Event {
+  @Label("Round")
+  int round;
+
+  @Label("Players")
+  int players;
+
+  @Label("Guesses")
+  @Description("The guesses scored, fewer than the players if the round timed out")
+  int guesses;
+}
@@ -0,0 +1,21 @@
+package highlowcardgame.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A Flight Recorder event for a round that started, with the players at the table. */
+@Name("highlowcardgame.RoundStarted")
+@Label("Round Started")
+@Category({"High-Low Card Game", "Game"})
+@StackTrace(false)
+final class RoundStartedEvent extends jdk.jfr.Event {
+  @Label("Round")
+  int round;
+
+  @Label("Players")
+  @Description("The players seated when the round started")
+  int players;
+}
@@ -1,9 +1,20 @@
 package highlowcardgame.game;
 
-/** Class saving and offering the score. */
+/**
+ * Class saving and offering the score.
+ *
+ * <p>The scores of a {@link GameState} are copies of the scores in that state, so incrementing one
+ * changes neither the state nor the game.
+ */
 public class Score {
   private volatile int score = 0;
 
+  public Score() {}
+
+  Score(int score) {
+    this.score = score;
+  }
+
   public synchronized void increment(int inc) {
     score += inc;
   }
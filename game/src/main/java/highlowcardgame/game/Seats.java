@@ -0,0 +1,235 @@
+package highlowcardgame.game;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The seats of a game. Every player gets a dense seat id when joining, and the seats of players who
+ * left are given to the next players joining. Scores and the guesses of the current round are kept
+ * in primitive arrays indexed by seat, so scoring a round is a loop over two arrays. The {@link
+ * Leaderboard} of the seated players is updated along with every score that changes.
+ *
+ * <p>The seats are shared by all states of a game. Guesses are recorded concurrently: every guess
+ * slot is updated atomically and a counter tracks the seated players who still have to guess, so
+ * the guesser learns without any lock whether its guess completed the round. All other changes are
+ * only made by the game while it holds its write lock, which also keeps guesses out.
+ *
+ * <p>Every state keeps the score and guess arrays that were current when it was created. The arrays
+ * are copied on write: scoring or clearing a round installs new ones, and so does every other
+ * change that would alter a slot of a state handed out before. Only the guesses of the current
+ * round are added to the array its states share, so a state never shows later scores or the guesses
+ * of a later round.
+ */
+final class Seats {
+  private static final int INITIAL_CAPACITY = 16;
+  // guesses are stored as the ordinal of the guess plus one, so the zeroed array means no guesses
+  private static final byte NO_GUESS = 0;
+  private static final Guess[] GUESSES = Guess.values();
+  private static final VarHandle GUESS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  private Player[] players = new Player[INITIAL_CAPACITY];
+  private int[] scores = new int[INITIAL_CAPACITY];
+  private byte[] guesses = new byte[INITIAL_CAPACITY];
+  private int[] freeSeats = new int[INITIAL_CAPACITY];
+  private int numFreeSeats = 0;
+  private int numSeats = 0;
+  private int numSeated = 0;
+  private final AtomicInteger outstandingGuesses = new AtomicInteger();
+  // seats are the ids of the players on the leaderboard
+  private volatile Leaderboard leaderboard = Leaderboard.empty();
+
+  /** Seats the player with a score of zero and returns its seat id. */
+  int assign(Player player) {
+    int seat;
+    if (numFreeSeats > 0) {
+      seat = freeSeats[--numFreeSeats];
+    } else {
+      if (numSeats == players.length) {
+        int capacity = 2 * numSeats;
+        players = Arrays.copyOf(players, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        guesses = Arrays.copyOf(guesses, capacity);
+      }
+      seat = numSeats++;
+    }
+    players[seat] = player;
+    if (scores[seat] != 0) {
+      // a reused seat, whose score the states of its previous player still show
+      scores = Arrays.copyOf(scores, scores.length);
+      scores[seat] = 0;
+    }
+    numSeated++;
+    outstandingGuesses.incrementAndGet();
+    leaderboard = leaderboard.plus(player, 0, seat);
+    return seat;
+  }
+
+  /**
+   * Returns seats restored from a {@link GameSnapshot}: the players, scores and guesses are indexed
+   * by seat, with null players on free seats, which are given out again in the order of the stack.
+   */
+  static Seats restore(Player[] players, int[] scores, Guess[] guesses, int[] freeSeats) {
+    Seats seats = new Seats();
+    int capacity = Math.max(INITIAL_CAPACITY, players.length);
+    seats.players = Arrays.copyOf(players, capacity);
+    seats.scores = Arrays.copyOf(scores, capacity);
+    seats.guesses = new byte[capacity];
+    seats.freeSeats = Arrays.copyOf(freeSeats, Math.max(INITIAL_CAPACITY, freeSeats.length));
+    seats.numFreeSeats = freeSeats.length;
+    seats.numSeats = players.length;
+    Leaderboard board = Leaderboard.empty();
+    int outstanding = 0;
+    for (int seat = 0; seat < players.length; seat++) {
+      if (players[seat] == null) {
+        continue;
+      }
+      seats.numSeated++;
+      board = board.plus(players[seat], scores[seat], seat);
+      if (guesses[seat] == null) {
+        outstanding++;
+      } else {
+        seats.guesses[seat] = encode(guesses[seat]);
+      }
+    }
+    seats.leaderboard = board;
+    seats.outstandingGuesses.set(outstanding);
+    return seats;
+  }
+
+  /** Frees the seat, dropping the guess of its player. */
+  void release(int seat) {
+    if (guesses[seat] == NO_GUESS) {
+      outstandingGuesses.decrementAndGet();
+    }
+    // the next player on the seat must not guess into the states of this one
+    guesses = Arrays.copyOf(guesses, guesses.length);
+    guesses[seat] = NO_GUESS;
+    numSeated--;
+    players[seat] = null;
+    leaderboard = leaderboard.minus(scores[seat], seat);
+    if (numFreeSeats == freeSeats.length) {
+      freeSeats = Arrays.copyOf(freeSeats, 2 * numFreeSeats);
+    }
+    freeSeats[numFreeSeats++] = seat;
+  }
+
+  /**
+   * Records or replaces the guess of the seat in the current round. Safe to call concurrently, for
+   * the same seat as well as for different ones.
+   *
+   * @return the number of seated players who still have to guess after this guess
+   */
+  int guess(int seat, Guess guess) {
+    byte previous = (byte) GUESS.getAndSet(guesses, seat, encode(guess));
+    return previous == NO_GUESS ? outstandingGuesses.decrementAndGet() : outstandingGuesses.get();
+  }
+
+  /**
+   * Adds the points of every correct guess to the score of its seat into new score arrays and
+   * starts a new round without guesses.
+   */
+  void scoreGuesses(Guess correctGuess, int points) {
+    byte correct = encode(correctGuess);
+    byte[] guesses = this.guesses;
+    int[] scores = Arrays.copyOf(this.scores, this.scores.length);
+    Leaderboard board = leaderboard;
+    for (int seat = 0; seat < numSeats; seat++) {
+      if (guesses[seat] == correct) {
+        if (points != 0) {
+          board = board.minus(scores[seat], seat).plus(players[seat], scores[seat] + points, seat);
+        }
+        scores[seat] += points;
+      }
+    }
+    // published once, readers never see a half scored round
+    this.scores = scores;
+    this.guesses = new byte[guesses.length];
+    leaderboard = board;
+    outstandingGuesses.set(numSeated);
+  }
+
+  /** Gives the seat with its score and guess to another player. */
+  void replace(int seat, Player player) {
+    players[seat] = player;
+    leaderboard = leaderboard.minus(scores[seat], seat).plus(player, scores[seat], seat);
+  }
+
+  /** Starts a new round without scoring the guesses of the current one. */
+  void clearGuesses() {
+    guesses = new byte[guesses.length];
+    outstandingGuesses.set(numSeated);
+  }
+
+  void addScore(int seat, int points) {
+    leaderboard =
+        leaderboard.minus(scores[seat], seat).plus(players[seat], scores[seat] + points, seat);
+    scores = Arrays.copyOf(scores, scores.length);
+    scores[seat] += points;
+  }
+
+  /** Returns the leaderboard of the seated players. */
+  Leaderboard leaderboard() {
+    return leaderboard;
+  }
+
+  /** Returns whether the player still sits on the seat. */
+  boolean isSeated(int seat, Player player) {
+    return seat < numSeats && players[seat] == player;
+  }
+
+  /** Returns the number of seats ever used, free or not; valid seat ids are below it. */
+  int numSeats() {
+    return numSeats;
+  }
+
+  /** Returns a copy of the stack of free seats, the seat given out next comes last. */
+  int[] freeSeats() {
+    return Arrays.copyOf(freeSeats, numFreeSeats);
+  }
+
+  Player playerAt(int seat) {
+    return players[seat];
+  }
+
+  int scoreAt(int seat) {
+    return scores[seat];
+  }
+
+  /** Returns the guess of the seat in the current round, or null. */
+  Guess guessAt(int seat) {
+    return decode(guesses[seat]);
+  }
+
+  /** Returns the current scores indexed by seat, which are never changed once replaced. */
+  int[] scores() {
+    return scores;
+  }
+
+  /** Returns the guesses of the current round indexed by seat, see {@link #decode(byte)}. */
+  byte[] guesses() {
+    return guesses;
+  }
+
+  /** Returns the guess stored in a slot of {@link #guesses()}, or null. */
+  static Guess decode(byte guess) {
+    return guess == NO_GUESS ? null : GUESSES[guess - 1];
+  }
+
+  /** Returns the slot value of the guess in {@link #guesses()}. */
+  static byte encode(Guess guess) {
+    return (byte) (guess.ordinal() + 1);
+  }
+
+  /** Returns the number of seated players who guessed in the current round. */
+  int numGuesses() {
+    return numSeated - outstandingGuesses.get();
+  }
+
+  /** Returns the number of seated players who still have to guess in the current round. */
+  int numOutstandingGuesses() {
+    return outstandingGuesses.get();
+  }
+}
@@ -0,0 +1,54 @@
+package highlowcardgame.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * The SplitMix64 generator of a {@link SplittableRandom} created with a seed, drawing the same
+ * values, with a position that can be read and set. The generator's state is the seed advanced by a
+ * constant per value, so moving to any position is a single multiplication and a deck saves and
+ * restores its generator without drawing its cards again.
+ *
+ * <p>Like the decks using it, it is not thread-safe.
+ */
+final class SeekableRandom {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final long seed;
+  // the number of values drawn so far
+  private long position = 0;
+
+  SeekableRandom(long seed) {
+    this.seed = seed;
+  }
+
+  /** Returns the number of values drawn so far. */
+  long getPosition() {
+    return position;
+  }
+
+  /** Continues after the given number of values, as if they had been drawn. */
+  void seek(long position) {
+    this.position = position;
+  }
+
+  /**
+   * Returns a uniform value from 0 to the bound, exclusive, like {@link
+   * SplittableRandom#nextInt(int)}.
+   */
+  int nextInt(int bound) {
+    int r = nextInt();
+    int m = bound - 1;
+    if ((bound & m) == 0) {
+      return r & m;
+    }
+    // rejects the values of the incomplete last range, so every result is equally likely
+    for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {}
+    return r;
+  }
+
+  private int nextInt() {
+    long z = seed + ++position * GOLDEN_GAMMA;
+    z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+    return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+  }
+}
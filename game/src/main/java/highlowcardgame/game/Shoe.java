@@ -0,0 +1,136 @@
+package highlowcardgame.game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * A shoe of several complete decks as used by casinos. Every card is drawn from the shoe without
+ * replacement, and once the cut card is reached, i.e. the given fraction of the shoe, the shoe is
+ * reshuffled.
+ *
+ * <p>The shuffle is an in-place Fisher-Yates shuffle done one step per draw: a draw swaps a random
+ * card of the undrawn rest into the next position and returns it. Reshuffling thus only resets the
+ * position, and no draw pays for shuffling the whole shoe. The resulting order is as uniform as
+ * that of a complete shuffle, whatever order the cards were left in.
+ *
+ * <p>Like all decks, it is not thread-safe; the game only draws while it holds its write lock.
+ */
+public class Shoe implements Deck {
+  private final Card[] cards;
+  private final int cut;
+  private final double penetration;
+  private final long seed;
+  private final SeekableRandom random;
+  // seeds the splits, so splitting does not change the cards of this shoe
+  private SplittableRandom splits;
+  private int drawn = 0;
+
+  /**
+   * Creates a shoe.
+   *
+   * @param numDecks the number of complete decks in the shoe, at least one
+   * @param penetration the fraction of the shoe dealt before it is reshuffled, greater than 0 and
+   *     at most 1
+   * @param random the generator the seed of the shuffles is taken from
+   * @throws IllegalArgumentException if the number of decks or the penetration is invalid
+   */
+  public Shoe(int numDecks, double penetration, SplittableRandom random) {
+    this(numDecks, penetration, random.nextLong());
+  }
+
+  /**
+   * Creates a shoe.
+   *
+   * @param numDecks the number of complete decks in the shoe, at least one
+   * @param penetration the fraction of the shoe dealt before it is reshuffled, greater than 0 and
+   *     at most 1
+   * @param seed the seed of the shuffles
+   * @throws IllegalArgumentException if the number of decks or the penetration is invalid
+   */
+  public Shoe(int numDecks, double penetration, long seed) {
+    if (numDecks < 1) {
+      throw new IllegalArgumentException("A shoe needs at least one deck, not " + numDecks);
+    }
+    if (!(penetration > 0 && penetration <= 1)) {
+      throw new IllegalArgumentException("The penetration must be in (0, 1], not " + penetration);
+    }
+    cards = new Card[numDecks * Card.NUM_CARDS];
+    for (int i = 0; i < cards.length; i++) {
+      cards[i] = Card.ofOrdinal(i % Card.NUM_CARDS);
+    }
+    cut = Math.max(1, (int) (cards.length * penetration));
+    this.penetration = penetration;
+    this.seed = seed;
+    this.random = new SeekableRandom(seed);
+  }
+
+  /**
+   * Returns a shoe of the same size and penetration with an independent generator split off this
+   * shoe's generator, e.g. for another table.
+   */
+  public Shoe split() {
+    if (splits == null) {
+      splits = new SplittableRandom(seed).split();
+    }
+    return new Shoe(cards.length / Card.NUM_CARDS, penetration, splits.nextLong());
+  }
+
+  /** Returns the next card of the shoe, reshuffling it first if the cut card was reached. */
+  @Override
+  public Card getNextCard() {
+    if (drawn == cut) {
+      drawn = 0;
+    }
+    int swap = drawn + random.nextInt(cards.length - drawn);
+    Card card = cards[swap];
+    cards[swap] = cards[drawn];
+    cards[drawn++] = card;
+    return card;
+  }
+
+  /** Always returns true, as the shoe is reshuffled when the cut card is reached. */
+  @Override
+  public boolean hasNextCard() {
+    return true;
+  }
+
+  /**
+   * Writes the cards of the shoe in their current order and the position of the next draw for a
+   * {@link GameSnapshot}, with the seed and the position of the generator, where the restored shoe
+   * continues. Saving does not change the cards this shoe draws.
+   */
+  void save(DataOutput out) throws IOException {
+    out.writeDouble(penetration);
+    GameSnapshot.writeCards(out, cards);
+    out.writeInt(drawn);
+    out.writeLong(seed);
+    out.writeLong(random.getPosition());
+  }
+
+  /** Reads a shoe written by {@link #save}. */
+  static Shoe load(DataInput in) throws IOException {
+    double penetration = in.readDouble();
+    Card[] cards = GameSnapshot.readCards(in);
+    final int drawn = in.readInt();
+    long seed = in.readLong();
+    long position = in.readLong();
+    if (cards.length == 0 || cards.length % Card.NUM_CARDS != 0) {
+      throw new IOException("A saved shoe has " + cards.length + " cards");
+    }
+    Shoe shoe;
+    try {
+      shoe = new Shoe(cards.length / Card.NUM_CARDS, penetration, seed);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid saved shoe: " + e.getMessage(), e);
+    }
+    if (position < 0 || drawn < 0 || drawn > shoe.cut) {
+      throw new IOException("Invalid position of a saved shoe: " + position + ", " + drawn);
+    }
+    shoe.random.seek(position);
+    shoe.drawn = drawn;
+    System.arraycopy(cards, 0, shoe.cards, 0, cards.length);
+    return shoe;
+  }
+}
@@ -0,0 +1,128 @@
+package highlowcardgame.game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * An infinite deck drawing uniformly from the possible cards, like {@link InfiniteShuffledDeck}.
+ *
+ * <p>It draws from the stream of a {@link SplittableRandom}, which has no atomic seed update, so
+ * drawing is not slowed down by other decks sharing a generator. Every table gets its own stream,
+ * see {@link #split()}, and a deck created with a seed produces the same cards on every run. The
+ * upcoming cards are drawn in batches into a ring, so most draws are an array access and the
+ * generator runs once per batch.
+ *
+ * <p>Like all decks, it is not thread-safe; the game only draws while it holds its write lock.
+ */
+public class SplittableRandomDeck implements Deck {
+  static final int RING_SIZE = 256;
+
+  // the canonical instances of the possible cards
+  private final Card[] possibleCards;
+  private final long seed;
+  private final SeekableRandom random;
+  // seeds the splits, so splitting does not change the cards of this deck
+  private SplittableRandom splits;
+  private final Card[] upcoming = new Card[RING_SIZE];
+  private int next = RING_SIZE;
+  // the position of the generator before the last refill, see save
+  private long refilledAt = 0;
+
+  /** Creates a deck drawing from the possible cards with the given seed. */
+  public SplittableRandomDeck(Collection<Card> possibleCards, long seed) {
+    this(toCanonicalArray(possibleCards), seed);
+  }
+
+  /** Creates a deck drawing from the possible cards with a seed taken from the given generator. */
+  public SplittableRandomDeck(Collection<Card> possibleCards, SplittableRandom random) {
+    this(toCanonicalArray(possibleCards), random.nextLong());
+  }
+
+  private SplittableRandomDeck(Card[] possibleCards, long seed) {
+    if (possibleCards.length == 0) {
+      throw new IllegalArgumentException("A deck needs at least one possible card");
+    }
+    this.possibleCards = possibleCards;
+    this.seed = seed;
+    this.random = new SeekableRandom(seed);
+  }
+
+  private static Card[] toCanonicalArray(Collection<Card> cards) {
+    Card[] array = new Card[cards.size()];
+    int i = 0;
+    for (Card card : cards) {
+      array[i++] = card.canonical();
+    }
+    return array;
+  }
+
+  /**
+   * Returns a deck with the same possible cards and an independent stream split off this deck's
+   * generator, e.g. for another table.
+   */
+  public SplittableRandomDeck split() {
+    if (splits == null) {
+      splits = new SplittableRandom(seed).split();
+    }
+    return new SplittableRandomDeck(possibleCards, splits.nextLong());
+  }
+
+  /** Returns a random card from the possible cards. */
+  @Override
+  public Card getNextCard() {
+    if (next == RING_SIZE) {
+      refill();
+    }
+    return upcoming[next++];
+  }
+
+  private void refill() {
+    refilledAt = random.getPosition();
+    for (int i = 0; i < RING_SIZE; i++) {
+      upcoming[i] = possibleCards[random.nextInt(possibleCards.length)];
+    }
+    next = 0;
+  }
+
+  /** Always returns true, as the card sequence is of infinite length. */
+  @Override
+  public boolean hasNextCard() {
+    return true;
+  }
+
+  /**
+   * Writes the possible cards and the position of the deck for a {@link GameSnapshot}: the seed,
+   * the position of the generator before the cards left in the batch and the position in the batch.
+   * The restored deck only draws that batch again. Saving does not change the cards this deck
+   * draws.
+   */
+  void save(DataOutput out) throws IOException {
+    GameSnapshot.writeCards(out, possibleCards);
+    out.writeLong(seed);
+    out.writeLong(next == RING_SIZE ? random.getPosition() : refilledAt);
+    out.writeShort(next);
+  }
+
+  /** Reads a deck written by {@link #save}. */
+  static SplittableRandomDeck load(DataInput in) throws IOException {
+    Card[] possibleCards = GameSnapshot.readCards(in);
+    if (possibleCards.length == 0) {
+      throw new IOException("A saved deck has no possible cards");
+    }
+    SplittableRandomDeck deck = new SplittableRandomDeck(possibleCards, in.readLong());
+    long position = in.readLong();
+    int next = in.readShort();
+    if (position < 0 || next < 0 || next > RING_SIZE) {
+      throw new IOException("Invalid position of a saved deck: " + position + ", " + next);
+    }
+    deck.random.seek(position);
+    if (next < RING_SIZE) {
+      deck.refill();
+      deck.next = next;
+    }
+    return deck;
+  }
+}
@@ -0,0 +1,27 @@
+package highlowcardgame.game.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that only goes up, e.g. of requests. Incrementing it is lock-free and does not contend
+ * between threads, as it is striped like a {@link LongAdder}.
+ */
+public final class Counter {
+  private final LongAdder value = new LongAdder();
+
+  Counter() {}
+
+  public void increment() {
+    value.increment();
+  }
+
+  /** Adds the given non-negative amount. */
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  /** Returns the current value, the sum of all increments. */
+  public long get() {
+    return value.sum();
+  }
+}
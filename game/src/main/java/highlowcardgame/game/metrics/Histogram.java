@@ -0,0 +1,104 @@
+package highlowcardgame.game.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, bucketed like an HDR histogram: values up to
+ * 16 are counted exactly, larger values in 16 buckets per power of two, so every reported
+ * percentile is at most about 6% above the recorded value while the histogram takes a fixed 8 KB
+ * for any range of values. Recording a value is an increment of its bucket and of the sum.
+ */
+public final class Histogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  Histogram() {}
+
+  /** Records a duration in nanoseconds, negative values count as zero. */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(indexOf(value));
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /** Records the time since the given {@link System#nanoTime()}. */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /** Returns the number of recorded durations. */
+  public long count() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /** Returns the sum of the recorded durations in nanoseconds. */
+  public long sum() {
+    return sum.sum();
+  }
+
+  /** Returns the longest recorded duration in nanoseconds. */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the smallest bucket bound at or above the given shares of the recorded durations, all
+   * read from one pass over the buckets.
+   *
+   * @param percentiles the shares in percent, between 0 and 100, in ascending order
+   * @return the durations in nanoseconds, zeros if nothing was recorded
+   */
+  public long[] percentiles(double... percentiles) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    long[] values = new long[percentiles.length];
+    if (total == 0) {
+      return values;
+    }
+    int bucket = 0;
+    long seen = snapshot[0];
+    for (int p = 0; p < percentiles.length; p++) {
+      long rank = Math.max(1, (long) Math.ceil(total * percentiles[p] / 100));
+      while (seen < rank && bucket < BUCKETS - 1) {
+        seen += snapshot[++bucket];
+      }
+      values[p] = upperBoundOf(bucket);
+    }
+    return values;
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    long lowerBound = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
@@ -0,0 +1,179 @@
+package highlowcardgame.game.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The named metrics of the process: {@link Counter}s, {@link Histogram}s of durations and gauges
+ * read from a supplier when the metrics are read. Instrumented classes get their metrics once, e.g.
+ * into static fields, so updating one is a plain lock-free increment without any lookup.
+ *
+ * <p>The metrics are read as a flat snapshot, see {@link #snapshot()}, which is what the MBean
+ * registered by {@link #registerMbean} exposes, or in the plain-text exposition format of
+ * Prometheus, see {@link #writeText}.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+  private static final String[] SNAPSHOT_SUFFIXES = {"_p50", "_p90", "_p99", "_p999"};
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  // sorted, so the metrics are always listed in the same order
+  private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+  MetricsRegistry() {}
+
+  /** Returns the registry of the process, which all instrumented classes record in. */
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the counter with the given name, registering it first if needed.
+   *
+   * @param name the name, by convention ending in {@code _total}
+   * @param help a description of what is counted
+   * @throws IllegalArgumentException if the name is invalid or taken by another kind of metric
+   */
+  public Counter counter(String name, String help) {
+    return register(name, help, Counter.class, new Counter());
+  }
+
+  /**
+   * Returns the histogram with the given name, registering it first if needed. Durations are
+   * recorded in nanoseconds and read in seconds.
+   *
+   * @param name the name, by convention ending in {@code _seconds}
+   * @param help a description of what is measured
+   * @throws IllegalArgumentException if the name is invalid or taken by another kind of metric
+   */
+  public Histogram histogram(String name, String help) {
+    return register(name, help, Histogram.class, new Histogram());
+  }
+
+  /**
+   * Registers a gauge, replacing the gauge registered with that name before.
+   *
+   * @param name the name
+   * @param help a description of the value
+   * @param value supplies the current value whenever the metrics are read, must be thread-safe
+   * @throws IllegalArgumentException if the name is invalid or taken by another kind of metric
+   */
+  public void gauge(String name, String help, LongSupplier value) {
+    checkName(name);
+    metrics.merge(
+        name,
+        new Metric(help, value),
+        (previous, gauge) -> {
+          if (!(previous.instrument instanceof LongSupplier)) {
+            throw new IllegalArgumentException(name + " is not a gauge");
+          }
+          return gauge;
+        });
+  }
+
+  private <T> T register(String name, String help, Class<T> type, T instrument) {
+    checkName(name);
+    Metric metric = metrics.computeIfAbsent(name, n -> new Metric(help, instrument));
+    if (!type.isInstance(metric.instrument)) {
+      throw new IllegalArgumentException(name + " is not a " + type.getSimpleName());
+    }
+    return type.cast(metric.instrument);
+  }
+
+  private static void checkName(String name) {
+    if (!NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid metric name: " + name);
+    }
+  }
+
+  /**
+   * Returns the current values by name. A histogram contributes its count, sum, maximum and
+   * percentiles, e.g. {@code guess_seconds_count} and {@code guess_seconds_p99}, in seconds.
+   */
+  public Map<String, Number> snapshot() {
+    Map<String, Number> snapshot = new TreeMap<>();
+    for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+      String name = entry.getKey();
+      Object instrument = entry.getValue().instrument;
+      if (instrument instanceof Counter) {
+        snapshot.put(name, ((Counter) instrument).get());
+      } else if (instrument instanceof LongSupplier) {
+        snapshot.put(name, ((LongSupplier) instrument).getAsLong());
+      } else {
+        Histogram histogram = (Histogram) instrument;
+        long[] percentiles = histogram.percentiles(PERCENTILES);
+        for (int i = 0; i < percentiles.length; i++) {
+          snapshot.put(name + SNAPSHOT_SUFFIXES[i], percentiles[i] / NANOS_PER_SECOND);
+        }
+        snapshot.put(name + "_max", histogram.max() / NANOS_PER_SECOND);
+        snapshot.put(name + "_sum", histogram.sum() / NANOS_PER_SECOND);
+        snapshot.put(name + "_count", histogram.count());
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Writes all metrics in the plain-text exposition format of Prometheus: counters and gauges as
+   * they are, histograms as summaries with their percentiles as quantiles, plus their maximum.
+   */
+  public void writeText(StringBuilder out) {
+    for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+      String name = entry.getKey();
+      Metric metric = entry.getValue();
+      out.append("# HELP ").append(name).append(' ').append(metric.help).append('\n');
+      if (metric.instrument instanceof Counter) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(((Counter) metric.instrument).get()).append('\n');
+      } else if (metric.instrument instanceof LongSupplier) {
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        long value = ((LongSupplier) metric.instrument).getAsLong();
+        out.append(name).append(' ').append(value).append('\n');
+      } else {
+        Histogram histogram = (Histogram) metric.instrument;
+        out.append("# TYPE ").append(name).append(" summary\n");
+        long[] percentiles = histogram.percentiles(PERCENTILES);
+        for (int i = 0; i < percentiles.length; i++) {
+          out.append(name).append("{quantile=\"").append(QUANTILES[i]).append("\"} ");
+          out.append(percentiles[i] / NANOS_PER_SECOND).append('\n');
+        }
+        out.append(name).append("_sum ").append(histogram.sum() / NANOS_PER_SECOND).append('\n');
+        out.append(name).append("_count ").append(histogram.count()).append('\n');
+        out.append(name).append("_max ").append(histogram.max() / NANOS_PER_SECOND).append('\n');
+      }
+    }
+  }
+
+  /**
+   * Registers an MBean exposing the {@link #snapshot()} as read-only attributes with the platform
+   * MBean server, e.g. for JConsole.
+   *
+   * @param objectName the name of the MBean, e.g. {@code highlowcardgame:type=Metrics}
+   * @throws JMException if the name is invalid or already registered
+   */
+  public void registerMbean(String objectName) throws JMException {
+    ManagementFactory.getPlatformMBeanServer()
+        .registerMBean(new RegistryMbean(this), new ObjectName(objectName));
+  }
+
+  /** A registered metric with its description. */
+  private static final class Metric {
+    private final String help;
+    // a Counter, a Histogram or the LongSupplier of a gauge
+    private final Object instrument;
+
+    Metric(String help, Object instrument) {
+      this.help = help;
+      this.instrument = instrument;
+    }
+  }
+}
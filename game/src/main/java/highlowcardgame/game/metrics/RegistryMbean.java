@@ -0,0 +1,83 @@
+package highlowcardgame.game.metrics;
+
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Exposes the snapshot of a registry as read-only attributes. The attributes are those of the
+ * registry when the MBean info is requested, so metrics registered later show up as well.
+ */
+final class RegistryMbean implements DynamicMBean {
+  private final MetricsRegistry registry;
+
+  RegistryMbean(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    Number value = registry.snapshot().get(attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    Map<String, Number> snapshot = registry.snapshot();
+    AttributeList list = new AttributeList();
+    for (String attribute : attributes) {
+      Number value = snapshot.get(attribute);
+      if (value != null) {
+        list.add(new Attribute(attribute, value));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) {
+    throw new UnsupportedOperationException("Metrics are read-only");
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) {
+    throw new UnsupportedOperationException("Metrics have no operations");
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    Map<String, Number> snapshot = registry.snapshot();
+    MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+    int i = 0;
+    for (Map.Entry<String, Number> entry : snapshot.entrySet()) {
+      attributes[i++] =
+          new MBeanAttributeInfo(
+              entry.getKey(),
+              entry.getValue().getClass().getName(),
+              entry.getKey(),
+              true,
+              false,
+              false);
+    }
+    return new MBeanInfo(
+        getClass().getName(),
+        "The metrics of the high-low card game",
+        attributes,
+        null,
+        new MBeanOperationInfo[0],
+        null);
+  }
+}
@@ -0,0 +1,27 @@
+package highlowcardgame.game.observable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a notification fanned out to all observers. Its duration is the time
+ * the notifying thread spent, i.e. notifying every observer, or only enqueuing when asynchronous.
+ */
+@Name("highlowcardgame.Broadcast")
+@Label("Broadcast")
+@Category({"High-Low Card Game", "Game"})
+@StackTrace(false)
+final class BroadcastEvent extends jdk.jfr.Event {
+  @Label("Notification")
+  @Description("What the observers were notified about: state, joined, left or leaderboard")
+  String notification;
+
+  @Label("Recipients")
+  int recipients;
+
+  @Label("Asynchronous")
+  boolean async;
+}
@@ -1,6 +1,7 @@
 package highlowcardgame.game.observable;
 
 import highlowcardgame.game.GameState;
+import highlowcardgame.game.Leaderboard;
 
 /** Interface representing an observable. */
 public interface Observable {
@@ -14,4 +15,6 @@ public interface Observable {
   void notifyAboutNewPlayer(String playerName, GameState newState);
 
   void notifyAboutRemovedPlayer(String playerName, GameState newState);
+
+  void notifyAboutLeaderboard(Leaderboard.Delta delta, GameState newState);
 }
@@ -1,6 +1,7 @@
 package highlowcardgame.game.observable;
 
 import highlowcardgame.game.GameState;
+import highlowcardgame.game.Leaderboard;
 
 /** Interface representing an observer. */
 public interface Observer {
@@ -11,4 +12,16 @@ public interface Observer {
   void updateNewPlayer(String playerName, GameState state);
 
   void updateRemovedPlayer(String playerName, GameState state);
+
+  /**
+   * Notify this observer of a change of the top of the leaderboard since the last notification, or
+   * of the whole top right after it joined.
+   */
+  default void updateLeaderboard(Leaderboard.Delta delta, GameState state) {}
+
+  /**
+   * Notify this observer that it was unsubscribed because it could not keep up with or failed to
+   * handle notifications. Implementations backed by a connection should close it.
+   */
+  default void disconnected() {}
 }
@@ -1,48 +1,434 @@
 package highlowcardgame.game.observable;
 
 import highlowcardgame.game.GameState;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import highlowcardgame.game.Leaderboard;
+import highlowcardgame.game.metrics.Counter;
+import highlowcardgame.game.metrics.Histogram;
+import highlowcardgame.game.metrics.MetricsRegistry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
-/** Class representing an observer support with subscribing / unsubscribing methods. */
+/**
+ * Class representing an observer support with subscribing / unsubscribing methods.
+ *
+ * <p>Every observer gets its notifications in the order they were made, so a game that notifies
+ * while it holds its lock never has an older state delivered after a newer one. By default, the
+ * notifications are queued per observer and written synchronously by {@link #flush()}, which the
+ * game calls once it released its lock; an observer being written to by another thread is left to
+ * that thread. In asynchronous mode, every observer gets a bounded queue which is drained on an
+ * executor, so notifying only enqueues and a slow observer cannot hold up the notifying thread or
+ * the other observers.
+ */
 public final class ObserverSupport implements Observable {
+  private static final Histogram NOTIFICATION_SECONDS =
+      MetricsRegistry.global()
+          .histogram("observer_notification_seconds", "Time to notify a single observer.");
+  private static final Counter NOTIFICATIONS =
+      MetricsRegistry.global().counter("observer_notifications_total", "Observers notified.");
+  private static final Counter DROPPED =
+      MetricsRegistry.global()
+          .counter(
+              "observer_dropped_notifications_total",
+              "Queued notifications dropped because an observer could not keep up.");
+  private static final Counter DISCONNECTS =
+      MetricsRegistry.global()
+          .counter(
+              "observer_disconnects_total",
+              "Observers disconnected because they could not keep up or failed.");
+  // the notifications queued by all observer supports
+  private static final LongAdder QUEUED = new LongAdder();
 
-  private ConcurrentLinkedQueue<Observer> observers = new ConcurrentLinkedQueue<>();
+  static {
+    MetricsRegistry.global()
+        .gauge(
+            "observer_queued_notifications",
+            "Notifications waiting in the queues of asynchronously notified observers.",
+            QUEUED::sum);
+  }
+
+  private final Map<Observer, Outbox> outboxes = new ConcurrentHashMap<>();
+
+  private final Executor executor;
+  private final int queueCapacity;
+  private final SlowConsumerPolicy policy;
+  private final Map<Observer, ObserverQueue> queues = new ConcurrentHashMap<>();
+  private volatile Consumer<Observer> disconnectHandler = o -> {};
+
+  /** Creates an observer support notifying synchronously. */
+  public ObserverSupport() {
+    executor = null;
+    queueCapacity = 0;
+    policy = null;
+  }
+
+  /**
+   * Creates an observer support notifying asynchronously.
+   *
+   * @param executor runs the tasks draining the observer queues
+   * @param queueCapacity the maximum number of pending notifications per observer
+   * @param policy what to do with an observer whose queue is full
+   */
+  public ObserverSupport(Executor executor, int queueCapacity, SlowConsumerPolicy policy) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+    }
+    this.executor = executor;
+    this.queueCapacity = queueCapacity;
+    this.policy = policy;
+  }
+
+  /**
+   * Sets the handler for observers that were unsubscribed because they could not keep up or failed.
+   * The handler runs on the executor, never on the notifying thread, and is followed by {@link
+   * Observer#disconnected()}.
+   */
+  public void setDisconnectHandler(Consumer<Observer> disconnectHandler) {
+    this.disconnectHandler = disconnectHandler;
+  }
+
+  private boolean isAsync() {
+    return executor != null;
+  }
 
   @Override
   public void subscribe(Observer obsv) {
-    if (observers.contains(obsv)) {
+    if (isAsync()) {
+      if (queues.putIfAbsent(obsv, new ObserverQueue(obsv)) != null) {
+        throw new AssertionError("Observer " + obsv + " already part of observers");
+      }
+      return;
+    }
+    if (outboxes.putIfAbsent(obsv, new Outbox(obsv)) != null) {
       throw new AssertionError("Observer " + obsv + " already part of observers");
     }
-    observers.add(obsv);
   }
 
   @Override
   public void unsubscribe(Observer obsv) {
-    observers.remove(obsv);
-    if (observers.contains(obsv)) {
-      throw new AssertionError("Observer " + obsv + " still part of observers");
+    if (isAsync()) {
+      ObserverQueue queue = queues.remove(obsv);
+      if (queue != null) {
+        queue.close();
+      }
+      return;
+    }
+    Outbox outbox = outboxes.remove(obsv);
+    if (outbox != null) {
+      outbox.close();
     }
   }
 
   @Override
   public void notifyAboutState(GameState state) {
-    updateAll(o -> o.updateState(state));
+    updateAll(Kind.STATE, o -> o.updateState(state));
   }
 
   @Override
   public void notifyAboutNewPlayer(String playerName, GameState newState) {
-    updateAll(o -> o.updateNewPlayer(playerName, newState));
+    updateAll(Kind.JOINED, o -> o.updateNewPlayer(playerName, newState));
   }
 
   @Override
   public void notifyAboutRemovedPlayer(String playerName, GameState newState) {
-    updateAll(o -> o.updateRemovedPlayer(playerName, newState));
+    updateAll(Kind.LEFT, o -> o.updateRemovedPlayer(playerName, newState));
+  }
+
+  @Override
+  public void notifyAboutLeaderboard(Leaderboard.Delta delta, GameState newState) {
+    updateAll(Kind.LEADERBOARD, o -> o.updateLeaderboard(delta, newState));
+  }
+
+  /** Notifies a single observer about the leaderboard, in order with its other notifications. */
+  public void notifyAboutLeaderboard(Observer obsv, Leaderboard.Delta delta, GameState newState) {
+    offer(obsv, new Notification(Kind.LEADERBOARD, o -> o.updateLeaderboard(delta, newState)));
+  }
+
+  /**
+   * Runs the acknowledgement of a guess of the observer in order with its other notifications, e.g.
+   * before the state of the round the guess completes. An observer that is not subscribed gets it
+   * right away.
+   */
+  public void notifyAboutGuess(Observer obsv, Runnable acknowledgement) {
+    if (!offer(obsv, new Notification(Kind.GUESSED, o -> acknowledgement.run()))) {
+      acknowledgement.run();
+    }
+  }
+
+  private boolean offer(Observer obsv, Notification notification) {
+    if (isAsync()) {
+      ObserverQueue queue = queues.get(obsv);
+      if (queue != null) {
+        queue.offer(notification);
+      }
+      return queue != null;
+    }
+    Outbox outbox = outboxes.get(obsv);
+    if (outbox != null) {
+      outbox.offer(notification);
+    }
+    return outbox != null;
+  }
+
+  /**
+   * Writes the notifications queued for every observer, unless another thread is writing to it
+   * already. Does nothing in asynchronous mode. A failing observer does not keep the others from
+   * being written to; the first failure is thrown afterwards.
+   */
+  public void flush() {
+    if (isAsync()) {
+      return;
+    }
+    RuntimeException failure = null;
+    for (Outbox outbox : outboxes.values()) {
+      try {
+        outbox.drain();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void updateAll(Kind kind, Consumer<Observer> toCall) {
+    BroadcastEvent event = new BroadcastEvent();
+    event.begin();
+    int recipients = 0;
+    Notification notification = new Notification(kind, toCall);
+    if (isAsync()) {
+      for (ObserverQueue queue : queues.values()) {
+        queue.offer(notification);
+        recipients++;
+      }
+    } else {
+      for (Outbox outbox : outboxes.values()) {
+        outbox.offer(notification);
+        recipients++;
+      }
+    }
+    if (event.shouldCommit()) {
+      event.notification = kind.label;
+      event.recipients = recipients;
+      event.async = isAsync();
+      event.commit();
+    }
   }
 
-  private void updateAll(Consumer<Observer> toCall) {
-    for (Observer o : observers) {
-      toCall.accept(o);
+  private static void update(Observer observer, Consumer<Observer> toCall) {
+    long start = System.nanoTime();
+    toCall.accept(observer);
+    NOTIFICATIONS.increment();
+    NOTIFICATION_SECONDS.recordSince(start);
+  }
+
+  private void disconnect(ObserverQueue queue) {
+    queue.close();
+    if (queues.remove(queue.observer, queue)) {
+      DISCONNECTS.increment();
+      executor.execute(
+          () -> {
+            disconnectHandler.accept(queue.observer);
+            queue.observer.disconnected();
+          });
+    }
+  }
+
+  /**
+   * The kinds of notifications, of which all but the leaderboard and the acknowledgement of a guess
+   * carry the complete state.
+   */
+  private enum Kind {
+    STATE("state"),
+    JOINED("joined"),
+    LEFT("left"),
+    LEADERBOARD("leaderboard"),
+    GUESSED("guessed");
+
+    private final String label;
+
+    Kind(String label) {
+      this.label = label;
+    }
+
+    boolean carriesState() {
+      return this != LEADERBOARD && this != GUESSED;
+    }
+  }
+
+  /** A notification waiting in the queue of an observer. */
+  private static final class Notification {
+    private final Kind kind;
+    private final Consumer<Observer> toCall;
+
+    Notification(Kind kind, Consumer<Observer> toCall) {
+      this.kind = kind;
+      this.toCall = toCall;
+    }
+  }
+
+  /**
+   * Pending notifications of a single synchronously notified observer, written by at most one
+   * thread at a time.
+   */
+  private static final class Outbox {
+    private final Observer observer;
+    // guarded by this
+    private final Deque<Notification> pending = new ArrayDeque<>();
+    private boolean writing = false;
+    private boolean closed = false;
+
+    Outbox(Observer observer) {
+      this.observer = observer;
+    }
+
+    synchronized void offer(Notification notification) {
+      if (!closed) {
+        pending.add(notification);
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      pending.clear();
+    }
+
+    /** Writes the pending notifications, including those queued meanwhile by other threads. */
+    void drain() {
+      synchronized (this) {
+        if (writing || pending.isEmpty()) {
+          return;
+        }
+        writing = true;
+      }
+      boolean drained = false;
+      try {
+        while (true) {
+          Notification notification;
+          synchronized (this) {
+            notification = pending.poll();
+            if (notification == null) {
+              writing = false;
+              drained = true;
+              return;
+            }
+          }
+          update(observer, notification.toCall);
+        }
+      } finally {
+        if (!drained) {
+          synchronized (this) {
+            writing = false;
+          }
+        }
+      }
+    }
+  }
+
+  /** Pending notifications of a single observer, drained by at most one task at a time. */
+  private final class ObserverQueue implements Runnable {
+    private final Observer observer;
+    private final Deque<Notification> pending = new ArrayDeque<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private boolean closed = false;
+
+    ObserverQueue(Observer observer) {
+      this.observer = observer;
+    }
+
+    void close() {
+      synchronized (pending) {
+        closed = true;
+        QUEUED.add(-pending.size());
+        pending.clear();
+      }
+    }
+
+    void offer(Notification notification) {
+      synchronized (pending) {
+        if (closed) {
+          return;
+        }
+        if (pending.size() >= queueCapacity) {
+          switch (policy) {
+            case DROP_OLDEST:
+              pending.poll();
+              QUEUED.decrement();
+              DROPPED.increment();
+              break;
+            case COLLAPSE_TO_LATEST_STATE:
+              if (collapseStates(notification.kind.carriesState()) > 0) {
+                break;
+              }
+              disconnect(this);
+              return;
+            case DISCONNECT:
+            default:
+              disconnect(this);
+              return;
+          }
+        }
+        pending.add(notification);
+        QUEUED.increment();
+      }
+      if (scheduled.compareAndSet(false, true)) {
+        executor.execute(this);
+      }
+    }
+
+    /**
+     * Drops the pending state notifications followed by a later notification carrying the state.
+     * Needs the monitor of the pending notifications.
+     *
+     * @param superseded whether the notification to be queued carries the state
+     * @return the number of notifications dropped
+     */
+    private int collapseStates(boolean superseded) {
+      int dropped = 0;
+      boolean later = superseded;
+      for (Iterator<Notification> it = pending.descendingIterator(); it.hasNext(); ) {
+        Kind kind = it.next().kind;
+        if (kind == Kind.STATE && later) {
+          it.remove();
+          dropped++;
+        }
+        later |= kind.carriesState();
+      }
+      QUEUED.add(-dropped);
+      DROPPED.add(dropped);
+      return dropped;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Notification notification;
+        synchronized (pending) {
+          notification = pending.poll();
+          if (notification == null) {
+            scheduled.set(false);
+            return;
+          }
+          QUEUED.decrement();
+        }
+        try {
+          update(observer, notification.toCall);
+        } catch (RuntimeException | AssertionError e) {
+          // an observer that fails is as unreachable as one that cannot keep up
+          scheduled.set(false);
+          disconnect(this);
+          return;
+        }
+      }
     }
   }
 }
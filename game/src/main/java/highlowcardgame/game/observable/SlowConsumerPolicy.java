@@ -0,0 +1,16 @@
+package highlowcardgame.game.observable;
+
+/** What an asynchronous {@link ObserverSupport} does when an observer's queue is full. */
+public enum SlowConsumerPolicy {
+  /** Discards the oldest pending notification to make room for the new one. */
+  DROP_OLDEST,
+  /**
+   * Discards the pending state notifications followed by a later notification with the complete
+   * game state, which brings the observer up to date as well. Joins, departures and leaderboard
+   * changes are kept. If there is no such state notification, the observer is disconnected as with
+   * {@link #DISCONNECT}.
+   */
+  COLLAPSE_TO_LATEST_STATE,
+  /** Unsubscribes the observer and reports it to the disconnect handler. */
+  DISCONNECT
+}
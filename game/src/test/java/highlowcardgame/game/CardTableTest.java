@@ -0,0 +1,62 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card.Suit;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+// test the canonical cards and the precomputed outcomes
+public class CardTableTest {
+  @Test
+  public void testCardsAreCanonical() {
+    int ordinal = 0;
+    for (Card card : Card.getAllValidCards()) {
+      assertEquals(ordinal, card.getOrdinal());
+      assertSame(card, Card.ofOrdinal(ordinal));
+      assertSame(card, Card.of(card.getSuit(), card.getValue()));
+      Card copy = new Card(card.getSuit(), card.getValue());
+      assertEquals(card, copy);
+      assertEquals(card.hashCode(), copy.hashCode());
+      assertSame(card, copy.canonical());
+      ordinal++;
+    }
+    assertEquals(Card.NUM_CARDS, ordinal);
+    assertThrows(IllegalArgumentException.class, () -> Card.ofOrdinal(Card.NUM_CARDS));
+    assertThrows(IllegalArgumentException.class, () -> Card.of(Suit.CLUBS, 14));
+  }
+
+  @Test
+  public void testAllValidCardsAreACopy() {
+    Collection<Card> cards = Card.getAllValidCards();
+    cards.clear();
+    assertEquals(Card.NUM_CARDS, Card.getAllValidCards().size());
+    assertEquals(Card.allValidCards(), new ArrayList<>(Card.getAllValidCards()));
+  }
+
+  @Test
+  public void testCodes() {
+    assertEquals("C01", Card.of(Suit.CLUBS, 1).toString());
+    assertEquals("S13", Card.of(Suit.SPADES, 13).toString());
+    assertEquals("H09", new Card(Suit.HEARTS, 9).toString());
+  }
+
+  @Test
+  public void testCorrectGuessesMatchComparison() {
+    HighLowCardGame game = new HighLowCardGame(new FixedDeck(List.of()));
+    for (Card first : Card.getAllValidCards()) {
+      for (Card second : Card.getAllValidCards()) {
+        int comparison = first.compareTo(second);
+        Guess expected = comparison == 0 ? Guess.EQUAL : comparison > 0 ? Guess.LOW : Guess.HIGH;
+        assertEquals(comparison == 0, first.equals(second));
+        assertTrue(game.isGuessCorrect(expected, first, second));
+      }
+    }
+  }
+}
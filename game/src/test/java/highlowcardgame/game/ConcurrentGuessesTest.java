@@ -0,0 +1,236 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card.Suit;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+// guesses are recorded concurrently, the round must still advance exactly once per round
+public class ConcurrentGuessesTest {
+  private static final int NUM_PLAYERS = 8;
+  private static final int NUM_ROUNDS = 200;
+
+  @Test
+  public void testEveryRoundIsCompletedOnce() throws Exception {
+    List<Card> cards = new ArrayList<>();
+    for (int i = 0; i <= NUM_ROUNDS; i++) {
+      cards.add(new Card(Suit.CLUBS, i % 2 == 0 ? 2 : 10));
+    }
+    HighLowCardGame game = new HighLowCardGame(new FixedDeck(cards));
+    List<Player> players = new ArrayList<>();
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      Player player = new NamedPlayer("player" + i);
+      players.add(player);
+      game.addPlayer(player);
+    }
+    game.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_PLAYERS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Player player : players) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int round = 1; round <= NUM_ROUNDS; round++) {
+                    GameState state = game.getState();
+                    while (state.getRound() < round) {
+                      Thread.onSpinWait();
+                      state = game.getState();
+                    }
+                    // the cards alternate, so every player always guesses correctly
+                    Guess guess = state.getCurrentCard().getValue() == 2 ? Guess.HIGH : Guess.LOW;
+                    game.guess(player, guess);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    GameState state = game.getState();
+    assertEquals(NUM_ROUNDS + 1, state.getRound());
+    assertEquals(0, state.getGuesses().size());
+    // a round completed twice would draw a card too many and score a round twice
+    int expectedScore =
+        NUM_ROUNDS
+            / 2
+            * (HighLowCardGame.GUESS_SCORE.get(Guess.HIGH)
+                + HighLowCardGame.GUESS_SCORE.get(Guess.LOW));
+    for (Player player : players) {
+      assertEquals(expectedScore, state.getScores().get(player).get());
+    }
+  }
+
+  @Test
+  public void testNotifyingAGuessDoesNotHoldUpTheRound() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    AtomicBoolean armed = new AtomicBoolean();
+    Player slow =
+        new NamedPlayer("slow") {
+          @Override
+          public void updateState(GameState state) {
+            if (armed.compareAndSet(true, false)) {
+              blocked.countDown();
+              try {
+                released.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        };
+    Player guesser = new NamedPlayer("guesser");
+    HighLowCardGame game =
+        new HighLowCardGame(
+            new FixedDeck(List.of(new Card(Suit.CLUBS, 2), new Card(Suit.CLUBS, 10))));
+    game.addPlayer(slow);
+    game.addPlayer(guesser);
+    game.start();
+    armed.set(true);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> guess =
+          executor.submit(
+              () -> {
+                game.guess(guesser, Guess.HIGH);
+                return null;
+              });
+      blocked.await();
+      // the notification of the guess is stuck in a write, the round can still be closed
+      Future<Boolean> closed = executor.submit(() -> game.completeRound(1));
+      try {
+        assertTrue(closed.get(5, TimeUnit.SECONDS));
+      } finally {
+        released.countDown();
+      }
+      guess.get();
+      assertEquals(2, game.getState().getRound());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // records the round of every state it gets, and the acknowledgements of its guesses
+  private static class RecordingPlayer extends NamedPlayer {
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    RecordingPlayer(String name) {
+      super(name);
+    }
+
+    @Override
+    public void updateState(GameState state) {
+      record(state);
+    }
+
+    @Override
+    public void updateNewPlayer(String playerName, GameState state) {
+      record(state);
+    }
+
+    private void record(GameState state) {
+      events.add(state.hasPlayer(this) ? "round " + state.getRound() : "not seated");
+    }
+
+    void acknowledge(int numNotGuessedPlayers) {
+      events.add("guessed");
+    }
+  }
+
+  /** Guesses with the guesser of a game, see {@link #assertRoundClosedMeanwhileComesLast}. */
+  private interface Guessing {
+    void guess(HighLowCardGame game, RecordingPlayer guesser) throws Exception;
+  }
+
+  /**
+   * Guesses on another thread, and while the state after the guess is written, lets a player join
+   * and closes the round like a deadline would.
+   */
+  private static void assertRoundClosedMeanwhileComesLast(Guessing guessing) throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    AtomicBoolean armed = new AtomicBoolean();
+    RecordingPlayer slow =
+        new RecordingPlayer("slow") {
+          @Override
+          public void updateState(GameState state) {
+            super.updateState(state);
+            if (armed.compareAndSet(true, false)) {
+              blocked.countDown();
+              try {
+                released.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        };
+    RecordingPlayer guesser = new RecordingPlayer("guesser");
+    RecordingPlayer newcomer = new RecordingPlayer("newcomer");
+    HighLowCardGame game =
+        new HighLowCardGame(
+            new FixedDeck(List.of(new Card(Suit.CLUBS, 2), new Card(Suit.CLUBS, 10))));
+    game.addPlayer(slow);
+    game.addPlayer(guesser);
+    game.start();
+    slow.events.clear();
+    guesser.events.clear();
+    armed.set(true);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> guess =
+          executor.submit(
+              () -> {
+                guessing.guess(game, guesser);
+                return null;
+              });
+      blocked.await();
+      game.addPlayer(newcomer);
+      assertTrue(game.completeRound(1));
+      released.countDown();
+      guess.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // every player gets the states in order, and never one without its seat
+    assertEquals(List.of("round 1", "round 1", "round 2"), slow.events);
+    assertEquals(List.of("guessed", "round 1", "round 1", "round 2"), guesser.events);
+    assertEquals(List.of("round 1", "round 2"), newcomer.events);
+  }
+
+  @Test
+  public void testRoundClosedWhileAGuessIsWrittenComesLast() throws Exception {
+    assertRoundClosedMeanwhileComesLast(
+        (game, guesser) -> game.guess(guesser, Guess.HIGH, guesser::acknowledge));
+  }
+
+  @Test
+  public void testRoundClosedWhileABatchIsWrittenComesLast() throws Exception {
+    assertRoundClosedMeanwhileComesLast(
+        (game, guesser) -> {
+          GuessBatch batch = new GuessBatch(1);
+          batch.add(guesser, Guess.HIGH, guesser::acknowledge);
+          game.guessAll(batch);
+        });
+  }
+}
@@ -0,0 +1,144 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// test that the decks deal every card equally often and reproducibly
+public class DeckUniformityTest {
+  private static final int DRAWS_PER_CARD = 2000;
+  // the chi-square quantile for 51 degrees of freedom at p = 0.999, the seeds are fixed anyway
+  private static final double CHI_SQUARE_LIMIT = 87.97;
+
+  private static double chiSquare(Deck deck, int draws) throws Deck.NoNextCardException {
+    int[] counts = new int[Card.NUM_CARDS];
+    for (int i = 0; i < draws; i++) {
+      counts[deck.getNextCard().getOrdinal()]++;
+    }
+    double expected = (double) draws / Card.NUM_CARDS;
+    double chiSquare = 0;
+    for (int count : counts) {
+      chiSquare += (count - expected) * (count - expected) / expected;
+    }
+    return chiSquare;
+  }
+
+  private static void assertUniform(Deck deck) throws Deck.NoNextCardException {
+    double chiSquare = chiSquare(deck, DRAWS_PER_CARD * Card.NUM_CARDS);
+    assertTrue(chiSquare < CHI_SQUARE_LIMIT, "chi-square " + chiSquare);
+  }
+
+  @Test
+  public void testSplittableRandomDeckIsUniform() throws Deck.NoNextCardException {
+    assertUniform(new SplittableRandomDeck(Card.getAllValidCards(), 42));
+  }
+
+  @Test
+  public void testShoeIsUniform() throws Deck.NoNextCardException {
+    assertUniform(new Shoe(6, 0.75, 42));
+    assertUniform(new Shoe(1, 0.3, 7));
+  }
+
+  @Test
+  public void testShoeIsUniformAcrossPositions() throws Deck.NoNextCardException {
+    // the first card after every reshuffle must be uniform too, not only the cards overall
+    Shoe shoe = new Shoe(1, 0.5, 42);
+    int[] counts = new int[Card.NUM_CARDS];
+    int shoes = DRAWS_PER_CARD * Card.NUM_CARDS / 26;
+    for (int i = 0; i < shoes; i++) {
+      counts[shoe.getNextCard().getOrdinal()]++;
+      for (int j = 1; j < 26; j++) {
+        shoe.getNextCard();
+      }
+    }
+    double expected = (double) shoes / Card.NUM_CARDS;
+    double chiSquare = 0;
+    for (int count : counts) {
+      chiSquare += (count - expected) * (count - expected) / expected;
+    }
+    assertTrue(chiSquare < CHI_SQUARE_LIMIT, "chi-square " + chiSquare);
+  }
+
+  @Test
+  public void testFullShoeDealsEveryCardOnce() throws Deck.NoNextCardException {
+    Shoe shoe = new Shoe(1, 1, 42);
+    for (int round = 0; round < 3; round++) {
+      Set<Card> dealt = new HashSet<>();
+      for (int i = 0; i < Card.NUM_CARDS; i++) {
+        assertTrue(dealt.add(shoe.getNextCard()));
+      }
+    }
+  }
+
+  @Test
+  public void testSeedsAreReproducible() throws Deck.NoNextCardException {
+    Deck first = new SplittableRandomDeck(Card.getAllValidCards(), 1);
+    Deck second = new SplittableRandomDeck(Card.getAllValidCards(), 1);
+    Shoe firstShoe = new Shoe(2, 0.8, 1);
+    Shoe secondShoe = new Shoe(2, 0.8, 1);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(first.getNextCard(), second.getNextCard());
+      assertEquals(firstShoe.getNextCard(), secondShoe.getNextCard());
+    }
+  }
+
+  @Test
+  public void testSeededDecksDrawLikeTheJdkGenerators() throws Deck.NoNextCardException {
+    List<Card> cards = Card.allValidCards();
+    Deck shuffled = new InfiniteShuffledDeck(cards, 5);
+    Deck splittable = new SplittableRandomDeck(cards, 5);
+    Random random = new Random(5);
+    SplittableRandom splittableRandom = new SplittableRandom(5);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(cards.get(random.nextInt(cards.size())), shuffled.getNextCard());
+      assertEquals(cards.get(splittableRandom.nextInt(cards.size())), splittable.getNextCard());
+    }
+    // also for bounds that are powers of two
+    SeekableRandom seekable = new SeekableRandom(6);
+    splittableRandom = new SplittableRandom(6);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(splittableRandom.nextInt(64), seekable.nextInt(64));
+    }
+  }
+
+  @Test
+  public void testSeekingSkipsTheValues() {
+    SeekableRandom drawn = new SeekableRandom(9);
+    for (int i = 0; i < 1000; i++) {
+      drawn.nextInt(52);
+    }
+    SeekableRandom seeked = new SeekableRandom(9);
+    seeked.seek(drawn.getPosition());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(drawn.nextInt(52), seeked.nextInt(52));
+    }
+  }
+
+  @Test
+  public void testSplitDecksDiffer() throws Deck.NoNextCardException {
+    SplittableRandomDeck deck = new SplittableRandomDeck(Card.getAllValidCards(), 1);
+    SplittableRandomDeck split = deck.split();
+    StringBuilder cards = new StringBuilder();
+    StringBuilder splitCards = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      cards.append(deck.getNextCard());
+      splitCards.append(split.getNextCard());
+    }
+    assertNotEquals(cards.toString(), splitCards.toString());
+  }
+
+  @Test
+  public void testInvalidShoes() {
+    assertThrows(IllegalArgumentException.class, () -> new Shoe(0, 0.5, 1));
+    assertThrows(IllegalArgumentException.class, () -> new Shoe(1, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new Shoe(1, 1.5, 1));
+  }
+}
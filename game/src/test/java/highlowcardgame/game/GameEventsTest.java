@@ -0,0 +1,69 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// a recording must hold an event for every round and guess, with the counts of the game
+public class GameEventsTest {
+
+  private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> named = new ArrayList<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name)) {
+        named.add(event);
+      }
+    }
+    return named;
+  }
+
+  @Test
+  public void testRoundsAndGuessesAreRecorded(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("game.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("highlowcardgame.RoundStarted");
+      recording.enable("highlowcardgame.RoundClosed");
+      recording.enable("highlowcardgame.GuessAccepted");
+      recording.enable("highlowcardgame.Broadcast");
+      recording.start();
+
+      HighLowCardGame game =
+          new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1));
+      Player alice = new NamedPlayer("alice");
+      Player bob = new NamedPlayer("bob");
+      game.addPlayer(alice);
+      game.addPlayer(bob);
+      game.start();
+      game.guess(alice, Guess.HIGH);
+      game.guess(bob, Guess.LOW);
+
+      recording.stop();
+      recording.dump(file);
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+    List<RecordedEvent> started = eventsNamed(events, "highlowcardgame.RoundStarted");
+    assertEquals(2, started.size());
+    assertEquals(2, started.get(1).getInt("round"));
+    List<RecordedEvent> closed = eventsNamed(events, "highlowcardgame.RoundClosed");
+    assertEquals(1, closed.size());
+    assertEquals(1, closed.get(0).getInt("round"));
+    assertEquals(2, closed.get(0).getInt("players"));
+    assertEquals(2, closed.get(0).getInt("guesses"));
+    List<RecordedEvent> guesses = eventsNamed(events, "highlowcardgame.GuessAccepted");
+    assertEquals(2, guesses.size());
+    assertEquals("alice", guesses.get(0).getString("player"));
+    assertEquals(1, guesses.get(0).getInt("remaining"));
+    assertEquals(0, guesses.get(1).getInt("remaining"));
+    // two joins, the first round, the guess of alice and the second round
+    assertEquals(5, eventsNamed(events, "highlowcardgame.Broadcast").size());
+  }
+}
@@ -0,0 +1,256 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// a restored snapshot must be the state the game had, and continue like the game
+public class GameSnapshotTest {
+  private static final int NUM_GAMES = 50;
+
+  private static Deck deck(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return new InfiniteShuffledDeck(Card.getAllValidCards(), random.nextLong());
+      case 1:
+        return new SplittableRandomDeck(Card.getAllValidCards(), random.nextLong());
+      default:
+        return new Shoe(1 + random.nextInt(4), 0.5 + random.nextDouble() / 2, random.nextLong());
+    }
+  }
+
+  /** Plays random steps: joins, departures and guesses, which complete rounds now and then. */
+  private static void play(HighLowCardGame game, Player[] players, Random random, int steps)
+      throws Exception {
+    for (int step = 0; step < steps; step++) {
+      int i = random.nextInt(players.length);
+      if (players[i] == null) {
+        players[i] = new NamedPlayer("player-ü" + Long.toHexString(random.nextLong()));
+        game.addPlayer(players[i]);
+      } else if (random.nextInt(10) == 0) {
+        game.removePlayer(players[i]);
+        players[i] = null;
+      } else {
+        game.guess(players[i], Guess.values()[random.nextInt(3)]);
+      }
+    }
+  }
+
+  private static Map<String, Integer> seatsByName(GameState state) {
+    Map<String, Integer> seats = new HashMap<>();
+    for (Player player : state.getPlayers()) {
+      seats.put(player.getName(), state.seatOf(player));
+    }
+    return seats;
+  }
+
+  private static Map<String, Integer> scoresByName(GameState state) {
+    Map<String, Integer> scores = new HashMap<>();
+    state.getScores().forEach((player, score) -> scores.put(player.getName(), score.get()));
+    return scores;
+  }
+
+  private static Map<String, Guess> guessesByName(GameState state) {
+    Map<String, Guess> guesses = new HashMap<>();
+    state.getGuesses().forEach((player, guess) -> guesses.put(player.getName(), guess));
+    return guesses;
+  }
+
+  private static List<Card> draw(Deck deck, int count) throws Exception {
+    List<Card> cards = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      cards.add(deck.getNextCard());
+    }
+    return cards;
+  }
+
+  private static void assertSameState(GameState expected, GameState actual) throws Exception {
+    assertEquals(expected.getRound(), actual.getRound());
+    assertEquals(expected.getCurrentCard(), actual.getCurrentCard());
+    assertEquals(seatsByName(expected), seatsByName(actual));
+    assertEquals(scoresByName(expected), scoresByName(actual));
+    assertEquals(guessesByName(expected), guessesByName(actual));
+    assertEquals(expected.getGuesses().size(), actual.getGuesses().size());
+    assertArrayEquals(expected.getSeats().freeSeats(), actual.getSeats().freeSeats());
+    // the leaderboard is rebuilt from the scores
+    assertEquals(expected.getLeaderboard().size(), actual.getLeaderboard().size());
+    for (Player player : actual.getPlayers()) {
+      assertEquals(
+          expected.getRank(expected.getPlayerNamed(player.getName())), actual.getRank(player));
+    }
+    assertEquals(draw(expected.getDeck(), 200), draw(actual.getDeck(), 200));
+  }
+
+  @Test
+  public void testRestoredSnapshotEqualsTheGame() throws Exception {
+    Random random = new Random(42);
+    for (int i = 0; i < NUM_GAMES; i++) {
+      HighLowCardGame game = new HighLowCardGame(deck(random));
+      game.start();
+      play(game, new Player[1 + random.nextInt(20)], random, random.nextInt(500));
+
+      GameSnapshot snapshot = game.snapshot();
+      byte[] bytes = snapshot.toBytes();
+      GameSnapshot decoded = GameSnapshot.fromBytes(bytes);
+      assertArrayEquals(bytes, decoded.toBytes());
+      assertEquals(snapshot.getId(), decoded.getId());
+      assertEquals(game.getState().getNumPlayers(), decoded.getNumPlayers());
+      assertSameState(game.getState(), decoded.restore());
+    }
+  }
+
+  @Test
+  public void testRestoredSnapshotAfterManyRoundsEqualsTheGame() throws Exception {
+    for (Deck deck :
+        List.of(
+            new InfiniteShuffledDeck(Card.getAllValidCards(), 11),
+            new SplittableRandomDeck(Card.getAllValidCards(), 11),
+            new Shoe(6, 0.75, 11))) {
+      HighLowCardGame game = new HighLowCardGame(deck);
+      Player alice = new NamedPlayer("alice");
+      game.addPlayer(alice);
+      game.start();
+      for (int round = 0; round < 50_000; round++) {
+        game.guess(alice, Guess.HIGH);
+      }
+      assertSameState(game.getState(), GameSnapshot.fromBytes(game.snapshot().toBytes()).restore());
+    }
+  }
+
+  @Test
+  public void testRestoringTakesAsLongAfterAnyNumberOfRounds() throws Exception {
+    // further than any game draws, restoring a deck by drawing its cards again would never end
+    long position = 1L << 50;
+    Card[] cards = Card.allValidCards().toArray(new Card[0]);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    GameSnapshot.writeCards(out, cards);
+    out.writeLong(1);
+    out.writeLong(position);
+    GameSnapshot.writeCards(out, cards);
+    out.writeLong(1);
+    out.writeLong(position);
+    out.writeShort(SplittableRandomDeck.RING_SIZE / 2);
+    out.writeDouble(1);
+    GameSnapshot.writeCards(out, cards);
+    out.writeInt(Card.NUM_CARDS / 2);
+    out.writeLong(1);
+    out.writeLong(position);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(1),
+        () -> {
+          for (Deck deck :
+              List.of(
+                  InfiniteShuffledDeck.load(in), SplittableRandomDeck.load(in), Shoe.load(in))) {
+            assertTrue(deck.getNextCard().getOrdinal() >= 0);
+          }
+        });
+  }
+
+  @Test
+  public void testSnapshotsDoNotChangeTheCardsOfTheGame() throws Exception {
+    for (int i = 0; i < NUM_GAMES; i++) {
+      HighLowCardGame snapshotted = new HighLowCardGame(deck(new Random(i)));
+      HighLowCardGame untouched = new HighLowCardGame(deck(new Random(i)));
+      snapshotted.start();
+      untouched.start();
+      Player[] snapshottedPlayers = new Player[10];
+      Player[] untouchedPlayers = new Player[10];
+      for (int part = 0; part < 5; part++) {
+        play(snapshotted, snapshottedPlayers, new Random(part), 100);
+        play(untouched, untouchedPlayers, new Random(part), 100);
+        snapshotted.snapshot();
+        assertEquals(
+            untouched.getState().getCurrentCard(), snapshotted.getState().getCurrentCard());
+      }
+      assertEquals(
+          draw(untouched.getState().getDeck(), 200), draw(snapshotted.getState().getDeck(), 200));
+    }
+  }
+
+  @Test
+  public void testReplayFromSnapshotContinuesTheGame(@TempDir Path directory) throws Exception {
+    Random random = new Random(7);
+    Path snapshotFile = directory.resolve("game.snapshot");
+    Path journalDirectory = directory.resolve("journal");
+    HighLowCardGame game = new HighLowCardGame(new Shoe(2, 0.75, 7));
+    Player[] players = new Player[8];
+    try (MappedJournal journal = MappedJournal.open(journalDirectory, 4096, 1)) {
+      game.setJournal(journal);
+      game.start();
+      play(game, players, random, 1_000);
+      game.snapshot().write(snapshotFile);
+      play(game, players, random, 1_000);
+      // a later snapshot that was never written, its record must be skipped
+      game.snapshot();
+      play(game, players, random, 100);
+    }
+
+    GameState replayed = MappedJournal.replay(journalDirectory, GameSnapshot.read(snapshotFile));
+    assertTrue(replayed.getRound() > GameSnapshot.read(snapshotFile).getRound());
+    assertSameState(game.getState(), replayed);
+  }
+
+  @Test
+  public void testReconnectingPlayerTakesOverTheRestoredSeat() throws Exception {
+    HighLowCardGame game =
+        new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1));
+    Player alice = new NamedPlayer("alice");
+    Player bob = new NamedPlayer("bob");
+    game.addPlayer(alice);
+    game.addPlayer(bob);
+    game.start();
+    game.guess(alice, Guess.EQUAL);
+    game.getState().incrementScore(alice, 5);
+    GameSnapshot snapshot = GameSnapshot.fromBytes(game.snapshot().toBytes());
+
+    HighLowCardGame restored = new HighLowCardGame(new FixedDeck(List.of()));
+    restored.restore(snapshot.restore());
+    restored.start();
+    assertEquals(game.getState().getRound(), restored.getState().getRound());
+    Player returningAlice = new NamedPlayer("alice");
+    restored.addPlayer(returningAlice);
+
+    GameState state = restored.getState();
+    assertEquals(2, state.getNumPlayers());
+    assertEquals(5, state.getScores().get(returningAlice).get());
+    assertEquals(Guess.EQUAL, state.getGuesses().get(returningAlice));
+    assertEquals(1, state.getRank(returningAlice));
+  }
+
+  @Test
+  public void testCorruptedSnapshotIsRejected() throws Exception {
+    HighLowCardGame game =
+        new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 3));
+    game.addPlayer(new NamedPlayer("alice"));
+    game.start();
+    byte[] bytes = game.snapshot().toBytes();
+    for (int i = 0; i < bytes.length; i++) {
+      byte[] corrupted = bytes.clone();
+      corrupted[i] ^= 0x10;
+      assertThrows(IOException.class, () -> GameSnapshot.fromBytes(corrupted));
+    }
+    assertThrows(IOException.class, () -> GameSnapshot.fromBytes(Arrays.copyOf(bytes, 20)));
+  }
+}
@@ -0,0 +1,49 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+// a guess must not copy the players, its cost may not grow with the size of the table
+public class GuessAllocationTest {
+  private static final int NUM_PLAYERS = 10_000;
+  private static final int NUM_GUESSES = 1_000;
+  // a copy of the players alone takes about 4 bytes per player
+  private static final long MAX_BYTES_PER_GUESS = 1024;
+
+  @Test
+  public void testGuessDoesNotAllocatePerPlayer() throws Exception {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    HighLowCardGame game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards()));
+    Player[] players = new Player[NUM_PLAYERS];
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      players[i] = new NamedPlayer("player" + i);
+      game.addPlayer(players[i]);
+    }
+    game.start();
+
+    // nobody but the first players guesses, so the round never completes; re-guesses are measured
+    // as well as the first guess of a player
+    for (int i = 0; i < NUM_GUESSES; i++) {
+      game.guess(players[i], Guess.HIGH);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < NUM_GUESSES; i++) {
+      game.guess(players[i % 2 == 0 ? i : NUM_GUESSES + i], Guess.LOW);
+    }
+    long bytesPerGuess = (threads.getThreadAllocatedBytes(threadId) - before) / NUM_GUESSES;
+
+    assertTrue(
+        bytesPerGuess < MAX_BYTES_PER_GUESS,
+        "a guess allocated " + bytesPerGuess + " bytes with " + NUM_PLAYERS + " players");
+  }
+}
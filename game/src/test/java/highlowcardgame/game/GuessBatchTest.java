@@ -0,0 +1,105 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+// a batch must score like the same guesses one by one, with one notification per batch and round
+public class GuessBatchTest {
+
+  /** A player counting its state notifications. */
+  private static final class CountingPlayer implements Player {
+    private final String name;
+    private int states = 0;
+
+    CountingPlayer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void updateState(GameState state) {
+      states++;
+    }
+
+    @Override
+    public void updateNewPlayer(String playerName, GameState state) {}
+
+    @Override
+    public void updateRemovedPlayer(String playerName, GameState state) {}
+  }
+
+  private static HighLowCardGame game(CountingPlayer... players) throws Exception {
+    HighLowCardGame game =
+        new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 5));
+    for (Player player : players) {
+      game.addPlayer(player);
+    }
+    game.start();
+    return game;
+  }
+
+  @Test
+  public void testBatchScoresLikeSingleGuesses() throws Exception {
+    CountingPlayer[] single = {new CountingPlayer("a"), new CountingPlayer("b")};
+    CountingPlayer[] batched = {new CountingPlayer("a"), new CountingPlayer("b")};
+    HighLowCardGame singleGame = game(single);
+    HighLowCardGame batchedGame = game(batched);
+    Guess[] guesses = {Guess.HIGH, Guess.LOW, Guess.EQUAL, Guess.HIGH, Guess.LOW};
+
+    // five guesses of two players: two complete rounds and a guess in the third
+    GuessBatch batch = new GuessBatch(8);
+    // every player gets its acknowledgements in order, but the players not in the order of the
+    // batch
+    Integer[] remaining = new Integer[guesses.length];
+    for (int i = 0; i < guesses.length; i++) {
+      singleGame.guess(single[i % 2], guesses[i]);
+      int guess = i;
+      batch.add(batched[i % 2], guesses[i], r -> remaining[guess] = r);
+    }
+    int statesBefore = batched[0].states;
+    batchedGame.guessAll(batch);
+
+    assertEquals(List.of(1, 0, 1, 0, 1), Arrays.asList(remaining));
+    GameState expected = singleGame.getState();
+    GameState actual = batchedGame.getState();
+    assertEquals(expected.getRound(), actual.getRound());
+    assertEquals(expected.getCurrentCard(), actual.getCurrentCard());
+    for (int i = 0; i < 2; i++) {
+      assertEquals(
+          expected.getScores().get(single[i]).get(), actual.getScores().get(batched[i]).get());
+    }
+    assertEquals(1, actual.getGuesses().size());
+    // one notification per completed round and one for the open guess at the end
+    assertEquals(3, batched[0].states - statesBefore);
+    assertEquals(5, batch.size());
+  }
+
+  @Test
+  public void testBatchWithoutCompletedRoundNotifiesOnce() throws Exception {
+    CountingPlayer[] players = {
+      new CountingPlayer("a"), new CountingPlayer("b"), new CountingPlayer("c")
+    };
+    HighLowCardGame game = game(players);
+    GuessBatch batch = new GuessBatch(2);
+    batch.add(players[0], Guess.HIGH, remaining -> {});
+    batch.add(players[1], Guess.LOW, remaining -> {});
+    int statesBefore = players[2].states;
+
+    game.guessAll(batch);
+
+    assertEquals(1, players[2].states - statesBefore);
+    assertEquals(2, game.getState().getGuesses().size());
+    assertThrows(IllegalStateException.class, () -> batch.add(players[2], Guess.LOW, r -> {}));
+    batch.clear();
+    assertEquals(0, batch.size());
+  }
+}
@@ -0,0 +1,171 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// the leaderboard is updated incrementally, it must always agree with sorting all scores
+public class LeaderboardTest {
+  private static final int NUM_PLAYERS = 200;
+  private static final int NUM_CHANGES = 5_000;
+  private static final int TOP = 10;
+
+  /** Returns the ranks of the sorted scores, computed the slow way. */
+  private static List<Integer> expectedTop(int[] scores, boolean[] seated, int count) {
+    List<Integer> sorted = new ArrayList<>();
+    for (int i = 0; i < scores.length; i++) {
+      if (seated[i]) {
+        sorted.add(scores[i]);
+      }
+    }
+    sorted.sort(Comparator.reverseOrder());
+    return sorted.subList(0, Math.min(count, sorted.size()));
+  }
+
+  @Test
+  public void testAgreesWithSortedScores() {
+    Random random = new Random(42);
+    Leaderboard leaderboard = Leaderboard.empty();
+    Player[] players = new Player[NUM_PLAYERS];
+    int[] scores = new int[NUM_PLAYERS];
+    boolean[] seated = new boolean[NUM_PLAYERS];
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      players[i] = new NamedPlayer("player" + i);
+    }
+    for (int change = 0; change < NUM_CHANGES; change++) {
+      int id = random.nextInt(NUM_PLAYERS);
+      if (!seated[id]) {
+        scores[id] = 0;
+        seated[id] = true;
+        leaderboard = leaderboard.plus(players[id], 0, id);
+      } else if (random.nextInt(10) == 0) {
+        seated[id] = false;
+        leaderboard = leaderboard.minus(scores[id], id);
+      } else {
+        int points = random.nextBoolean() ? 1 : 25;
+        leaderboard = leaderboard.minus(scores[id], id).plus(players[id], scores[id] + points, id);
+        scores[id] += points;
+      }
+
+      List<Integer> expected = expectedTop(scores, seated, TOP);
+      List<Leaderboard.Entry> top = leaderboard.top(TOP);
+      assertEquals(expected.size(), top.size());
+      for (int i = 0; i < top.size(); i++) {
+        Leaderboard.Entry entry = top.get(i);
+        assertEquals(expected.get(i), entry.getScore());
+        assertEquals(expected.indexOf(entry.getScore()) + 1, entry.getRank());
+        assertEquals(
+            scores[Integer.parseInt(entry.getPlayer().getName().substring(6))], entry.getScore());
+      }
+      int probe = scores[id];
+      int higher = 0;
+      for (int i = 0; i < NUM_PLAYERS; i++) {
+        if (seated[i] && scores[i] > probe) {
+          higher++;
+        }
+      }
+      assertEquals(higher + 1, leaderboard.rankOf(probe));
+    }
+  }
+
+  @Test
+  public void testMergedTopIsExact() {
+    Random random = new Random(7);
+    List<Leaderboard> tables = new ArrayList<>();
+    List<Integer> allScores = new ArrayList<>();
+    for (int table = 0; table < 5; table++) {
+      Leaderboard leaderboard = Leaderboard.empty();
+      for (int seat = 0; seat < 30; seat++) {
+        int score = random.nextInt(50);
+        leaderboard = leaderboard.plus(new NamedPlayer("t" + table + "s" + seat), score, seat);
+        allScores.add(score);
+      }
+      tables.add(leaderboard);
+    }
+    allScores.sort(Comparator.reverseOrder());
+
+    List<Leaderboard.Entry> top = Leaderboard.topOf(tables, TOP);
+    assertEquals(TOP, top.size());
+    for (int i = 0; i < TOP; i++) {
+      assertEquals(allScores.get(i), top.get(i).getScore());
+      assertEquals(allScores.indexOf(top.get(i).getScore()) + 1, top.get(i).getRank());
+    }
+    int probe = allScores.get(40);
+    assertEquals(allScores.indexOf(probe) + 1, Leaderboard.rankAmong(tables, probe));
+  }
+
+  @Test
+  public void testDeltaHoldsOnlyChanges() {
+    Player first = new NamedPlayer("first");
+    Player second = new NamedPlayer("second");
+    Player third = new NamedPlayer("third");
+    Leaderboard before = Leaderboard.empty().plus(first, 3, 0).plus(second, 2, 1).plus(third, 1, 2);
+    Leaderboard after = before.minus(2, 1).plus(second, 5, 1);
+
+    Leaderboard.Delta delta = Leaderboard.Delta.between(before.top(2), after.top(2));
+    // second moved up and first moved down, third was not and is not in the top
+    assertEquals(2, delta.getChanged().size());
+    assertSame(second, delta.getChanged().get(0).getPlayer());
+    assertEquals(1, delta.getChanged().get(0).getRank());
+    assertSame(first, delta.getChanged().get(1).getPlayer());
+    assertEquals(2, delta.getChanged().get(1).getRank());
+    assertTrue(delta.getRemoved().isEmpty());
+
+    Leaderboard.Delta dropped =
+        Leaderboard.Delta.between(after.top(2), after.minus(3, 0).plus(first, 0, 0).top(2));
+    assertEquals(List.of(first), dropped.getRemoved());
+    assertSame(third, dropped.getChanged().get(0).getPlayer());
+    assertTrue(Leaderboard.Delta.between(after.top(2), after.top(2)).isEmpty());
+  }
+
+  @Test
+  public void testGameBroadcastsLeaderboardAndRanks() throws Exception {
+    List<Card> cards = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      cards.add(new Card(Card.Suit.CLUBS, i % 2 == 0 ? 2 : 10));
+    }
+    HighLowCardGame game = new HighLowCardGame(new FixedDeck(cards));
+    game.setLeaderboardBroadcast(2, TOP);
+    List<Leaderboard.Delta> deltas = new ArrayList<>();
+    Player guesser =
+        new Player() {
+          @Override
+          public String getName() {
+            return "guesser";
+          }
+
+          @Override
+          public void updateState(GameState state) {}
+
+          @Override
+          public void updateNewPlayer(String playerName, GameState state) {}
+
+          @Override
+          public void updateRemovedPlayer(String playerName, GameState state) {}
+
+          @Override
+          public void updateLeaderboard(Leaderboard.Delta delta, GameState state) {
+            deltas.add(delta);
+          }
+        };
+    game.addPlayer(guesser);
+    game.start();
+
+    for (int round = 1; round <= 4; round++) {
+      Card card = game.getState().getCurrentCard();
+      game.guess(
+          guesser, card.getValue() == 2 ? HighLowCardGame.Guess.HIGH : HighLowCardGame.Guess.LOW);
+    }
+    // rounds 3 and 5 started with a broadcast, every one changing the score of the guesser
+    assertEquals(2, deltas.size());
+    assertEquals(4, deltas.get(1).getChanged().get(0).getScore());
+    assertEquals(1, game.getState().getRank(guesser));
+    assertEquals(0, game.getState().getRank(new NamedPlayer("stranger")));
+  }
+}
@@ -0,0 +1,92 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// replaying the journal of a game must rebuild the state the game ended with
+public class MappedJournalTest {
+  // small segments, so the journal of the test rolls over many of them
+  private static final int SEGMENT_BYTES = 256;
+
+  private static Map<String, Integer> scoresByName(GameState state) {
+    Map<String, Integer> scores = new HashMap<>();
+    state.getScores().forEach((player, score) -> scores.put(player.getName(), score.get()));
+    return scores;
+  }
+
+  private static Map<String, Guess> guessesByName(GameState state) {
+    Map<String, Guess> guesses = new HashMap<>();
+    state.getGuesses().forEach((player, guess) -> guesses.put(player.getName(), guess));
+    return guesses;
+  }
+
+  @Test
+  public void testReplayRebuildsTheState(@TempDir Path directory) throws Exception {
+    Random random = new Random(42);
+    HighLowCardGame game =
+        new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 42));
+    Player[] players = new Player[6];
+    try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, 1)) {
+      game.setJournal(journal);
+      game.start();
+      for (int step = 0; step < 2_000; step++) {
+        int i = random.nextInt(players.length);
+        if (players[i] == null) {
+          players[i] = new NamedPlayer("player" + step + "-ü");
+          game.addPlayer(players[i]);
+        } else if (random.nextInt(20) == 0) {
+          game.removePlayer(players[i]);
+          players[i] = null;
+        } else {
+          game.guess(players[i], Guess.values()[random.nextInt(3)]);
+        }
+      }
+    }
+    try (Stream<Path> segments = Files.list(directory)) {
+      assertTrue(segments.count() > 10);
+    }
+
+    GameState expected = game.getState();
+    GameState replayed = MappedJournal.replay(directory, new FixedDeck(List.of()));
+    assertTrue(expected.getRound() > 100);
+    assertEquals(expected.getRound(), replayed.getRound());
+    assertEquals(expected.getCurrentCard(), replayed.getCurrentCard());
+    assertEquals(scoresByName(expected), scoresByName(replayed));
+    assertEquals(guessesByName(expected), guessesByName(replayed));
+  }
+
+  @Test
+  public void testReopenedJournalHoldsANewGame(@TempDir Path directory) throws Exception {
+    Player first = new NamedPlayer("first");
+    try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, 1)) {
+      HighLowCardGame game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards()));
+      game.setJournal(journal);
+      game.start();
+      game.addPlayer(first);
+      game.guess(first, Guess.HIGH);
+    }
+    Player second = new NamedPlayer("second");
+    HighLowCardGame game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards()));
+    try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_BYTES, 1)) {
+      game.setJournal(journal);
+      game.addPlayer(second);
+      game.start();
+    }
+
+    GameState replayed = MappedJournal.replay(directory, new FixedDeck(List.of()));
+    assertEquals(1, replayed.getRound());
+    assertEquals(game.getState().getCurrentCard(), replayed.getCurrentCard());
+    assertEquals(Map.of("second", 0), scoresByName(replayed));
+  }
+}
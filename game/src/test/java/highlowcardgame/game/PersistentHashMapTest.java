@@ -0,0 +1,115 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PersistentHashMapTest {
+
+  /** A key with a chosen hash code, to force collisions at every level of the trie. */
+  private static final class Key {
+    private final int hash;
+    private final int id;
+
+    Key(int hash, int id) {
+      this.hash = hash;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).hash == hash && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return hash + "/" + id;
+    }
+  }
+
+  @Test
+  public void testBehavesLikeHashMap() {
+    Random random = new Random(7);
+    Map<Key, Integer> expected = new HashMap<>();
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+    for (int i = 0; i < 20_000; i++) {
+      // few distinct hashes and ids, so keys collide fully and partially, and get replaced
+      Key key = new Key(random.nextInt(64) << random.nextInt(28), random.nextInt(4));
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        expected.put(key, i);
+        map = map.plus(key, i);
+      }
+      assertEquals(expected.size(), map.size());
+      assertEquals(expected.get(key), map.get(key));
+    }
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+    for (Key key : new ArrayList<>(expected.keySet())) {
+      map = map.minus(key);
+    }
+    assertTrue(map.isEmpty());
+    assertFalse(map.entrySet().iterator().hasNext());
+  }
+
+  @Test
+  public void testOldVersionsAreUnchanged() {
+    List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<>();
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+    for (int i = 0; i < 1000; i++) {
+      versions.add(map);
+      map = map.plus(i, i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      map = map.minus(i);
+    }
+    for (int size = 0; size < versions.size(); size++) {
+      PersistentHashMap<Integer, Integer> version = versions.get(size);
+      assertEquals(size, version.size());
+      assertEquals(size, version.entrySet().size());
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(i < size ? Integer.valueOf(i) : null, version.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testUnchangedMapIsReturnedAsIs() {
+    Integer value = 1;
+    PersistentHashMap<String, Integer> map =
+        PersistentHashMap.<String, Integer>empty().plus("a", value);
+    assertSame(map, map.plus("a", value));
+    assertSame(map, map.minus("b"));
+    assertSame(map, map.minus(null));
+    assertNull(map.get(null));
+  }
+
+  @Test
+  public void testIsUnmodifiableAndRejectsNull() {
+    PersistentHashMap<String, Integer> map =
+        PersistentHashMap.<String, Integer>empty().plus("a", 1);
+    assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+    assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+    assertThrows(UnsupportedOperationException.class, () -> map.entrySet().clear());
+    assertThrows(NullPointerException.class, () -> map.plus(null, 1));
+    assertThrows(NullPointerException.class, () -> map.plus("b", null));
+  }
+}
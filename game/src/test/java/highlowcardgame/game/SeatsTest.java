@@ -0,0 +1,127 @@
+package highlowcardgame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.HighLowCardGame.Guess;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class SeatsTest {
+
+  @Test
+  public void testSeatsAreDenseAndRecycled() {
+    Seats seats = new Seats();
+    Player[] players = new Player[40];
+    for (int i = 0; i < players.length; i++) {
+      players[i] = new NamedPlayer("p" + i);
+      assertEquals(i, seats.assign(players[i]));
+    }
+    seats.addScore(7, 5);
+    seats.guess(7, Guess.LOW);
+    seats.release(7);
+    assertEquals(0, seats.numGuesses());
+    assertFalse(seats.isSeated(7, players[7]));
+
+    Player newcomer = new NamedPlayer("newcomer");
+    assertEquals(7, seats.assign(newcomer));
+    assertTrue(seats.isSeated(7, newcomer));
+    assertEquals(0, seats.scoreAt(7));
+    assertNull(seats.guessAt(7));
+    assertEquals(40, seats.assign(new NamedPlayer("last")));
+  }
+
+  @Test
+  public void testScoringRewardsCorrectGuessesAndClearsAll() {
+    Seats seats = new Seats();
+    for (int i = 0; i < 3; i++) {
+      seats.assign(new NamedPlayer("p" + i));
+    }
+    seats.guess(0, Guess.HIGH);
+    seats.guess(1, Guess.HIGH);
+    seats.guess(1, Guess.EQUAL);
+    seats.guess(2, Guess.EQUAL);
+    assertEquals(3, seats.numGuesses());
+    assertEquals(Guess.EQUAL, seats.guessAt(1));
+
+    seats.scoreGuesses(Guess.EQUAL, 25);
+    assertEquals(0, seats.scoreAt(0));
+    assertEquals(25, seats.scoreAt(1));
+    assertEquals(25, seats.scoreAt(2));
+    assertEquals(0, seats.numGuesses());
+    for (int seat = 0; seat < 3; seat++) {
+      assertNull(seats.guessAt(seat));
+    }
+  }
+
+  @Test
+  public void testStateViewsFollowTheSeats() throws Deck.NoNextCardException {
+    HighLowCardGame game =
+        new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 1));
+    game.start();
+    Player alice = new NamedPlayer("alice");
+    Player bob = new NamedPlayer("bob");
+    game.addPlayer(alice);
+    game.addPlayer(bob);
+    game.guess(alice, Guess.HIGH);
+    GameState state = game.getState();
+    assertEquals(Guess.HIGH, state.getGuesses().get(alice));
+    assertEquals(1, state.getGuesses().size());
+    assertTrue(state.hasGuessed(alice));
+    assertFalse(state.hasGuessed(bob));
+    assertEquals(2, state.getScores().size());
+
+    game.removePlayer(alice);
+    assertNull(game.getState().getScores().get(alice));
+    assertEquals(0, game.getState().getGuesses().size());
+  }
+
+  @Test
+  public void testPublishedStatesKeepTheirScoresAndGuesses() throws Deck.NoNextCardException {
+    List<Card> cards = new ArrayList<>();
+    for (int value = 2; value <= 10; value++) {
+      cards.add(new Card(Card.Suit.HEARTS, value));
+    }
+    HighLowCardGame game = new HighLowCardGame(new FixedDeck(cards));
+    game.start();
+    Player alice = new NamedPlayer("alice");
+    Player bob = new NamedPlayer("bob");
+    game.addPlayer(alice);
+    game.addPlayer(bob);
+    game.guess(alice, Guess.HIGH);
+    GameState guessed = game.getState();
+    game.guess(bob, Guess.HIGH);
+    GameState scored = game.getState();
+    int points = HighLowCardGame.GUESS_SCORE.get(Guess.HIGH);
+
+    // the next round neither scores nor clears the guesses of the states handed out before
+    assertEquals(Guess.HIGH, guessed.getGuesses().get(alice));
+    assertTrue(guessed.hasGuessed(alice));
+    assertEquals(0, guessed.getScores().get(alice).get());
+    assertEquals(0, scored.getGuesses().size());
+    assertEquals(points, scored.getScores().get(alice).get());
+
+    // neither does giving the seat of a player who left to a newcomer
+    game.removePlayer(alice);
+    Player carol = new NamedPlayer("carol");
+    game.addPlayer(carol);
+    game.guess(carol, Guess.LOW);
+    assertEquals(game.getState().seatOf(carol), scored.seatOf(alice));
+    assertEquals(points, scored.getScores().get(alice).get());
+    assertFalse(scored.hasGuessed(alice));
+    for (Map.Entry<Player, Score> entry : scored.getScores().entrySet()) {
+      assertEquals(points, entry.getValue().get());
+    }
+    assertEquals(0, game.getState().getScores().get(carol).get());
+
+    // a guess added to a state stays out of the game
+    GameState detached = game.getState().addGuess(bob, Guess.EQUAL);
+    assertEquals(Guess.EQUAL, detached.getGuesses().get(bob));
+    assertFalse(game.getState().hasGuessed(bob));
+    assertEquals(1, game.getState().getGuesses().size());
+  }
+}
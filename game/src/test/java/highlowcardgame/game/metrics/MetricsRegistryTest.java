@@ -0,0 +1,80 @@
+package highlowcardgame.game.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// histograms must report percentiles close above the exact ones, the registry every metric once
+public class MetricsRegistryTest {
+
+  @Test
+  public void testPercentilesAreCloseAboveTheExactOnes() {
+    Random random = new Random(42);
+    Histogram histogram = new Histogram();
+    long[] values = new long[100_000];
+    for (int i = 0; i < values.length; i++) {
+      // spread over several powers of ten, like latencies are
+      values[i] = (long) Math.pow(10, 2 + 5 * random.nextDouble());
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    double[] percentiles = {0, 50, 90, 99, 99.9, 100};
+    long[] reported = histogram.percentiles(percentiles);
+    for (int i = 0; i < percentiles.length; i++) {
+      int rank = (int) Math.max(1, Math.ceil(values.length * percentiles[i] / 100));
+      long exact = values[rank - 1];
+      assertTrue(reported[i] >= exact, percentiles[i] + ": " + reported[i] + " < " + exact);
+      assertTrue(reported[i] <= exact * 1.07, percentiles[i] + ": " + reported[i] + " >> " + exact);
+    }
+    assertEquals(values.length, histogram.count());
+    assertEquals(Arrays.stream(values).sum(), histogram.sum());
+    assertEquals(values[values.length - 1], histogram.max());
+  }
+
+  @Test
+  public void testEmptyHistogramReportsZeros() {
+    assertEquals(0, new Histogram().percentiles(50, 99)[1]);
+  }
+
+  @Test
+  public void testRegistryReturnsTheSameMetricAndRejectsOtherKinds() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Counter counter = registry.counter("requests_total", "Requests.");
+    assertSame(counter, registry.counter("requests_total", "Requests."));
+    assertThrows(
+        IllegalArgumentException.class, () -> registry.histogram("requests_total", "Requests."));
+    assertThrows(
+        IllegalArgumentException.class, () -> registry.gauge("requests_total", "", () -> 1));
+    assertThrows(IllegalArgumentException.class, () -> registry.counter("requests-total", ""));
+  }
+
+  @Test
+  public void testSnapshotAndTextHoldEveryMetric() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("requests_total", "Requests.").add(3);
+    registry.gauge("open", "Open.", () -> 7);
+    Histogram histogram = registry.histogram("request_seconds", "Request time.");
+    histogram.record(2_000_000_000L);
+
+    Map<String, Number> snapshot = registry.snapshot();
+    assertEquals(3L, snapshot.get("requests_total"));
+    assertEquals(7L, snapshot.get("open"));
+    assertEquals(1L, snapshot.get("request_seconds_count"));
+    assertEquals(2.0, snapshot.get("request_seconds_sum"));
+    assertTrue(snapshot.get("request_seconds_p99").doubleValue() >= 2.0);
+
+    StringBuilder out = new StringBuilder();
+    registry.writeText(out);
+    String text = out.toString();
+    assertTrue(text.contains("# TYPE requests_total counter\nrequests_total 3\n"), text);
+    assertTrue(text.contains("# TYPE open gauge\nopen 7\n"), text);
+    assertTrue(text.contains("request_seconds{quantile=\"0.99\"} "), text);
+    assertTrue(text.contains("request_seconds_count 1\n"), text);
+  }
+}
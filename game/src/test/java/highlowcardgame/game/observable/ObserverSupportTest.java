@@ -0,0 +1,148 @@
+package highlowcardgame.game.observable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.GameState;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.InfiniteShuffledDeck;
+import highlowcardgame.game.Leaderboard;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+// test asynchronous dispatch with a blocked observer
+@Timeout(5)
+public class ObserverSupportTest {
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static class BlockingObserver implements Observer {
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private final List<String> joined = new CopyOnWriteArrayList<>();
+    private final List<GameState> states = new CopyOnWriteArrayList<>();
+    private final List<Leaderboard.Delta> leaderboards = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void updateState(GameState state) {
+      states.add(state);
+    }
+
+    @Override
+    public void updateNewPlayer(String playerName, GameState state) {
+      blocked.countDown();
+      try {
+        released.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      joined.add(playerName);
+    }
+
+    @Override
+    public void updateRemovedPlayer(String playerName, GameState state) {}
+
+    @Override
+    public void updateLeaderboard(Leaderboard.Delta delta, GameState state) {
+      leaderboards.add(delta);
+    }
+
+    @Override
+    public void disconnected() {
+      disconnected.countDown();
+    }
+  }
+
+  private void notifyBlocked(ObserverSupport support, BlockingObserver observer, int count)
+      throws InterruptedException {
+    support.notifyAboutNewPlayer("P0", null);
+    observer.blocked.await();
+    for (int i = 1; i <= count; i++) {
+      support.notifyAboutNewPlayer("P" + i, null);
+    }
+  }
+
+  @Test
+  public void testDropOldest_keepsNewestNotifications() throws InterruptedException {
+    ObserverSupport support = new ObserverSupport(executor, 2, SlowConsumerPolicy.DROP_OLDEST);
+    BlockingObserver observer = new BlockingObserver();
+    support.subscribe(observer);
+
+    notifyBlocked(support, observer, 5);
+    observer.released.countDown();
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    assertEquals(List.of("P0", "P4", "P5"), observer.joined);
+  }
+
+  private static GameState newState() {
+    return new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards(), 1)).getState();
+  }
+
+  @Test
+  public void testCollapse_replacesOnlyStates() throws InterruptedException {
+    ObserverSupport support =
+        new ObserverSupport(executor, 3, SlowConsumerPolicy.COLLAPSE_TO_LATEST_STATE);
+    BlockingObserver observer = new BlockingObserver();
+    support.subscribe(observer);
+    GameState first = newState();
+    GameState second = newState();
+    GameState third = newState();
+    Leaderboard.Delta delta = Leaderboard.Delta.between(List.of(), List.of());
+
+    notifyBlocked(support, observer, 0);
+    support.notifyAboutState(first);
+    support.notifyAboutLeaderboard(delta, first);
+    support.notifyAboutNewPlayer("P1", second);
+    support.notifyAboutState(third);
+    observer.released.countDown();
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    assertEquals(List.of("P0", "P1"), observer.joined);
+    assertEquals(List.of(delta), observer.leaderboards);
+    assertEquals(List.of(third), observer.states);
+  }
+
+  @Test
+  public void testCollapse_disconnectsWithoutStatesToReplace() throws InterruptedException {
+    ObserverSupport support =
+        new ObserverSupport(executor, 2, SlowConsumerPolicy.COLLAPSE_TO_LATEST_STATE);
+    BlockingObserver observer = new BlockingObserver();
+    support.subscribe(observer);
+
+    notifyBlocked(support, observer, 3);
+
+    assertTrue(observer.disconnected.await(1, TimeUnit.SECONDS));
+    observer.released.countDown();
+  }
+
+  @Test
+  public void testDisconnect_unsubscribesAndReportsObserver() throws InterruptedException {
+    ObserverSupport support = new ObserverSupport(executor, 2, SlowConsumerPolicy.DISCONNECT);
+    List<Observer> reported = new CopyOnWriteArrayList<>();
+    support.setDisconnectHandler(reported::add);
+    BlockingObserver observer = new BlockingObserver();
+    support.subscribe(observer);
+
+    notifyBlocked(support, observer, 3);
+
+    assertTrue(observer.disconnected.await(1, TimeUnit.SECONDS));
+    assertEquals(List.of(observer), reported);
+    observer.released.countDown();
+  }
+}
@@ -0,0 +1,120 @@
+package highlowcardgame.server;
+
+import highlowcardgame.communication.messages.GameStateTemplate;
+import highlowcardgame.communication.messages.LeaderboardNotification;
+import highlowcardgame.communication.messages.PlayerJoinedNotification;
+import highlowcardgame.communication.messages.PlayerLeftNotification;
+import highlowcardgame.communication.messages.SharedFrame;
+import highlowcardgame.game.GameState;
+import highlowcardgame.game.Leaderboard;
+import highlowcardgame.game.Player;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The encoded frames of recent game events. Every event of a game carries a new {@link GameState},
+ * so the state identifies the event: the first connection notified about it encodes the frames, and
+ * all other recipients reuse their bytes instead of encoding the same message again.
+ */
+final class BroadcastFrames {
+  // a power of two, large enough for the events of all tables in flight at the same time
+  private static final int SLOTS = 64;
+
+  private final AtomicReferenceArray<Event> slots = new AtomicReferenceArray<>(SLOTS);
+
+  /** Returns the frames of the event that produced the given state. */
+  Event get(GameState state) {
+    int slot = System.identityHashCode(state) & (SLOTS - 1);
+    Event event = slots.get(slot);
+    if (event == null || event.state != state) {
+      // a lost race or an evicted event only costs encoding the frames again
+      event = new Event(state);
+      slots.set(slot, event);
+    }
+    return event;
+  }
+
+  /** The frames of a single event, each encoded when it is first needed. */
+  static final class Event {
+    private final GameState state;
+    private volatile GameStateTemplate stateTemplate;
+    private volatile SharedFrame joined;
+    private volatile SharedFrame left;
+    private volatile LeaderboardFrame leaderboard;
+
+    private Event(GameState state) {
+      this.state = state;
+    }
+
+    /** Returns the template of the game state notifications of the event. */
+    GameStateTemplate state() {
+      GameStateTemplate template = stateTemplate;
+      if (template == null) {
+        template = new GameStateTemplate(state.getCurrentCard(), state.getRound());
+        stateTemplate = template;
+      }
+      return template;
+    }
+
+    /** Returns the notification that the given player joined. */
+    SharedFrame joined(String playerName) {
+      SharedFrame frame = joined;
+      if (frame == null
+          || !Objects.equals(
+              ((PlayerJoinedNotification) frame.getMessage()).getNewPlayerName(), playerName)) {
+        frame = SharedFrame.of(new PlayerJoinedNotification(playerName, state.getNumPlayers()));
+        joined = frame;
+      }
+      return frame;
+    }
+
+    /** Returns the notification that the given player left. */
+    SharedFrame left(String playerName) {
+      SharedFrame frame = left;
+      if (frame == null
+          || !Objects.equals(
+              ((PlayerLeftNotification) frame.getMessage()).getPlayerName(), playerName)) {
+        frame = SharedFrame.of(new PlayerLeftNotification(state.getNumPlayers(), playerName));
+        left = frame;
+      }
+      return frame;
+    }
+
+    /** Returns the notification about the given change of the leaderboard. */
+    SharedFrame leaderboard(Leaderboard.Delta delta) {
+      LeaderboardFrame frame = leaderboard;
+      if (frame == null || frame.delta != delta) {
+        frame = new LeaderboardFrame(delta, SharedFrame.of(toNotification(delta)));
+        leaderboard = frame;
+      }
+      return frame.frame;
+    }
+
+    private LeaderboardNotification toNotification(Leaderboard.Delta delta) {
+      List<LeaderboardNotification.Entry> entries = new ArrayList<>(delta.getChanged().size());
+      for (Leaderboard.Entry entry : delta.getChanged()) {
+        entries.add(
+            new LeaderboardNotification.Entry(
+                entry.getPlayer().getName(), entry.getRank(), entry.getScore()));
+      }
+      List<String> removed = new ArrayList<>(delta.getRemoved().size());
+      for (Player player : delta.getRemoved()) {
+        removed.add(player.getName());
+      }
+      return new LeaderboardNotification(state.getRound(), entries, removed);
+    }
+  }
+
+  /** The frame of a leaderboard notification along with the change it was encoded from. */
+  private static final class LeaderboardFrame {
+    private final Leaderboard.Delta delta;
+    private final SharedFrame frame;
+
+    LeaderboardFrame(Leaderboard.Delta delta, SharedFrame frame) {
+      this.delta = delta;
+      this.frame = frame;
+    }
+  }
+}
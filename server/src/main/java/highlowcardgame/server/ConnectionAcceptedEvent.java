@@ -0,0 +1,19 @@
+package highlowcardgame.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A Flight Recorder event for a connection accepted by any engine. */
+@Name("highlowcardgame.ConnectionAccepted")
+@Label("Connection Accepted")
+@Category({"High-Low Card Game", "Network"})
+@StackTrace(false)
+final class ConnectionAcceptedEvent extends jdk.jfr.Event {
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Engine")
+  String engine;
+}
@@ -0,0 +1,21 @@
+package highlowcardgame.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A Flight Recorder event for a closed connection. Its duration is the life of the connection. */
+@Name("highlowcardgame.ConnectionClosed")
+@Label("Connection Closed")
+@Category({"High-Low Card Game", "Network"})
+@StackTrace(false)
+final class ConnectionClosedEvent extends jdk.jfr.Event {
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Player")
+  @Description("The name the player joined with, null if it never joined")
+  String player;
+}
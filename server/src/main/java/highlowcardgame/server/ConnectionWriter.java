@@ -0,0 +1,236 @@
+package highlowcardgame.server;
+
+import highlowcardgame.communication.messages.BinaryCodec;
+import highlowcardgame.communication.messages.HandleJson;
+import highlowcardgame.communication.messages.Message;
+import highlowcardgame.communication.messages.OutputBuffer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Long-lived outbound channel of a single connection. Messages are encoded into a reusable buffer,
+ * and all messages of one {@link #send} call leave the server in a single write. Messages are JSON
+ * lines until the client negotiates the {@link BinaryCodec binary format}.
+ *
+ * <p>A writer created with a {@link SlowConsumerGuard} does not write on the sending thread. It
+ * queues the encoded messages and a task on its flusher writes them, so a table notifying a client
+ * that stopped reading never waits for it. The queue is bounded by the maximum backlog of the
+ * guard; a send exceeding it fails, and so does every send after the connection failed.
+ */
+final class ConnectionWriter {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final OutputStream out;
+  private final OutboundStats stats;
+  // null if the senders write themselves
+  private final SlowConsumerGuard slowConsumers;
+  private final Executor flusher;
+  // senders write to the socket while holding it, so no monitor: see HighLowCardGame
+  private final ReentrantLock lock = new ReentrantLock();
+  // the encoded messages not written yet, all guarded by the lock
+  private OutputBuffer buffer = new OutputBuffer(INITIAL_CAPACITY);
+  private int bufferedMessages = 0;
+  private boolean flushing = false;
+  private boolean failed = false;
+  // only used by the flusher, swapped with the buffer
+  private OutputBuffer writing;
+  private volatile boolean binary = false;
+  // the start of the write in progress, 0 while not writing
+  private volatile long writeStartedNanos = 0;
+
+  /** Creates a writer writing on the sending thread. */
+  ConnectionWriter(OutputStream out, OutboundStats stats) {
+    this.out = out;
+    this.stats = stats;
+    this.slowConsumers = null;
+    this.flusher = null;
+  }
+
+  /**
+   * Creates a writer queueing the messages for its flusher.
+   *
+   * @param out the stream to the client
+   * @param stats the counters every message written is recorded in
+   * @param slowConsumers bounds the bytes queued for the client
+   * @param flusher runs the tasks writing the queued messages, at most one at a time
+   */
+  ConnectionWriter(
+      OutputStream out, OutboundStats stats, SlowConsumerGuard slowConsumers, Executor flusher) {
+    this.out = out;
+    this.stats = stats;
+    this.slowConsumers = slowConsumers;
+    this.flusher = flusher;
+    writing = new OutputBuffer(INITIAL_CAPACITY);
+  }
+
+  /** Encodes all messages sent from now on as binary frames instead of JSON lines. */
+  void switchToBinary() {
+    binary = true;
+  }
+
+  /** Returns whether messages are encoded as binary frames instead of JSON lines. */
+  boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Encodes the given messages, one per line or frame, and writes them with a single flush.
+   *
+   * @param messages the messages belonging to one event
+   * @throws IOException if writing to the connection fails
+   */
+  void send(Message... messages) throws IOException {
+    send(
+        messages.length,
+        out -> {
+          for (Message message : messages) {
+            encode(message, out);
+          }
+        });
+  }
+
+  /**
+   * Writes whatever the encoder appends to the buffer with a single flush, e.g. pre-encoded frames
+   * shared with other connections. The encoder must respect {@link #isBinary()}.
+   *
+   * @param messageCount the number of messages the encoder appends
+   * @param encoder appends complete lines or frames to the buffer
+   * @throws IOException if writing to the connection fails
+   */
+  void send(int messageCount, Consumer<OutputBuffer> encoder) throws IOException {
+    sendUnlessEmpty(
+        out -> {
+          encoder.accept(out);
+          return messageCount;
+        });
+  }
+
+  /**
+   * Like {@link #send(int, Consumer)}, for messages that depend on the ones sent before, like state
+   * deltas. The encoder runs under the lock ordering the writes, and may append nothing.
+   *
+   * @param encoder appends complete lines or frames to the buffer and returns their number
+   * @throws IOException if writing to the connection fails
+   */
+  void sendUnlessEmpty(ToIntFunction<OutputBuffer> encoder) throws IOException {
+    if (flusher != null) {
+      enqueue(encoder);
+      return;
+    }
+    lock.lock();
+    try {
+      buffer.reset();
+      int messageCount = encoder.applyAsInt(buffer);
+      if (messageCount == 0) {
+        return;
+      }
+      writeStartedNanos = System.nanoTime();
+      buffer.writeTo(out);
+      out.flush();
+      stats.recordFlush(messageCount, buffer.size());
+    } finally {
+      writeStartedNanos = 0;
+      lock.unlock();
+    }
+  }
+
+  private void enqueue(ToIntFunction<OutputBuffer> encoder) throws IOException {
+    boolean startFlushing = false;
+    lock.lock();
+    try {
+      if (failed) {
+        throw new IOException("Connection closed");
+      }
+      int messageCount = encoder.applyAsInt(buffer);
+      if (messageCount == 0) {
+        return;
+      }
+      bufferedMessages += messageCount;
+      if (slowConsumers.exceedsBacklog(buffer.size())) {
+        // dropped, the client would not read it anyway
+        fail();
+        slowConsumers.backlogEvicted();
+        throw new IOException("Outbound backlog exceeded");
+      }
+      if (!flushing) {
+        flushing = true;
+        startFlushing = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (startFlushing) {
+      flusher.execute(this::flush);
+    }
+  }
+
+  /** Writes the queued messages until none are left. Runs on the flusher. */
+  private void flush() {
+    while (true) {
+      OutputBuffer batch;
+      int messageCount;
+      lock.lock();
+      try {
+        if (failed || buffer.size() == 0) {
+          flushing = false;
+          return;
+        }
+        batch = buffer;
+        buffer = writing;
+        writing = batch;
+        messageCount = bufferedMessages;
+        bufferedMessages = 0;
+      } finally {
+        lock.unlock();
+      }
+      writeStartedNanos = System.nanoTime();
+      try {
+        batch.writeTo(out);
+        out.flush();
+        stats.recordFlush(messageCount, batch.size());
+      } catch (IOException e) {
+        lock.lock();
+        try {
+          fail();
+          flushing = false;
+        } finally {
+          lock.unlock();
+        }
+        return;
+      } finally {
+        writeStartedNanos = 0;
+        batch.reset();
+      }
+    }
+  }
+
+  /** Drops the queued messages and fails all further sends. Needs the lock. */
+  private void fail() {
+    failed = true;
+    buffer.reset();
+    bufferedMessages = 0;
+  }
+
+  /** Appends the message to the buffer, as a JSON line or a binary frame. */
+  void encode(Message message, OutputBuffer out) {
+    if (binary) {
+      out.write(BinaryCodec.encode(message));
+    } else {
+      HandleJson.encode(message, out);
+      out.writeAscii(LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} the write in progress started at, 0 while not writing. A
+   * write blocks while the client does not read and the socket buffers are full.
+   */
+  long stalledSince() {
+    return writeStartedNanos;
+  }
+}
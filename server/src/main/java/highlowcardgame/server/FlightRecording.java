@@ -0,0 +1,48 @@
+package highlowcardgame.server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A continuous Flight Recorder recording of the JDK's default events and the events of the game,
+ * e.g. {@code highlowcardgame.RoundClosed}. The recording keeps a bounded ring of chunks on disk,
+ * the oldest are dropped beyond the maximum size, and is written to its file when the server stops
+ * or the JVM exits.
+ */
+final class FlightRecording {
+  private static final String NAME = "highlowcardgame";
+  // the longest a period of the recording is kept, even while it is smaller than its maximum size
+  private static final Duration MAX_AGE = Duration.ofHours(6);
+
+  private FlightRecording() {}
+
+  /**
+   * Starts the recording.
+   *
+   * @param destination the file the recording is written to
+   * @param maxBytes the maximum size of the recording on disk
+   * @return the started recording, which writes its file when it is stopped
+   * @throws IOException if the default configuration of the JDK cannot be read
+   */
+  static Recording start(Path destination, long maxBytes) throws IOException {
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration("default");
+    } catch (ParseException e) {
+      throw new IOException("Invalid default JFR configuration", e);
+    }
+    Recording recording = new Recording(configuration);
+    recording.setName(NAME);
+    recording.setToDisk(true);
+    recording.setMaxSize(maxBytes);
+    recording.setMaxAge(MAX_AGE);
+    recording.setDestination(destination);
+    recording.setDumpOnExit(true);
+    recording.start();
+    return recording;
+  }
+}
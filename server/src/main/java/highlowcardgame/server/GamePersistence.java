@@ -0,0 +1,177 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.GameSnapshot;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.MappedJournal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Journals and snapshots the games of the server, either of which is optional. The games are
+ * numbered in the order they are created, and the n-th game is journaled to and snapshotted as
+ * {@code game-n}.
+ *
+ * <p>Snapshots are taken periodically on a thread of their own: a game is only locked while its
+ * seats are copied, the snapshot is encoded and written to its file afterwards. When a game is
+ * created and the snapshot of its number exists, the game resumes from it, along with the records
+ * its journal got after the snapshot, so a restarted server continues at the round it stopped at.
+ * Without a snapshot, e.g. after a crash before the first one, the game resumes from its whole
+ * journal and draws the cards of the following rounds from its own new deck.
+ */
+final class GamePersistence implements AutoCloseable {
+  private static final String GAME_PREFIX = "game-";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  private final Path journalDirectory;
+  private final long journalCommitMillis;
+  private final Path snapshotDirectory;
+  private final ScheduledExecutorService snapshotWriter;
+  // guarded by this
+  private final List<HighLowCardGame> games = new ArrayList<>();
+  private final List<MappedJournal> journals = new ArrayList<>();
+
+  /**
+   * Creates the persistence of the games.
+   *
+   * @param journalDirectory the directory of the journals, or null to not journal the games
+   * @param journalCommitMillis the interval of the group commits of the journals
+   * @param snapshotDirectory the directory of the snapshots, or null to not snapshot the games
+   * @param snapshotIntervalSeconds the interval between two snapshots of a game
+   */
+  GamePersistence(
+      Path journalDirectory,
+      long journalCommitMillis,
+      Path snapshotDirectory,
+      long snapshotIntervalSeconds) {
+    this.journalDirectory = journalDirectory;
+    this.journalCommitMillis = journalCommitMillis;
+    this.snapshotDirectory = snapshotDirectory;
+    if (snapshotDirectory == null) {
+      snapshotWriter = null;
+      return;
+    }
+    snapshotWriter =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "snapshot-writer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    snapshotWriter.scheduleWithFixedDelay(
+        this::writeSnapshots, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns a factory creating the games of the given factory, resumed from their snapshots and
+   * journaled. Creating a game fails with an {@link UncheckedIOException} if its snapshot or
+   * journal cannot be read or opened.
+   */
+  Supplier<HighLowCardGame> persist(Supplier<HighLowCardGame> gameFactory) {
+    if (journalDirectory == null && snapshotDirectory == null) {
+      return gameFactory;
+    }
+    return () -> {
+      HighLowCardGame game = gameFactory.get();
+      synchronized (this) {
+        String name = GAME_PREFIX + games.size();
+        try {
+          resume(game, name);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Cannot resume " + name, e);
+        }
+        games.add(game);
+      }
+      return game;
+    };
+  }
+
+  private void resume(HighLowCardGame game, String name) throws IOException {
+    long start = System.nanoTime();
+    Path snapshotFile =
+        snapshotDirectory == null ? null : snapshotDirectory.resolve(name + SNAPSHOT_SUFFIX);
+    GameSnapshot snapshot =
+        snapshotFile != null && Files.exists(snapshotFile) ? GameSnapshot.read(snapshotFile) : null;
+    boolean resumed = snapshot != null;
+    if (journalDirectory != null) {
+      Path directory = journalDirectory.resolve(name);
+      MappedJournal journal;
+      if (snapshot != null) {
+        game.restore(MappedJournal.replay(directory, snapshot));
+        journal =
+            MappedJournal.resume(
+                directory, MappedJournal.DEFAULT_SEGMENT_BYTES, journalCommitMillis);
+      } else if (Files.isDirectory(directory)) {
+        // opening the journal as a new game would abandon the game it holds
+        game.restoreJournal(directory);
+        journal =
+            MappedJournal.resume(
+                directory, MappedJournal.DEFAULT_SEGMENT_BYTES, journalCommitMillis);
+        resumed = true;
+      } else {
+        journal =
+            MappedJournal.open(directory, MappedJournal.DEFAULT_SEGMENT_BYTES, journalCommitMillis);
+      }
+      journals.add(journal);
+      game.setJournal(journal);
+    } else if (snapshot != null) {
+      game.restore(snapshot.restore());
+    }
+    if (resumed) {
+      System.out.printf(
+          "Resumed %s%s at round %d with %d players in %.1f ms%n",
+          name,
+          snapshot != null ? "" : " from its journal",
+          game.getState().getRound(),
+          game.getState().getNumPlayers(),
+          (System.nanoTime() - start) / 1e6);
+    }
+  }
+
+  /** Writes a snapshot of every game, replacing the previous one. */
+  private void writeSnapshots() {
+    List<HighLowCardGame> current;
+    synchronized (this) {
+      current = List.copyOf(games);
+    }
+    try {
+      Files.createDirectories(snapshotDirectory);
+    } catch (IOException e) {
+      System.err.println("Cannot create the snapshot directory: " + e.getMessage());
+      return;
+    }
+    for (int i = 0; i < current.size(); i++) {
+      Path file = snapshotDirectory.resolve(GAME_PREFIX + i + SNAPSHOT_SUFFIX);
+      try {
+        current.get(i).snapshot().write(file);
+      } catch (IOException | RuntimeException e) {
+        // the previous snapshot stays, and the next interval tries again
+        System.err.println("Cannot write the snapshot " + file + ": " + e);
+      }
+    }
+  }
+
+  /** Stops the periodic snapshots, writes a last snapshot of every game and closes the journals. */
+  @Override
+  public void close() {
+    if (snapshotWriter != null) {
+      snapshotWriter.shutdown();
+      try {
+        snapshotWriter.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writeSnapshots();
+    }
+    synchronized (this) {
+      journals.forEach(MappedJournal::close);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package highlowcardgame.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer scheduling any number of timeouts on a single thread, as a hashed timing wheel. The wheel
+ * is a ring of buckets, each covering one tick. A timeout is put into the bucket of its deadline
+ * and remembers how many turns of the wheel it has to wait, so scheduling and cancelling cost O(1)
+ * no matter how many timeouts are pending, and the thread only looks at one bucket per tick.
+ *
+ * <p>Timeouts expire up to one tick late. Their tasks run on the timer thread and must be short,
+ * e.g. hand the actual work to another executor.
+ */
+public final class HashedWheelTimer {
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final Thread worker;
+  private final long startNanos;
+  private volatile boolean stopped = false;
+
+  /**
+   * Creates and starts a timer.
+   *
+   * @param tickDuration the duration of a tick, the precision of the timer
+   * @param unit the unit of the tick duration
+   * @param ticksPerWheel the number of buckets, rounded up to a power of two
+   * @param threadName the name of the timer thread
+   */
+  public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, String threadName) {
+    if (tickDuration <= 0 || ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("The tick duration and wheel size must be positive");
+    }
+    tickNanos = unit.toNanos(tickDuration);
+    int size = Integer.highestOneBit(ticksPerWheel);
+    if (size < ticksPerWheel) {
+      size <<= 1;
+    }
+    wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new Bucket();
+    }
+    mask = size - 1;
+    startNanos = System.nanoTime();
+    worker = new Thread(this::run, threadName);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Schedules the task to run once the delay has passed.
+   *
+   * @param task the task, run on the timer thread
+   * @param delay the delay
+   * @param unit the unit of the delay
+   * @return the timeout, which can be cancelled
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+    // the timer thread moves the timeout into its bucket with its next tick
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /** Stops the timer thread. Pending timeouts never expire. */
+  public void stop() {
+    stopped = true;
+    worker.interrupt();
+  }
+
+  private void run() {
+    long tick = 0;
+    while (!stopped) {
+      long tickEnd = startNanos + (tick + 1) * tickNanos;
+      long sleepNanos = tickEnd - System.nanoTime();
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+      transferPending(tick);
+      wheel[(int) (tick & mask)].expire();
+      tick++;
+    }
+  }
+
+  private void transferPending(long currentTick) {
+    Timeout timeout;
+    while ((timeout = pending.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      long deadlineTick = Math.max(currentTick, (timeout.deadlineNanos - startNanos) / tickNanos);
+      timeout.remainingTurns = (deadlineTick - currentTick) / wheel.length;
+      wheel[(int) (deadlineTick & mask)].add(timeout);
+    }
+  }
+
+  /** A scheduled task. */
+  public static final class Timeout {
+    private final Runnable task;
+    private final long deadlineNanos;
+    private volatile boolean cancelled = false;
+    // the following fields are only accessed by the timer thread
+    private long remainingTurns;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout(Runnable task, long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels the timeout. Its task does not run unless it is already running. The timer thread
+     * drops the timeout when it next visits its bucket.
+     */
+    public void cancel() {
+      cancelled = true;
+    }
+
+    /** Returns the {@link System#nanoTime()} at which the timeout expires. */
+    public long getDeadlineNanos() {
+      return deadlineNanos;
+    }
+  }
+
+  /** The timeouts of one tick, a doubly linked list through the timeouts. */
+  private static final class Bucket {
+    private Timeout head;
+
+    void add(Timeout timeout) {
+      timeout.prev = null;
+      timeout.next = head;
+      if (head != null) {
+        head.prev = timeout;
+      }
+      head = timeout;
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.prev == null) {
+        head = timeout.next;
+      } else {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+    }
+
+    void expire() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.cancelled) {
+          remove(timeout);
+        } else if (timeout.remainingTurns <= 0) {
+          remove(timeout);
+          try {
+            timeout.task.run();
+          } catch (RuntimeException e) {
+            // a failing task must not stop the timeouts of everybody else
+            System.err.println("Timeout failed: " + e);
+          }
+        } else {
+          timeout.remainingTurns--;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
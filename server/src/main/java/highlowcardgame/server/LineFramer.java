@@ -0,0 +1,108 @@
+package highlowcardgame.server;
+
+import highlowcardgame.communication.messages.HandleJson;
+import highlowcardgame.communication.messages.Message;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a non-blocking byte stream into newline-delimited lines, or into length-prefixed binary
+ * frames once a connection has switched to them. Bytes are buffered until a complete line or frame
+ * is available, so either may arrive in arbitrarily many reads.
+ */
+final class LineFramer {
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final int maxLineLength;
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+  private int start = 0;
+  private int end = 0;
+  private int scanned = 0;
+
+  /**
+   * Creates a new framer.
+   *
+   * @param maxLineLength the maximum number of bytes a single line may have
+   */
+  LineFramer(int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+  }
+
+  /** Appends all remaining bytes of the given buffer. */
+  void append(ByteBuffer bytes) {
+    int length = bytes.remaining();
+    ensureCapacity(length);
+    bytes.get(buffer, end, length);
+    end += length;
+  }
+
+  /**
+   * Decodes the next complete line as a JSON message, straight from the buffered bytes, or returns
+   * null if no complete line has been received yet.
+   *
+   * @throws IOException if the pending line exceeds the maximum line length or cannot be decoded
+   */
+  Message nextJsonMessage() throws IOException {
+    for (int i = scanned; i < end; i++) {
+      if (buffer[i] == '\n') {
+        int lineStart = start;
+        int lineEnd = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+        start = i + 1;
+        scanned = start;
+        return HandleJson.decode(buffer, lineStart, lineEnd - lineStart);
+      }
+    }
+    scanned = end;
+    if (end - start > maxLineLength) {
+      throw new IOException("Line exceeds " + maxLineLength + " bytes");
+    }
+    return null;
+  }
+
+  /**
+   * Returns the payload of the next complete frame, i.e. the bytes following its four-byte
+   * big-endian length prefix, or null if no complete frame has been received yet.
+   *
+   * @throws IOException if the length of the pending frame is invalid or exceeds the maximum line
+   *     length
+   */
+  byte[] nextFrame() throws IOException {
+    if (end - start < Integer.BYTES) {
+      return null;
+    }
+    int length =
+        (buffer[start] & 0xFF) << 24
+            | (buffer[start + 1] & 0xFF) << 16
+            | (buffer[start + 2] & 0xFF) << 8
+            | (buffer[start + 3] & 0xFF);
+    if (length < 1 || length > maxLineLength) {
+      throw new IOException("Invalid frame length: " + length);
+    }
+    int frameEnd = start + Integer.BYTES + length;
+    if (frameEnd > end) {
+      return null;
+    }
+    byte[] payload = Arrays.copyOfRange(buffer, start + Integer.BYTES, frameEnd);
+    start = frameEnd;
+    scanned = start;
+    return payload;
+  }
+
+  private void ensureCapacity(int additional) {
+    if (end + additional <= buffer.length) {
+      return;
+    }
+    int pending = end - start;
+    if (pending + additional <= buffer.length / 2) {
+      System.arraycopy(buffer, start, buffer, 0, pending);
+    } else {
+      buffer =
+          Arrays.copyOfRange(
+              buffer, start, start + Math.max(buffer.length * 2, pending + additional));
+    }
+    scanned -= start;
+    start = 0;
+    end = pending;
+  }
+}
@@ -0,0 +1,59 @@
+package highlowcardgame.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import highlowcardgame.game.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics of a registry in the plain-text format of Prometheus at {@code /metrics}, on
+ * the loopback address only. Requests are answered one at a time on a thread of the HTTP server,
+ * which never touches the game.
+ */
+final class MetricsEndpoint implements AutoCloseable {
+  private static final String PATH = "/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final HttpServer server;
+  private final MetricsRegistry registry;
+
+  /**
+   * Starts serving the metrics.
+   *
+   * @param port the local port to listen on
+   * @param registry the metrics to serve
+   * @throws IOException if the port cannot be bound
+   */
+  MetricsEndpoint(int port, MetricsRegistry registry) throws IOException {
+    this.registry = registry;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext(PATH, this::handle);
+    server.start();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      StringBuilder text = new StringBuilder();
+      registry.writeText(text);
+      byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
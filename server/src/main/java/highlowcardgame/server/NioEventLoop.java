@@ -0,0 +1,130 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single I/O thread multiplexing many {@link NioPlayerConnection}s over one {@link Selector}.
+ * Other threads hand over new connections and pending writes through queues and wake the selector.
+ */
+final class NioEventLoop implements Runnable {
+  private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+  private final Selector selector;
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+  private final Queue<NioPlayerConnection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+  private final Queue<NioPlayerConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+  private final Queue<NioPlayerConnection> pendingCloses = new ConcurrentLinkedQueue<>();
+  private volatile boolean running = true;
+
+  NioEventLoop() throws IOException {
+    selector = Selector.open();
+  }
+
+  /** Hands a freshly accepted connection over to this loop. */
+  void register(NioPlayerConnection connection) {
+    pendingRegistrations.add(connection);
+    selector.wakeup();
+  }
+
+  /** Asks this loop to write the outbound queue of the given connection. */
+  void requestFlush(NioPlayerConnection connection) {
+    pendingFlushes.add(connection);
+    selector.wakeup();
+  }
+
+  /** Asks this loop to close the given connection. */
+  void requestClose(NioPlayerConnection connection) {
+    pendingCloses.add(connection);
+    selector.wakeup();
+  }
+
+  /** Stops the loop and closes all of its connections. */
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (running) {
+        selector.select();
+        processRegistrations();
+        processFlushes();
+        processCloses();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          processKey(key);
+        }
+      }
+    } catch (IOException e) {
+      System.err.println(e);
+    } finally {
+      closeAll();
+    }
+  }
+
+  private void closeAll() {
+    for (SelectionKey key : selector.keys()) {
+      ((NioPlayerConnection) key.attachment()).close();
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void processRegistrations() {
+    NioPlayerConnection connection;
+    while ((connection = pendingRegistrations.poll()) != null) {
+      try {
+        connection.register(selector);
+      } catch (IOException e) {
+        connection.close();
+      }
+    }
+  }
+
+  private void processFlushes() {
+    NioPlayerConnection connection;
+    while ((connection = pendingFlushes.poll()) != null) {
+      try {
+        connection.flush();
+      } catch (IOException e) {
+        connection.close();
+      }
+    }
+  }
+
+  private void processCloses() {
+    NioPlayerConnection connection;
+    while ((connection = pendingCloses.poll()) != null) {
+      connection.close();
+    }
+  }
+
+  private void processKey(SelectionKey key) {
+    NioPlayerConnection connection = (NioPlayerConnection) key.attachment();
+    try {
+      if (key.isValid() && key.isWritable()) {
+        connection.flush();
+      }
+      if (key.isValid() && key.isReadable()) {
+        connection.read(readBuffer);
+      }
+    } catch (IOException | NoNextCardException | RuntimeException e) {
+      // a broken or misbehaving client must not take the other connections of this loop down
+      connection.close();
+    }
+  }
+}
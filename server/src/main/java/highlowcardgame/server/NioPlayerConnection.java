@@ -0,0 +1,377 @@
+package highlowcardgame.server;
+
+import highlowcardgame.communication.messages.BinaryCodec;
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateTemplate;
+import highlowcardgame.communication.messages.GuessRequest;
+import highlowcardgame.communication.messages.HandleJson;
+import highlowcardgame.communication.messages.JoinGameRequest;
+import highlowcardgame.communication.messages.KeyframeRequest;
+import highlowcardgame.communication.messages.Message;
+import highlowcardgame.communication.messages.OutputBuffer;
+import highlowcardgame.communication.messages.PlayerGuessedNotification;
+import highlowcardgame.communication.messages.SharedFrame;
+import highlowcardgame.game.Card;
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.GameState;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Leaderboard;
+import highlowcardgame.game.Player;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The non-blocking counterpart of {@link PlayerConnection}. Reading, framing and writing happen on
+ * the {@link NioEventLoop} owning the channel; game notifications only enqueue encoded messages, so
+ * they never block the thread holding the game lock.
+ */
+final class NioPlayerConnection implements Player {
+  private static final int MAX_LINE_LENGTH = 64 * 1024;
+  private static final int LINE_CAPACITY = 128;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final int WRITE_BATCH = 16;
+
+  private final SocketChannel channel;
+  private final TableManager tables;
+  private final NioEventLoop loop;
+  private final LineFramer framer = new LineFramer(MAX_LINE_LENGTH);
+  private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  // keeps the buffers of one message together when several threads notify the player
+  private final ReentrantLock enqueueLock = new ReentrantLock();
+  private final ByteBuffer[] writeBatch = new ByteBuffer[WRITE_BATCH];
+  private final ConnectionClosedEvent closedEvent = new ConnectionClosedEvent();
+  private final SlowConsumerGuard slowConsumers;
+  private final SlowConsumerGuard.Watch watch;
+  // the bytes queued but not written yet
+  private final AtomicLong backlog = new AtomicLong();
+  private final AtomicBoolean evicted = new AtomicBoolean();
+  // since when the outbound queue could not be drained, 0 while it could
+  private volatile long stalledSince = 0;
+
+  private SelectionKey key;
+  private Table table;
+  private volatile boolean closed = false;
+  private volatile String playerName;
+  private volatile boolean binary = false;
+  private volatile GameStateTemplate.Recipient recipient;
+  // null unless the client receives state deltas, guarded by the enqueue lock
+  private volatile StateDeltas deltas;
+
+  NioPlayerConnection(
+      SocketChannel channel,
+      TableManager tables,
+      NioEventLoop loop,
+      SlowConsumerGuard slowConsumers) {
+    this.channel = channel;
+    this.tables = tables;
+    this.loop = loop;
+    this.slowConsumers = slowConsumers;
+    watch = slowConsumers.watch(() -> stalledSince, () -> evict());
+    ServerMetrics.CONNECTIONS_OPENED.increment();
+    closedEvent.begin();
+    if (closedEvent.isEnabled()) {
+      // the address of a closed channel is gone
+      closedEvent.remoteAddress = String.valueOf(channel.socket().getRemoteSocketAddress());
+    }
+    ConnectionAcceptedEvent acceptedEvent = new ConnectionAcceptedEvent();
+    if (acceptedEvent.isEnabled()) {
+      acceptedEvent.remoteAddress = String.valueOf(channel.socket().getRemoteSocketAddress());
+      acceptedEvent.engine = "nio";
+      acceptedEvent.commit();
+    }
+  }
+
+  /** Registers the channel with the selector of the owning loop. Called on the loop thread. */
+  void register(Selector selector) throws IOException {
+    channel.configureBlocking(false);
+    key = channel.register(selector, SelectionKey.OP_READ, this);
+  }
+
+  /** Reads all available bytes and handles every complete message. Called on the loop thread. */
+  void read(ByteBuffer readBuffer) throws IOException, NoNextCardException {
+    readBuffer.clear();
+    int read = channel.read(readBuffer);
+    if (read < 0) {
+      close();
+      return;
+    }
+    readBuffer.flip();
+    framer.append(readBuffer);
+    while (!closed) {
+      Message message;
+      if (binary) {
+        byte[] frame = framer.nextFrame();
+        message = frame == null ? null : BinaryCodec.decode(frame);
+      } else {
+        message = framer.nextJsonMessage();
+      }
+      if (message == null) {
+        return;
+      }
+      handle(message);
+    }
+  }
+
+  private void handle(Message message) throws NoNextCardException, IOException {
+    if (message instanceof JoinGameRequest) {
+      if (table != null) {
+        throw new IOException("Player " + playerName + " tried to join twice");
+      }
+      JoinGameRequest request = (JoinGameRequest) message;
+      playerName = request.getPlayerName();
+      // everything after the request, in both directions, is binary if the client offers it
+      binary = request.supports(BinaryCodec.CAPABILITY);
+      if (request.supports(GameStateDeltaNotification.CAPABILITY)) {
+        deltas = new StateDeltas();
+      }
+      // a name the game rejects disconnects this connection through the table
+      table = tables.join(this);
+    } else if (message instanceof GuessRequest && table != null) {
+      long decoded = System.nanoTime();
+      Guess guess = ((GuessRequest) message).getGuess();
+      table.guess(
+          this,
+          guess,
+          numNotGuessedPlayers -> {
+            send(new PlayerGuessedNotification(numNotGuessedPlayers, playerName));
+            ServerMetrics.GUESS_ACK_SECONDS.recordSince(decoded);
+          });
+    } else if (message instanceof KeyframeRequest && deltas != null) {
+      enqueueLock.lock();
+      try {
+        GameStateDeltaNotification keyframe = deltas.keyframe();
+        if (keyframe != null) {
+          send(keyframe);
+        }
+      } finally {
+        enqueueLock.unlock();
+      }
+    } else {
+      throw new IOException("Unexpected message " + message);
+    }
+  }
+
+  /**
+   * Writes as much of the outbound queue as the socket accepts, gathering up to {@link
+   * #WRITE_BATCH} buffers per system call. Called on the loop thread.
+   */
+  void flush() throws IOException {
+    flushScheduled.set(false);
+    if (closed) {
+      return;
+    }
+    while (true) {
+      int count = 0;
+      for (ByteBuffer pending : outbound) {
+        writeBatch[count++] = pending;
+        if (count == WRITE_BATCH) {
+          break;
+        }
+      }
+      if (count == 0) {
+        stalledSince = 0;
+        key.interestOps(SelectionKey.OP_READ);
+        return;
+      }
+      long bytes = channel.write(writeBatch, 0, count);
+      backlog.addAndGet(-bytes);
+      ServerMetrics.BYTES.add(bytes);
+      ServerMetrics.FLUSHES.increment();
+      int written = 0;
+      while (written < count && !writeBatch[written].hasRemaining()) {
+        outbound.poll();
+        written++;
+      }
+      Arrays.fill(writeBatch, 0, count, null);
+      if (written < count) {
+        if (stalledSince == 0) {
+          stalledSince = System.nanoTime();
+        }
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+    }
+  }
+
+  /** Closes the channel and removes the player from its table. Called on the loop thread. */
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    watch.cancel();
+    if (key != null) {
+      key.cancel();
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    outbound.clear();
+    ServerMetrics.CONNECTIONS_CLOSED.increment();
+    if (closedEvent.shouldCommit()) {
+      closedEvent.player = playerName;
+      closedEvent.commit();
+    }
+    if (table != null) {
+      tables.leave(this, table);
+    }
+  }
+
+  private void send(Message message) {
+    if (binary) {
+      enqueue(ByteBuffer.wrap(BinaryCodec.encode(message)));
+    } else {
+      OutputBuffer line = new OutputBuffer(LINE_CAPACITY);
+      HandleJson.encode(message, line);
+      line.writeAscii(LINE_SEPARATOR);
+      enqueue(ByteBuffer.wrap(line.toByteArray()));
+    }
+  }
+
+  private void send(GameStateTemplate template, int score) {
+    if (binary) {
+      enqueue(ByteBuffer.wrap(template.encodeBinary(recipient(), score)));
+    } else {
+      OutputBuffer suffix = new OutputBuffer(LINE_CAPACITY);
+      template.writeJsonSuffix(suffix, recipient(), score);
+      enqueue(template.sharedJsonPrefix(), ByteBuffer.wrap(suffix.toByteArray()));
+    }
+  }
+
+  /**
+   * Sends the delta of the state, if it changed for this player, between the given frames of the
+   * same event, either of which may be null. The lock keeps the sequence numbers in order.
+   */
+  private void sendDelta(SharedFrame before, GameState state, SharedFrame after) {
+    Card currentCard = state.getCurrentCard();
+    int round = state.getRound();
+    int score = state.getScores().get(this).get();
+    enqueueLock.lock();
+    try {
+      if (before != null) {
+        enqueue(before.asByteBuffer(binary));
+      }
+      GameStateDeltaNotification delta = deltas.next(currentCard, round, playerName, score);
+      if (delta != null) {
+        send(delta);
+      }
+      if (after != null) {
+        enqueue(after.asByteBuffer(binary));
+      }
+    } finally {
+      enqueueLock.unlock();
+    }
+  }
+
+  /** Appends the buffers of one message to the outbound queue, without copying them. */
+  private void enqueue(ByteBuffer... buffers) {
+    if (closed || evicted.get()) {
+      return;
+    }
+    long bytes = 0;
+    for (ByteBuffer buffer : buffers) {
+      bytes += buffer.remaining();
+    }
+    if (slowConsumers.exceedsBacklog(backlog.addAndGet(bytes))) {
+      // dropped, the client would not read it anyway
+      if (evict()) {
+        slowConsumers.backlogEvicted();
+      }
+      return;
+    }
+    enqueueLock.lock();
+    try {
+      for (ByteBuffer buffer : buffers) {
+        outbound.add(buffer);
+      }
+    } finally {
+      enqueueLock.unlock();
+    }
+    ServerMetrics.MESSAGES.increment();
+    if (flushScheduled.compareAndSet(false, true)) {
+      loop.requestFlush(this);
+    }
+  }
+
+  /** Returns the encoded fields of this player, which are the same in all its notifications. */
+  private GameStateTemplate.Recipient recipient() {
+    GameStateTemplate.Recipient encoded = recipient;
+    if (encoded == null) {
+      encoded = new GameStateTemplate.Recipient(playerName);
+      recipient = encoded;
+    }
+    return encoded;
+  }
+
+  /**
+   * Closes the connection of a client that does not keep up, without blocking.
+   *
+   * @return whether this call evicted the connection, false if it was evicted before
+   */
+  private boolean evict() {
+    if (!evicted.compareAndSet(false, true)) {
+      return false;
+    }
+    loop.requestClose(this);
+    return true;
+  }
+
+  @Override
+  public String getName() {
+    return playerName;
+  }
+
+  @Override
+  public void disconnected() {
+    loop.requestClose(this);
+  }
+
+  @Override
+  public void updateState(GameState state) {
+    if (deltas != null) {
+      sendDelta(null, state, null);
+      return;
+    }
+    GameStateTemplate template = tables.getBroadcastFrames().get(state).state();
+    send(template, state.getScores().get(this).get());
+  }
+
+  @Override
+  public void updateNewPlayer(String playerName, GameState state) {
+    BroadcastFrames.Event event = tables.getBroadcastFrames().get(state);
+    if (deltas != null) {
+      sendDelta(event.joined(playerName), state, null);
+      return;
+    }
+    enqueue(event.joined(playerName).asByteBuffer(binary));
+    send(event.state(), state.getScores().get(this).get());
+  }
+
+  @Override
+  public void updateLeaderboard(Leaderboard.Delta delta, GameState state) {
+    enqueue(tables.getBroadcastFrames().get(state).leaderboard(delta).asByteBuffer(binary));
+  }
+
+  @Override
+  public void updateRemovedPlayer(String playerName, GameState state) {
+    BroadcastFrames.Event event = tables.getBroadcastFrames().get(state);
+    if (deltas != null) {
+      sendDelta(null, state, event.left(playerName));
+      return;
+    }
+    send(event.state(), state.getScores().get(this).get());
+    enqueue(event.left(playerName).asByteBuffer(binary));
+  }
+}
@@ -0,0 +1,98 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.HighLowCardGame;
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Supplier;
+
+/**
+ * Alternative server engine based on non-blocking channels. Instead of one thread per player, a
+ * fixed number of {@link NioEventLoop}s serve all connections.
+ */
+public class NioServer {
+  private final int ioThreads;
+  private final TableManager tables;
+  private final SlowConsumerGuard slowConsumers;
+
+  /**
+   * Creates a new server engine.
+   *
+   * @param ioThreads the number of I/O loop threads, must be positive
+   */
+  public NioServer(int ioThreads) {
+    this(ioThreads, Server::createDefaultGame);
+  }
+
+  /**
+   * Creates a new server engine.
+   *
+   * @param ioThreads the number of I/O loop threads, must be positive
+   * @param gameFactory creates the game all players join
+   */
+  public NioServer(int ioThreads, Supplier<HighLowCardGame> gameFactory) {
+    this(ioThreads, TableManager.singleTable(gameFactory));
+  }
+
+  /**
+   * Creates a new server engine.
+   *
+   * @param ioThreads the number of I/O loop threads, must be positive
+   * @param tables seats the players at their tables, shut down when the server stops
+   */
+  public NioServer(int ioThreads, TableManager tables) {
+    this(ioThreads, tables, SlowConsumerGuard.NONE);
+  }
+
+  /**
+   * Creates a new server engine.
+   *
+   * @param ioThreads the number of I/O loop threads, must be positive
+   * @param tables seats the players at their tables, shut down when the server stops
+   * @param slowConsumers closes connections whose clients do not keep up
+   */
+  NioServer(int ioThreads, TableManager tables, SlowConsumerGuard slowConsumers) {
+    if (ioThreads < 1) {
+      throw new IllegalArgumentException("At least one I/O thread is required: " + ioThreads);
+    }
+    this.ioThreads = ioThreads;
+    this.tables = tables;
+    this.slowConsumers = slowConsumers;
+  }
+
+  /**
+   * Accepts connections on the given channel and distributes them round-robin over the I/O loops.
+   *
+   * @param serverChannel the bound channel the server listens to
+   * @throws IOException is thrown, when the I/O loops cannot be created
+   */
+  public void start(ServerSocketChannel serverChannel) throws IOException {
+    System.out.println("Server is Started ....");
+
+    NioEventLoop[] loops = new NioEventLoop[ioThreads];
+    try {
+      for (int i = 0; i < loops.length; i++) {
+        loops[i] = new NioEventLoop();
+        new Thread(loops[i], "nio-loop-" + i).start();
+      }
+      int next = 0;
+      while (serverChannel.isOpen()) {
+        SocketChannel channel = serverChannel.accept();
+        NioEventLoop loop = loops[next];
+        next = (next + 1) % loops.length;
+        loop.register(new NioPlayerConnection(channel, tables, loop, slowConsumers));
+      }
+    } catch (IOException e) {
+      System.err.println(e);
+    } finally {
+      for (NioEventLoop loop : loops) {
+        if (loop != null) {
+          loop.shutdown();
+        }
+      }
+      System.out.println("Rounds: " + tables.getRoundStats());
+      tables.shutdown();
+      serverChannel.close();
+    }
+  }
+}
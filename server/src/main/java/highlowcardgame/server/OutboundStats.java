@@ -0,0 +1,56 @@
+package highlowcardgame.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of all {@link ConnectionWriter}s of a server. Before writers coalesced messages, every
+ * message cost its own write system call, so the difference between messages and flushes is the
+ * number of system calls saved.
+ */
+public final class OutboundStats {
+  private final LongAdder messages = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+
+  void recordFlush(int flushedMessages, int flushedBytes) {
+    messages.add(flushedMessages);
+    flushes.increment();
+    bytes.add(flushedBytes);
+    ServerMetrics.MESSAGES.add(flushedMessages);
+    ServerMetrics.FLUSHES.increment();
+    ServerMetrics.BYTES.add(flushedBytes);
+  }
+
+  /** Returns the number of messages written to any connection. */
+  public long getMessages() {
+    return messages.sum();
+  }
+
+  /** Returns the number of flushes, each of them a single write to a socket. */
+  public long getFlushes() {
+    return flushes.sum();
+  }
+
+  /** Returns the number of bytes written to any connection. */
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  /** Returns the number of write system calls saved by coalescing messages. */
+  public long getSyscallsSaved() {
+    return getMessages() - getFlushes();
+  }
+
+  /** Returns the average number of bytes written per flush. */
+  public double getBytesPerFlush() {
+    long flushCount = getFlushes();
+    return flushCount == 0 ? 0 : (double) getBytes() / flushCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "messages=%d flushes=%d syscallsSaved=%d bytesPerFlush=%.1f",
+        getMessages(), getFlushes(), getSyscallsSaved(), getBytesPerFlush());
+  }
+}
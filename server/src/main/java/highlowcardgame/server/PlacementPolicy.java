@@ -0,0 +1,41 @@
+package highlowcardgame.server;
+
+import java.util.List;
+
+/** Decides at which open table a joining player is seated. */
+public interface PlacementPolicy {
+
+  /**
+   * Chooses a table for a joining player.
+   *
+   * @param openTables all tables with at least one free seat, in the order they were opened
+   * @return the chosen table, or null to open a new table
+   */
+  Table place(List<Table> openTables);
+
+  /** Seats players at the table with the fewest players, spreading them evenly. */
+  static PlacementPolicy leastLoaded() {
+    return openTables -> {
+      Table chosen = null;
+      for (Table table : openTables) {
+        if (chosen == null || table.getSeatedPlayers() < chosen.getSeatedPlayers()) {
+          chosen = table;
+        }
+      }
+      return chosen;
+    };
+  }
+
+  /** Seats players at the fullest open table, so tables fill up one after the other. */
+  static PlacementPolicy fillFirst() {
+    return openTables -> {
+      Table chosen = null;
+      for (Table table : openTables) {
+        if (chosen == null || table.getSeatedPlayers() > chosen.getSeatedPlayers()) {
+          chosen = table;
+        }
+      }
+      return chosen;
+    };
+  }
+}
@@ -1,36 +1,86 @@
 package highlowcardgame.server;
 
-import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.communication.messages.BinaryCodec;
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateTemplate;
 import highlowcardgame.communication.messages.GuessRequest;
 import highlowcardgame.communication.messages.HandleJson;
 import highlowcardgame.communication.messages.JoinGameRequest;
+import highlowcardgame.communication.messages.KeyframeRequest;
 import highlowcardgame.communication.messages.Message;
+import highlowcardgame.communication.messages.OutputBuffer;
 import highlowcardgame.communication.messages.PlayerGuessedNotification;
-import highlowcardgame.communication.messages.PlayerJoinedNotification;
-import highlowcardgame.communication.messages.PlayerLeftNotification;
+import highlowcardgame.communication.messages.SharedFrame;
 import highlowcardgame.game.Card;
 import highlowcardgame.game.Deck.NoNextCardException;
 import highlowcardgame.game.GameState;
 import highlowcardgame.game.HighLowCardGame;
 import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Leaderboard;
 import highlowcardgame.game.Player;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 
 /** A player like class representing the server-sided part to communicate with a client. */
 public class PlayerConnection implements Player, Runnable {
 
   private final Socket socket;
-  private final HighLowCardGame game;
-  private String playerName;
+  private final TableManager tables;
+  private final OutboundStats outboundStats;
+  private final SlowConsumerGuard slowConsumers;
+  private final OutputBuffer line = new OutputBuffer();
+  private volatile ConnectionWriter writer;
+  private volatile String playerName;
+  private volatile GameStateTemplate.Recipient recipient;
+  // null unless the client receives state deltas, guarded by the writer
+  private volatile StateDeltas deltas;
+  private Table table;
 
   public PlayerConnection(Socket socket, HighLowCardGame game) {
+    this(socket, game, new OutboundStats());
+  }
+
+  /**
+   * Creates a new connection to the given, already started game.
+   *
+   * @param socket the socket connected to the client
+   * @param game the game the client plays
+   * @param outboundStats the counters every message written to the client is recorded in
+   */
+  public PlayerConnection(Socket socket, HighLowCardGame game, OutboundStats outboundStats) {
+    this(socket, TableManager.forGame(game), outboundStats);
+  }
+
+  /**
+   * Creates a new connection whose player is seated at one of the tables of the given manager.
+   *
+   * @param socket the socket connected to the client
+   * @param tables the manager seating the player when the client joins
+   * @param outboundStats the counters every message written to the client is recorded in
+   */
+  public PlayerConnection(Socket socket, TableManager tables, OutboundStats outboundStats) {
+    this(socket, tables, outboundStats, SlowConsumerGuard.NONE);
+  }
+
+  /**
+   * Creates a new connection whose player is seated at one of the tables of the given manager.
+   *
+   * @param socket the socket connected to the client
+   * @param tables the manager seating the player when the client joins
+   * @param outboundStats the counters every message written to the client is recorded in
+   * @param slowConsumers closes the connection if a write to the client stalls for too long
+   */
+  PlayerConnection(
+      Socket socket,
+      TableManager tables,
+      OutboundStats outboundStats,
+      SlowConsumerGuard slowConsumers) {
     this.socket = socket;
-    this.game = game;
+    this.tables = tables;
+    this.outboundStats = outboundStats;
+    this.slowConsumers = slowConsumers;
   }
 
   /**
@@ -38,63 +88,133 @@ public class PlayerConnection implements Player, Runnable {
    * corresponding client.
    */
   public void run() {
-    PrintWriter pcOutput = null;
-    BufferedReader pcInput = null;
+    InputStream pcInput = null;
+    SlowConsumerGuard.Watch watch = null;
+    boolean binary = false;
+    ServerMetrics.CONNECTIONS_OPENED.increment();
+    ConnectionClosedEvent closedEvent = new ConnectionClosedEvent();
+    closedEvent.begin();
+    ConnectionAcceptedEvent acceptedEvent = new ConnectionAcceptedEvent();
+    if (acceptedEvent.isEnabled()) {
+      acceptedEvent.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+      acceptedEvent.engine = Thread.currentThread().isVirtual() ? "virtual" : "blocking";
+      acceptedEvent.commit();
+    }
     try {
-      pcInput =
-          new BufferedReader(
-              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      writer =
+          slowConsumers.evicts()
+              ? new ConnectionWriter(
+                  socket.getOutputStream(),
+                  outboundStats,
+                  slowConsumers,
+                  Thread::startVirtualThread)
+              : new ConnectionWriter(socket.getOutputStream(), outboundStats);
+      // closing the socket unblocks the stalled write, and the reading thread then cleans up
+      watch = slowConsumers.watch(writer::stalledSince, this::disconnected);
+      pcInput = new BufferedInputStream(socket.getInputStream());
 
       while (true) {
-        String pcIn = pcInput.readLine();
-        if (pcIn == null) {
+        Message decodedString;
+        if (binary) {
+          decodedString = BinaryCodec.read(pcInput);
+        } else {
+          decodedString = readJsonLine(pcInput);
+        }
+        if (decodedString == null) {
           break;
         }
 
-        Message decodedString = HandleJson.decode(pcIn);
-
-        pcOutput = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
         // joinGameRequest
-        if (decodedString instanceof JoinGameRequest) {
-          playerName = (((JoinGameRequest) decodedString).getPlayerName());
+        if (decodedString instanceof JoinGameRequest && table == null) {
+          JoinGameRequest request = (JoinGameRequest) decodedString;
+          playerName = request.getPlayerName();
           System.err.println("Welcome to the Game, " + playerName + "!");
 
-          game.addPlayer(this);
+          // everything after the request, in both directions, is binary if the client offers it
+          if (request.supports(BinaryCodec.CAPABILITY)) {
+            binary = true;
+            writer.switchToBinary();
+          }
+          if (request.supports(GameStateDeltaNotification.CAPABILITY)) {
+            deltas = new StateDeltas();
+          }
+
+          table = tables.join(this);
 
           // guessRequest
-        } else if (decodedString instanceof GuessRequest) {
+        } else if (decodedString instanceof GuessRequest && table != null) {
+          long decoded = System.nanoTime();
           String playerName = (((GuessRequest) decodedString).getPlayerName());
           Guess actualGuess = (((GuessRequest) decodedString).getGuess());
-          GameState actualGuessedState = game.getState().addGuess(this, actualGuess);
-          int numNotGuessedPlayers =
-              actualGuessedState.getPlayers().size() - actualGuessedState.getGuesses().size();
-          pcOutput.println(
-              HandleJson.encode(new PlayerGuessedNotification(numNotGuessedPlayers, playerName)));
-          game.guess(this, actualGuess);
+          table.guess(
+              this,
+              actualGuess,
+              numNotGuessedPlayers -> {
+                sendGuessed(numNotGuessedPlayers, playerName);
+                ServerMetrics.GUESS_ACK_SECONDS.recordSince(decoded);
+              });
+        } else if (decodedString instanceof KeyframeRequest && deltas != null) {
+          writer.sendUnlessEmpty(this::encodeKeyframe);
         } else {
-          throw new AssertionError("Unknown message type!");
+          throw new AssertionError("Unexpected message type!");
         }
       }
     } catch (IOException | NoNextCardException e) {
-      //e.printStackTrace();
-      game.removePlayer(this);
+      // the connection is gone, the player is removed below
     } finally {
       try {
-        if (pcOutput != null) {
-          pcOutput.close();
-          game.removePlayer(this);
-        }
         if (pcInput != null) {
           pcInput.close();
-          socket.close();
-          game.removePlayer(this);
         }
+        socket.close();
       } catch (IOException e) {
         e.printStackTrace();
-        game.removePlayer(this);
       } finally {
-        game.removePlayer(this);
+        ServerMetrics.CONNECTIONS_CLOSED.increment();
+        if (watch != null) {
+          watch.cancel();
+        }
+        if (closedEvent.shouldCommit()) {
+          closedEvent.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+          closedEvent.player = playerName;
+          closedEvent.commit();
+        }
+        if (table != null) {
+          tables.leave(this, table);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a line terminated by a line feed byte by byte, so no bytes beyond the line are consumed
+   * before the connection possibly switches to binary frames, and decodes it as a JSON message.
+   *
+   * @return the decoded message, or null if the stream ended before the next line
+   */
+  private Message readJsonLine(InputStream in) throws IOException {
+    line.reset();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b < 0) {
+        if (line.size() == 0) {
+          return null;
+        }
+        break;
       }
+      line.write(b);
+    }
+    byte[] bytes = line.toByteArray();
+    int length =
+        bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+    return HandleJson.decode(bytes, 0, length);
+  }
+
+  private void sendGuessed(int numNotGuessedPlayers, String playerName) {
+    try {
+      writer.send(new PlayerGuessedNotification(numNotGuessedPlayers, playerName));
+    } catch (IOException e) {
+      disconnected();
     }
   }
 
@@ -103,45 +223,137 @@ public class PlayerConnection implements Player, Runnable {
     return playerName;
   }
 
+  /**
+   * Closes the connection, e.g. after a notification could not be written. Never throws, so a
+   * notifying table goes on with its other players.
+   */
+  @Override
+  public void disconnected() {
+    try {
+      // unblocks the reading thread, which then cleans up
+      socket.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
   @Override
   public void updateState(GameState state) {
+    if (deltas != null) {
+      sendDelta(null, state, null);
+      return;
+    }
+    GameStateTemplate template = tables.getBroadcastFrames().get(state).state();
+    int score = state.getScores().get(this).get();
     try {
-      PrintWriter pcOutput =
-          new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
-      int currentRound = state.getRound();
-      Card currentCard = state.getCurrentCard();
-      int currentScore = state.getScores().get(this).get();
-      pcOutput.println(
-          HandleJson.encode(
-              new GameStateNotification(currentCard, currentRound, playerName, currentScore)));
+      writer.send(1, out -> template.writeTo(out, recipient(), score, writer.isBinary()));
     } catch (IOException e) {
-      throw new AssertionError("Shit happens.");
+      disconnected();
     }
   }
 
   @Override
   public void updateNewPlayer(String playerName, GameState state) {
+    BroadcastFrames.Event event = tables.getBroadcastFrames().get(state);
+    SharedFrame joined = event.joined(playerName);
+    if (deltas != null) {
+      sendDelta(joined, state, null);
+      return;
+    }
+    GameStateTemplate template = event.state();
+    int score = state.getScores().get(this).get();
     try {
-      PrintWriter pcOutput =
-          new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
-      pcOutput.println(
-          HandleJson.encode(new PlayerJoinedNotification(playerName, state.getPlayers().size())));
+      writer.send(
+          2,
+          out -> {
+            joined.writeTo(out, writer.isBinary());
+            template.writeTo(out, recipient(), score, writer.isBinary());
+          });
     } catch (IOException e) {
-      throw new AssertionError("Player left the game.");
+      disconnected();
+    }
+  }
+
+  @Override
+  public void updateLeaderboard(Leaderboard.Delta delta, GameState state) {
+    SharedFrame frame = tables.getBroadcastFrames().get(state).leaderboard(delta);
+    try {
+      writer.send(1, out -> frame.writeTo(out, writer.isBinary()));
+    } catch (IOException e) {
+      disconnected();
     }
-    updateState(state);
   }
 
   @Override
   public void updateRemovedPlayer(String playerName, GameState state) {
-    updateState(state);
+    BroadcastFrames.Event event = tables.getBroadcastFrames().get(state);
+    SharedFrame left = event.left(playerName);
+    if (deltas != null) {
+      sendDelta(null, state, left);
+      return;
+    }
+    GameStateTemplate template = event.state();
+    int score = state.getScores().get(this).get();
     try {
-      PrintWriter pcOutput =
-          new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
-      pcOutput.println(
-          HandleJson.encode(new PlayerLeftNotification(state.getPlayers().size(), playerName)));
+      writer.send(
+          2,
+          out -> {
+            template.writeTo(out, recipient(), score, writer.isBinary());
+            left.writeTo(out, writer.isBinary());
+          });
     } catch (IOException e) {
-      throw new AssertionError("Player left the game.");
+      disconnected();
+    }
+  }
+
+  /**
+   * Sends the delta of the state, if it changed for this player, between the given frames of the
+   * same event, either of which may be null.
+   */
+  private void sendDelta(SharedFrame before, GameState state, SharedFrame after) {
+    Card currentCard = state.getCurrentCard();
+    int round = state.getRound();
+    int score = state.getScores().get(this).get();
+    try {
+      writer.sendUnlessEmpty(
+          out -> {
+            int count = 0;
+            if (before != null) {
+              before.writeTo(out, writer.isBinary());
+              count++;
+            }
+            GameStateDeltaNotification delta = deltas.next(currentCard, round, playerName, score);
+            if (delta != null) {
+              writer.encode(delta, out);
+              count++;
+            }
+            if (after != null) {
+              after.writeTo(out, writer.isBinary());
+              count++;
+            }
+            return count;
+          });
+    } catch (IOException e) {
+      disconnected();
+    }
+  }
+
+  private int encodeKeyframe(OutputBuffer out) {
+    GameStateDeltaNotification keyframe = deltas.keyframe();
+    if (keyframe == null) {
+      return 0;
+    }
+    writer.encode(keyframe, out);
+    return 1;
+  }
+
+  /** Returns the encoded fields of this player, which are the same in all its notifications. */
+  private GameStateTemplate.Recipient recipient() {
+    GameStateTemplate.Recipient encoded = recipient;
+    if (encoded == null) {
+      encoded = new GameStateTemplate.Recipient(playerName);
+      recipient = encoded;
     }
+    return encoded;
   }
 }
@@ -0,0 +1,39 @@
+package highlowcardgame.server;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/** The deadlines of the rounds of all tables, scheduled on a single {@link HashedWheelTimer}. */
+final class RoundDeadlines {
+  // the deadlines are seconds away, a coarse tick keeps the timer thread mostly asleep
+  private static final long TICK_MILLIS = 10;
+  private static final int TICKS_PER_WHEEL = 512;
+
+  private final HashedWheelTimer timer;
+  private final long timeoutNanos;
+
+  RoundDeadlines(Duration timeout) {
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("The round timeout must be positive");
+    }
+    timeoutNanos = timeout.toNanos();
+    timer =
+        new HashedWheelTimer(TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, "round-timer");
+  }
+
+  /**
+   * Schedules the deadline of a round starting now.
+   *
+   * @param expired receives the {@link System#nanoTime()} of the deadline once it expired, on the
+   *     timer thread
+   */
+  HashedWheelTimer.Timeout schedule(LongConsumer expired) {
+    long deadlineNanos = System.nanoTime() + timeoutNanos;
+    return timer.schedule(() -> expired.accept(deadlineNanos), timeoutNanos, TimeUnit.NANOSECONDS);
+  }
+
+  void stop() {
+    timer.stop();
+  }
+}
@@ -0,0 +1,68 @@
+package highlowcardgame.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the rounds of all tables of a server. A round either ends with the last guess or,
+ * with round deadlines enabled, times out with the players who did not guess scored as wrong. The
+ * close lag of a timed out round is the time from its deadline until it was actually closed, i.e.
+ * the delay added by the timer and the table's worker.
+ */
+public final class RoundStats {
+  private final LongAdder rounds = new LongAdder();
+  private final LongAdder roundNanos = new LongAdder();
+  private final LongAdder timedOutRounds = new LongAdder();
+  private final LongAdder closeLagNanos = new LongAdder();
+  private final LongAccumulator maxCloseLagNanos = new LongAccumulator(Math::max, 0);
+
+  void recordRound(long durationNanos) {
+    rounds.increment();
+    roundNanos.add(durationNanos);
+  }
+
+  void recordTimeout(long lagNanos) {
+    timedOutRounds.increment();
+    closeLagNanos.add(lagNanos);
+    maxCloseLagNanos.accumulate(lagNanos);
+  }
+
+  /** Returns the number of completed rounds, timed out or not. */
+  public long getRounds() {
+    return rounds.sum();
+  }
+
+  /** Returns the number of rounds closed by their deadline. */
+  public long getTimedOutRounds() {
+    return timedOutRounds.sum();
+  }
+
+  /** Returns the average duration of a round in milliseconds. */
+  public double getAverageRoundMillis() {
+    long count = getRounds();
+    return count == 0 ? 0 : (double) roundNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /** Returns the average close lag of the timed out rounds in milliseconds. */
+  public double getAverageCloseLagMillis() {
+    long count = getTimedOutRounds();
+    return count == 0 ? 0 : (double) closeLagNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /** Returns the longest close lag of a timed out round in milliseconds. */
+  public double getMaxCloseLagMillis() {
+    return (double) maxCloseLagNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "rounds=%d timedOut=%d avgRoundMs=%.1f avgCloseLagMs=%.1f maxCloseLagMs=%.1f",
+        getRounds(),
+        getTimedOutRounds(),
+        getAverageRoundMillis(),
+        getAverageCloseLagMillis(),
+        getMaxCloseLagMillis());
+  }
+}
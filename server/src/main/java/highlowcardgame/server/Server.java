@@ -1,12 +1,30 @@
 package highlowcardgame.server;
 
+import highlowcardgame.communication.messages.HandleJson;
 import highlowcardgame.game.Card;
-import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.Deck;
 import highlowcardgame.game.HighLowCardGame;
 import highlowcardgame.game.InfiniteShuffledDeck;
+import highlowcardgame.game.Shoe;
+import highlowcardgame.game.SplittableRandomDeck;
+import highlowcardgame.game.metrics.MetricsRegistry;
+import highlowcardgame.game.observable.ObserverSupport;
+import highlowcardgame.game.observable.SlowConsumerPolicy;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import jdk.jfr.Recording;
 
 /**
  * Main class for the game server. The class starts the server sockets and delegates connection and
@@ -14,6 +32,108 @@ import java.net.Socket;
  */
 public class Server {
   private static final int DEFAULT_PORT = 4441;
+  private static final String ENGINE_BLOCKING = "blocking";
+  private static final String ENGINE_NIO = "nio";
+  private static final String ENGINE_VIRTUAL = "virtual";
+  private static final String DISPATCH_SYNC = "sync";
+  private static final String DISPATCH_ASYNC = "async";
+  private static final int DEFAULT_QUEUE_CAPACITY = 256;
+  private static final String PLACEMENT_LEAST_LOADED = "least-loaded";
+  private static final String PLACEMENT_FILL_FIRST = "fill-first";
+  private static final String JSON_MOSHI = "moshi";
+  private static final String JSON_STREAMING = "streaming";
+  private static final String DECK_SHUFFLED = "shuffled";
+  private static final String DECK_SPLITTABLE = "splittable";
+  private static final String DECK_SHOE = "shoe";
+  private static final int SHOE_DECKS = 6;
+  private static final double SHOE_PENETRATION = 0.75;
+  private static final int LEADERBOARD_SIZE = 10;
+  private static final long JOURNAL_COMMIT_MILLIS = 10;
+  private static final long DEFAULT_SNAPSHOT_SECONDS = 10;
+  private static final String METRICS_MBEAN = "highlowcardgame:type=Metrics";
+  private static final long DEFAULT_JFR_MAX_MEGABYTES = 256;
+  private static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 10_000;
+  private static final long DEFAULT_MAX_BACKLOG_KILOBYTES = 1024;
+  private static final int DEFAULT_GUESS_BATCH = 1;
+
+  private final Executor connectionExecutor;
+  private final TableManager tables;
+  private final OutboundStats outboundStats = new OutboundStats();
+  private final SlowConsumerGuard slowConsumers;
+
+  /** Creates a server running every {@link PlayerConnection} on its own platform thread. */
+  public Server() {
+    this(connection -> new Thread(connection).start());
+  }
+
+  /**
+   * Creates a server running every {@link PlayerConnection} on the given executor, e.g. one handing
+   * out a virtual thread per connection.
+   *
+   * @param connectionExecutor runs each connection asynchronously until it is closed
+   */
+  public Server(Executor connectionExecutor) {
+    this(connectionExecutor, Server::createDefaultGame);
+  }
+
+  /**
+   * Creates a server running every {@link PlayerConnection} on the given executor.
+   *
+   * @param connectionExecutor runs each connection asynchronously until it is closed
+   * @param gameFactory creates the game all players join
+   */
+  public Server(Executor connectionExecutor, Supplier<HighLowCardGame> gameFactory) {
+    this(connectionExecutor, TableManager.singleTable(gameFactory));
+  }
+
+  /**
+   * Creates a server running every {@link PlayerConnection} on the given executor.
+   *
+   * @param connectionExecutor runs each connection asynchronously until it is closed
+   * @param tables seats the players at their tables, shut down when the server stops
+   */
+  public Server(Executor connectionExecutor, TableManager tables) {
+    this(connectionExecutor, tables, SlowConsumerGuard.NONE);
+  }
+
+  /**
+   * Creates a server running every {@link PlayerConnection} on the given executor.
+   *
+   * @param connectionExecutor runs each connection asynchronously until it is closed
+   * @param tables seats the players at their tables, shut down when the server stops
+   * @param slowConsumers closes connections whose clients do not keep up
+   */
+  Server(Executor connectionExecutor, TableManager tables, SlowConsumerGuard slowConsumers) {
+    this.connectionExecutor = connectionExecutor;
+    this.tables = tables;
+    this.slowConsumers = slowConsumers;
+  }
+
+  /** Creates a game with an infinite deck that notifies its players synchronously. */
+  static HighLowCardGame createDefaultGame() {
+    return new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards()));
+  }
+
+  /**
+   * Creates the decks of the tables. Every deck gets its own stream of random numbers split off a
+   * generator with the given seed, so the tables of two runs with the same seed get the same cards.
+   */
+  static Supplier<Deck> createDeckFactory(String deck, long seed) {
+    SplittableRandom seeds = new SplittableRandom(seed);
+    return () -> {
+      SplittableRandom random;
+      // tables may be opened concurrently
+      synchronized (seeds) {
+        random = seeds.split();
+      }
+      if (DECK_SPLITTABLE.equals(deck)) {
+        return new SplittableRandomDeck(Card.getAllValidCards(), random);
+      } else if (DECK_SHOE.equals(deck)) {
+        return new Shoe(SHOE_DECKS, SHOE_PENETRATION, random);
+      }
+      return new InfiniteShuffledDeck(Card.getAllValidCards(), random.nextLong());
+    };
+  }
 
   /**
    * Main method for the server.
@@ -22,6 +142,28 @@ public class Server {
    */
   public static void main(final String[] args) {
     int port = DEFAULT_PORT;
+    String engine = ENGINE_BLOCKING;
+    int ioThreads = Runtime.getRuntime().availableProcessors();
+    String dispatch = DISPATCH_SYNC;
+    int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    SlowConsumerPolicy policy = SlowConsumerPolicy.COLLAPSE_TO_LATEST_STATE;
+    int seatsPerTable = 0;
+    String placement = PLACEMENT_LEAST_LOADED;
+    int workers = Runtime.getRuntime().availableProcessors();
+    HandleJson.Backend jsonBackend = HandleJson.Backend.MOSHI;
+    String deck = DECK_SHUFFLED;
+    Long seed = null;
+    long roundTimeoutMillis = 0;
+    int leaderboardEvery = 0;
+    Path journalDirectory = null;
+    Path snapshotDirectory = null;
+    long snapshotSeconds = DEFAULT_SNAPSHOT_SECONDS;
+    int metricsPort = 0;
+    Path jfrFile = null;
+    long jfrMaxMegabytes = DEFAULT_JFR_MAX_MEGABYTES;
+    long writeTimeoutMillis = DEFAULT_WRITE_TIMEOUT_MILLIS;
+    long maxBacklogKilobytes = DEFAULT_MAX_BACKLOG_KILOBYTES;
+    int guessBatch = DEFAULT_GUESS_BATCH;
     for (int i = 0; i < args.length; ++i) {
       switch (args[i]) {
         case "--port":
@@ -41,6 +183,325 @@ public class Server {
             return;
           }
           break;
+        case "--engine":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the engine.");
+            return;
+          }
+          i++;
+          engine = args[i];
+          if (!isValidEngine(engine)) {
+            printErrorMessage("Unknown engine: " + engine);
+            return;
+          }
+          break;
+        case "--io-threads":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of I/O threads.");
+            return;
+          }
+          try {
+            i++;
+            ioThreads = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of I/O threads: " + args[i]);
+            return;
+          }
+          if (ioThreads < 1) {
+            printErrorMessage("At least one I/O thread is required.");
+            return;
+          }
+          break;
+        case "--dispatch":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the dispatch mode.");
+            return;
+          }
+          i++;
+          dispatch = args[i];
+          if (!DISPATCH_SYNC.equals(dispatch) && !DISPATCH_ASYNC.equals(dispatch)) {
+            printErrorMessage("Unknown dispatch mode: " + dispatch);
+            return;
+          }
+          break;
+        case "--queue-capacity":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the queue capacity.");
+            return;
+          }
+          try {
+            i++;
+            queueCapacity = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid queue capacity: " + args[i]);
+            return;
+          }
+          if (queueCapacity < 1) {
+            printErrorMessage("The queue capacity must be positive.");
+            return;
+          }
+          break;
+        case "--slow-consumer":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the slow consumer policy.");
+            return;
+          }
+          i++;
+          policy = parsePolicy(args[i]);
+          if (policy == null) {
+            printErrorMessage("Unknown slow consumer policy: " + args[i]);
+            return;
+          }
+          break;
+        case "--seats-per-table":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of seats per table.");
+            return;
+          }
+          try {
+            i++;
+            seatsPerTable = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of seats per table: " + args[i]);
+            return;
+          }
+          if (seatsPerTable < 1) {
+            printErrorMessage("A table needs at least one seat.");
+            return;
+          }
+          break;
+        case "--placement":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the placement policy.");
+            return;
+          }
+          i++;
+          placement = args[i];
+          if (!PLACEMENT_LEAST_LOADED.equals(placement)
+              && !PLACEMENT_FILL_FIRST.equals(placement)) {
+            printErrorMessage("Unknown placement policy: " + placement);
+            return;
+          }
+          break;
+        case "--workers":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of table workers.");
+            return;
+          }
+          try {
+            i++;
+            workers = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of table workers: " + args[i]);
+            return;
+          }
+          if (workers < 1) {
+            printErrorMessage("At least one table worker is required.");
+            return;
+          }
+          break;
+        case "--json":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the JSON backend.");
+            return;
+          }
+          i++;
+          if (JSON_MOSHI.equals(args[i])) {
+            jsonBackend = HandleJson.Backend.MOSHI;
+          } else if (JSON_STREAMING.equals(args[i])) {
+            jsonBackend = HandleJson.Backend.STREAMING;
+          } else {
+            printErrorMessage("Unknown JSON backend: " + args[i]);
+            return;
+          }
+          break;
+        case "--deck":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the deck.");
+            return;
+          }
+          i++;
+          deck = args[i];
+          if (!DECK_SHUFFLED.equals(deck)
+              && !DECK_SPLITTABLE.equals(deck)
+              && !DECK_SHOE.equals(deck)) {
+            printErrorMessage("Unknown deck: " + deck);
+            return;
+          }
+          break;
+        case "--seed":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the seed.");
+            return;
+          }
+          try {
+            i++;
+            seed = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid seed: " + args[i]);
+            return;
+          }
+          break;
+        case "--round-timeout":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the round timeout in milliseconds.");
+            return;
+          }
+          try {
+            i++;
+            roundTimeoutMillis = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid round timeout: " + args[i]);
+            return;
+          }
+          if (roundTimeoutMillis < 1) {
+            printErrorMessage("The round timeout must be positive.");
+            return;
+          }
+          break;
+        case "--leaderboard-every":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of rounds between leaderboards.");
+            return;
+          }
+          try {
+            i++;
+            leaderboardEvery = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of rounds: " + args[i]);
+            return;
+          }
+          if (leaderboardEvery < 1) {
+            printErrorMessage("The number of rounds between leaderboards must be positive.");
+            return;
+          }
+          break;
+        case "--journal":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the journal directory.");
+            return;
+          }
+          i++;
+          journalDirectory = Paths.get(args[i]);
+          break;
+        case "--snapshots":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the snapshot directory.");
+            return;
+          }
+          i++;
+          snapshotDirectory = Paths.get(args[i]);
+          break;
+        case "--snapshot-every":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the seconds between snapshots.");
+            return;
+          }
+          try {
+            i++;
+            snapshotSeconds = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of seconds: " + args[i]);
+            return;
+          }
+          if (snapshotSeconds < 1) {
+            printErrorMessage("The seconds between snapshots must be positive.");
+            return;
+          }
+          break;
+        case "--metrics-port":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the metrics port.");
+            return;
+          }
+          try {
+            i++;
+            metricsPort = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid metrics port: " + args[i]);
+            return;
+          }
+          if (!isValidPort(metricsPort)) {
+            printErrorMessage("The metrics port must be between 1024 and 65535.");
+            return;
+          }
+          break;
+        case "--jfr":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the recording file.");
+            return;
+          }
+          i++;
+          jfrFile = Paths.get(args[i]);
+          break;
+        case "--jfr-max-size":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the maximum recording size in megabytes.");
+            return;
+          }
+          try {
+            i++;
+            jfrMaxMegabytes = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of megabytes: " + args[i]);
+            return;
+          }
+          if (jfrMaxMegabytes < 1) {
+            printErrorMessage("The maximum recording size must be positive.");
+            return;
+          }
+          break;
+        case "--write-timeout":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the write timeout in milliseconds.");
+            return;
+          }
+          try {
+            i++;
+            writeTimeoutMillis = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid write timeout: " + args[i]);
+            return;
+          }
+          if (writeTimeoutMillis < 0) {
+            printErrorMessage("The write timeout must not be negative.");
+            return;
+          }
+          break;
+        case "--max-backlog":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the maximum backlog in kilobytes.");
+            return;
+          }
+          try {
+            i++;
+            maxBacklogKilobytes = Long.parseLong(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid maximum backlog: " + args[i]);
+            return;
+          }
+          if (maxBacklogKilobytes < 0) {
+            printErrorMessage("The maximum backlog must not be negative.");
+            return;
+          }
+          break;
+        case "--guess-batch":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the maximum number of guesses per batch.");
+            return;
+          }
+          try {
+            i++;
+            guessBatch = Integer.parseInt(args[i]);
+          } catch (NumberFormatException e) {
+            printErrorMessage("Invalid number of guesses: " + args[i]);
+            return;
+          }
+          if (guessBatch < 1) {
+            printErrorMessage("The number of guesses per batch must be positive.");
+            return;
+          }
+          break;
         case "--help":
         default:
           printHelpMessage();
@@ -48,8 +509,113 @@ public class Server {
       }
     }
 
+    HandleJson.setBackend(jsonBackend);
+    try (ExecutorService dispatchExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Supplier<Deck> decks =
+          createDeckFactory(deck, seed != null ? seed : new SplittableRandom().nextLong());
+      Supplier<HighLowCardGame> gameFactory = () -> new HighLowCardGame(decks.get());
+      if (DISPATCH_ASYNC.equals(dispatch)) {
+        int capacity = queueCapacity;
+        SlowConsumerPolicy slowConsumerPolicy = policy;
+        gameFactory =
+            () ->
+                HighLowCardGame.create(
+                    decks.get(),
+                    new ObserverSupport(dispatchExecutor, capacity, slowConsumerPolicy));
+      }
+      if (leaderboardEvery > 0) {
+        Supplier<HighLowCardGame> plainGames = gameFactory;
+        int everyRounds = leaderboardEvery;
+        gameFactory =
+            () -> {
+              HighLowCardGame game = plainGames.get();
+              game.setLeaderboardBroadcast(everyRounds, LEADERBOARD_SIZE);
+              return game;
+            };
+      }
+      GamePersistence persistence =
+          new GamePersistence(
+              journalDirectory, JOURNAL_COMMIT_MILLIS, snapshotDirectory, snapshotSeconds);
+      gameFactory = persistence.persist(gameFactory);
+      TableManager tables;
+      if (seatsPerTable == 0) {
+        tables = TableManager.singleTable(gameFactory);
+      } else {
+        PlacementPolicy placementPolicy =
+            PLACEMENT_FILL_FIRST.equals(placement)
+                ? PlacementPolicy.fillFirst()
+                : PlacementPolicy.leastLoaded();
+        tables = new TableManager(gameFactory, seatsPerTable, placementPolicy, workers);
+      }
+      if (roundTimeoutMillis > 0) {
+        tables.setRoundTimeout(Duration.ofMillis(roundTimeoutMillis));
+      }
+      tables.setGuessBatching(guessBatch);
+      ServerMetrics.registerTables(tables);
+      try {
+        MetricsRegistry.global().registerMbean(METRICS_MBEAN);
+      } catch (JMException e) {
+        System.err.println("Cannot register the metrics MBean: " + e.getMessage());
+      }
+      MetricsEndpoint metrics = null;
+      Recording recording = null;
+      SlowConsumerGuard slowConsumers =
+          new SlowConsumerGuard(writeTimeoutMillis, maxBacklogKilobytes * 1024);
+      try {
+        if (metricsPort > 0) {
+          metrics = new MetricsEndpoint(metricsPort, MetricsRegistry.global());
+        }
+        if (jfrFile != null) {
+          recording = FlightRecording.start(jfrFile, jfrMaxMegabytes * 1024 * 1024);
+        }
+        runEngine(engine, port, ioThreads, tables, slowConsumers);
+      } catch (IOException e) {
+        printErrorMessage("Cannot start the server: " + e.getMessage());
+      } finally {
+        if (recording != null) {
+          // stopping writes the recording to its file
+          recording.stop();
+          recording.close();
+        }
+        if (metrics != null) {
+          metrics.close();
+        }
+        slowConsumers.close();
+        persistence.close();
+      }
+    }
+  }
+
+  private static void runEngine(
+      String engine,
+      int port,
+      int ioThreads,
+      TableManager tables,
+      SlowConsumerGuard slowConsumers) {
+    if (ENGINE_NIO.equals(engine)) {
+      try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+        channel.bind(new InetSocketAddress(port));
+        new NioServer(ioThreads, tables, slowConsumers).start(channel);
+      } catch (IOException e) {
+        System.out.println("Connection lost. Shutting down: " + e.getMessage());
+      }
+      return;
+    }
+
+    if (ENGINE_VIRTUAL.equals(engine)) {
+      try (ServerSocket socket = new ServerSocket(port);
+          ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        Server server = new Server(executor, tables, slowConsumers);
+        server.start(socket);
+      } catch (IOException e) {
+        System.out.println("Connection lost. Shutting down: " + e.getMessage());
+      }
+      return;
+    }
+
     try (ServerSocket socket = new ServerSocket(port)) {
-      Server server = new Server();
+      Server server =
+          new Server(connection -> new Thread(connection).start(), tables, slowConsumers);
       server.start(socket);
     } catch (IOException e) {
       System.out.println("Connection lost. Shutting down: " + e.getMessage());
@@ -64,14 +630,47 @@ public class Server {
     return port >= 1024 && port <= 65535;
   }
 
+  private static boolean isValidEngine(String engine) {
+    return ENGINE_BLOCKING.equals(engine)
+        || ENGINE_VIRTUAL.equals(engine)
+        || ENGINE_NIO.equals(engine);
+  }
+
+  private static SlowConsumerPolicy parsePolicy(String policy) {
+    switch (policy) {
+      case "drop-oldest":
+        return SlowConsumerPolicy.DROP_OLDEST;
+      case "collapse":
+        return SlowConsumerPolicy.COLLAPSE_TO_LATEST_STATE;
+      case "disconnect":
+        return SlowConsumerPolicy.DISCONNECT;
+      default:
+        return null;
+    }
+  }
+
   private static void printHelpMessage() {
-    System.out.println("java Server [--port <int>] [--help]");
+    System.out.println(
+        "java Server [--port <int>] [--engine blocking|virtual|nio] [--io-threads <int>]"
+            + " [--dispatch sync|async] [--queue-capacity <int>]"
+            + " [--slow-consumer drop-oldest|collapse|disconnect] [--seats-per-table <int>]"
+            + " [--placement least-loaded|fill-first] [--workers <int>]"
+            + " [--json moshi|streaming] [--deck shuffled|splittable|shoe] [--seed <long>]"
+            + " [--round-timeout <millis>] [--leaderboard-every <rounds>] [--journal <dir>]"
+            + " [--snapshots <dir>] [--snapshot-every <seconds>] [--metrics-port <int>]"
+            + " [--jfr <file>] [--jfr-max-size <megabytes>] [--write-timeout <millis>]"
+            + " [--max-backlog <kilobytes>] [--guess-batch <int>] [--help]");
   }
 
   private static void printErrorMessage(String str) {
     System.out.println("Error! " + str);
   }
 
+  /** Returns the counters of all messages written to clients of this server. */
+  public OutboundStats getOutboundStats() {
+    return outboundStats;
+  }
+
   /**
    * method for listening to a socket for establishing a client-server-connection and handling this.
    *
@@ -83,22 +682,23 @@ public class Server {
     // ConnectionManager cm = new ConnectionManager();
     System.out.println("Server is Started ....");
 
-    // starting a game
-    HighLowCardGame game = new HighLowCardGame(new InfiniteShuffledDeck(Card.getAllValidCards()));
     try {
-      game.start();
       while (count != -1) {
         count++;
         Socket acceptedSocket = socket.accept();
-        PlayerConnection pc = new PlayerConnection(acceptedSocket, game);
-        new Thread(pc).start();
-        //Thread.sleep(10);
+        PlayerConnection pc =
+            new PlayerConnection(acceptedSocket, tables, outboundStats, slowConsumers);
+        connectionExecutor.execute(pc);
+        // Thread.sleep(10);
       }
-    /*} catch (InterruptedException e) {
+      /*} catch (InterruptedException e) {
       System.err.println(e); */
-    } catch (IOException | NoNextCardException e) {
+    } catch (IOException e) {
       System.err.println(e);
     } finally {
+      System.out.println("Outbound traffic: " + outboundStats);
+      System.out.println("Rounds: " + tables.getRoundStats());
+      tables.shutdown();
       if (socket != null) {
         try {
           socket.close();
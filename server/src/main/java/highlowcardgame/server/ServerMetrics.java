@@ -0,0 +1,59 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.metrics.Counter;
+import highlowcardgame.game.metrics.Histogram;
+import highlowcardgame.game.metrics.MetricsRegistry;
+
+/**
+ * The metrics of the connections of all engines, recorded in the {@link MetricsRegistry#global()
+ * global registry}. Rates, e.g. of the messages sent per second, are left to whoever scrapes the
+ * totals.
+ */
+final class ServerMetrics {
+  static final Counter CONNECTIONS_OPENED =
+      MetricsRegistry.global().counter("server_connections_opened_total", "Connections accepted.");
+  static final Counter CONNECTIONS_CLOSED =
+      MetricsRegistry.global().counter("server_connections_closed_total", "Connections closed.");
+  static final Histogram GUESS_ACK_SECONDS =
+      MetricsRegistry.global()
+          .histogram(
+              "server_guess_ack_seconds",
+              "Time from decoding a guess until its acknowledgement is sent or queued.");
+  static final Counter MESSAGES =
+      MetricsRegistry.global().counter("server_sent_messages_total", "Messages sent to clients.");
+  static final Counter BYTES =
+      MetricsRegistry.global().counter("server_sent_bytes_total", "Bytes sent to clients.");
+  static final Counter FLUSHES =
+      MetricsRegistry.global()
+          .counter("server_flushes_total", "Writes to sockets, each of them a system call.");
+
+  static {
+    MetricsRegistry.global()
+        .gauge(
+            "server_open_connections",
+            "Connections currently open.",
+            () -> CONNECTIONS_OPENED.get() - CONNECTIONS_CLOSED.get());
+  }
+
+  private ServerMetrics() {}
+
+  /** Registers the gauges of the tables of the given manager, replacing those of a previous one. */
+  static void registerTables(TableManager tables) {
+    MetricsRegistry registry = MetricsRegistry.global();
+    registry.gauge("server_open_tables", "Tables currently open.", () -> tables.getTables().size());
+    registry.gauge(
+        "server_seated_players",
+        "Players currently seated at any table.",
+        () -> {
+          long players = 0;
+          for (Table table : tables.getTables()) {
+            players += table.getGame().getState().getNumPlayers();
+          }
+          return players;
+        });
+    registry.gauge(
+        "server_timed_out_rounds",
+        "Rounds closed by their deadline since the server started.",
+        () -> tables.getRoundStats().getTimedOutRounds());
+  }
+}
@@ -0,0 +1,144 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.metrics.Counter;
+import highlowcardgame.game.metrics.MetricsRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Evicts connections whose clients do not read fast enough, before they hold up anybody else.
+ *
+ * <p>A connection is stalled while it has data it could not write: a blocking connection while a
+ * write to its socket has not returned, a non-blocking one while its outbound queue is not drained.
+ * A thread of the guard closes every connection stalled for longer than the write timeout, which
+ * also unblocks a thread stuck in the write. The connections additionally check the bytes queued
+ * for their client against the maximum backlog whenever a message is queued.
+ *
+ * <p>While a guard {@link #evicts()}, blocking connections queue their messages for a writer thread
+ * of their own instead of writing on the notifying thread, see {@link ConnectionWriter}. So a table
+ * notifying a stalled client neither waits for the write timeout nor learns about the eviction.
+ */
+final class SlowConsumerGuard implements AutoCloseable {
+  /** A guard that never evicts a connection. */
+  static final SlowConsumerGuard NONE = new SlowConsumerGuard(0, 0);
+
+  private static final Counter TIMEOUT_EVICTIONS =
+      MetricsRegistry.global()
+          .counter(
+              "server_write_timeout_evictions_total",
+              "Connections closed because a write stalled for longer than the write timeout.");
+  private static final Counter BACKLOG_EVICTIONS =
+      MetricsRegistry.global()
+          .counter(
+              "server_backlog_evictions_total",
+              "Connections closed because their outbound backlog exceeded the maximum.");
+  private static final long MIN_CHECK_MILLIS = 10;
+
+  private final long writeTimeoutNanos;
+  private final long maxBacklogBytes;
+  private final Map<Watch, Boolean> watches = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService checker;
+
+  /**
+   * Creates a guard, checking for stalled connections a few times per write timeout.
+   *
+   * @param writeTimeoutMillis the longest a connection may stay stalled, 0 for no limit
+   * @param maxBacklogBytes the most bytes a connection may have queued, 0 for no limit
+   */
+  SlowConsumerGuard(long writeTimeoutMillis, long maxBacklogBytes) {
+    if (writeTimeoutMillis < 0 || maxBacklogBytes < 0) {
+      throw new IllegalArgumentException(
+          "Invalid slow consumer limits: " + writeTimeoutMillis + ", " + maxBacklogBytes);
+    }
+    this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    this.maxBacklogBytes = maxBacklogBytes;
+    if (writeTimeoutMillis == 0) {
+      checker = null;
+      return;
+    }
+    checker =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "write-watchdog");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long period = Math.max(MIN_CHECK_MILLIS, writeTimeoutMillis / 4);
+    checker.scheduleAtFixedRate(this::evictStalled, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Watches a connection until the returned watch is cancelled.
+   *
+   * @param stalledSince returns the {@link System#nanoTime()} the connection stalled at, 0 while it
+   *     is not stalled
+   * @param evict closes the connection, must not block
+   * @return the watch, to be cancelled when the connection is closed
+   */
+  Watch watch(LongSupplier stalledSince, Runnable evict) {
+    Watch watch = new Watch(stalledSince, evict);
+    if (checker != null) {
+      watches.put(watch, Boolean.TRUE);
+    }
+    return watch;
+  }
+
+  /** Returns whether this guard evicts any connection at all. */
+  boolean evicts() {
+    return writeTimeoutNanos > 0 || maxBacklogBytes > 0;
+  }
+
+  /** Returns whether a connection with the given number of queued bytes is to be evicted. */
+  boolean exceedsBacklog(long backlogBytes) {
+    return maxBacklogBytes > 0 && backlogBytes > maxBacklogBytes;
+  }
+
+  /** Counts a connection evicted because its backlog exceeded the maximum. */
+  void backlogEvicted() {
+    BACKLOG_EVICTIONS.increment();
+  }
+
+  private void evictStalled() {
+    long now = System.nanoTime();
+    for (Watch watch : watches.keySet()) {
+      long since = watch.stalledSince.getAsLong();
+      if (since != 0 && now - since > writeTimeoutNanos) {
+        watch.cancel();
+        TIMEOUT_EVICTIONS.increment();
+        try {
+          watch.evict.run();
+        } catch (RuntimeException e) {
+          // the connection is as good as gone anyway, the others must still be checked
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (checker != null) {
+      checker.shutdownNow();
+    }
+  }
+
+  /** A watched connection. */
+  final class Watch {
+    private final LongSupplier stalledSince;
+    private final Runnable evict;
+
+    private Watch(LongSupplier stalledSince, Runnable evict) {
+      this.stalledSince = stalledSince;
+      this.evict = evict;
+    }
+
+    /** Stops watching the connection. */
+    void cancel() {
+      watches.remove(this);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package highlowcardgame.server;
+
+import highlowcardgame.communication.messages.GameStateDeltaNotification;
+import highlowcardgame.communication.messages.GameStateNotification;
+import highlowcardgame.game.Card;
+import java.util.Objects;
+
+/**
+ * The {@link GameStateDeltaNotification}s of one connection. It remembers the state the client has,
+ * so a notification only carries what changed since, and nothing is sent while nothing changed: a
+ * guess that does not close the round leaves every other player's state as it was. Every {@link
+ * #KEYFRAME_INTERVAL}-th notification is a keyframe, so a client that went wrong recovers even
+ * without asking.
+ *
+ * <p>Not thread-safe: the connection calls it under the lock ordering its writes, so the sequence
+ * numbers reach the client in order.
+ */
+final class StateDeltas {
+  /** The number of notifications from one keyframe to the next. */
+  static final int KEYFRAME_INTERVAL = 64;
+
+  // the state the client has after the last notification, null before the first
+  private GameStateNotification sent;
+  private int sequence = 0;
+  private int sinceKeyframe = 0;
+
+  /**
+   * Returns the notification bringing the client to the given state.
+   *
+   * @return the notification, or null if the client has the state already
+   */
+  GameStateDeltaNotification next(Card currentCard, int numRounds, String playerName, int score) {
+    if (sent != null
+        && Objects.equals(sent.getCurrentCard(), currentCard)
+        && sent.getNumRounds() == numRounds
+        && Objects.equals(sent.getPlayerName(), playerName)
+        && sent.getScore() == score) {
+      return null;
+    }
+    GameStateNotification next =
+        new GameStateNotification(currentCard, numRounds, playerName, score);
+    GameStateNotification previous = sinceKeyframe + 1 >= KEYFRAME_INTERVAL ? null : sent;
+    return advance(GameStateDeltaNotification.between(sequence + 1, previous, next), next);
+  }
+
+  /**
+   * Returns a keyframe of the state the client should have, for a client that missed a
+   * notification.
+   *
+   * @return the keyframe, or null if the client was not sent any state yet
+   */
+  GameStateDeltaNotification keyframe() {
+    if (sent == null) {
+      return null;
+    }
+    return advance(GameStateDeltaNotification.between(sequence + 1, null, sent), sent);
+  }
+
+  private GameStateDeltaNotification advance(
+      GameStateDeltaNotification notification, GameStateNotification state) {
+    sequence = notification.getSequence();
+    sinceKeyframe = notification.isKeyframe() ? 0 : sinceKeyframe + 1;
+    sent = state;
+    return notification;
+  }
+}
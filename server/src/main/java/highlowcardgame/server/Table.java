@@ -0,0 +1,246 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.GuessBatch;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Player;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * A single {@link HighLowCardGame} managed by a {@link TableManager}. All work on the game runs on
+ * the worker partition the table is pinned to. When the tables are sharded over worker threads, the
+ * game is only ever touched by the one thread of its partition, and tables on different partitions
+ * run in parallel. A {@link TableManager#singleTable single table} runs its work on the calling
+ * threads instead, so several may touch the game at once and it relies on the game's own locking.
+ *
+ * <p>With round deadlines, every round gets a timeout on the shared timer when it starts. If the
+ * round is still open when it expires, the table closes it on its partition.
+ *
+ * <p>With guess batching, guesses are collected in a queue any thread may add to, and a single task
+ * on the partition drains them in batches, each applied to the game with one lock acquisition and
+ * one notification of the players. The more guesses arrive while a batch is applied, the larger the
+ * next batch, so a busy table notifies its players once per batch instead of once per guess.
+ */
+public final class Table {
+  private final int id;
+  private final HighLowCardGame game;
+  private final Executor partition;
+  private final int seatCap;
+  private final RoundStats roundStats;
+  private final RoundDeadlines deadlines;
+  // null without batching, otherwise only used by the task draining the pending guesses
+  private final GuessBatch batch;
+  private final Queue<PendingGuess> pendingGuesses = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean draining = new AtomicBoolean();
+  // guarded by the owning TableManager
+  private int seatedPlayers = 0;
+  // written by the round listener while the game is locked
+  private volatile long roundStartNanos = System.nanoTime();
+  // guarded by this
+  private HashedWheelTimer.Timeout deadline;
+  private boolean closed = false;
+
+  Table(int id, HighLowCardGame game, Executor partition, int seatCap) {
+    this(id, game, partition, seatCap, new RoundStats(), null, 1);
+  }
+
+  /**
+   * Creates a table.
+   *
+   * @param roundStats records the rounds of the table
+   * @param deadlines the deadlines of the rounds, or null if rounds only end with the last guess
+   * @param maxGuessBatch the most guesses applied at once, 1 to apply every guess on its own
+   */
+  Table(
+      int id,
+      HighLowCardGame game,
+      Executor partition,
+      int seatCap,
+      RoundStats roundStats,
+      RoundDeadlines deadlines,
+      int maxGuessBatch) {
+    this.id = id;
+    this.game = game;
+    this.partition = partition;
+    this.seatCap = seatCap;
+    this.roundStats = roundStats;
+    this.deadlines = deadlines;
+    this.batch = maxGuessBatch > 1 ? new GuessBatch(maxGuessBatch) : null;
+    game.setRoundListener(this::roundStarted);
+    if (game.getState().getRound() > 0) {
+      scheduleDeadline(game.getState().getRound());
+    }
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public HighLowCardGame getGame() {
+    return game;
+  }
+
+  /** Returns the number of players seated or about to be seated at this table. */
+  public int getSeatedPlayers() {
+    return seatedPlayers;
+  }
+
+  boolean hasFreeSeat() {
+    return seatedPlayers < seatCap;
+  }
+
+  void reserveSeat() {
+    seatedPlayers++;
+  }
+
+  /** Returns whether the table is empty after releasing the seat. */
+  boolean releaseSeat() {
+    seatedPlayers--;
+    return seatedPlayers == 0;
+  }
+
+  /** Adds the player to the game. A player the game rejects is disconnected. */
+  void addPlayer(Player player) {
+    execute(
+        () -> {
+          try {
+            game.addPlayer(player);
+          } catch (AssertionError e) {
+            // the game rejects invalid or duplicate names this way
+            System.err.println(e.getMessage());
+            player.disconnected();
+          }
+        });
+  }
+
+  /**
+   * Adds a guess of the player to the game.
+   *
+   * @param player the guessing player
+   * @param guess the guess
+   * @param guessed receives the number of players that still have to guess in this round, before
+   *     the round is possibly completed by this guess
+   */
+  void guess(Player player, Guess guess, IntConsumer guessed) {
+    if (batch != null) {
+      pendingGuesses.add(new PendingGuess(player, guess, guessed));
+      if (draining.compareAndSet(false, true)) {
+        execute(this::drainGuesses);
+      }
+      return;
+    }
+    execute(
+        () -> {
+          try {
+            game.guess(player, guess, guessed);
+          } catch (NoNextCardException e) {
+            System.err.println(e);
+            player.disconnected();
+          }
+        });
+  }
+
+  /**
+   * Applies the pending guesses in batches until there are none left. A batch that fails is logged
+   * and the next one applied anyway, no guess may be left behind in the queue.
+   */
+  private void drainGuesses() {
+    do {
+      PendingGuess pending;
+      while (!batch.isFull() && (pending = pendingGuesses.poll()) != null) {
+        batch.add(pending.player, pending.guess, pending.guessed);
+      }
+      try {
+        game.guessAll(batch);
+      } catch (NoNextCardException | RuntimeException | AssertionError e) {
+        System.err.println(this + ": " + e);
+      } finally {
+        batch.clear();
+        draining.set(false);
+      }
+      // a guess added after the last poll found the drain still running and left it to this task
+    } while (!pendingGuesses.isEmpty() && draining.compareAndSet(false, true));
+  }
+
+  void removePlayer(Player player) {
+    execute(() -> game.removePlayer(player));
+  }
+
+  /** Cancels the deadline of the current round, the table is no longer played at. */
+  synchronized void close() {
+    closed = true;
+    if (deadline != null) {
+      deadline.cancel();
+    }
+  }
+
+  private void roundStarted(int round) {
+    long now = System.nanoTime();
+    if (round > 1) {
+      roundStats.recordRound(now - roundStartNanos);
+    }
+    roundStartNanos = now;
+    scheduleDeadline(round);
+  }
+
+  /** Schedules the deadline of the round, unless the round is over. */
+  private synchronized void scheduleDeadline(int round) {
+    if (deadlines == null || closed || game.getState().getRound() != round) {
+      return;
+    }
+    if (deadline != null) {
+      deadline.cancel();
+    }
+    deadline = deadlines.schedule(deadlineNanos -> execute(() -> closeRound(round, deadlineNanos)));
+  }
+
+  private void closeRound(int round, long deadlineNanos) {
+    if (game.getState().getNumPlayers() == 0) {
+      // nobody to wait for, the round keeps waiting for the first player
+      scheduleDeadline(round);
+      return;
+    }
+    try {
+      if (game.completeRound(round)) {
+        roundStats.recordTimeout(System.nanoTime() - deadlineNanos);
+      }
+    } catch (NoNextCardException e) {
+      System.err.println(this + ": " + e);
+    }
+  }
+
+  private void execute(Runnable task) {
+    partition.execute(
+        () -> {
+          try {
+            task.run();
+          } catch (RuntimeException | AssertionError e) {
+            // a failing observer must not take the partition down with the other tables on it
+            System.err.println(this + ": " + e);
+          }
+        });
+  }
+
+  /** A guess waiting to be applied with the next batch. */
+  private static final class PendingGuess {
+    private final Player player;
+    private final Guess guess;
+    private final IntConsumer guessed;
+
+    PendingGuess(Player player, Guess guess, IntConsumer guessed) {
+      this.player = player;
+      this.guess = guess;
+      this.guessed = guessed;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Table " + id + " (" + seatedPlayers + "/" + seatCap + " seats)";
+  }
+}
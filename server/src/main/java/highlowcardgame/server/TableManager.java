@@ -0,0 +1,242 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.Deck.NoNextCardException;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.Leaderboard;
+import highlowcardgame.game.Player;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Creates, fills and retires the tables of a server. Every table is pinned to one of a fixed number
+ * of single-threaded worker partitions, so independent tables no longer serialize on one game lock.
+ */
+public final class TableManager {
+  private final Supplier<HighLowCardGame> gameFactory;
+  private final int seatsPerTable;
+  private final PlacementPolicy placementPolicy;
+  private final Executor[] partitions;
+  private final List<ExecutorService> workers = new ArrayList<>();
+  private final BroadcastFrames broadcastFrames = new BroadcastFrames();
+  private final RoundStats roundStats = new RoundStats();
+  private volatile RoundDeadlines deadlines;
+  // guarded by this
+  private final List<Table> tables = new ArrayList<>();
+  private int nextTableId = 1;
+  private int maxGuessBatch = 1;
+
+  /**
+   * Creates a new table manager.
+   *
+   * @param gameFactory creates the game of every new table
+   * @param seatsPerTable the maximum number of players per table
+   * @param placementPolicy chooses the table a joining player is seated at
+   * @param workerThreads the number of worker partitions tables are pinned to
+   */
+  public TableManager(
+      Supplier<HighLowCardGame> gameFactory,
+      int seatsPerTable,
+      PlacementPolicy placementPolicy,
+      int workerThreads) {
+    this(gameFactory, seatsPerTable, placementPolicy, new Executor[workerThreads]);
+    for (int i = 0; i < workerThreads; i++) {
+      String name = "table-worker-" + i;
+      ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, name));
+      workers.add(worker);
+      partitions[i] = worker;
+    }
+  }
+
+  private TableManager(
+      Supplier<HighLowCardGame> gameFactory,
+      int seatsPerTable,
+      PlacementPolicy placementPolicy,
+      Executor[] partitions) {
+    if (seatsPerTable < 1 || partitions.length < 1) {
+      throw new IllegalArgumentException("Seats and worker threads must be positive");
+    }
+    this.gameFactory = gameFactory;
+    this.seatsPerTable = seatsPerTable;
+    this.placementPolicy = placementPolicy;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Creates a manager seating all players at a single table, like a server without tables. All work
+   * runs on the calling thread.
+   *
+   * @param gameFactory creates the game of the table, once the first player joins
+   */
+  public static TableManager singleTable(Supplier<HighLowCardGame> gameFactory) {
+    return new TableManager(
+        gameFactory,
+        Integer.MAX_VALUE,
+        PlacementPolicy.fillFirst(),
+        new Executor[] {Runnable::run});
+  }
+
+  /**
+   * Creates a manager with the given, already started game as its only table. All work runs on the
+   * calling thread.
+   */
+  static TableManager forGame(HighLowCardGame game) {
+    TableManager manager = singleTable(() -> game);
+    manager.tables.add(
+        new Table(
+            manager.nextTableId++,
+            game,
+            manager.partitions[0],
+            Integer.MAX_VALUE,
+            manager.roundStats,
+            null,
+            1));
+    return manager;
+  }
+
+  /**
+   * Seats the player at a table chosen by the placement policy, opening a new table if needed.
+   *
+   * @param player the joining player
+   * @return the table the player was seated at
+   * @throws NoNextCardException if the game of a new table cannot be started
+   */
+  public Table join(Player player) throws NoNextCardException {
+    Table table;
+    synchronized (this) {
+      List<Table> openTables = new ArrayList<>();
+      for (Table t : tables) {
+        if (t.hasFreeSeat()) {
+          openTables.add(t);
+        }
+      }
+      table = placementPolicy.place(openTables);
+      if (table == null) {
+        table = openTable();
+      }
+      table.reserveSeat();
+    }
+    table.addPlayer(player);
+    return table;
+  }
+
+  private Table openTable() throws NoNextCardException {
+    HighLowCardGame game = gameFactory.get();
+    game.start();
+    int id = nextTableId++;
+    Table table =
+        new Table(
+            id,
+            game,
+            partitions[id % partitions.length],
+            seatsPerTable,
+            roundStats,
+            deadlines,
+            maxGuessBatch);
+    tables.add(table);
+    return table;
+  }
+
+  /**
+   * Removes the player from the table. Empty tables are retired, except for the last one, which
+   * stays open for the next player.
+   */
+  public void leave(Player player, Table table) {
+    table.removePlayer(player);
+    synchronized (this) {
+      if (table.releaseSeat() && tables.size() > 1) {
+        tables.remove(table);
+        table.close();
+      }
+    }
+  }
+
+  /** Returns the frames of recent events of all tables, shared by their connections. */
+  BroadcastFrames getBroadcastFrames() {
+    return broadcastFrames;
+  }
+
+  /** Returns a snapshot of all open tables. */
+  public synchronized List<Table> getTables() {
+    return List.copyOf(tables);
+  }
+
+  /**
+   * Returns the first players of all tables in the order of their rank, at most the given number.
+   * It is merged from the top of every table's leaderboard, which is maintained as the scores
+   * change, so it costs O(T K log(T K)) for T tables instead of sorting the scores of all players.
+   */
+  public List<Leaderboard.Entry> getLeaderboard(int count) {
+    return Leaderboard.topOf(leaderboards(), count);
+  }
+
+  /** Returns the rank of the score among the players of all tables. */
+  public int getRank(int score) {
+    return Leaderboard.rankAmong(leaderboards(), score);
+  }
+
+  private List<Leaderboard> leaderboards() {
+    List<Leaderboard> leaderboards = new ArrayList<>();
+    for (Table table : getTables()) {
+      leaderboards.add(table.getGame().getState().getLeaderboard());
+    }
+    return leaderboards;
+  }
+
+  /**
+   * Gives every round of the tables opened from now on a deadline. Rounds still open when their
+   * deadline expires are closed, with the players who did not guess scored as wrong, so idle
+   * players cannot stall their table. The deadlines of all tables share one timer thread.
+   *
+   * @param timeout the time the players of a round have to guess
+   * @throws IllegalStateException if the round timeout was set before
+   */
+  public synchronized void setRoundTimeout(Duration timeout) {
+    if (deadlines != null) {
+      throw new IllegalStateException("The round timeout is already set");
+    }
+    deadlines = new RoundDeadlines(timeout);
+  }
+
+  /**
+   * Applies the guesses at the tables opened from now on in batches of up to the given size, each
+   * with a single notification of the players. See {@link Table}. A manager running all work on the
+   * calling threads gets a worker thread for its tables, as the thread draining the guesses of a
+   * busy table would not get back to its own connections otherwise.
+   *
+   * @param maxBatch the most guesses applied at once, 1 to apply every guess on its own
+   */
+  public synchronized void setGuessBatching(int maxBatch) {
+    if (maxBatch < 1) {
+      throw new IllegalArgumentException("The batch size must be positive: " + maxBatch);
+    }
+    maxGuessBatch = maxBatch;
+    if (maxBatch > 1 && workers.isEmpty()) {
+      ExecutorService worker =
+          Executors.newSingleThreadExecutor(r -> new Thread(r, "table-worker-0"));
+      workers.add(worker);
+      Arrays.fill(partitions, worker);
+    }
+  }
+
+  /** Returns the counters of the rounds of all tables. */
+  public RoundStats getRoundStats() {
+    return roundStats;
+  }
+
+  /** Stops the worker partitions and the round timer. */
+  public void shutdown() {
+    for (ExecutorService worker : workers) {
+      worker.shutdownNow();
+    }
+    RoundDeadlines current = deadlines;
+    if (current != null) {
+      current.stop();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package highlowcardgame.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the thread-per-connection mode with the virtual-thread mode of {@link Server}.
+ *
+ * <p>For every mode and connection count, the benchmark opens that many idle loopback connections
+ * (each parks one connection handler on the server) and then lets a small number of active players
+ * play rounds next to them. It reports connect throughput, live threads, resident memory and the
+ * guess round-trip latency of the active players. Run it with {@code ./gradlew
+ * :server:connectionBenchmark -Pconnections=1000,10000,50000}; large counts need a raised {@code
+ * ulimit -n}.
+ */
+public final class ConnectionModeBenchmark {
+  private static final int ACTIVE_PLAYERS = 8;
+  private static final int ROUNDS = 50;
+  // the loopback range offers ~28k ephemeral ports per source address, so spread the sources
+  private static final int CONNECTIONS_PER_SOURCE_ADDRESS = 20_000;
+
+  private ConnectionModeBenchmark() {}
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args the connection counts to measure, defaults to 1000, 10000 and 50000
+   */
+  public static void main(String[] args) throws Exception {
+    List<Integer> counts = new ArrayList<>();
+    for (String arg : args.length == 0 ? new String[] {"1000", "10000", "50000"} : args) {
+      counts.add(Integer.parseInt(arg.trim()));
+    }
+    System.out.println(
+        "mode      connections  connect/s  threads  rss(MiB)  guess p50(us)  guess p99(us)");
+    for (int count : counts) {
+      for (String mode : List.of("platform", "virtual")) {
+        System.out.println(run(mode, count));
+      }
+    }
+  }
+
+  private static String run(String mode, int connections) throws Exception {
+    ExecutorService executor =
+        "virtual".equals(mode) ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    Server server = executor == null ? new Server() : new Server(executor);
+    ServerSocket serverSocket = new ServerSocket(0, 4096, InetAddress.getLoopbackAddress());
+    Thread acceptor =
+        new Thread(
+            () -> {
+              try {
+                server.start(serverSocket);
+              } catch (IOException e) {
+                System.err.println(e);
+              }
+            });
+    acceptor.start();
+
+    List<Socket> idle = new ArrayList<>(connections);
+    String result;
+    try {
+      long connectStart = System.nanoTime();
+      for (int i = 0; i < connections; i++) {
+        idle.add(connect(serverSocket.getLocalPort(), i));
+      }
+      double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+      // let the server pick up every connection before sampling threads and memory
+      Thread.sleep(1000);
+      int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+      long rss = residentSetSizeMib();
+      long[] latencies = playRounds(serverSocket.getLocalPort(), connections);
+      result =
+          String.format(
+              "%-9s %11d %10.0f %8d %9d %14d %14d",
+              mode,
+              connections,
+              connections / connectSeconds,
+              threads,
+              rss,
+              percentile(latencies, 0.50),
+              percentile(latencies, 0.99));
+    } catch (IOException | OutOfMemoryError e) {
+      result =
+          String.format(
+              "%-9s %11d  failed after %d connections: %s", mode, connections, idle.size(), e);
+    } finally {
+      for (Socket socket : idle) {
+        socket.close();
+      }
+      serverSocket.close();
+      acceptor.join(TimeUnit.SECONDS.toMillis(10));
+      if (executor != null) {
+        executor.shutdown();
+      }
+      System.gc();
+    }
+    return result;
+  }
+
+  private static Socket connect(int port, int index) throws IOException {
+    Socket socket = new Socket();
+    socket.setTcpNoDelay(true);
+    int source = 1 + index / CONNECTIONS_PER_SOURCE_ADDRESS;
+    socket.bind(new InetSocketAddress("127.0.0." + source, 0));
+    socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    return socket;
+  }
+
+  private static long[] playRounds(int port, int offset) throws Exception {
+    ExecutorService players = Executors.newFixedThreadPool(ACTIVE_PLAYERS);
+    try {
+      List<Future<long[]>> results = new ArrayList<>();
+      for (int i = 0; i < ACTIVE_PLAYERS; i++) {
+        Socket socket = connect(port, offset + i);
+        String name = "Bench_" + i;
+        results.add(players.submit(() -> play(socket, name)));
+      }
+      long[] latencies = new long[ACTIVE_PLAYERS * ROUNDS];
+      for (int i = 0; i < ACTIVE_PLAYERS; i++) {
+        System.arraycopy(results.get(i).get(), 0, latencies, i * ROUNDS, ROUNDS);
+      }
+      Arrays.sort(latencies);
+      return latencies;
+    } finally {
+      players.shutdownNow();
+    }
+  }
+
+  private static long[] play(Socket socket, String name) throws IOException {
+    try (socket) {
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      BufferedReader in =
+          new BufferedReader(
+              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      out.println("{\"messageType\":\"JoinGameRequest\",\"playerName\":\"" + name + "\"}");
+      String guess =
+          "{\"messageType\":\"GuessRequest\",\"guess\":\"HIGH\",\"playerName\":\"" + name + "\"}";
+      long[] latencies = new long[ROUNDS];
+      for (int round = 0; round < ROUNDS; round++) {
+        long start = System.nanoTime();
+        out.println(guess);
+        String line;
+        do {
+          line = in.readLine();
+          if (line == null) {
+            throw new IOException("Server closed the connection of " + name);
+          }
+        } while (!line.contains("PlayerGuessedNotification"));
+        latencies[round] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+      }
+      return latencies;
+    }
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))];
+  }
+
+  private static long residentSetSizeMib() {
+    try {
+      for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+        if (line.startsWith("VmRSS:")) {
+          return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+        }
+      }
+    } catch (IOException e) {
+      // not on Linux, fall through
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,47 @@
+package highlowcardgame.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Player;
+import highlowcardgame.game.SplittableRandomDeck;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+// a restarted server must continue the journaled games, also before their first snapshot
+@Timeout(10)
+public class GamePersistenceTest {
+  private static final Supplier<HighLowCardGame> NEW_GAME =
+      () -> new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1));
+
+  @Test
+  public void testJournalWithoutSnapshotIsResumed(@TempDir Path journals) throws Exception {
+    try (GamePersistence persistence = new GamePersistence(journals, 10, null, 0)) {
+      HighLowCardGame game = persistence.persist(NEW_GAME).get();
+      game.start();
+      Player[] players = {new NamedPlayer("alice"), new NamedPlayer("bob")};
+      for (Player player : players) {
+        game.addPlayer(player);
+      }
+      for (int round = 0; round < 3; round++) {
+        for (Player player : players) {
+          game.guess(player, Guess.HIGH);
+        }
+      }
+      assertEquals(4, game.getState().getRound());
+    }
+
+    try (GamePersistence persistence = new GamePersistence(journals, 10, null, 0)) {
+      HighLowCardGame resumed = persistence.persist(NEW_GAME).get();
+      assertEquals(4, resumed.getState().getRound());
+      assertEquals(2, resumed.getState().getNumPlayers());
+      // a new game opens a journal of its own
+      assertEquals(0, persistence.persist(NEW_GAME).get().getState().getRound());
+    }
+  }
+}
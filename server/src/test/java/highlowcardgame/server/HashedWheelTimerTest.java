@@ -0,0 +1,79 @@
+package highlowcardgame.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(10)
+public class HashedWheelTimerTest {
+
+  @Test
+  public void testTimeoutsExpireNotBeforeTheirDeadline() throws InterruptedException {
+    // a small wheel, so most timeouts wait for several turns
+    HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, "test-timer");
+    try {
+      int count = 1000;
+      CountDownLatch expired = new CountDownLatch(count);
+      AtomicInteger early = new AtomicInteger();
+      for (int i = 0; i < count; i++) {
+        long delayMillis = i % 50;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        timer.schedule(
+            () -> {
+              if (System.nanoTime() < deadline) {
+                early.incrementAndGet();
+              }
+              expired.countDown();
+            },
+            delayMillis,
+            TimeUnit.MILLISECONDS);
+      }
+      assertTrue(expired.await(5, TimeUnit.SECONDS));
+      assertEquals(0, early.get());
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Test
+  public void testCancelledTimeoutsDoNotRun() throws InterruptedException {
+    HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, "test-timer");
+    try {
+      AtomicBoolean ran = new AtomicBoolean();
+      HashedWheelTimer.Timeout cancelled =
+          timer.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+      CountDownLatch later = new CountDownLatch(1);
+      timer.schedule(later::countDown, 40, TimeUnit.MILLISECONDS);
+      cancelled.cancel();
+      assertTrue(later.await(5, TimeUnit.SECONDS));
+      assertFalse(ran.get());
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Test
+  public void testFailingTaskDoesNotStopTheTimer() throws InterruptedException {
+    HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, "test-timer");
+    try {
+      timer.schedule(
+          () -> {
+            throw new IllegalStateException("expected by the test");
+          },
+          1,
+          TimeUnit.MILLISECONDS);
+      CountDownLatch later = new CountDownLatch(1);
+      timer.schedule(later::countDown, 10, TimeUnit.MILLISECONDS);
+      assertTrue(later.await(5, TimeUnit.SECONDS));
+    } finally {
+      timer.stop();
+    }
+  }
+}
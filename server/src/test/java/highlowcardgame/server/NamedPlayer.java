@@ -0,0 +1,27 @@
+package highlowcardgame.server;
+
+import highlowcardgame.game.GameState;
+import highlowcardgame.game.Player;
+
+// for easier testing, a player that only has a name and ignores all notifications
+class NamedPlayer implements Player {
+  private final String name;
+
+  NamedPlayer(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void updateState(GameState state) {}
+
+  @Override
+  public void updateNewPlayer(String playerName, GameState state) {}
+
+  @Override
+  public void updateRemovedPlayer(String playerName, GameState state) {}
+}
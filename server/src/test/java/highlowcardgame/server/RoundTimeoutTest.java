@@ -0,0 +1,76 @@
+package highlowcardgame.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Player;
+import highlowcardgame.game.SplittableRandomDeck;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(10)
+public class RoundTimeoutTest {
+
+  private static void awaitRound(HighLowCardGame game, int round) throws InterruptedException {
+    while (game.getState().getRound() < round) {
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void testIdlePlayerDoesNotStallTheTable() throws Exception {
+    TableManager tables =
+        new TableManager(
+            () -> new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1)),
+            4,
+            PlacementPolicy.fillFirst(),
+            1);
+    tables.setRoundTimeout(Duration.ofMillis(50));
+    try {
+      Player active = new NamedPlayer("active");
+      Player idle = new NamedPlayer("idle");
+      Table table = tables.join(active);
+      tables.join(idle);
+      HighLowCardGame game = table.getGame();
+      table.guess(active, Guess.HIGH, numNotGuessedPlayers -> {});
+
+      awaitRound(game, 4);
+      // the timeout of a round is counted after the next round started
+      RoundStats stats = tables.getRoundStats();
+      assertTrue(stats.getRounds() >= 3, stats.toString());
+      assertTrue(stats.getTimedOutRounds() >= 2, stats.toString());
+      // the idle player never guessed and scored nothing
+      assertEquals(0, game.getState().getScores().get(idle).get());
+    } finally {
+      tables.shutdown();
+    }
+  }
+
+  @Test
+  public void testRoundsEndingWithTheLastGuessDoNotTimeOut() throws Exception {
+    TableManager tables =
+        new TableManager(
+            () -> new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1)),
+            4,
+            PlacementPolicy.fillFirst(),
+            1);
+    tables.setRoundTimeout(Duration.ofSeconds(30));
+    try {
+      Player player = new NamedPlayer("alice");
+      Table table = tables.join(player);
+      for (int round = 1; round <= 5; round++) {
+        awaitRound(table.getGame(), round);
+        table.guess(player, Guess.LOW, numNotGuessedPlayers -> {});
+      }
+      awaitRound(table.getGame(), 6);
+      assertEquals(5, tables.getRoundStats().getRounds());
+      assertEquals(0, tables.getRoundStats().getTimedOutRounds());
+    } finally {
+      tables.shutdown();
+    }
+  }
+}
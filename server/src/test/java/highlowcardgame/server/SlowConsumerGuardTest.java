@@ -0,0 +1,224 @@
+package highlowcardgame.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.communication.messages.GuessRequest;
+import highlowcardgame.communication.messages.HandleJson;
+import highlowcardgame.communication.messages.JoinGameRequest;
+import highlowcardgame.communication.messages.Message;
+import highlowcardgame.communication.messages.PlayerGuessedNotification;
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.SplittableRandomDeck;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+// connections stalled for longer than the write timeout must be closed, the others left alone
+@Timeout(10)
+public class SlowConsumerGuardTest {
+
+  /** A stream whose writes block like those to a client that stopped reading, until closed. */
+  private static final class StalledStream extends OutputStream {
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        closed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IOException("Stream closed");
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+  }
+
+  /** A stream decoding the lines written to it, like a client that reads everything. */
+  private static final class ReadingStream extends OutputStream {
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final BlockingQueue<Message> received;
+
+    ReadingStream(BlockingQueue<Message> received) {
+      this.received = received;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (b != '\n') {
+        line.write(b);
+        return;
+      }
+      received.add(HandleJson.decode(line.toString(StandardCharsets.UTF_8).strip()));
+      line.reset();
+    }
+  }
+
+  /** A client on a mock socket, which sends its requests through a pipe. */
+  private static final class Client {
+    private final PipedOutputStream requests = new PipedOutputStream();
+    private final BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+    private final Socket socket;
+
+    Client(boolean stalled) throws IOException {
+      OutputStream responses = stalled ? new StalledStream() : new ReadingStream(received);
+      socket =
+          new MockSocket(new PipedInputStream(requests), responses) {
+            @Override
+            public void close() {
+              super.close();
+              // ends the read of the connection like a closed socket
+              try {
+                requests.close();
+                responses.close();
+              } catch (IOException e) {
+                throw new AssertionError(e);
+              }
+            }
+          };
+    }
+
+    void connect(TableManager tables, SlowConsumerGuard guard, String playerName)
+        throws IOException {
+      Thread thread = new Thread(new PlayerConnection(socket, tables, new OutboundStats(), guard));
+      thread.setDaemon(true);
+      thread.start();
+      send(new JoinGameRequest(playerName));
+    }
+
+    void send(Message message) throws IOException {
+      requests.write((HandleJson.encode(message) + "\n").getBytes(StandardCharsets.UTF_8));
+      requests.flush();
+    }
+
+    PlayerGuessedNotification awaitGuessed() throws InterruptedException {
+      while (true) {
+        Message message = received.take();
+        if (message instanceof PlayerGuessedNotification) {
+          return (PlayerGuessedNotification) message;
+        }
+      }
+    }
+  }
+
+  private static HighLowCardGame startedGame() throws Exception {
+    HighLowCardGame game =
+        new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1));
+    game.start();
+    return game;
+  }
+
+  private static void awaitSeated(HighLowCardGame game, String playerName, boolean seated)
+      throws InterruptedException {
+    while (game.getState().hasPlayerNamed(playerName) != seated) {
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void testStalledClientDoesNotHoldUpItsTable() throws Exception {
+    HighLowCardGame game = startedGame();
+    TableManager tables = TableManager.forGame(game);
+    Client stalled = new Client(true);
+    Client healthy = new Client(false);
+    try (SlowConsumerGuard guard = new SlowConsumerGuard(60_000, 0)) {
+      stalled.connect(tables, guard, "stalled");
+      awaitSeated(game, "stalled", true);
+      healthy.connect(tables, guard, "healthy");
+      healthy.send(new GuessRequest(Guess.HIGH, "healthy"));
+
+      // the game notifies the stalled client synchronously, and must not wait for its write
+      assertEquals(1, healthy.awaitGuessed().getNumNotGuessedPlayers());
+      assertTrue(game.getState().hasPlayerNamed("stalled"));
+    } finally {
+      stalled.socket.close();
+      healthy.socket.close();
+    }
+  }
+
+  @Test
+  public void testEvictedClientDoesNotTakeOthersAlong() throws Exception {
+    HighLowCardGame game = startedGame();
+    TableManager tables = TableManager.forGame(game);
+    Client stalled = new Client(true);
+    Client healthy = new Client(false);
+    try (SlowConsumerGuard guard = new SlowConsumerGuard(50, 0)) {
+      stalled.connect(tables, guard, "stalled");
+      awaitSeated(game, "stalled", true);
+      healthy.connect(tables, guard, "healthy");
+      awaitSeated(game, "healthy", true);
+      awaitSeated(game, "stalled", false);
+      healthy.send(new GuessRequest(Guess.HIGH, "healthy"));
+
+      assertEquals(0, healthy.awaitGuessed().getNumNotGuessedPlayers());
+      assertTrue(game.getState().hasPlayerNamed("healthy"));
+      assertTrue(stalled.socket.isClosed());
+    } finally {
+      stalled.socket.close();
+      healthy.socket.close();
+    }
+  }
+
+  @Test
+  public void testStalledConnectionIsEvicted() throws Exception {
+    try (SlowConsumerGuard guard = new SlowConsumerGuard(50, 0)) {
+      CountDownLatch stalledEvicted = new CountDownLatch(1);
+      CountDownLatch healthyEvicted = new CountDownLatch(1);
+      long stalledSince = System.nanoTime();
+      guard.watch(() -> stalledSince, stalledEvicted::countDown);
+      guard.watch(() -> 0, healthyEvicted::countDown);
+
+      assertTrue(stalledEvicted.await(5, TimeUnit.SECONDS));
+      assertFalse(healthyEvicted.await(200, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @Test
+  public void testCancelledWatchIsNotEvicted() throws Exception {
+    try (SlowConsumerGuard guard = new SlowConsumerGuard(50, 0)) {
+      CountDownLatch evicted = new CountDownLatch(1);
+      long stalledSince = System.nanoTime();
+      guard.watch(() -> stalledSince, evicted::countDown).cancel();
+
+      assertFalse(evicted.await(200, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @Test
+  public void testBlockedWriteIsUnblockedByTheEviction() throws Exception {
+    StalledStream stream = new StalledStream();
+    ConnectionWriter writer = new ConnectionWriter(stream, new OutboundStats());
+    try (SlowConsumerGuard guard = new SlowConsumerGuard(50, 0)) {
+      guard.watch(writer::stalledSince, stream::close);
+
+      assertThrows(IOException.class, () -> writer.send(new PlayerGuessedNotification(1, "alice")));
+      assertEquals(0, writer.stalledSince());
+    }
+  }
+
+  @Test
+  public void testBacklogLimit() {
+    SlowConsumerGuard guard = new SlowConsumerGuard(0, 1024);
+    assertFalse(guard.exceedsBacklog(1024));
+    assertTrue(guard.exceedsBacklog(1025));
+    assertFalse(SlowConsumerGuard.NONE.exceedsBacklog(Long.MAX_VALUE));
+  }
+}
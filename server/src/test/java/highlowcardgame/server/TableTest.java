@@ -0,0 +1,48 @@
+package highlowcardgame.server;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import highlowcardgame.game.Card;
+import highlowcardgame.game.HighLowCardGame;
+import highlowcardgame.game.HighLowCardGame.Guess;
+import highlowcardgame.game.Player;
+import highlowcardgame.game.SplittableRandomDeck;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+// a batch of guesses that fails must not strand the guesses queued behind it
+@Timeout(10)
+public class TableTest {
+
+  @Test
+  public void testFailingBatchDoesNotStrandTheNextOne() throws Exception {
+    HighLowCardGame game =
+        new HighLowCardGame(new SplittableRandomDeck(Card.getAllValidCards(), 1));
+    game.start();
+    Player[] players = new Player[4];
+    for (int i = 0; i < players.length; i++) {
+      players[i] = new NamedPlayer("p" + i);
+      game.addPlayer(players[i]);
+    }
+    Queue<Runnable> partition = new ArrayDeque<>();
+    Table table = new Table(1, game, partition::add, players.length, new RoundStats(), null, 2);
+
+    table.guess(
+        players[0],
+        Guess.HIGH,
+        remaining -> {
+          throw new IllegalStateException("broken acknowledgement");
+        });
+    table.guess(players[1], Guess.HIGH, remaining -> {});
+    table.guess(players[2], Guess.LOW, remaining -> {});
+    // all three guesses are drained by the one task
+    partition.remove().run();
+
+    assertTrue(partition.isEmpty());
+    assertTrue(game.getState().hasGuessed(players[2]));
+    assertFalse(game.getState().hasGuessed(players[3]));
+  }
+}